@@ -0,0 +1,65 @@
+package de.westnordost.osmapi.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import de.westnordost.osmapi.ApiResponseReader;
+import de.westnordost.osmapi.OsmConnection;
+
+/** Many threads making requests through one shared OsmConnection. The transport answers
+ *  immediately, so what is measured is the overhead of the connection per request, including
+ *  any contention on its settings. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(64)
+@Fork(1)
+public class ConnectionContentionBenchmark
+{
+	private OsmConnection osm;
+
+	private final ApiResponseReader<Integer> reader = new ApiResponseReader<Integer>()
+	{
+		@Override
+		public Integer parse(InputStream in) throws Exception
+		{
+			return in.read();
+		}
+	};
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception
+	{
+		osm = new OsmConnection("https://api.openstreetmap.org/api/0.6/", "osmapi benchmark",
+				"token", null, new InMemoryTransport("<osm/>".getBytes("UTF-8")));
+	}
+
+	/** what the data access objects do for each request */
+	@Benchmark
+	public Integer makeRequest()
+	{
+		boolean authenticate = osm.getOAuthAccessToken() != null;
+		return osm.makeRequest("node/1", authenticate, reader);
+	}
+
+	@Benchmark
+	public String readSettings()
+	{
+		return osm.getApiUrl() + osm.getUserAgent() + osm.getTimeout() + osm.getOAuthAccessToken();
+	}
+}
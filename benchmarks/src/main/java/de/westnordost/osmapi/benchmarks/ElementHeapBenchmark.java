@@ -0,0 +1,156 @@
+package de.westnordost.osmapi.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import de.westnordost.osmapi.changesets.Changeset;
+import de.westnordost.osmapi.map.MapDataParser;
+import de.westnordost.osmapi.map.OsmMapDataFactory;
+import de.westnordost.osmapi.map.data.BoundingBox;
+import de.westnordost.osmapi.map.data.Element;
+import de.westnordost.osmapi.map.data.Node;
+import de.westnordost.osmapi.map.data.Relation;
+import de.westnordost.osmapi.map.data.RelationMember;
+import de.westnordost.osmapi.map.data.Way;
+import de.westnordost.osmapi.map.handler.MapDataHandler;
+
+/** Heap taken by the elements parsed from a large response of the map call, reported as
+ *  bytesPerMillionElements. "compact" are the elements as created by the MapDataParser, "hashMap"
+ *  the same elements with their tags copied into HashMaps of distinct strings, as it was before
+ *  tags were deduplicated. The generated responses have few distinct tags, so for real map data
+ *  with many distinct names, the difference is smaller */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx3g"})
+public class ElementHeapBenchmark
+{
+	/** approximate size of the response in megabytes */
+	@Param({"50"})
+	public int megabytes;
+
+	@Param({"compact", "hashMap"})
+	public String tags;
+
+	private byte[] response;
+	private OsmMapDataFactory factory;
+
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	@State(Scope.Thread)
+	public static class Heap
+	{
+		public long bytesPerMillionElements;
+	}
+
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		response = MapDataResponses.create(megabytes * 1024 * 1024);
+		factory = tags.equals("compact") ? new OsmMapDataFactory() : new HashMapTagsFactory();
+	}
+
+	@Benchmark
+	public List<Element> parseAndKeep(Heap heap) throws IOException
+	{
+		long before = usedHeap();
+		ElementsHandler handler = new ElementsHandler();
+		new MapDataParser(handler, factory).parse(new ByteArrayInputStream(response));
+		long after = usedHeap();
+		heap.bytesPerMillionElements = (after - before) * 1000000 / handler.elements.size();
+		return handler.elements;
+	}
+
+	private static long usedHeap()
+	{
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 4; ++i)
+		{
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private static class ElementsHandler implements MapDataHandler
+	{
+		final List<Element> elements = new ArrayList<>();
+
+		@Override
+		public void handle(BoundingBox bounds) {}
+
+		@Override
+		public void handle(Node node)
+		{
+			elements.add(node);
+		}
+
+		@Override
+		public void handle(Way way)
+		{
+			elements.add(way);
+		}
+
+		@Override
+		public void handle(Relation relation)
+		{
+			elements.add(relation);
+		}
+	}
+
+	/** Creates the elements with their tags in HashMaps of distinct strings */
+	private static class HashMapTagsFactory extends OsmMapDataFactory
+	{
+		@Override
+		public Node createNode(long id, int version, Double lat, Double lon, Map<String, String> tags,
+				Changeset changeset, Instant editedAt)
+		{
+			return super.createNode(id, version, lat, lon, copy(tags), changeset, editedAt);
+		}
+
+		@Override
+		public Way createWay(long id, int version, List<Long> nodes, Map<String, String> tags,
+				Changeset changeset, Instant editedAt)
+		{
+			return super.createWay(id, version, nodes, copy(tags), changeset, editedAt);
+		}
+
+		@Override
+		public Relation createRelation(long id, int version, List<RelationMember> members,
+				Map<String, String> tags, Changeset changeset, Instant editedAt)
+		{
+			return super.createRelation(id, version, members, copy(tags), changeset, editedAt);
+		}
+
+		private static Map<String, String> copy(Map<String, String> tags)
+		{
+			Map<String, String> result = new HashMap<>();
+			if(tags == null) return result;
+			for (Map.Entry<String, String> tag : tags.entrySet())
+			{
+				result.put(new String(tag.getKey()), new String(tag.getValue()));
+			}
+			return result;
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package de.westnordost.osmapi.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import de.westnordost.osmapi.OsmConnection;
+import de.westnordost.osmapi.VirtualThreadOsmExecutor;
+import de.westnordost.osmapi.map.MapDataApi;
+import de.westnordost.osmapi.map.data.Node;
+import de.westnordost.osmapi.transport.UrlConnectionTransport;
+
+/** Fetching many single nodes concurrently: one platform thread per call vs. the
+ *  VirtualThreadOsmExecutor (which runs on virtual threads if the JVM supports it) */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FanOutBenchmark
+{
+	private static final String NODE_RESPONSE =
+			"<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+			"<osm version=\"0.6\" generator=\"benchmark\">" +
+			"<node id=\"1\" visible=\"true\" version=\"3\" changeset=\"123\" " +
+			"timestamp=\"2020-01-01T12:00:00Z\" user=\"someone\" uid=\"42\" lat=\"52.5\" lon=\"13.4\">" +
+			"<tag k=\"amenity\" v=\"bench\"/>" +
+			"</node>" +
+			"</osm>";
+
+	/** number of calls per batch */
+	@Param({"500"})
+	public int calls;
+
+	/** simulated server latency */
+	@Param({"20"})
+	public long latencyMillis;
+
+	@Param({"64"})
+	public int maxConcurrentCalls;
+
+	private LocalApiServer server;
+	private MapDataApi api;
+	private VirtualThreadOsmExecutor executor;
+	private List<Long> ids;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException
+	{
+		server = new LocalApiServer(NODE_RESPONSE.getBytes("UTF-8"), latencyMillis);
+		OsmConnection osm = new OsmConnection(server.getApiUrl(), "osmapi benchmark", null, null,
+				new UrlConnectionTransport(maxConcurrentCalls));
+		api = new MapDataApi(osm);
+		executor = new VirtualThreadOsmExecutor(osm, maxConcurrentCalls);
+		ids = new ArrayList<>(calls);
+		for (long i = 1; i <= calls; ++i) ids.add(i);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown()
+	{
+		executor.close();
+		server.stop();
+	}
+
+	@Benchmark
+	public List<Node> threadPerCall() throws InterruptedException
+	{
+		final List<Node> result = new ArrayList<>(ids.size());
+		List<Thread> threads = new ArrayList<>(ids.size());
+		for (final Long id : ids)
+		{
+			Thread thread = new Thread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					Node node = api.getNode(id);
+					synchronized(result)
+					{
+						result.add(node);
+					}
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		for (Thread thread : threads)
+		{
+			thread.join();
+		}
+		return result;
+	}
+
+	@Benchmark
+	public List<Node> virtualThreadOsmExecutor()
+	{
+		return executor.invokeAll(ids, new Function<Long, Node>()
+		{
+			@Override
+			public Node apply(Long id)
+			{
+				return api.getNode(id);
+			}
+		});
+	}
+}
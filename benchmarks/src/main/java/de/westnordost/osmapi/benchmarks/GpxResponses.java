@@ -0,0 +1,50 @@
+package de.westnordost.osmapi.benchmarks;
+
+import java.io.UnsupportedEncodingException;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Random;
+
+/** Generates GPX tracks of a given size as returned by the trackpoints call */
+public class GpxResponses
+{
+	public static byte[] create(int approximateBytes)
+	{
+		Random random = new Random(42);
+		StringBuilder xml = new StringBuilder(approximateBytes + 4096);
+		xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		xml.append("<gpx version=\"1.0\" creator=\"OpenStreetMap.org\" xmlns=\"http://www.topografix.com/GPX/1/0\">\n");
+		xml.append("  <trk>\n");
+		xml.append("    <name>Track 1</name>\n");
+		double lat = 52.5, lon = 13.3;
+		long time = 1500000000;
+		while(xml.length() < approximateBytes)
+		{
+			xml.append("    <trkseg>\n");
+			int points = 100 + random.nextInt(1000);
+			for (int i = 0; i < points && xml.length() < approximateBytes; ++i)
+			{
+				lat += (random.nextInt(200) - 100) / 1e7;
+				lon += (random.nextInt(200) - 100) / 1e7;
+				time += 1 + random.nextInt(3);
+				xml.append("      <trkpt lat=\"").append(String.format(Locale.US, "%.7f", lat))
+						.append("\" lon=\"").append(String.format(Locale.US, "%.7f", lon)).append("\">\n");
+				xml.append("        <ele>").append(30 + random.nextInt(1000) / 10.0).append("</ele>\n");
+				xml.append("        <time>").append(Instant.ofEpochSecond(time)).append("</time>\n");
+				xml.append("      </trkpt>\n");
+			}
+			xml.append("    </trkseg>\n");
+		}
+		xml.append("  </trk>\n");
+		xml.append("</gpx>\n");
+
+		try
+		{
+			return xml.toString().getBytes("UTF-8");
+		}
+		catch(UnsupportedEncodingException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+}
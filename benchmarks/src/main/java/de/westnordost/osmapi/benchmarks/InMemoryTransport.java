@@ -0,0 +1,66 @@
+package de.westnordost.osmapi.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+import de.westnordost.osmapi.transport.HttpRequest;
+import de.westnordost.osmapi.transport.HttpResponse;
+import de.westnordost.osmapi.transport.HttpTransport;
+
+/** Transport that answers every request immediately with a fixed response without any I/O, so
+ *  that the overhead of the OsmConnection itself can be measured */
+public class InMemoryTransport implements HttpTransport
+{
+	private final byte[] body;
+
+	public InMemoryTransport(byte[] body)
+	{
+		this.body = body;
+	}
+
+	@Override
+	public HttpResponse execute(HttpRequest request)
+	{
+		return new HttpResponse()
+		{
+			@Override
+			public int getResponseCode()
+			{
+				return 200;
+			}
+
+			@Override
+			public String getResponseMessage()
+			{
+				return "OK";
+			}
+
+			@Override
+			public String getHeader(String name)
+			{
+				return null;
+			}
+
+			@Override
+			public InputStream getInputStream()
+			{
+				return new ByteArrayInputStream(body);
+			}
+
+			@Override
+			public InputStream getErrorStream()
+			{
+				return null;
+			}
+
+			@Override
+			public long getConnectTime()
+			{
+				return -1;
+			}
+
+			@Override
+			public void close() {}
+		};
+	}
+}
@@ -0,0 +1,95 @@
+package de.westnordost.osmapi.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import de.westnordost.osmapi.map.changes.MapDataChangesWriter;
+import de.westnordost.osmapi.map.data.Element;
+import de.westnordost.osmapi.map.data.OsmLatLon;
+import de.westnordost.osmapi.map.data.OsmNode;
+import de.westnordost.osmapi.traces.GpsTrackpoint;
+import de.westnordost.osmapi.traces.GpxTrackWriter;
+import de.westnordost.osmapi.xml.Utf8WriterBackend;
+import de.westnordost.osmapi.xml.XmlBackends;
+import de.westnordost.osmapi.xml.XmlPullBackend;
+
+/** Serializing large uploads: an osmChange with many new nodes and a long GPS track. Most of the
+ *  attributes written are coordinates. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LargeRequestBenchmark
+{
+	private static final int COUNT = 100000;
+
+	@Param({"xmlpull", "utf8"})
+	public String backend;
+
+	private List<Element> changes;
+	private List<GpsTrackpoint> trackpoints;
+
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		XmlBackends.setDefault(backend.equals("utf8") ? new Utf8WriterBackend() : new XmlPullBackend());
+
+		Random random = new Random(1);
+		changes = new ArrayList<>(COUNT);
+		trackpoints = new ArrayList<>(COUNT);
+		Instant time = Instant.parse("2019-05-12T12:30:00Z");
+		for (int i = 0; i < COUNT; ++i)
+		{
+			double lat = Math.round((52 + random.nextDouble()) * 1e7) / 1e7;
+			double lon = Math.round((13 + random.nextDouble()) * 1e7) / 1e7;
+			changes.add(new OsmNode(-1 - i, 1, lat, lon,
+					i % 10 == 0 ? Collections.singletonMap("amenity", "bench") : null));
+			trackpoints.add(new GpsTrackpoint(new OsmLatLon(lat, lon), time.plusSeconds(i),
+					i % 1000 == 0, 1.5f, 34.2f));
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown()
+	{
+		XmlBackends.setDefault(new XmlPullBackend());
+	}
+
+	@Benchmark
+	public int writeOsmChange() throws IOException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream(8 * 1024 * 1024);
+		new MapDataChangesWriter(1, changes).write(out);
+		return out.size();
+	}
+
+	@Benchmark
+	public int writeGpx() throws IOException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024 * 1024);
+		new GpxTrackWriter("osmapi benchmark", trackpoints).write(out);
+		return out.size();
+	}
+}
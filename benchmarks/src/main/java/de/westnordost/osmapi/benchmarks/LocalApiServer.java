@@ -0,0 +1,70 @@
+package de.westnordost.osmapi.benchmarks;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/** A local HTTP server that answers every request with the same response after a given latency,
+ *  so that benchmarks do not depend on (and do not put load on) the real API */
+public class LocalApiServer
+{
+	private final HttpServer server;
+	private final ExecutorService executor;
+
+	/**
+	 * @param response the response body to answer every request with
+	 * @param latencyMillis how long to wait before answering
+	 */
+	public LocalApiServer(final byte[] response, final long latencyMillis) throws IOException
+	{
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 1000);
+		server.createContext("/", new HttpHandler()
+		{
+			@Override
+			public void handle(HttpExchange exchange) throws IOException
+			{
+				InputStream requestBody = exchange.getRequestBody();
+				while (requestBody.read() != -1) { /* consume */ }
+
+				if(latencyMillis > 0)
+				{
+					try
+					{
+						Thread.sleep(latencyMillis);
+					}
+					catch(InterruptedException e)
+					{
+						Thread.currentThread().interrupt();
+					}
+				}
+				exchange.getResponseHeaders().add("Content-Type", "text/xml; charset=utf-8");
+				exchange.sendResponseHeaders(200, response.length);
+				OutputStream out = exchange.getResponseBody();
+				out.write(response);
+				out.close();
+			}
+		});
+		executor = Executors.newCachedThreadPool();
+		server.setExecutor(executor);
+		server.start();
+	}
+
+	/** @return the URL to use as the api URL for an OsmConnection */
+	public String getApiUrl()
+	{
+		return "http://localhost:" + server.getAddress().getPort() + "/api/0.6/";
+	}
+
+	public void stop()
+	{
+		server.stop(0);
+		executor.shutdownNow();
+	}
+}
@@ -0,0 +1,103 @@
+package de.westnordost.osmapi.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import de.westnordost.osmapi.map.MapDataParser;
+import de.westnordost.osmapi.map.OsmMapDataFactory;
+import de.westnordost.osmapi.map.ParallelMapDataParser;
+import de.westnordost.osmapi.map.data.BoundingBox;
+import de.westnordost.osmapi.map.data.Node;
+import de.westnordost.osmapi.map.data.Relation;
+import de.westnordost.osmapi.map.data.Way;
+import de.westnordost.osmapi.map.handler.MapDataHandler;
+
+/** Parsing a large response of the map call, as it would be returned for a dense area */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class MapDataParseBenchmark
+{
+	/** approximate size of the response in megabytes */
+	@Param({"50"})
+	public int megabytes;
+
+	private byte[] response;
+	private ExecutorService executor;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException
+	{
+		response = MapDataResponses.create(megabytes * 1024 * 1024);
+		executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown()
+	{
+		executor.shutdown();
+	}
+
+	@Benchmark
+	public long parse() throws IOException
+	{
+		CountingHandler handler = new CountingHandler();
+		new MapDataParser(handler, new OsmMapDataFactory()).parse(new ByteArrayInputStream(response));
+		return handler.count;
+	}
+
+	@Benchmark
+	public long parseParallel() throws IOException
+	{
+		CountingHandler handler = new CountingHandler();
+		new ParallelMapDataParser(handler, new OsmMapDataFactory(), executor)
+				.parse(new ByteArrayInputStream(response));
+		return handler.count;
+	}
+
+	private static class CountingHandler implements MapDataHandler
+	{
+		long count;
+
+		@Override
+		public void handle(BoundingBox bounds) {}
+
+		@Override
+		public void handle(Node node)
+		{
+			count++;
+		}
+
+		@Override
+		public void handle(Way way)
+		{
+			count++;
+		}
+
+		@Override
+		public void handle(Relation relation)
+		{
+			count++;
+		}
+	}
+}
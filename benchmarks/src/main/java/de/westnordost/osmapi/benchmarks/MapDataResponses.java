@@ -0,0 +1,107 @@
+package de.westnordost.osmapi.benchmarks;
+
+import java.io.UnsupportedEncodingException;
+import java.util.Random;
+
+/** Generates responses of the map call of a given size with a mix of nodes, ways and relations
+ *  similar to that of real map data */
+public class MapDataResponses
+{
+	private static final String[][] TAGS = {
+			{"highway", "residential"}, {"name", "Hauptstraße"}, {"building", "yes"},
+			{"addr:street", "Lindenallee"}, {"addr:housenumber", "12a"}, {"amenity", "bench"},
+			{"surface", "asphalt"}, {"source", "survey"}, {"maxspeed", "30"}, {"oneway", "yes"}
+	};
+	private static final String[] USERS = {"Anna", "Bob", "Carla", "Dieter", "Ece"};
+
+	public static byte[] create(int approximateBytes)
+	{
+		Random random = new Random(42);
+		StringBuilder xml = new StringBuilder(approximateBytes + 4096);
+		xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		xml.append("<osm version=\"0.6\" generator=\"benchmark\">\n");
+		xml.append(" <bounds minlat=\"52.5000000\" minlon=\"13.3000000\" maxlat=\"52.5200000\" maxlon=\"13.3300000\"/>\n");
+
+		// by size, real map data is roughly 70% nodes, 25% ways and 5% relations
+		long id = 1;
+		while(xml.length() < approximateBytes * 0.7)
+		{
+			appendElementStart(xml, "node", id++, random);
+			xml.append(" lat=\"").append(52.5 + random.nextInt(200000) / 1e7)
+					.append("\" lon=\"").append(13.3 + random.nextInt(300000) / 1e7).append('"');
+			int tags = random.nextInt(10) < 8 ? 0 : 1 + random.nextInt(4);
+			if(tags == 0)
+			{
+				xml.append("/>\n");
+			}
+			else
+			{
+				xml.append(">\n");
+				appendTags(xml, tags, random);
+				xml.append(" </node>\n");
+			}
+		}
+		long maxNodeId = id - 1;
+		while(xml.length() < approximateBytes * 0.95)
+		{
+			appendElementStart(xml, "way", id++, random);
+			xml.append(">\n");
+			int nodes = 2 + random.nextInt(20);
+			for (int i = 0; i < nodes; ++i)
+			{
+				xml.append("  <nd ref=\"").append(1 + random.nextInt((int) maxNodeId)).append("\"/>\n");
+			}
+			appendTags(xml, 1 + random.nextInt(5), random);
+			xml.append(" </way>\n");
+		}
+		while(xml.length() < approximateBytes)
+		{
+			appendElementStart(xml, "relation", id++, random);
+			xml.append(">\n");
+			int members = 1 + random.nextInt(30);
+			for (int i = 0; i < members; ++i)
+			{
+				boolean isWay = random.nextBoolean();
+				xml.append("  <member type=\"").append(isWay ? "way" : "node")
+						.append("\" ref=\"").append(1 + random.nextInt((int) maxNodeId))
+						.append("\" role=\"").append(isWay ? "outer" : "").append("\"/>\n");
+			}
+			appendTags(xml, 1 + random.nextInt(5), random);
+			xml.append(" </relation>\n");
+		}
+		xml.append("</osm>\n");
+
+		try
+		{
+			return xml.toString().getBytes("UTF-8");
+		}
+		catch(UnsupportedEncodingException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static void appendElementStart(StringBuilder xml, String name, long id, Random random)
+	{
+		int user = random.nextInt(USERS.length);
+		xml.append(" <").append(name)
+				.append(" id=\"").append(id)
+				.append("\" visible=\"true\" version=\"").append(1 + random.nextInt(9))
+				.append("\" changeset=\"").append(10000000 + random.nextInt(5000))
+				.append("\" timestamp=\"20").append(10 + random.nextInt(10)).append("-0")
+				.append(1 + random.nextInt(9)).append("-1").append(random.nextInt(10))
+				.append("T1").append(random.nextInt(10)).append(":3").append(random.nextInt(10))
+				.append(":0").append(random.nextInt(10)).append("Z\"")
+				.append(" user=\"").append(USERS[user]).append("\" uid=\"").append(1000 + user)
+				.append('"');
+	}
+
+	private static void appendTags(StringBuilder xml, int count, Random random)
+	{
+		for (int i = 0; i < count; ++i)
+		{
+			String[] tag = TAGS[random.nextInt(TAGS.length)];
+			xml.append("  <tag k=\"").append(tag[0]).append("\" v=\"").append(tag[1]).append("\"/>\n");
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package de.westnordost.osmapi.benchmarks;
+
+import java.io.UnsupportedEncodingException;
+import java.util.Random;
+
+/** Generates responses of the notes call of a given size, each note with a few comments */
+public class NotesResponses
+{
+	private static final String[] USERS = {"Anna", "Bob", "Carla", "Dieter", "Ece"};
+	private static final String[] TEXTS = {
+			"There is a new bakery here",
+			"The path is blocked by a fence &amp; a gate",
+			"Done, thanks!",
+			"Could not find this on the ground, the shop seems to have moved to the next street"
+	};
+
+	public static byte[] create(int approximateBytes)
+	{
+		Random random = new Random(42);
+		StringBuilder xml = new StringBuilder(approximateBytes + 4096);
+		xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		xml.append("<osm version=\"0.6\" generator=\"benchmark\">\n");
+		long id = 1;
+		while(xml.length() < approximateBytes)
+		{
+			String date = date(random);
+			xml.append("<note lon=\"").append(13.3 + random.nextInt(300000) / 1e7)
+					.append("\" lat=\"").append(52.5 + random.nextInt(200000) / 1e7).append("\">\n");
+			xml.append("  <id>").append(id).append("</id>\n");
+			xml.append("  <url>https://api.openstreetmap.org/api/0.6/notes/").append(id).append("</url>\n");
+			xml.append("  <date_created>").append(date).append("</date_created>\n");
+			xml.append("  <status>open</status>\n");
+			xml.append("  <comments>\n");
+			int comments = 1 + random.nextInt(4);
+			for (int i = 0; i < comments; ++i)
+			{
+				int user = random.nextInt(USERS.length);
+				xml.append("    <comment>\n");
+				xml.append("      <date>").append(date).append("</date>\n");
+				xml.append("      <uid>").append(1000 + user).append("</uid>\n");
+				xml.append("      <user>").append(USERS[user]).append("</user>\n");
+				xml.append("      <action>").append(i == 0 ? "opened" : "commented").append("</action>\n");
+				xml.append("      <text>").append(TEXTS[random.nextInt(TEXTS.length)]).append("</text>\n");
+				xml.append("      <html>&lt;p&gt;").append(TEXTS[random.nextInt(TEXTS.length)]).append("&lt;/p&gt;</html>\n");
+				xml.append("    </comment>\n");
+			}
+			xml.append("  </comments>\n");
+			xml.append("</note>\n");
+			id++;
+		}
+		xml.append("</osm>\n");
+
+		try
+		{
+			return xml.toString().getBytes("UTF-8");
+		}
+		catch(UnsupportedEncodingException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static String date(Random random)
+	{
+		return "20" + (10 + random.nextInt(10)) + "-0" + (1 + random.nextInt(9)) +
+				"-1" + random.nextInt(10) + " 1" + random.nextInt(10) + ":3" + random.nextInt(10) +
+				":0" + random.nextInt(10) + " UTC";
+	}
+}
@@ -0,0 +1,72 @@
+package de.westnordost.osmapi.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import de.westnordost.osmapi.OsmConnection;
+import de.westnordost.osmapi.map.MapDataApi;
+import de.westnordost.osmapi.map.changes.MapDataChangesWriter;
+import de.westnordost.osmapi.map.data.Element;
+import de.westnordost.osmapi.map.data.Node;
+import de.westnordost.osmapi.map.data.OsmNode;
+
+/** Requests for single elements, where setting up the parser or serializer costs about as much
+ *  as parsing or writing the element itself. The transport answers immediately. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SmallRequestBenchmark
+{
+	private static final String NODE_RESPONSE =
+			"<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+			"<osm version=\"0.6\" generator=\"benchmark\">\n" +
+			" <node id=\"1\" visible=\"true\" version=\"3\" changeset=\"10000001\" " +
+			"timestamp=\"2019-05-12T12:30:00Z\" user=\"Anna\" uid=\"1000\" lat=\"52.5123456\" lon=\"13.3123456\">\n" +
+			"  <tag k=\"amenity\" v=\"bench\"/>\n" +
+			" </node>\n" +
+			"</osm>\n";
+
+	private MapDataApi mapDataApi;
+	private Iterable<Element> changes;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception
+	{
+		OsmConnection osm = new OsmConnection("https://api.openstreetmap.org/api/0.6/",
+				"osmapi benchmark", null, null, new InMemoryTransport(NODE_RESPONSE.getBytes("UTF-8")));
+		mapDataApi = new MapDataApi(osm);
+		Element node = new OsmNode(-1, 1, 52.5, 13.3, Collections.singletonMap("amenity", "bench"));
+		changes = Collections.singletonList(node);
+	}
+
+	@Benchmark
+	public Node getNode()
+	{
+		return mapDataApi.getNode(1);
+	}
+
+	@Benchmark
+	public int writeNode() throws IOException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream(512);
+		new MapDataChangesWriter(1, changes).write(out);
+		return out.size();
+	}
+}
@@ -0,0 +1,157 @@
+package de.westnordost.osmapi.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import de.westnordost.osmapi.common.Handler;
+import de.westnordost.osmapi.map.MapDataParser;
+import de.westnordost.osmapi.map.OsmMapDataFactory;
+import de.westnordost.osmapi.map.data.BoundingBox;
+import de.westnordost.osmapi.map.data.Node;
+import de.westnordost.osmapi.map.data.Relation;
+import de.westnordost.osmapi.map.data.Way;
+import de.westnordost.osmapi.map.handler.MapDataHandler;
+import de.westnordost.osmapi.notes.Note;
+import de.westnordost.osmapi.notes.NotesParser;
+import de.westnordost.osmapi.traces.GpsTrackpoint;
+import de.westnordost.osmapi.traces.GpxTrackParser;
+import de.westnordost.osmapi.xml.StaxBackend;
+import de.westnordost.osmapi.xml.XmlBackends;
+import de.westnordost.osmapi.xml.XmlPullBackend;
+
+/** Throughput of the XML backends on responses of the map, notes and trackpoints calls. The StAX
+ *  backend uses whichever StAX implementation is on the classpath, i.e. the one of the JDK or Aalto
+ *  if it is added as a dependency. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx1g"})
+public class XmlBackendBenchmark
+{
+	@Param({"xmlpull", "stax"})
+	public String backend;
+
+	@Param({"map", "notes", "trackpoints"})
+	public String payload;
+
+	/** approximate size of the response in megabytes */
+	@Param({"10"})
+	public int megabytes;
+
+	private byte[] response;
+
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		XmlBackends.setDefault(backend.equals("stax") ? new StaxBackend() : new XmlPullBackend());
+
+		int bytes = megabytes * 1024 * 1024;
+		switch (payload)
+		{
+			case "map":
+				response = MapDataResponses.create(bytes);
+				break;
+			case "notes":
+				response = NotesResponses.create(bytes);
+				break;
+			case "trackpoints":
+				response = GpxResponses.create(bytes);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown payload " + payload);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown()
+	{
+		XmlBackends.setDefault(new XmlPullBackend());
+	}
+
+	@Benchmark
+	public long parse() throws IOException
+	{
+		ByteArrayInputStream in = new ByteArrayInputStream(response);
+		CountingHandler handler = new CountingHandler();
+		switch (payload)
+		{
+			case "map":
+				new MapDataParser(handler, new OsmMapDataFactory()).parse(in);
+				break;
+			case "notes":
+				new NotesParser(handler.notes()).parse(in);
+				break;
+			case "trackpoints":
+				new GpxTrackParser(handler.trackpoints()).parse(in);
+				break;
+		}
+		return handler.count;
+	}
+
+	private static class CountingHandler implements MapDataHandler
+	{
+		long count;
+
+		@Override
+		public void handle(BoundingBox bounds) {}
+
+		@Override
+		public void handle(Node node)
+		{
+			count++;
+		}
+
+		@Override
+		public void handle(Way way)
+		{
+			count++;
+		}
+
+		@Override
+		public void handle(Relation relation)
+		{
+			count++;
+		}
+
+		Handler<Note> notes()
+		{
+			return new Handler<Note>()
+			{
+				@Override
+				public void handle(Note note)
+				{
+					count++;
+				}
+			};
+		}
+
+		Handler<GpsTrackpoint> trackpoints()
+		{
+			return new Handler<GpsTrackpoint>()
+			{
+				@Override
+				public void handle(GpsTrackpoint trackpoint)
+				{
+					count++;
+				}
+			};
+		}
+	}
+}
@@ -11,6 +11,8 @@ import java.util.Map;
 
 import de.westnordost.osmapi.ApiResponseReader;
 import de.westnordost.osmapi.common.Handler;
+import de.westnordost.osmapi.common.ParseOptions;
+import de.westnordost.osmapi.common.TimestampParser;
 import de.westnordost.osmapi.common.XmlParser;
 import de.westnordost.osmapi.map.data.BoundingBox;
 import de.westnordost.osmapi.map.data.OsmLatLon;
@@ -28,24 +30,41 @@ public class ChangesetParser extends XmlParser implements ApiResponseReader<Void
 		COMMENT = "comment",
 		TEXT = "text";
 
+	private final TimestampParser timestampParser = new TimestampParser();
 	private Map<Long, User> users;
 
 	private final Handler<ChangesetInfo> handler;
+	private final ParseOptions<ChangesetInfo> options;
 
 	private ChangesetInfo currentChangesetInfo;
 	private ChangesetNote currentComment;
 	private List<ChangesetNote> comments;
 	private Map<String, String> tags;
 
+	/* number of changesets passed on to the handler in the current parse */
+	private long handledCount;
+
 	public ChangesetParser(Handler<ChangesetInfo> handler)
+	{
+		this(handler, new ParseOptions<ChangesetInfo>());
+	}
+
+	/**
+	 * @param handler handler that is fed the changesets
+	 * @param options which parts of the changesets to parse and which changesets to pass on to the
+	 *                handler
+	 */
+	public ChangesetParser(Handler<ChangesetInfo> handler, ParseOptions<ChangesetInfo> options)
 	{
 		this.handler = handler;
+		this.options = options;
 	}
 
 	@Override
 	public Void parse(InputStream in) throws IOException
 	{
 		users = new HashMap<>();
+		handledCount = 0;
 		doParse(in);
 		users = null;
 		return null;
@@ -60,7 +79,7 @@ public class ChangesetParser extends XmlParser implements ApiResponseReader<Void
 		{
 			currentChangesetInfo = parseChangeset();
 		}
-		else if(TAG.equals(name))
+		else if(TAG.equals(name) && options.includesTags())
 		{
 			if(tags == null)
 			{
@@ -68,7 +87,7 @@ public class ChangesetParser extends XmlParser implements ApiResponseReader<Void
 			}
 			tags.put(getAttribute("k"), getAttribute("v"));
 		}
-		else if(COMMENT.equals(name))
+		else if(COMMENT.equals(name) && options.includesComments())
 		{
 			currentComment = parseChangesetComment();
 		}
@@ -88,17 +107,21 @@ public class ChangesetParser extends XmlParser implements ApiResponseReader<Void
 		Instant closedAt = null;
 		if(closedAtStr != null)
 		{
-			closedAt = Instant.parse(closedAtStr);
+			closedAt = timestampParser.parse(closedAtStr);
 		}
 
-		User user = parseUser();
-		// user must be defined for a changeset
-		if(user == null)
-			throw new NullPointerException();
+		User user = null;
+		if(options.includesMetadata())
+		{
+			user = parseUser();
+			// user must be defined for a changeset
+			if(user == null)
+				throw new NullPointerException();
+		}
 
 		ChangesetInfo result = new ChangesetInfo();
 		result.id = getLongAttribute("id");
-		result.createdAt = Instant.parse(getAttribute("created_at"));
+		result.createdAt = timestampParser.parse(getAttribute("created_at"));
 		result.closedAt = closedAt;
 		result.user = user;
 		result.boundingBox = bounds;
@@ -111,8 +134,11 @@ public class ChangesetParser extends XmlParser implements ApiResponseReader<Void
 	private ChangesetNote parseChangesetComment() throws ParseException
 	{
 		ChangesetNote comment = new ChangesetNote();
-		comment.user = parseUser();
-		comment.createdAt = Instant.parse(getAttribute("date"));
+		if(options.includesMetadata())
+		{
+			comment.user = parseUser();
+		}
+		comment.createdAt = timestampParser.parse(getAttribute("date"));
 		return comment;
 	}
 
@@ -136,11 +162,11 @@ public class ChangesetParser extends XmlParser implements ApiResponseReader<Void
 	{
 		String name = getName();
 
-		if(TEXT.equals(name))
+		if(TEXT.equals(name) && currentComment != null)
 		{
 			currentComment.text = getText();
 		}
-		if(COMMENT.equals(name))
+		if(COMMENT.equals(name) && currentComment != null)
 		{
 			if(comments == null)
 			{
@@ -154,7 +180,11 @@ public class ChangesetParser extends XmlParser implements ApiResponseReader<Void
 			currentChangesetInfo.tags = tags;
 			currentChangesetInfo.discussion = comments;
 
-			handler.handle(currentChangesetInfo);
+			if(options.accepts(currentChangesetInfo))
+			{
+				handler.handle(currentChangesetInfo);
+				if(++handledCount >= options.getLimit()) stopParse();
+			}
 			currentChangesetInfo = null;
 
 			tags = null;
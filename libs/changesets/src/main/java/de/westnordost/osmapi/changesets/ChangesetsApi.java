@@ -2,8 +2,11 @@ package de.westnordost.osmapi.changesets;
 
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 import de.westnordost.osmapi.OsmConnection;
+import de.westnordost.osmapi.common.Futures;
 import de.westnordost.osmapi.common.Handler;
 import de.westnordost.osmapi.common.SingleElementHandler;
 import de.westnordost.osmapi.common.errors.OsmAuthorizationException;
@@ -28,6 +31,8 @@ public class ChangesetsApi
 	}
 
 	/** Get the changeset information with the given id. Always includes the changeset discussion.
+	 *  The response is cached in the connection's response cache (if any) and only downloaded
+	 *  again if it changed. (Even a closed changeset can change: its discussion can grow.)
 	 *
 	 * @param id changeset id
 	 * @return info for the given changeset. Null if it does not exist. */
@@ -38,7 +43,7 @@ public class ChangesetsApi
 		try
 		{
 			boolean authenticate = osm.getOAuthAccessToken() != null;
-			osm.makeRequest(query, authenticate, new ChangesetParser(handler));
+			osm.makeCachedRequest(query, authenticate, false, new ChangesetParser(handler));
 		}
 		catch(OsmNotFoundException e)
 		{
@@ -47,6 +52,28 @@ public class ChangesetsApi
 		return handler.get();
 	}
 
+	/** Asynchronous variant of {@link #get(long)}
+	 *
+	 * @param id changeset id
+	 * @return a future that completes with the info for the given changeset or null if it does
+	 *         not exist. */
+	public CompletableFuture<ChangesetInfo> getAsync(long id)
+	{
+		final SingleElementHandler<ChangesetInfo> handler = new SingleElementHandler<>();
+		String query = CHANGESET + "/" + id + "?include_discussion=true";
+		boolean authenticate = osm.getOAuthAccessToken() != null;
+		CompletableFuture<Void> request = osm.makeCachedRequestAsync(query, authenticate, false, new ChangesetParser(handler));
+		CompletableFuture<ChangesetInfo> result = request.thenApply(new Function<Void, ChangesetInfo>()
+		{
+			@Override
+			public ChangesetInfo apply(Void aVoid)
+			{
+				return handler.get();
+			}
+		});
+		return Futures.nullIfThrown(result, OsmNotFoundException.class);
+	}
+
 	/** Get a number of changesets that match the given filters.
 	 *
 	 *  @param handler The handler which is fed the incoming changeset infos
@@ -5,10 +5,12 @@ import org.junit.Test;
 import java.io.IOException;
 import java.time.Instant;
 import java.util.List;
+import java.util.function.Predicate;
 
 import de.westnordost.osmapi.TestUtils;
 import de.westnordost.osmapi.common.Handler;
 import de.westnordost.osmapi.common.ListHandler;
+import de.westnordost.osmapi.common.ParseOptions;
 import de.westnordost.osmapi.common.SingleElementHandler;
 
 import static org.junit.Assert.*;
@@ -155,25 +157,96 @@ public class ChangesetParserTest
 		assertSame(changesets.get(0).user, changesets.get(2).user);
 	}
 	
+	@Test public void withoutTagsMetadataAndComments()
+	{
+		String xml =
+				"<changeset id=\"1654\" user=\"blub\" uid=\"123\" changes_count=\"0\" " +
+						"created_at=\"2011-03-05T20:29:56Z\" open=\"true\" comments_count=\"1\" >" +
+						"<tag k=\"comment\" v=\"dongs\" />" +
+						"<discussion>" +
+						"     <comment date=\"2015-01-01T18:58:03Z\" uid=\"234\" user=\"fred\">" +
+						"       <text>sure!</text>" +
+						"     </comment>" +
+						"</discussion>" +
+				"</changeset>";
+
+		ChangesetInfo changeset = parseList(xml, new ParseOptions<ChangesetInfo>()
+				.withoutTags().withoutMetadata().withoutComments()).get(0);
+
+		assertEquals(1654, changeset.id);
+		assertEquals(1, changeset.notesCount);
+		assertNull(changeset.user);
+		assertNull(changeset.tags);
+		assertNull(changeset.discussion);
+	}
+
+	@Test public void commentsWithoutMetadata()
+	{
+		String xml =
+				"<changeset id=\"1654\" user=\"blub\" uid=\"123\" changes_count=\"0\" " +
+						"created_at=\"2011-03-05T20:29:56Z\" open=\"true\" comments_count=\"1\" >" +
+						"<discussion>" +
+						"     <comment date=\"2015-01-01T18:58:03Z\" uid=\"234\" user=\"fred\">" +
+						"       <text>sure!</text>" +
+						"     </comment>" +
+						"</discussion>" +
+				"</changeset>";
+
+		ChangesetInfo changeset = parseList(xml, new ParseOptions<ChangesetInfo>().withoutMetadata()).get(0);
+
+		assertEquals("sure!", changeset.discussion.get(0).text);
+		assertNull(changeset.discussion.get(0).user);
+	}
+
+	@Test public void filteredAndLimited()
+	{
+		String xml =
+				"<osm>" +
+				"<changeset id=\"1\" user=\"blub\" uid=\"123\" changes_count=\"0\" " +
+						"created_at=\"2011-03-05T20:29:56Z\" open=\"false\" comments_count=\"0\" />"+
+				"<changeset id=\"2\" user=\"blub\" uid=\"123\" changes_count=\"0\" " +
+						"created_at=\"2011-03-05T20:29:56Z\" open=\"true\" comments_count=\"0\" />"+
+				"<changeset id=\"3\" user=\"blub\" uid=\"123\" changes_count=\"0\" " +
+						"created_at=\"2011-03-05T20:29:56Z\" open=\"true\" comments_count=\"0\" />"+
+				"</osm>";
+
+		List<ChangesetInfo> changesets = parseList(xml, new ParseOptions<ChangesetInfo>()
+				.limit(1).filter(new Predicate<ChangesetInfo>()
+				{
+					@Override public boolean test(ChangesetInfo changeset)
+					{
+						return changeset.isOpen;
+					}
+				}));
+
+		assertEquals(1, changesets.size());
+		assertEquals(2, changesets.get(0).id);
+	}
+
 	private List<ChangesetInfo> parseList(String xml)
+	{
+		return parseList(xml, new ParseOptions<ChangesetInfo>());
+	}
+
+	private List<ChangesetInfo> parseList(String xml, ParseOptions<ChangesetInfo> options)
 	{
 		ListHandler<ChangesetInfo> handler = new ListHandler<>();
-		parse(xml, handler);
+		parse(xml, handler, options);
 		return handler.get();
 	}
 	
 	private ChangesetInfo parseOne(String xml)
 	{
 		SingleElementHandler<ChangesetInfo> handler = new SingleElementHandler<>();
-		parse(xml, handler);
+		parse(xml, handler, new ParseOptions<ChangesetInfo>());
 		return handler.get();
 	}
 	
-	private void parse(String xml, Handler<ChangesetInfo> handler)
+	private void parse(String xml, Handler<ChangesetInfo> handler, ParseOptions<ChangesetInfo> options)
 	{
 		try
 		{
-			new ChangesetParser(handler).parse(TestUtils.asInputStream(xml));
+			new ChangesetParser(handler, options).parse(TestUtils.asInputStream(xml));
 		}
 		catch(IOException e)
 		{
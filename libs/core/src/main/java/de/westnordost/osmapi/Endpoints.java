@@ -0,0 +1,54 @@
+package de.westnordost.osmapi;
+
+/** Maps API calls to the endpoint they are made to, so that statistics can be aggregated per
+ *  endpoint instead of per call. */
+public class Endpoints
+{
+	/** @return the endpoint template of the given call. Path segments that are numbers (ids,
+	 *          versions) are replaced with {id} and the values of URL parameters are removed. I.e.
+	 *          "node/123/history" becomes "node/{id}/history" and
+	 *          "map?bbox=1,2,3,4" becomes "map?bbox" */
+	public static String of(String call)
+	{
+		int queryStart = call.indexOf('?');
+		String path = queryStart != -1 ? call.substring(0, queryStart) : call;
+
+		StringBuilder result = new StringBuilder(call.length());
+		int segmentStart = 0;
+		while(segmentStart <= path.length())
+		{
+			int segmentEnd = path.indexOf('/', segmentStart);
+			if(segmentEnd == -1) segmentEnd = path.length();
+
+			if(segmentStart > 0) result.append('/');
+			if(isNumber(path, segmentStart, segmentEnd)) result.append("{id}");
+			else result.append(path, segmentStart, segmentEnd);
+
+			segmentStart = segmentEnd + 1;
+		}
+
+		if(queryStart != -1)
+		{
+			char separator = '?';
+			for(String param : call.substring(queryStart + 1).split("&"))
+			{
+				if(param.isEmpty()) continue;
+				int equals = param.indexOf('=');
+				result.append(separator).append(equals != -1 ? param.substring(0, equals) : param);
+				separator = '&';
+			}
+		}
+		return result.toString();
+	}
+
+	private static boolean isNumber(String str, int start, int end)
+	{
+		if(start == end) return false;
+		for(int i = start; i < end; ++i)
+		{
+			char c = str.charAt(i);
+			if(c < '0' || c > '9') return false;
+		}
+		return true;
+	}
+}
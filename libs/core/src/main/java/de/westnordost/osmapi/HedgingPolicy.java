@@ -0,0 +1,138 @@
+package de.westnordost.osmapi;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Decides when a GET request that takes unusually long is sent a second time ("hedged"), so that
+ *  whichever of the two answers first can be used. This cuts the tail latency caused by single
+ *  stalled connections at the cost of a few more requests to the server.
+ *  <br><br>
+ *  A request is hedged when it takes longer than the given percentile of the durations of the
+ *  previous requests to the same endpoint (see {@link Endpoints}). Until enough requests have been
+ *  made to that endpoint, a fixed initial delay is used instead.
+ *  <br><br>
+ *  Hedged responses are read into memory completely before they are parsed, so hedging should
+ *  only be used for endpoints with small responses. By default, requests that may return a lot of
+ *  data, like those for the map data in a bounding box, are never hedged, see
+ *  {@link #forEndpoints(String...)}.
+ *  Thread safe. */
+public class HedgingPolicy
+{
+	public static final double DEFAULT_PERCENTILE = 95;
+	public static final long DEFAULT_INITIAL_DELAY = 1000;
+	/** endpoints whose responses are small, i.e. single elements, changesets, notes or users */
+	public static final Set<String> DEFAULT_ENDPOINTS = Collections.unmodifiableSet(new HashSet<>(
+		Arrays.asList(
+			"node/{id}", "way/{id}", "relation/{id}",
+			"node/{id}/{id}", "way/{id}/{id}", "relation/{id}/{id}",
+			"changeset/{id}", "changeset/{id}?include_discussion",
+			"notes/{id}", "user/{id}", "user/details", "permissions", "capabilities")));
+
+	/** the percentile is not meaningful with less samples */
+	private static final int MIN_SAMPLES = 20;
+
+	private final double percentile;
+	private final long initialDelay;
+	private volatile Set<String> endpoints = DEFAULT_ENDPOINTS;
+
+	private final ConcurrentMap<String, LatencyHistogram> durations = new ConcurrentHashMap<>();
+	private final AtomicLong hedgeCount = new AtomicLong();
+	private final AtomicLong hedgeWinCount = new AtomicLong();
+
+	/**
+	 * @param percentile a request is hedged when it takes longer than this percentile of the
+	 *                   previous requests to the same endpoint, i.e. 95
+	 * @param initialDelay milliseconds after which a request is hedged as long as there are not
+	 *                     enough previous requests to the same endpoint
+	 */
+	public HedgingPolicy(double percentile, long initialDelay)
+	{
+		if(percentile <= 0 || percentile > 100)
+		{
+			throw new IllegalArgumentException("percentile must be between 0 and 100");
+		}
+		if(initialDelay < 0) throw new IllegalArgumentException("initialDelay must not be negative");
+		this.percentile = percentile;
+		this.initialDelay = initialDelay;
+	}
+
+	public HedgingPolicy()
+	{
+		this(DEFAULT_PERCENTILE, DEFAULT_INITIAL_DELAY);
+	}
+
+	/** Only hedge requests to the given endpoints, i.e. "node/{id}". By default, only requests to
+	 *  the {@link #DEFAULT_ENDPOINTS} are hedged.
+	 *
+	 *  @return this */
+	public HedgingPolicy forEndpoints(String... endpoints)
+	{
+		this.endpoints = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(endpoints)));
+		return this;
+	}
+
+	/** @return whether requests to the given endpoint are hedged */
+	public boolean appliesTo(String endpoint)
+	{
+		Set<String> endpoints = this.endpoints;
+		return endpoints.contains(endpoint);
+	}
+
+	/** @return nanoseconds after which a request to the given endpoint should be hedged */
+	long getDelay(String endpoint)
+	{
+		LatencyHistogram histogram = durations.get(endpoint);
+		if(histogram == null || histogram.getCount() < MIN_SAMPLES)
+		{
+			return TimeUnit.MILLISECONDS.toNanos(initialDelay);
+		}
+		return histogram.getValueAtPercentile(percentile);
+	}
+
+	/** Record the duration of a successful request to the given endpoint */
+	void onCompleted(String endpoint, long nanos)
+	{
+		LatencyHistogram histogram = durations.get(endpoint);
+		if(histogram == null)
+		{
+			histogram = new LatencyHistogram();
+			LatencyHistogram existing = durations.putIfAbsent(endpoint, histogram);
+			if(existing != null) histogram = existing;
+		}
+		histogram.record(nanos);
+	}
+
+	void onHedged()
+	{
+		hedgeCount.incrementAndGet();
+	}
+
+	void onHedgeWon()
+	{
+		hedgeWinCount.incrementAndGet();
+	}
+
+	/** @return number of requests that have been hedged */
+	public long getHedgeCount()
+	{
+		return hedgeCount.get();
+	}
+
+	/** @return number of hedged requests for which the second request answered first */
+	public long getHedgeWinCount()
+	{
+		return hedgeWinCount.get();
+	}
+
+	@Override
+	public String toString()
+	{
+		return "HedgingPolicy{hedged=" + hedgeCount + ", hedgeWon=" + hedgeWinCount + "}";
+	}
+}
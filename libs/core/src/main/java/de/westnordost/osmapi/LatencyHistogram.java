@@ -0,0 +1,114 @@
+package de.westnordost.osmapi;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/** Histogram of durations in nanoseconds. Like a HDR histogram, the buckets are logarithmic: each
+ *  power of two is divided into 8 buckets, so any duration is recorded with a precision of 12.5%
+ *  while the whole range of a long can be recorded in a fixed, small number of buckets.
+ *  <br><br>
+ *  Recording is lock-free, so it can be done concurrently from any number of threads. Reading
+ *  while recording is in progress yields a slightly inconsistent but still usable snapshot. */
+public class LatencyHistogram
+{
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong sum = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	/** Record the given duration in nanoseconds. Negative durations are recorded as 0. */
+	public void record(long value)
+	{
+		if(value < 0) value = 0;
+		counts.incrementAndGet(indexOf(value));
+		count.incrementAndGet();
+		sum.addAndGet(value);
+		long currentMax = max.get();
+		while(value > currentMax && !max.compareAndSet(currentMax, value))
+		{
+			currentMax = max.get();
+		}
+	}
+
+	/** @return number of recorded durations */
+	public long getCount()
+	{
+		return count.get();
+	}
+
+	/** @return longest recorded duration */
+	public long getMax()
+	{
+		return max.get();
+	}
+
+	/** @return average of the recorded durations or 0 if none have been recorded */
+	public double getMean()
+	{
+		long n = count.get();
+		return n > 0 ? (double) sum.get() / n : 0;
+	}
+
+	/**
+	 * @param percentile i.e. 99 for the 99th percentile
+	 * @return the duration that the given percentage of recorded durations are shorter or equal
+	 *         to (within the precision of the histogram) or 0 if none have been recorded
+	 */
+	public long getValueAtPercentile(double percentile)
+	{
+		if(percentile < 0 || percentile > 100)
+		{
+			throw new IllegalArgumentException("percentile must be between 0 and 100");
+		}
+		long total = 0;
+		for (int i = 0; i < BUCKETS; ++i) total += counts.get(i);
+		if(total == 0) return 0;
+
+		long target = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; ++i)
+		{
+			seen += counts.get(i);
+			if(seen >= target) return Math.min(highestValueOf(i), max.get());
+		}
+		return max.get();
+	}
+
+	/** Remove all recorded durations. Durations recorded concurrently may get partially lost. */
+	public void reset()
+	{
+		for (int i = 0; i < BUCKETS; ++i) counts.set(i, 0);
+		count.set(0);
+		sum.set(0);
+		max.set(0);
+	}
+
+	static int indexOf(long value)
+	{
+		if(value < SUB_BUCKETS) return (int) value;
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	static long highestValueOf(int index)
+	{
+		if(index < SUB_BUCKETS) return index;
+		int shift = index / SUB_BUCKETS - 1;
+		long lowest = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format(Locale.US, "count=%d mean=%.1fms p50=%.1fms p90=%.1fms p99=%.1fms max=%.1fms",
+				getCount(), getMean() / 1e6, getValueAtPercentile(50) / 1e6,
+				getValueAtPercentile(90) / 1e6, getValueAtPercentile(99) / 1e6, getMax() / 1e6);
+	}
+}
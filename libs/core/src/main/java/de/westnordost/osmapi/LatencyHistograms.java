@@ -0,0 +1,109 @@
+package de.westnordost.osmapi;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/** Request listener that records the duration of each phase of the requests in a
+ *  {@link LatencyHistogram} per endpoint (see {@link Endpoints}) and phase. Thread safe.
+ *  <br><br>
+ *  Usage: <tt>osm.addRequestListener(histograms)</tt> and then at any time
+ *  <tt>System.out.println(histograms.dump())</tt> */
+public class LatencyHistograms implements RequestListener
+{
+	public enum Phase
+	{
+		/** establishing the connection */
+		CONNECT,
+		/** waiting for the response head */
+		FIRST_BYTE,
+		/** reading the response body. Only recorded for successful requests */
+		BODY,
+		/** parsing the response body. Only recorded for successful requests */
+		PARSE,
+		/** the whole request */
+		TOTAL
+	}
+
+	private static final Phase[] PHASES = Phase.values();
+
+	private final ConcurrentMap<String, LatencyHistogram[]> histograms = new ConcurrentHashMap<>();
+
+	@Override
+	public void onRequestStarted(RequestMetrics metrics) {}
+
+	@Override
+	public void onResponseReceived(RequestMetrics metrics) {}
+
+	@Override
+	public void onRequestFinished(RequestMetrics metrics)
+	{
+		LatencyHistogram[] phases = getOrCreate(metrics.endpoint);
+		if(metrics.connectTime >= 0) phases[Phase.CONNECT.ordinal()].record(metrics.connectTime);
+		if(metrics.firstByteTime >= 0) phases[Phase.FIRST_BYTE.ordinal()].record(metrics.firstByteTime);
+		if(metrics.error == null)
+		{
+			phases[Phase.BODY.ordinal()].record(metrics.bodyTime);
+			phases[Phase.PARSE.ordinal()].record(metrics.parseTime);
+		}
+		phases[Phase.TOTAL.ordinal()].record(metrics.totalTime);
+	}
+
+	private LatencyHistogram[] getOrCreate(String endpoint)
+	{
+		LatencyHistogram[] phases = histograms.get(endpoint);
+		if(phases == null)
+		{
+			phases = new LatencyHistogram[PHASES.length];
+			for (int i = 0; i < phases.length; ++i) phases[i] = new LatencyHistogram();
+			LatencyHistogram[] existing = histograms.putIfAbsent(endpoint, phases);
+			if(existing != null) phases = existing;
+		}
+		return phases;
+	}
+
+	/** @return all endpoints for which requests have been recorded */
+	public Set<String> getEndpoints()
+	{
+		return Collections.unmodifiableSet(histograms.keySet());
+	}
+
+	/** @return the histogram of the given phase of requests to the given endpoint or null if no
+	 *          requests to that endpoint have been recorded */
+	public LatencyHistogram getHistogram(String endpoint, Phase phase)
+	{
+		LatencyHistogram[] phases = histograms.get(endpoint);
+		return phases != null ? phases[phase.ordinal()] : null;
+	}
+
+	public void clear()
+	{
+		histograms.clear();
+	}
+
+	/** @return a human readable summary of all histograms, sorted by endpoint */
+	public String dump()
+	{
+		StringBuilder result = new StringBuilder();
+		for (String endpoint : new TreeSet<>(histograms.keySet()))
+		{
+			result.append(endpoint).append('\n');
+			LatencyHistogram[] phases = histograms.get(endpoint);
+			for (Phase phase : PHASES)
+			{
+				result.append("  ").append(String.format("%-10s ", phase.name().toLowerCase(Locale.UK)));
+				result.append(phases[phase.ordinal()]).append('\n');
+			}
+		}
+		return result.toString();
+	}
+
+	@Override
+	public String toString()
+	{
+		return dump();
+	}
+}
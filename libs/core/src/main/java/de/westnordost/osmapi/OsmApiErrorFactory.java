@@ -8,12 +8,22 @@ import de.westnordost.osmapi.common.errors.*;
 public class OsmApiErrorFactory
 {
 	public static RuntimeException createError(int error, String response, String description)
+	{
+		return createError(error, response, description, -1);
+	}
+
+	/**
+	 * @param retryAfter milliseconds the server asked to wait before trying again (as sent in the
+	 *                   Retry-After header) or -1 if it did not say
+	 */
+	public static RuntimeException createError(int error, String response, String description,
+											   long retryAfter)
 	{
 		switch (error)
 		{
 			// 5xx error codes...
 			case HttpURLConnection.HTTP_UNAVAILABLE:
-				return new OsmServiceUnavailableException(error, response, description);
+				return new OsmServiceUnavailableException(error, response, description, retryAfter);
 
 			// 4xx error codes...
 			case HttpURLConnection.HTTP_NOT_FOUND:
@@ -32,7 +42,7 @@ public class OsmApiErrorFactory
 			case HttpURLConnection.HTTP_BAD_REQUEST:
 				return new OsmBadUserInputException(error, response, description);
 			case 429:
-				return new OsmTooManyRequestsException(error, response, description);
+				return new OsmTooManyRequestsException(error, response, description, retryAfter);
 
 			default:
 				return createGenericError(error, response, description);
@@ -2,17 +2,46 @@ package de.westnordost.osmapi;
 
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.SocketTimeoutException;
 import java.net.URL;
 import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 
+import de.westnordost.osmapi.cache.CacheKeys;
+import de.westnordost.osmapi.cache.CacheStatistics;
+import de.westnordost.osmapi.cache.CachedResponse;
+import de.westnordost.osmapi.cache.ResponseCache;
+import de.westnordost.osmapi.common.Futures;
+import de.westnordost.osmapi.common.XmlParser;
 import de.westnordost.osmapi.common.errors.OsmApiReadResponseException;
 import de.westnordost.osmapi.common.errors.OsmConnectionException;
-import de.westnordost.osmapi.common.errors.RedirectedException;
+import de.westnordost.osmapi.common.errors.OsmServiceUnavailableException;
+import de.westnordost.osmapi.common.errors.OsmTooManyRequestsException;
+import de.westnordost.osmapi.transport.ContentEncodings;
+import de.westnordost.osmapi.transport.CountingInputStream;
+import de.westnordost.osmapi.transport.HttpRequest;
+import de.westnordost.osmapi.transport.HttpResponse;
+import de.westnordost.osmapi.transport.HttpTransport;
+import de.westnordost.osmapi.transport.UrlConnectionTransport;
 
 /** Talks with the <a href="http://wiki.openstreetmap.org/wiki/API_v0.6">OpenStreetMap API 0.6</a>,
  * acts as a basis for data access objects for openstreetmap data accessible through the API.
@@ -37,6 +66,19 @@ import de.westnordost.osmapi.common.errors.RedirectedException;
  * So, if there were checked exceptions in this library, then OsmConnectionException would be the
  * checked one because it is a fault in the environment.
  * <br><br>
+ * If the server answers that it is overloaded (HTTP 429 or 503), GET requests are retried
+ * according to the {@link RetryPolicy} set with {@link #setRetryPolicy(RetryPolicy)}. To keep
+ * below the rate the server allows in the first place, a {@link RateLimiter} shared by all
+ * threads can be set with {@link #setRateLimiter(RateLimiter)}.
+ * <br><br>
+ * Responses to requests made with makeCachedRequest are stored in the {@link ResponseCache} set
+ * with {@link #setResponseCache(ResponseCache)}.
+ * <br><br>
+ * GET requests that take unusually long can be sent a second time to cut tail latency, see
+ * {@link #setHedgingPolicy(HedgingPolicy)}.
+ * <br><br>
+ * How long each phase of a request takes can be observed by adding a {@link RequestListener}.
+ * <br><br>
  * A OsmConnection is reusable and thread safe.
  */
 public class OsmConnection
@@ -45,13 +87,25 @@ public class OsmConnection
 	public static final String CHARSET = "UTF-8";
 
 	private static final int DEFAULT_TIMEOUT = 45 * 1000;
+	private static final int DEFAULT_MAX_ASYNC_REQUESTS = 64;
+
+	/* Replaced as a whole whenever any setting changes, so that requests can read a consistent
+	   set of settings without taking a lock. Writers synchronize on this. */
+	private volatile Config config;
+	private final HttpTransport transport;
+
+	private volatile ExecutorService defaultAsyncExecutor;
 
-	private int timeout;
-	private String apiUrl;
-	private String userAgent;
-	private String oauthAccessToken;
+	private final TrafficStatistics trafficStatistics = new TrafficStatistics();
 
-	private final Object oauthLock = new Object();
+	private volatile RateLimiter rateLimiter;
+	private volatile RetryPolicy retryPolicy;
+	private volatile HedgingPolicy hedgingPolicy;
+
+	private final CopyOnWriteArrayList<RequestListener> requestListeners = new CopyOnWriteArrayList<>();
+
+	private volatile ResponseCache responseCache;
+	private final CacheStatistics cacheStatistics = new CacheStatistics();
 
 	/**
 	 * Create a new OsmConnection with the given preferences
@@ -60,13 +114,30 @@ public class OsmConnection
 	 * @param oauthAccessToken OAuth 2.0 access token to use to authenticate this app. If this is null, any attempt
 	 *                         to make an API call that requires authorization will throw an OsmAuthorizationException
 	 * @param timeout for the server connection. Defaults to 45 seconds.
+	 * @param transport the transport that sends the HTTP requests. Defaults to a
+	 *                  {@link UrlConnectionTransport}.
+	 */
+	public OsmConnection(String apiUrl, String userAgent, String oauthAccessToken, Integer timeout,
+						 HttpTransport transport)
+	{
+		Config c = new Config();
+		c.setApiUrl(apiUrl);
+		c.userAgent = userAgent;
+		c.oauthAccessToken = oauthAccessToken;
+		c.connectTimeout = timeout != null ? timeout : DEFAULT_TIMEOUT;
+		c.readTimeout = c.connectTimeout;
+		c.maxAsyncRequests = DEFAULT_MAX_ASYNC_REQUESTS;
+		c.asyncRequestPermits = new Semaphore(DEFAULT_MAX_ASYNC_REQUESTS);
+		this.config = c;
+		this.transport = transport != null ? transport : new UrlConnectionTransport();
+	}
+
+	/**
+	 * @see #OsmConnection(String, String, String, Integer, HttpTransport)
 	 */
 	public OsmConnection(String apiUrl, String userAgent, String oauthAccessToken, Integer timeout)
 	{
-		this.apiUrl = apiUrl;
-		this.userAgent = userAgent;
-		this.oauthAccessToken = oauthAccessToken;
-		this.timeout = timeout != null ? timeout : DEFAULT_TIMEOUT;
+		this(apiUrl, userAgent, oauthAccessToken, timeout, null);
 	}
 
 	/**
@@ -85,50 +156,244 @@ public class OsmConnection
 		this(apiUrl, userAgent, null, null);
 	}
 
+	/** Set both the connect and the read timeout in milliseconds. 0 means no timeout.
+	 *  @see #setConnectTimeout(int)
+	 *  @see #setReadTimeout(int) */
 	public synchronized void setTimeout(int timeout)
 	{
-		this.timeout = timeout;
+		Config c = new Config(config);
+		c.connectTimeout = timeout;
+		c.readTimeout = timeout;
+		config = c;
 	}
 
-	public void setOAuthAccessToken(String oauthAccessToken)
+	/** Set the timeout in milliseconds for establishing a connection to the server. 0 means no
+	 *  timeout. Defaults to 45 seconds. */
+	public synchronized void setConnectTimeout(int connectTimeout)
 	{
-		synchronized(oauthLock)
-		{
-			this.oauthAccessToken = oauthAccessToken;
-		}
+		Config c = new Config(config);
+		c.connectTimeout = connectTimeout;
+		config = c;
+	}
+
+	/** Set the timeout in milliseconds for waiting for data from the server, i.e. for the response
+	 *  head or for the next chunk of the response body. 0 means no timeout. Defaults to 45
+	 *  seconds. */
+	public synchronized void setReadTimeout(int readTimeout)
+	{
+		Config c = new Config(config);
+		c.readTimeout = readTimeout;
+		config = c;
+	}
+
+	/** Set the time in milliseconds after which a request is aborted with an
+	 *  OsmConnectionException, no matter how far it got. This includes any retries and reading
+	 *  and parsing the response. 0 means no deadline (default). */
+	public synchronized void setDeadline(int deadline)
+	{
+		Config c = new Config(config);
+		c.deadline = deadline;
+		config = c;
+	}
+
+	public synchronized void setOAuthAccessToken(String oauthAccessToken)
+	{
+		Config c = new Config(config);
+		c.oauthAccessToken = oauthAccessToken;
+		config = c;
 	}
 
 	public synchronized void setApiUrl(String apiUrl)
 	{
-		this.apiUrl = apiUrl;
+		Config c = new Config(config);
+		c.setApiUrl(apiUrl);
+		config = c;
 	}
 
 	public synchronized void setUserAgent(String userAgent)
 	{
-		this.userAgent = userAgent;
+		Config c = new Config(config);
+		c.userAgent = userAgent;
+		config = c;
 	}
 	
-	public synchronized String getUserAgent()
+	public String getUserAgent()
 	{
-		return userAgent;
+		return config.userAgent;
 	}
 
-	public synchronized String getApiUrl()
+	public String getApiUrl()
 	{
-		return apiUrl;
+		return config.apiUrl;
 	}
 
 	public String getOAuthAccessToken()
 	{
-		synchronized(oauthLock)
+		return config.oauthAccessToken;
+	}
+	
+	/** @return the read timeout
+	 *  @see #getReadTimeout() */
+	public int getTimeout()
+	{
+		return config.readTimeout;
+	}
+
+	public int getConnectTimeout()
+	{
+		return config.connectTimeout;
+	}
+
+	public int getReadTimeout()
+	{
+		return config.readTimeout;
+	}
+
+	public int getDeadline()
+	{
+		return config.deadline;
+	}
+
+	/** @return the transport that sends the HTTP requests */
+	public HttpTransport getTransport()
+	{
+		return transport;
+	}
+
+	/**
+	 * Set the executor on which requests made with makeRequestAsync are executed and how many of
+	 * them may be pending at the same time.
+	 *
+	 * @param executor the executor that executes the requests. If null, a default executor is
+	 *                 used that creates threads as needed.
+	 * @param maxAsyncRequests maximum number of asynchronous requests pending at the same time.
+	 *                         If that many are pending, makeRequestAsync blocks until one of
+	 *                         them completes. Defaults to 64.
+	 */
+	public synchronized void setAsyncExecutor(Executor executor, int maxAsyncRequests)
+	{
+		if(maxAsyncRequests <= 0)
 		{
-			return oauthAccessToken;
+			throw new IllegalArgumentException("maxAsyncRequests must be positive");
 		}
+		Config c = new Config(config);
+		c.asyncExecutor = executor;
+		c.maxAsyncRequests = maxAsyncRequests;
+		c.asyncRequestPermits = new Semaphore(maxAsyncRequests);
+		config = c;
 	}
-	
-	public synchronized int getTimeout()
+
+	/** Like setAsyncExecutor, but only if the current executor is the expected one
+	 *  @return whether the executor has been set */
+	synchronized boolean compareAndSetAsyncExecutor(Executor expected, Executor executor,
+													int maxAsyncRequests)
 	{
-		return timeout;
+		if(config.asyncExecutor != expected) return false;
+		setAsyncExecutor(executor, maxAsyncRequests);
+		return true;
+	}
+
+	/** @return the executor set with setAsyncExecutor or null if the default executor is used */
+	public Executor getAsyncExecutor()
+	{
+		return config.asyncExecutor;
+	}
+
+	public int getMaxAsyncRequests()
+	{
+		return config.maxAsyncRequests;
+	}
+
+	/**
+	 * Set the rate limiter that all requests made through this connection have to pass. If the
+	 * server answers with a Retry-After, the rate limiter is paused for that time so that all
+	 * threads back off together.
+	 *
+	 * @param rateLimiter the rate limiter. If null, requests are not rate limited (default).
+	 */
+	public void setRateLimiter(RateLimiter rateLimiter)
+	{
+		this.rateLimiter = rateLimiter;
+	}
+
+	public RateLimiter getRateLimiter()
+	{
+		return rateLimiter;
+	}
+
+	/**
+	 * Set how GET requests that failed because the server is overloaded are retried. Other
+	 * requests are never retried because they may not be idempotent.
+	 *
+	 * @param retryPolicy the retry policy. If null, such requests are not retried (default).
+	 */
+	public void setRetryPolicy(RetryPolicy retryPolicy)
+	{
+		this.retryPolicy = retryPolicy;
+	}
+
+	public RetryPolicy getRetryPolicy()
+	{
+		return retryPolicy;
+	}
+
+	/**
+	 * Set when GET requests that take unusually long are sent a second time, so that whichever
+	 * answers first can be used. Requests made with makeCachedRequest are never hedged. A hedge
+	 * needs a permit of the rate limiter, if there is none available right away, it is not sent.
+	 * Both requests are executed on threads owned by this connection, not on the executor set with
+	 * setAsyncExecutor.
+	 *
+	 * @param hedgingPolicy the hedging policy. If null, requests are not hedged (default).
+	 */
+	public void setHedgingPolicy(HedgingPolicy hedgingPolicy)
+	{
+		this.hedgingPolicy = hedgingPolicy;
+	}
+
+	public HedgingPolicy getHedgingPolicy()
+	{
+		return hedgingPolicy;
+	}
+
+	/**
+	 * Set the cache in which responses to requests made with makeCachedRequest are stored, i.e. a
+	 * {@link de.westnordost.osmapi.cache.MemoryResponseCache}.
+	 *
+	 * @param responseCache the cache. If null, no responses are cached (default).
+	 */
+	public void setResponseCache(ResponseCache responseCache)
+	{
+		this.responseCache = responseCache;
+	}
+
+	public ResponseCache getResponseCache()
+	{
+		return responseCache;
+	}
+
+	/** @return how requests made with makeCachedRequest have been answered */
+	public CacheStatistics getCacheStatistics()
+	{
+		return cacheStatistics;
+	}
+
+	/** Add a listener that is notified about the phases of every request made through this
+	 *  connection, i.e. a {@link LatencyHistograms} */
+	public void addRequestListener(RequestListener listener)
+	{
+		requestListeners.add(listener);
+	}
+
+	public void removeRequestListener(RequestListener listener)
+	{
+		requestListeners.remove(listener);
+	}
+
+	/** @return how many bytes have been received per endpoint, on the wire and decompressed */
+	public TrafficStatistics getTrafficStatistics()
+	{
+		return trafficStatistics;
 	}
 
 	/** @see #makeRequest(String, String, boolean, ApiRequestWriter, ApiResponseReader)*/
@@ -183,109 +448,538 @@ public class OsmConnection
 	public <T> T makeRequest(String call, String method, boolean authenticate,
 							  ApiRequestWriter writer, ApiResponseReader<T> reader)
 	{
-		HttpURLConnection connection = null;
+		return makeRequest(call, method, authenticate, writer, reader, null);
+	}
+
+	/**
+	 * Make a GET request to the Http Osm Api whose response is stored in the response cache (if
+	 * one is set).<br>
+	 * If the response to the same call (made by the same user) is in the cache and is immutable,
+	 * the server is not contacted at all. Otherwise, if the server sent an ETag with the cached
+	 * response, the server is asked whether the response changed in the meantime and only if it
+	 * did, the response is downloaded again.
+	 *
+	 * @param call HTTP path and URL parameters (if any)
+	 * @param authenticate whether to make this request as a logged in user
+	 * @param immutable whether the requested resource can never change, i.e. a specific version
+	 *                  of an element
+	 * @param reader the reader to parse the server's (or cached) response and return an instance
+	 *               of T
+	 * @return an instance of T
+	 */
+	public <T> T makeCachedRequest(String call, boolean authenticate, boolean immutable,
+								   ApiResponseReader<T> reader)
+	{
+		ResponseCache cache = responseCache;
+		if(cache == null) return makeRequest(call, authenticate, reader);
+
+		Config c = config;
+		String key = CacheKeys.of(c.apiUrl, call, authenticate ? c.oauthAccessToken : null);
+		CachedResponse cached = cache.get(key);
+		if(cached != null && cached.immutable)
+		{
+			cacheStatistics.onHit();
+			return parseBufferedResponse(cached.body, reader);
+		}
+
+		Validation validation = new Validation(cached != null ? cached.etag : null);
+		BufferingResponseReader<T> bufferingReader = new BufferingResponseReader<>(reader);
+		T result = makeRequest(call, null, authenticate, null, bufferingReader, validation);
+		if(validation.notModified)
+		{
+			cacheStatistics.onRevalidated();
+			return parseBufferedResponse(cached.body, reader);
+		}
+
+		cacheStatistics.onMiss();
+		if(immutable || validation.responseEtag != null)
+		{
+			cache.put(key, new CachedResponse(bufferingReader.body, validation.responseEtag, immutable));
+		}
+		return result;
+	}
+
+	/**
+	 * Make a GET request to the Http Osm Api and hand out the response body, i.e. to parse it
+	 * element by element while it is downloaded. Like with makeRequest, the request is rate
+	 * limited and retried when the server is overloaded, but it is never hedged.<br>
+	 * The returned stream must be closed. Closing it before the response has been read completely
+	 * aborts the download. The request listeners are notified of the end of the request on close.
+	 *
+	 * @param call HTTP path and URL parameters (if any)
+	 * @param authenticate whether to make this request as a logged in user
+	 * @return the (decompressed) response body
+	 */
+	public InputStream openRequest(String call, boolean authenticate)
+	{
+		return makeRequest(call, null, authenticate, null, OPEN_RESPONSE, null);
+	}
+
+	private <T> T parseBufferedResponse(byte[] body, ApiResponseReader<T> reader)
+	{
 		try
 		{
-			connection = sendRequest(call, method, authenticate, writer);
-			handleResponseCode(connection);
+			return reader.parse(new ByteArrayInputStream(body));
+		}
+		catch (Exception e)
+		{
+			throw new OsmApiReadResponseException(e);
+		}
+	}
 
-			if(reader != null) return handleResponse(connection, reader);
-			else return null;
+	private <T> T makeRequest(String call, String method, boolean authenticate,
+							  ApiRequestWriter writer, ApiResponseReader<T> reader,
+							  Validation validation)
+	{
+		boolean idempotent = method == null || method.equals("GET");
+		int deadlineMillis = config.deadline;
+		long deadline = deadlineMillis > 0
+				? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis)
+				: 0;
+		HedgingPolicy hedgingPolicy = this.hedgingPolicy;
+		boolean hedge = hedgingPolicy != null && idempotent && writer == null && reader != null
+				&& reader != OPEN_RESPONSE && validation == null
+				&& hedgingPolicy.appliesTo(Endpoints.of(call));
+		int attempt = 0;
+		while(true)
+		{
+			RateLimiter rateLimiter = this.rateLimiter;
+			if(rateLimiter != null)
+			{
+				try
+				{
+					rateLimiter.acquire();
+				}
+				catch(InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+					throw new OsmConnectionException(e);
+				}
+			}
+
+			try
+			{
+				if(hedge)
+				{
+					return makeHedgedRequest(call, authenticate, reader, attempt, deadline, hedgingPolicy);
+				}
+				return makeSingleRequest(call, method, authenticate, writer, reader, validation,
+						attempt, deadline);
+			}
+			catch(OsmTooManyRequestsException e)
+			{
+				backOff(e, e.getRetryAfter(), idempotent, attempt++, deadline);
+			}
+			catch(OsmServiceUnavailableException e)
+			{
+				backOff(e, e.getRetryAfter(), idempotent, attempt++, deadline);
+			}
 		}
-		catch(IOException e)
+	}
+
+	/** Sends the same GET request a second time if the first takes unusually long and parses the
+	 *  response of whichever answers first */
+	private <T> T makeHedgedRequest(final String call, final boolean authenticate,
+									ApiResponseReader<T> reader, final int attempt,
+									final long deadline, final HedgingPolicy hedgingPolicy)
+	{
+		String endpoint = Endpoints.of(call);
+		/* not the executor set with setAsyncExecutor: the caller blocks until one of the fetches
+		   completes, so if it is a bounded pool and all of its threads are waiting like this, the
+		   fetches would never run */
+		Executor executor = getDefaultAsyncExecutor();
+		HedgedFetch firstFetch = new HedgedFetch(call, authenticate, attempt, deadline, hedgingPolicy);
+		HedgedFetch secondFetch = null;
+
+		byte[] body;
+		try
+		{
+			CompletableFuture<byte[]> first = CompletableFuture.supplyAsync(firstFetch, executor);
+			try
+			{
+				body = first.get(hedgingPolicy.getDelay(endpoint), TimeUnit.NANOSECONDS);
+			}
+			catch(TimeoutException e)
+			{
+				RateLimiter rateLimiter = this.rateLimiter;
+				if(rateLimiter != null && !rateLimiter.tryAcquire())
+				{
+					// the hedge would exceed the rate limit, so rather wait for the first request
+					body = first.get();
+				}
+				else
+				{
+					hedgingPolicy.onHedged();
+					secondFetch = new HedgedFetch(call, authenticate, attempt, deadline, hedgingPolicy);
+					CompletableFuture<byte[]> second = CompletableFuture.supplyAsync(secondFetch, executor);
+					body = Futures.firstSuccessful(first, second).get();
+					if(second.isDone() && !second.isCompletedExceptionally() && second.get() == body)
+					{
+						hedgingPolicy.onHedgeWon();
+					}
+				}
+			}
+		}
+		catch(InterruptedException e)
 		{
+			Thread.currentThread().interrupt();
 			throw new OsmConnectionException(e);
 		}
+		catch(ExecutionException e)
+		{
+			Throwable cause = e.getCause();
+			if(cause instanceof RuntimeException) throw (RuntimeException) cause;
+			if(cause instanceof Error) throw (Error) cause;
+			throw new OsmConnectionException(cause);
+		}
 		finally
 		{
-			if(connection != null) connection.disconnect();
+			// whichever request lost does not need to download the rest of its response
+			firstFetch.cancel();
+			if(secondFetch != null) secondFetch.cancel();
 		}
+		return parseBufferedResponse(body, reader);
 	}
 
-	private HttpURLConnection sendRequest(String call, String method, boolean authenticate, ApiRequestWriter writer)
-			throws IOException
+	/** One of the two requests of a hedged request. Once cancelled, it stops reading the response
+	 *  and so closes the connection */
+	private final class HedgedFetch implements Supplier<byte[]>, ApiResponseReader<byte[]>
 	{
-		HttpURLConnection connection = openConnection(call);
-		if(method != null)
+		private final String call;
+		private final boolean authenticate;
+		private final int attempt;
+		private final long deadline;
+		private final HedgingPolicy hedgingPolicy;
+		private volatile boolean cancelled;
+
+		HedgedFetch(String call, boolean authenticate, int attempt, long deadline,
+					HedgingPolicy hedgingPolicy)
 		{
-			connection.setRequestMethod(method);
+			this.call = call;
+			this.authenticate = authenticate;
+			this.attempt = attempt;
+			this.deadline = deadline;
+			this.hedgingPolicy = hedgingPolicy;
 		}
 
-		if(writer != null && writer.getContentType() != null)
+		void cancel()
 		{
-			connection.setRequestProperty("Content-Type", writer.getContentType());
-			connection.setRequestProperty("charset", CHARSET.toLowerCase(Locale.UK));
+			cancelled = true;
 		}
 
-		if(authenticate)
+		@Override
+		public byte[] get()
 		{
-			connection.setRequestProperty("Authorization", "Bearer " + oauthAccessToken);
+			if(cancelled) throw new CancellationException();
+			long start = System.nanoTime();
+			byte[] body = makeSingleRequest(call, null, authenticate, null, this, null, attempt, deadline);
+			hedgingPolicy.onCompleted(Endpoints.of(call), System.nanoTime() - start);
+			return body;
 		}
 
-		if(writer != null)
+		@Override
+		public byte[] parse(InputStream in) throws IOException
 		{
-			sendRequestPayload(connection, writer);
+			ByteArrayOutputStream result = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int length;
+			while(!cancelled && (length = in.read(buffer)) != -1)
+			{
+				result.write(buffer, 0, length);
+			}
+			if(cancelled) throw new IOException("Hedged request has been cancelled");
+			return result.toByteArray();
 		}
+	}
 
-		return connection;
+	/** Waits before the given failed attempt is retried or rethrows the error if it should not be
+	 *  retried */
+	private void backOff(RuntimeException error, long retryAfter, boolean idempotent, int attempt,
+						 long deadline)
+	{
+		if(retryAfter >= 0)
+		{
+			RateLimiter rateLimiter = this.rateLimiter;
+			if(rateLimiter != null) rateLimiter.pause(retryAfter);
+		}
+
+		RetryPolicy retryPolicy = this.retryPolicy;
+		if(retryPolicy == null || !idempotent) throw error;
+		if(attempt >= retryPolicy.getMaxRetries())
+		{
+			retryPolicy.onGiveUp();
+			throw error;
+		}
+
+		long backoff = retryPolicy.getBackoff(attempt, retryAfter);
+		if(deadline != 0 && System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoff) - deadline > 0)
+		{
+			// the retry could not finish in time anyway
+			retryPolicy.onGiveUp();
+			throw error;
+		}
+		retryPolicy.onRetry(backoff);
+		try
+		{
+			Thread.sleep(backoff);
+		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw error;
+		}
 	}
 
-	private void sendRequestPayload(HttpURLConnection connection, ApiRequestWriter writer)
-			throws IOException
+	private <T> T makeSingleRequest(String call, String method, boolean authenticate,
+									ApiRequestWriter writer, ApiResponseReader<T> reader,
+									Validation validation, int attempt, long deadline)
 	{
-		connection.setDoOutput(true);
+		RequestMetrics metrics = new RequestMetrics(
+				Endpoints.of(call), method != null ? method : "GET", attempt);
+		for (RequestListener listener : requestListeners) listener.onRequestStarted(metrics);
 
-		OutputStream out = null;
+		long start = System.nanoTime();
+		HttpResponse response = null;
 		try
 		{
-			out = connection.getOutputStream();
-			writer.write(out);
+			HttpRequest request = createRequest(call, method, authenticate, writer, deadline);
+			if(validation != null && validation.etag != null)
+			{
+				request.setHeader("If-None-Match", validation.etag);
+			}
+			response = transport.execute(request);
+			long headTime = System.nanoTime() - start;
+			metrics.connectTime = response.getConnectTime();
+			metrics.firstByteTime = metrics.connectTime >= 0 ? headTime - metrics.connectTime : headTime;
+			metrics.responseCode = response.getResponseCode();
+			for (RequestListener listener : requestListeners) listener.onResponseReceived(metrics);
+
+			if(validation != null && validation.etag != null
+					&& metrics.responseCode == HttpURLConnection.HTTP_NOT_MODIFIED)
+			{
+				validation.notModified = true;
+				return null;
+			}
+
+			handleResponseCode(response);
+			if(validation != null)
+			{
+				validation.responseEtag = response.getHeader("ETag");
+			}
+
+			if(reader == OPEN_RESPONSE)
+			{
+				InputStream body = openResponse(response, metrics, start);
+				// closing the stream finishes the request
+				response = null;
+				metrics = null;
+				@SuppressWarnings("unchecked") T result = (T) body;
+				return result;
+			}
+			if(reader != null) return handleResponse(response, reader, metrics);
+			else return null;
 		}
 		catch(IOException e)
 		{
-			connection.disconnect();
+			metrics.error = new OsmConnectionException(e);
+			throw metrics.error;
+		}
+		catch(RuntimeException e)
+		{
+			metrics.error = e;
 			throw e;
 		}
 		finally
 		{
-			if (out != null)
+			if(response != null) response.close();
+			if(metrics != null)
 			{
-				out.close();
+				metrics.totalTime = System.nanoTime() - start;
+				for (RequestListener listener : requestListeners) listener.onRequestFinished(metrics);
 			}
 		}
 	}
 
-	private synchronized HttpURLConnection openConnection(String call) throws IOException
+	/** @see #makeRequestAsync(String, String, boolean, ApiRequestWriter, ApiResponseReader)*/
+	public <T> CompletableFuture<T> makeRequestAsync(String call, ApiResponseReader<T> reader)
 	{
-		URL url = new URL(new URL(apiUrl), call);
-		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+		return makeRequestAsync(call, null, false, null, reader);
+	}
 
-		// hotel wifi with signon
-		if (!url.getHost().equals(connection.getURL().getHost()))
+	/** @see #makeRequestAsync(String, String, boolean, ApiRequestWriter, ApiResponseReader)*/
+	public <T> CompletableFuture<T> makeRequestAsync(String call, boolean authenticate,
+													 ApiResponseReader<T> reader)
+	{
+		return makeRequestAsync(call, null, authenticate, null, reader);
+	}
+
+	/**
+	 * Make a request to the Http Osm Api without blocking the calling thread for the duration of
+	 * the request. The request is executed on the executor set with
+	 * {@link #setAsyncExecutor(Executor, int)}.<br>
+	 * If the maximum number of pending asynchronous requests has been reached, this method blocks
+	 * until one of them completes.
+	 *
+	 * @return a future that completes with the result of the reader or exceptionally with any
+	 *         of the exceptions listed in the class description
+	 * @see #makeRequest(String, String, boolean, ApiRequestWriter, ApiResponseReader)
+	 */
+	public <T> CompletableFuture<T> makeRequestAsync(
+			final String call, final String method, final boolean authenticate,
+			final ApiRequestWriter writer, final ApiResponseReader<T> reader)
+	{
+		return supplyAsync(new Supplier<T>()
+		{
+			@Override
+			public T get()
+			{
+				return makeRequest(call, method, authenticate, writer, reader);
+			}
+		});
+	}
+
+	/**
+	 * Asynchronous variant of
+	 * {@link #makeCachedRequest(String, boolean, boolean, ApiResponseReader)}
+	 *
+	 * @see #makeRequestAsync(String, String, boolean, ApiRequestWriter, ApiResponseReader)
+	 */
+	public <T> CompletableFuture<T> makeCachedRequestAsync(
+			final String call, final boolean authenticate, final boolean immutable,
+			final ApiResponseReader<T> reader)
+	{
+		return supplyAsync(new Supplier<T>()
 		{
-			throw new RedirectedException();
+			@Override
+			public T get()
+			{
+				return makeCachedRequest(call, authenticate, immutable, reader);
+			}
+		});
+	}
+
+	private <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier)
+	{
+		Config c = config;
+		final Semaphore permits = c.asyncRequestPermits;
+		Executor executor = c.asyncExecutor != null ? c.asyncExecutor : getDefaultAsyncExecutor();
+
+		try
+		{
+			permits.acquire();
+		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			CompletableFuture<T> result = new CompletableFuture<>();
+			result.completeExceptionally(new OsmConnectionException(e));
+			return result;
 		}
 
-		if(userAgent != null)
+		CompletableFuture<T> result;
+		try
 		{
-			connection.setRequestProperty("User-Agent", userAgent);
+			result = CompletableFuture.supplyAsync(supplier, executor);
 		}
-		connection.setConnectTimeout(timeout);
-		connection.setReadTimeout(timeout);
+		catch(RuntimeException e)
+		{
+			permits.release();
+			throw e;
+		}
+		return result.whenComplete(new BiConsumer<T, Throwable>()
+		{
+			@Override
+			public void accept(T t, Throwable throwable)
+			{
+				permits.release();
+			}
+		});
+	}
 
-		// default is method=GET, doInput=true, doOutput=false
+	private Executor getDefaultAsyncExecutor()
+	{
+		ExecutorService executor = defaultAsyncExecutor;
+		if(executor != null) return executor;
+		synchronized(this)
+		{
+			if(defaultAsyncExecutor == null)
+			{
+				defaultAsyncExecutor = Executors.newCachedThreadPool(new ThreadFactory()
+				{
+					@Override
+					public Thread newThread(Runnable runnable)
+					{
+						Thread thread = new Thread(runnable, "osmapi-async");
+						// should not prevent the application from exiting
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+			}
+			return defaultAsyncExecutor;
+		}
+	}
+
+	private HttpRequest createRequest(String call, String method, boolean authenticate,
+									  ApiRequestWriter writer, long deadline) throws IOException
+	{
+		Config c = config;
+		if(c.url == null) throw c.urlError;
+		URL url = new URL(c.url, call);
+		HttpRequest request = new HttpRequest(url, method, writer);
+
+		if(c.userAgent != null)
+		{
+			request.setHeader("User-Agent", c.userAgent);
+		}
+		request.setConnectTimeout(c.connectTimeout);
+		request.setReadTimeout(c.readTimeout);
+		if(deadline != 0)
+		{
+			long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+			if(remaining <= 0) throw new SocketTimeoutException("Deadline exceeded");
+			request.setConnectTimeout(limitTimeout(c.connectTimeout, remaining));
+			request.setReadTimeout(limitTimeout(c.readTimeout, remaining));
+			request.setDeadline(deadline);
+		}
+		request.setHeader("Accept-Encoding", ContentEncodings.ACCEPTED);
+
+		if(writer != null && writer.getContentType() != null)
+		{
+			request.setHeader("Content-Type", writer.getContentType());
+			request.setHeader("charset", CHARSET.toLowerCase(Locale.UK));
+		}
+
+		if(authenticate)
+		{
+			request.setHeader("Authorization", "Bearer " + c.oauthAccessToken);
+		}
 
-		return connection;
+		return request;
 	}
 
-	private <T> T handleResponse(HttpURLConnection connection, ApiResponseReader<T> reader)
-			throws IOException
+	private static int limitTimeout(int timeout, long limit)
 	{
-		InputStream in = null;
+		// 0 = no timeout
+		if(timeout == 0 || timeout > limit) return (int) Math.min(limit, Integer.MAX_VALUE);
+		return timeout;
+	}
+
+	private <T> T handleResponse(HttpResponse response, ApiResponseReader<T> reader,
+								 RequestMetrics metrics) throws IOException
+	{
+		long start = System.nanoTime();
+		CountingInputStream wireIn = new CountingInputStream(response.getInputStream());
+		CountingInputStream decodedIn = null;
+		// i.e. the gzip header is already read when creating the decoding stream
+		long decoderSetupTime = 0;
 		try
 		{
-			in = new BufferedInputStream(connection.getInputStream());
-			return reader.parse(in);
+			String contentEncoding = response.getHeader("Content-Encoding");
+			decodedIn = new CountingInputStream(
+					ContentEncodings.decode(ignoringClose(wireIn), contentEncoding));
+			decoderSetupTime = wireIn.getReadTime();
+			return reader.parse(new BufferedInputStream(decodedIn));
 		}
 		catch (IOException e)
 		{
@@ -297,30 +991,90 @@ public class OsmConnection
 		}
 		finally
 		{
-			if (in != null)
+			metrics.wireBytes = wireIn.getCount();
+			metrics.decodedBytes = decodedIn != null ? decodedIn.getCount() : 0;
+			metrics.bodyTime = decodedIn != null
+					? decoderSetupTime + decodedIn.getReadTime()
+					: wireIn.getReadTime();
+			metrics.parseTime = System.nanoTime() - start - metrics.bodyTime;
+			ApiResponseReader<T> parser = reader instanceof BufferingResponseReader
+					? ((BufferingResponseReader<T>) reader).reader
+					: reader;
+			if(parser instanceof XmlParser)
+			{
+				metrics.elementCount = ((XmlParser) parser).getElementCount();
+			}
+			trafficStatistics.add(metrics.endpoint, metrics.wireBytes, metrics.decodedBytes);
+			if(decodedIn != null)
 			{
-				in.close();
+				try
+				{
+					// ends the Inflater of a gzip or deflate decoder, which holds native memory
+					decodedIn.close();
+				}
+				catch(IOException ignore) {}
 			}
 		}
 	}
 
-	private void handleResponseCode(HttpURLConnection connection) throws IOException
+	private InputStream openResponse(HttpResponse response, RequestMetrics metrics, long requestStart)
+			throws IOException
 	{
-		int httpResponseCode = connection.getResponseCode();
+		long bodyStart = System.nanoTime();
+		CountingInputStream wireIn = new CountingInputStream(response.getInputStream());
+		CountingInputStream decodedIn = new CountingInputStream(
+				ContentEncodings.decode(wireIn, response.getHeader("Content-Encoding")));
+		return new ResponseStream(response, metrics, requestStart, bodyStart, wireIn, decodedIn);
+	}
+
+	private void handleResponseCode(HttpResponse response) throws IOException
+	{
+		int httpResponseCode = response.getResponseCode();
 		// actually any response code between 200 and 299 is a "success" but may need additional
 		// handling. Since the Osm Api only returns 200 on success curently, this check is fine
 		if(httpResponseCode != HttpURLConnection.HTTP_OK)
 		{
-			String responseMessage = connection.getResponseMessage();
-			String errorDescription = getErrorDescription(connection.getErrorStream());
-			
-			throw OsmApiErrorFactory.createError(httpResponseCode, responseMessage, errorDescription);
+			String responseMessage = response.getResponseMessage();
+			String errorDescription = getErrorDescription(response);
+			long retryAfter = RetryPolicy.parseRetryAfter(
+					response.getHeader("Retry-After"), System.currentTimeMillis());
+
+			throw OsmApiErrorFactory.createError(
+					httpResponseCode, responseMessage, errorDescription, retryAfter);
 		}
 	}
 	
-	private String getErrorDescription(InputStream inputStream) throws IOException
+	private String getErrorDescription(HttpResponse response) throws IOException
+	{
+		InputStream errorStream = response.getErrorStream();
+		if(errorStream == null) return null;
+		InputStream decodedIn = ContentEncodings.decode(
+				ignoringClose(errorStream), response.getHeader("Content-Encoding"));
+		try
+		{
+			return new String(readAll(decodedIn), CHARSET);
+		}
+		finally
+		{
+			// ends the Inflater of a gzip or deflate decoder, which holds native memory
+			decodedIn.close();
+		}
+	}
+
+	/** @return the given stream, but closing it does nothing. For wrapping the response body in a
+	 *          decoder that can be closed while the response itself is closed later, which reuses
+	 *          the connection if possible */
+	private static InputStream ignoringClose(InputStream in)
+	{
+		return new FilterInputStream(in)
+		{
+			@Override
+			public void close() {}
+		};
+	}
+
+	private static byte[] readAll(InputStream inputStream) throws IOException
 	{
-		if(inputStream == null) return null;
 		ByteArrayOutputStream result = new ByteArrayOutputStream();
 		byte[] buffer = new byte[1024];
 		int length;
@@ -328,6 +1082,186 @@ public class OsmConnection
 		{
 			result.write(buffer, 0, length);
 		}
-		return result.toString(CHARSET);
+		return result.toByteArray();
+	}
+
+	/** Marks requests made by openRequest. Never actually called */
+	private static final ApiResponseReader<InputStream> OPEN_RESPONSE = new ApiResponseReader<InputStream>()
+	{
+		@Override
+		public InputStream parse(InputStream in)
+		{
+			throw new UnsupportedOperationException();
+		}
+	};
+
+	/** Response body handed out by openRequest. Finishes the request when closed */
+	private final class ResponseStream extends FilterInputStream
+	{
+		private final HttpResponse response;
+		private final RequestMetrics metrics;
+		private final long requestStart;
+		private final long bodyStart;
+		private final CountingInputStream wireIn;
+		private final CountingInputStream decodedIn;
+		private final long decoderSetupTime;
+		private boolean closed;
+
+		ResponseStream(HttpResponse response, RequestMetrics metrics, long requestStart,
+					   long bodyStart, CountingInputStream wireIn, CountingInputStream decodedIn)
+		{
+			super(new BufferedInputStream(decodedIn));
+			this.response = response;
+			this.metrics = metrics;
+			this.requestStart = requestStart;
+			this.bodyStart = bodyStart;
+			this.wireIn = wireIn;
+			this.decodedIn = decodedIn;
+			// i.e. the gzip header is already read when creating the decoding stream
+			this.decoderSetupTime = wireIn.getReadTime();
+		}
+
+		@Override
+		public int read() throws IOException
+		{
+			try
+			{
+				return super.read();
+			}
+			catch(IOException e)
+			{
+				metrics.error = new OsmConnectionException(e);
+				throw e;
+			}
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException
+		{
+			try
+			{
+				return super.read(b, off, len);
+			}
+			catch(IOException e)
+			{
+				metrics.error = new OsmConnectionException(e);
+				throw e;
+			}
+		}
+
+		@Override
+		public void close()
+		{
+			if(closed) return;
+			closed = true;
+			try
+			{
+				response.close();
+			}
+			finally
+			{
+				try
+				{
+					// ends the Inflater of a gzip or deflate decoder, which holds native memory
+					super.close();
+				}
+				catch(IOException ignore) {}
+				metrics.wireBytes = wireIn.getCount();
+				metrics.decodedBytes = decodedIn.getCount();
+				metrics.bodyTime = decoderSetupTime + decodedIn.getReadTime();
+				// whatever the caller did with the response body in the meantime
+				long now = System.nanoTime();
+				metrics.parseTime = now - bodyStart - metrics.bodyTime;
+				metrics.totalTime = now - requestStart;
+				trafficStatistics.add(metrics.endpoint, metrics.wireBytes, metrics.decodedBytes);
+				for (RequestListener listener : requestListeners) listener.onRequestFinished(metrics);
+			}
+		}
+	}
+
+	/** Conditional request state of a cached request */
+	private static final class Validation
+	{
+		/** ETag of the cached response or null */
+		final String etag;
+		/** whether the server answered that the cached response is still valid */
+		boolean notModified;
+		/** ETag of the new response or null */
+		String responseEtag;
+
+		Validation(String etag)
+		{
+			this.etag = etag;
+		}
+	}
+
+	/** Reads the whole response into memory before parsing it, so that it can be cached */
+	private static final class BufferingResponseReader<T> implements ApiResponseReader<T>
+	{
+		final ApiResponseReader<T> reader;
+		byte[] body;
+
+		BufferingResponseReader(ApiResponseReader<T> reader)
+		{
+			this.reader = reader;
+		}
+
+		@Override
+		public T parse(InputStream in) throws Exception
+		{
+			body = readAll(in);
+			return reader.parse(new ByteArrayInputStream(body));
+		}
+	}
+
+	/** Snapshot of the settings of an OsmConnection. It is never modified after it has been
+	 *  published to the config field. */
+	private static final class Config
+	{
+		String apiUrl;
+		/** apiUrl parsed, or null if it is malformed */
+		URL url;
+		MalformedURLException urlError;
+		String userAgent;
+		String oauthAccessToken;
+		int connectTimeout;
+		int readTimeout;
+		int deadline;
+		Executor asyncExecutor;
+		int maxAsyncRequests;
+		Semaphore asyncRequestPermits;
+
+		Config() {}
+
+		Config(Config other)
+		{
+			apiUrl = other.apiUrl;
+			url = other.url;
+			urlError = other.urlError;
+			userAgent = other.userAgent;
+			oauthAccessToken = other.oauthAccessToken;
+			connectTimeout = other.connectTimeout;
+			readTimeout = other.readTimeout;
+			deadline = other.deadline;
+			asyncExecutor = other.asyncExecutor;
+			maxAsyncRequests = other.maxAsyncRequests;
+			asyncRequestPermits = other.asyncRequestPermits;
+		}
+
+		void setApiUrl(String apiUrl)
+		{
+			this.apiUrl = apiUrl;
+			try
+			{
+				url = new URL(apiUrl);
+				urlError = null;
+			}
+			catch(MalformedURLException e)
+			{
+				// reported when a request is made
+				url = null;
+				urlError = e;
+			}
+		}
 	}
 }
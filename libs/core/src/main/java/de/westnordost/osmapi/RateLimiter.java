@@ -0,0 +1,128 @@
+package de.westnordost.osmapi;
+
+import java.util.concurrent.TimeUnit;
+
+/** Token bucket that limits how many requests per second an OsmConnection makes, shared by all
+ *  threads using that connection. When the server answers that it is overloaded, the whole bucket
+ *  can be paused so that all threads back off together instead of retrying at the same moment.
+ *  Thread safe. */
+public class RateLimiter
+{
+	private final double permitsPerNano;
+	private final double burst;
+
+	private double tokens;
+	private long lastRefill;
+	private long pausedUntil;
+
+	private long acquireCount;
+	private long throttleCount;
+	private long throttleWaitNanos;
+	private long pauseCount;
+
+	/**
+	 * @param requestsPerSecond how many requests may be made per second on average
+	 * @param burst how many requests may be made at once after the limiter has been idle
+	 */
+	public RateLimiter(double requestsPerSecond, int burst)
+	{
+		if(requestsPerSecond <= 0) throw new IllegalArgumentException("requestsPerSecond must be positive");
+		if(burst <= 0) throw new IllegalArgumentException("burst must be positive");
+		this.permitsPerNano = requestsPerSecond / TimeUnit.SECONDS.toNanos(1);
+		this.burst = burst;
+		this.tokens = burst;
+		this.lastRefill = System.nanoTime();
+		this.pausedUntil = lastRefill;
+	}
+
+	/** Block until a request may be made */
+	public void acquire() throws InterruptedException
+	{
+		long waitNanos = reserve();
+		if(waitNanos > 0)
+		{
+			TimeUnit.NANOSECONDS.sleep(waitNanos);
+		}
+	}
+
+	/** Take a permit only if one is available right away, without waiting or going into debt
+	 *  @return whether a permit was taken */
+	public synchronized boolean tryAcquire()
+	{
+		long now = System.nanoTime();
+		refill(now);
+		if(tokens < 1 || pausedUntil - now > 0) return false;
+		tokens -= 1;
+		acquireCount++;
+		return true;
+	}
+
+	/** Do not hand out any permits for the given time from now on, i.e. because the server
+	 *  answered with a Retry-After header */
+	public synchronized void pause(long millis)
+	{
+		long until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+		if(until - pausedUntil > 0)
+		{
+			pausedUntil = until;
+		}
+		pauseCount++;
+	}
+
+	/** Takes a token, possibly going into debt, and returns how long the caller needs to wait
+	 *  until the debt is paid off. Waiting happens outside of the lock. */
+	private synchronized long reserve()
+	{
+		long now = System.nanoTime();
+		refill(now);
+		tokens -= 1;
+
+		long waitNanos = tokens < 0 ? (long) Math.ceil(-tokens / permitsPerNano) : 0;
+		waitNanos = Math.max(waitNanos, pausedUntil - now);
+
+		acquireCount++;
+		if(waitNanos > 0)
+		{
+			throttleCount++;
+			throttleWaitNanos += waitNanos;
+		}
+		return waitNanos;
+	}
+
+	private void refill(long now)
+	{
+		tokens = Math.min(burst, tokens + (now - lastRefill) * permitsPerNano);
+		lastRefill = now;
+	}
+
+	/** @return number of permits handed out so far */
+	public synchronized long getAcquireCount()
+	{
+		return acquireCount;
+	}
+
+	/** @return number of times a caller had to wait for a permit */
+	public synchronized long getThrottleCount()
+	{
+		return throttleCount;
+	}
+
+	/** @return total time in milliseconds that callers had to wait for permits */
+	public synchronized long getThrottleWaitMillis()
+	{
+		return TimeUnit.NANOSECONDS.toMillis(throttleWaitNanos);
+	}
+
+	/** @return number of times the limiter has been paused */
+	public synchronized long getPauseCount()
+	{
+		return pauseCount;
+	}
+
+	@Override
+	public synchronized String toString()
+	{
+		return "RateLimiter{acquired=" + acquireCount + ", throttled=" + throttleCount +
+				", throttleWaitMillis=" + getThrottleWaitMillis() + ", paused=" + pauseCount + "}";
+	}
+}
@@ -0,0 +1,21 @@
+package de.westnordost.osmapi;
+
+/** Is notified about the phases of each request made through an {@link OsmConnection}, so that it
+ *  can be seen where time is spent: in connecting, waiting for the server, transferring the
+ *  response body or parsing it. Each retry of a request is reported as a request of its own.
+ *  <br><br>
+ *  The listener is called on the thread that makes the request, so it must be thread safe and
+ *  should return quickly. It must not throw exceptions. */
+public interface RequestListener
+{
+	/** Called before the request is sent */
+	void onRequestStarted(RequestMetrics metrics);
+
+	/** Called when the response head has been received. The connect and first byte times and the
+	 *  response code are known at this point. */
+	void onResponseReceived(RequestMetrics metrics);
+
+	/** Called when the request is done, successful or not. All the metrics are known at this
+	 *  point. */
+	void onRequestFinished(RequestMetrics metrics);
+}
@@ -0,0 +1,47 @@
+package de.westnordost.osmapi;
+
+/** What is known about a request at a certain phase, see {@link RequestListener}. All times are in
+ *  nanoseconds. */
+public class RequestMetrics
+{
+	/** the endpoint template the request is made to, see {@link Endpoints} */
+	public final String endpoint;
+	/** HTTP method, i.e. "GET" */
+	public final String method;
+	/** 0 for the first attempt, 1 for the first retry etc. */
+	public final int attempt;
+
+	/** HTTP response code or -1 if no response has been received */
+	public int responseCode = -1;
+
+	/** time until the connection was established, including waiting for a free connection. -1 if
+	 *  the transport does not know */
+	public long connectTime = -1;
+	/** time from the connection being established until the response head was received. This
+	 *  includes sending the request payload (if any) */
+	public long firstByteTime = -1;
+	/** time spent reading (and decompressing) the response body */
+	public long bodyTime;
+	/** time spent in parsing the response body, not including reading it */
+	public long parseTime;
+	/** total time of the request */
+	public long totalTime;
+
+	/** bytes of the response body as transferred over the wire */
+	public long wireBytes;
+	/** bytes of the response body after decompression */
+	public long decodedBytes;
+	/** number of XML elements in the response body or -1 if not known (the response reader is not
+	 *  a XmlParser) */
+	public long elementCount = -1;
+
+	/** the exception the request failed with or null if it was successful */
+	public RuntimeException error;
+
+	public RequestMetrics(String endpoint, String method, int attempt)
+	{
+		this.endpoint = endpoint;
+		this.method = method;
+		this.attempt = attempt;
+	}
+}
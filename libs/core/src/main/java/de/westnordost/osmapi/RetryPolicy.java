@@ -0,0 +1,130 @@
+package de.westnordost.osmapi;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Decides how often and after how long a GET request that failed because the server is
+ *  overloaded (HTTP 429 Too Many Requests or 503 Service Unavailable) is retried. The wait time
+ *  grows exponentially with each attempt and is jittered so that several clients do not retry at
+ *  the same moment. A Retry-After sent by the server is always honoured. Thread safe. */
+public class RetryPolicy
+{
+	public static final int DEFAULT_MAX_RETRIES = 3;
+	public static final long DEFAULT_INITIAL_BACKOFF = 1000;
+	public static final long DEFAULT_MAX_BACKOFF = 60 * 1000;
+
+	private final int maxRetries;
+	private final long initialBackoff;
+	private final long maxBackoff;
+
+	private final AtomicLong retryCount = new AtomicLong();
+	private final AtomicLong backoffMillis = new AtomicLong();
+	private final AtomicLong giveUpCount = new AtomicLong();
+
+	/**
+	 * @param maxRetries how often a request is retried at most
+	 * @param initialBackoff milliseconds to wait before the first retry
+	 * @param maxBackoff milliseconds to wait at most before a retry, unless the server asks for
+	 *                   longer via Retry-After
+	 */
+	public RetryPolicy(int maxRetries, long initialBackoff, long maxBackoff)
+	{
+		if(maxRetries < 0) throw new IllegalArgumentException("maxRetries must not be negative");
+		if(initialBackoff <= 0) throw new IllegalArgumentException("initialBackoff must be positive");
+		if(maxBackoff < initialBackoff) throw new IllegalArgumentException("maxBackoff must not be smaller than initialBackoff");
+		this.maxRetries = maxRetries;
+		this.initialBackoff = initialBackoff;
+		this.maxBackoff = maxBackoff;
+	}
+
+	public RetryPolicy()
+	{
+		this(DEFAULT_MAX_RETRIES, DEFAULT_INITIAL_BACKOFF, DEFAULT_MAX_BACKOFF);
+	}
+
+	public int getMaxRetries()
+	{
+		return maxRetries;
+	}
+
+	/**
+	 * @param attempt number of retries already made for this request, starting at 0
+	 * @param retryAfter milliseconds the server asked to wait or -1 if it did not say
+	 * @return how many milliseconds to wait before the next retry
+	 */
+	public long getBackoff(int attempt, long retryAfter)
+	{
+		long ceiling = initialBackoff << Math.min(attempt, 30);
+		if(ceiling <= 0 || ceiling > maxBackoff) ceiling = maxBackoff;
+		// "equal jitter": half of the backoff is fixed, the other half random
+		long backoff = ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+		return Math.max(backoff, retryAfter);
+	}
+
+	void onRetry(long backoff)
+	{
+		retryCount.incrementAndGet();
+		backoffMillis.addAndGet(backoff);
+	}
+
+	void onGiveUp()
+	{
+		giveUpCount.incrementAndGet();
+	}
+
+	/** @return number of retries made so far */
+	public long getRetryCount()
+	{
+		return retryCount.get();
+	}
+
+	/** @return total milliseconds waited before retries */
+	public long getBackoffMillis()
+	{
+		return backoffMillis.get();
+	}
+
+	/** @return number of requests that still failed after the maximum number of retries */
+	public long getGiveUpCount()
+	{
+		return giveUpCount.get();
+	}
+
+	@Override
+	public String toString()
+	{
+		return "RetryPolicy{retries=" + retryCount + ", backoffMillis=" + backoffMillis +
+				", gaveUp=" + giveUpCount + "}";
+	}
+
+	/**
+	 * Parse the value of a Retry-After header, which is either a number of seconds or a HTTP date
+	 *
+	 * @param value the header value, may be null
+	 * @param now the current time in milliseconds since the epoch
+	 * @return milliseconds to wait or -1 if the value is absent or invalid
+	 */
+	static long parseRetryAfter(String value, long now)
+	{
+		if(value == null) return -1;
+		value = value.trim();
+		try
+		{
+			long seconds = Long.parseLong(value);
+			return seconds >= 0 ? seconds * 1000 : -1;
+		}
+		catch(NumberFormatException ignore) {}
+		try
+		{
+			ZonedDateTime date = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+			return Math.max(0, date.toInstant().toEpochMilli() - now);
+		}
+		catch(DateTimeParseException e)
+		{
+			return -1;
+		}
+	}
+}
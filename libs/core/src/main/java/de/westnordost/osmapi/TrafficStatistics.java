@@ -0,0 +1,83 @@
+package de.westnordost.osmapi;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Counts the bytes received per endpoint (see {@link Endpoints}), both as transferred over the
+ *  wire (possibly compressed) and after decompression. Thread safe. */
+public class TrafficStatistics
+{
+	private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
+
+	void add(String endpoint, long wireBytes, long decodedBytes)
+	{
+		Counter counter = counters.get(endpoint);
+		if(counter == null)
+		{
+			counter = new Counter();
+			Counter existing = counters.putIfAbsent(endpoint, counter);
+			if(existing != null) counter = existing;
+		}
+		counter.responses.incrementAndGet();
+		counter.wireBytes.addAndGet(wireBytes);
+		counter.decodedBytes.addAndGet(decodedBytes);
+	}
+
+	/** @return all endpoints for which responses have been received */
+	public Set<String> getEndpoints()
+	{
+		return Collections.unmodifiableSet(counters.keySet());
+	}
+
+	/** @return number of responses received from the given endpoint */
+	public long getResponseCount(String endpoint)
+	{
+		Counter counter = counters.get(endpoint);
+		return counter != null ? counter.responses.get() : 0;
+	}
+
+	/** @return number of bytes of response bodies received over the wire from the given endpoint */
+	public long getWireBytes(String endpoint)
+	{
+		Counter counter = counters.get(endpoint);
+		return counter != null ? counter.wireBytes.get() : 0;
+	}
+
+	/** @return number of bytes of response bodies from the given endpoint after decompression */
+	public long getDecodedBytes(String endpoint)
+	{
+		Counter counter = counters.get(endpoint);
+		return counter != null ? counter.decodedBytes.get() : 0;
+	}
+
+	public void clear()
+	{
+		counters.clear();
+	}
+
+	@Override
+	public String toString()
+	{
+		StringBuilder result = new StringBuilder();
+		for (String endpoint : counters.keySet())
+		{
+			long wire = getWireBytes(endpoint);
+			long decoded = getDecodedBytes(endpoint);
+			result.append(endpoint)
+					.append(": ").append(getResponseCount(endpoint)).append(" responses, ")
+					.append(wire).append(" bytes on the wire, ")
+					.append(decoded).append(" bytes decoded\n");
+		}
+		return result.toString();
+	}
+
+	private static class Counter
+	{
+		final AtomicLong responses = new AtomicLong();
+		final AtomicLong wireBytes = new AtomicLong();
+		final AtomicLong decodedBytes = new AtomicLong();
+	}
+}
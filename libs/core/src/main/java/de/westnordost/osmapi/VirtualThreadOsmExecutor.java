@@ -0,0 +1,273 @@
+package de.westnordost.osmapi;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import de.westnordost.osmapi.common.errors.OsmConnectionException;
+
+/** Runs batches of calls to the API concurrently, i.e. MapDataApi.getNode for a list of ids, at
+ *  most the given number of calls at the same time.
+ *  <br><br>
+ *  On Java 21 and later, each call runs on its own virtual thread, so waiting for the server does
+ *  not occupy a platform thread. On older Java versions and on Android, a pool of platform threads
+ *  is used instead.
+ *  <br><br>
+ *  With {@link #useForAsyncCalls()}, the asynchronous methods of the data access objects that use
+ *  the wrapped connection can be made to run on it too.
+ *  <br><br>
+ *  Note that the {@link de.westnordost.osmapi.transport.UrlConnectionTransport} of the connection
+ *  also limits the number of connections per host, so it should be created with a limit at least
+ *  as high as the maximum number of concurrent calls.
+ *  <br><br>
+ *  Close the executor if it is not needed anymore. */
+public class VirtualThreadOsmExecutor implements Closeable
+{
+	private final OsmConnection osm;
+	private final ExecutorService executor;
+	private final int maxConcurrentCalls;
+	private final Semaphore permits;
+	private final boolean virtualThreads;
+
+	private final Object lock = new Object();
+	// guarded by lock
+	private boolean usedForAsyncCalls;
+	private Executor previousAsyncExecutor;
+	private int previousMaxAsyncRequests;
+
+	/**
+	 * @param osm the connection through which the calls are made
+	 * @param maxConcurrentCalls maximum number of calls made at the same time
+	 */
+	public VirtualThreadOsmExecutor(OsmConnection osm, int maxConcurrentCalls)
+	{
+		this(osm, maxConcurrentCalls, createVirtualThreadExecutor(), true);
+	}
+
+	/** for tests: runs the calls on the given executor */
+	VirtualThreadOsmExecutor(OsmConnection osm, int maxConcurrentCalls, ExecutorService executor)
+	{
+		this(osm, maxConcurrentCalls, executor, false);
+	}
+
+	private VirtualThreadOsmExecutor(OsmConnection osm, int maxConcurrentCalls,
+									 ExecutorService executor, boolean virtualThreads)
+	{
+		if(maxConcurrentCalls <= 0)
+		{
+			throw new IllegalArgumentException("maxConcurrentCalls must be positive");
+		}
+		this.osm = osm;
+		this.maxConcurrentCalls = maxConcurrentCalls;
+		this.permits = new Semaphore(maxConcurrentCalls);
+		// null if virtual threads are not available
+		this.virtualThreads = virtualThreads && executor != null;
+		this.executor = executor != null ? executor : createPlatformThreadExecutor();
+	}
+
+	/** Set this executor as the
+	 *  {@link OsmConnection#setAsyncExecutor(Executor, int) async executor} of the connection,
+	 *  so that the asynchronous methods of the data access objects that use the connection run on
+	 *  it too, at most maxConcurrentCalls at the same time. When this executor is closed, the
+	 *  previous async executor of the connection is restored.
+	 *
+	 *  @throws IllegalStateException if this executor has already been closed */
+	public void useForAsyncCalls()
+	{
+		synchronized(lock)
+		{
+			if(executor.isShutdown()) throw new IllegalStateException("Executor has been closed");
+			if(usedForAsyncCalls) return;
+			do
+			{
+				previousAsyncExecutor = osm.getAsyncExecutor();
+				previousMaxAsyncRequests = osm.getMaxAsyncRequests();
+			}
+			while(!osm.compareAndSetAsyncExecutor(
+					previousAsyncExecutor, executor, maxConcurrentCalls));
+			usedForAsyncCalls = true;
+		}
+	}
+
+	/** @return the connection through which the calls are made */
+	public OsmConnection getConnection()
+	{
+		return osm;
+	}
+
+	/** @return whether the calls are run on virtual threads */
+	public boolean isUsingVirtualThreads()
+	{
+		return virtualThreads;
+	}
+
+	/**
+	 * Make the given call for each of the given inputs and wait until all calls are done. I.e.
+	 * <pre>
+	 * List&lt;Node&gt; nodes = executor.invokeAll(nodeIds, new Function&lt;Long, Node&gt;() {
+	 *     public Node apply(Long id) { return mapDataApi.getNode(id); }
+	 * });
+	 * </pre>
+	 *
+	 * @param inputs the inputs to make the call with
+	 * @param call the call to make for each input
+	 * @return the results of the calls, in the same order as the inputs
+	 *
+	 * @throws RuntimeException the exception thrown by the first call that failed, if any. The
+	 *                          remaining calls are cancelled then.
+	 */
+	public <T, R> List<R> invokeAll(Collection<T> inputs, final Function<T, R> call)
+	{
+		List<Future<R>> futures = new ArrayList<>(inputs.size());
+		try
+		{
+			for (final T input : inputs)
+			{
+				// acquire before submitting to not create more threads than calls can be made
+				permits.acquire();
+				CallTask<T, R> task = new CallTask<>(input, call);
+				try
+				{
+					executor.execute(task);
+				}
+				catch(RuntimeException e)
+				{
+					permits.release();
+					throw e;
+				}
+				futures.add(task);
+			}
+
+			List<R> result = new ArrayList<>(futures.size());
+			for (Future<R> future : futures)
+			{
+				result.add(future.get());
+			}
+			return result;
+		}
+		catch(InterruptedException e)
+		{
+			cancelAll(futures);
+			Thread.currentThread().interrupt();
+			throw new OsmConnectionException(e);
+		}
+		catch(ExecutionException e)
+		{
+			cancelAll(futures);
+			Throwable cause = e.getCause();
+			if(cause instanceof RuntimeException) throw (RuntimeException) cause;
+			if(cause instanceof Error) throw (Error) cause;
+			throw new RuntimeException(cause);
+		}
+	}
+
+	private static void cancelAll(List<? extends Future<?>> futures)
+	{
+		for (Future<?> future : futures)
+		{
+			future.cancel(true);
+		}
+	}
+
+	/** Makes the call for one input and releases the permit taken for it when the call is done, or
+	 *  when the task is cancelled before the call started, in which case the call is never made */
+	private final class CallTask<T, R> extends FutureTask<R>
+	{
+		private static final int PENDING = 0, RUNNING = 1, RELEASED = 2;
+
+		private final AtomicInteger state;
+
+		CallTask(T input, Function<T, R> call)
+		{
+			this(input, call, new AtomicInteger(PENDING));
+		}
+
+		private CallTask(final T input, final Function<T, R> call, final AtomicInteger state)
+		{
+			super(new Callable<R>()
+			{
+				@Override
+				public R call()
+				{
+					if(!state.compareAndSet(PENDING, RUNNING)) return null;
+					try
+					{
+						return call.apply(input);
+					}
+					finally
+					{
+						state.set(RELEASED);
+						permits.release();
+					}
+				}
+			});
+			this.state = state;
+		}
+
+		@Override
+		protected void done()
+		{
+			// a running call releases the permit itself once it returned
+			if(state.compareAndSet(PENDING, RELEASED)) permits.release();
+		}
+	}
+
+	/** Stop accepting new calls. Calls already submitted are still made. If this executor has been
+	 *  set as the async executor of the connection, the previous one is restored. */
+	@Override
+	public void close()
+	{
+		synchronized(lock)
+		{
+			if(usedForAsyncCalls)
+			{
+				// unless it has been replaced in the meantime
+				osm.compareAndSetAsyncExecutor(
+						executor, previousAsyncExecutor, previousMaxAsyncRequests);
+			}
+			usedForAsyncCalls = false;
+			executor.shutdown();
+		}
+	}
+
+	private static ExecutorService createVirtualThreadExecutor()
+	{
+		try
+		{
+			// only available from Java 21 on, this library is compiled for Java 8
+			return (ExecutorService) Executors.class
+					.getMethod("newVirtualThreadPerTaskExecutor")
+					.invoke(null);
+		}
+		catch(ReflectiveOperationException | RuntimeException e)
+		{
+			return null;
+		}
+	}
+
+	private static ExecutorService createPlatformThreadExecutor()
+	{
+		return Executors.newCachedThreadPool(new ThreadFactory()
+		{
+			@Override
+			public Thread newThread(Runnable runnable)
+			{
+				Thread thread = new Thread(runnable, "osmapi-executor");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+}
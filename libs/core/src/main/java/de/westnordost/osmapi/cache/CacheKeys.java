@@ -0,0 +1,65 @@
+package de.westnordost.osmapi.cache;
+
+import java.io.UnsupportedEncodingException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+
+/** Creates the keys under which responses are stored in a {@link ResponseCache} */
+public class CacheKeys
+{
+	/**
+	 * @param apiUrl the URL to the API the call is made to. Part of the key so that responses of
+	 *               different servers are not mixed up if they share a cache.
+	 * @param call the API call, i.e. "node/1/3"
+	 * @param oauthAccessToken the access token the request is authenticated with or null if it is
+	 *                         not authenticated. Responses may differ depending on who asks, so
+	 *                         they must be cached separately. Only a hash of the token ends up
+	 *                         in the key.
+	 * @return the key
+	 */
+	public static String of(String apiUrl, String call, String oauthAccessToken)
+	{
+		String url = resolve(apiUrl, call);
+		if(oauthAccessToken == null) return url;
+		return url + " " + sha256Hex(oauthAccessToken).substring(0, 16);
+	}
+
+	/** @return the URL the call is made to, with the scheme and host in lower case */
+	private static String resolve(String apiUrl, String call)
+	{
+		try
+		{
+			// the same way as OsmConnection does it
+			URL url = new URL(new URL(apiUrl), call);
+			return new URL(url.getProtocol().toLowerCase(Locale.UK),
+					url.getHost().toLowerCase(Locale.UK), url.getPort(), url.getFile()).toString();
+		}
+		catch(MalformedURLException e)
+		{
+			return apiUrl + call;
+		}
+	}
+
+	static String sha256Hex(String str)
+	{
+		try
+		{
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(str.getBytes("UTF-8"));
+			StringBuilder result = new StringBuilder(digest.length * 2);
+			for (byte b : digest)
+			{
+				result.append(Character.forDigit((b >> 4) & 0xf, 16));
+				result.append(Character.forDigit(b & 0xf, 16));
+			}
+			return result.toString();
+		}
+		catch(NoSuchAlgorithmException | UnsupportedEncodingException e)
+		{
+			// every Java platform supports SHA-256 and UTF-8
+			throw new RuntimeException(e);
+		}
+	}
+}
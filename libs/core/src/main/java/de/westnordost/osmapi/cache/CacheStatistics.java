@@ -0,0 +1,59 @@
+package de.westnordost.osmapi.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Counts how requests that may be answered from the response cache were answered. Thread safe. */
+public class CacheStatistics
+{
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong revalidations = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	public void onHit()
+	{
+		hits.incrementAndGet();
+	}
+
+	public void onRevalidated()
+	{
+		revalidations.incrementAndGet();
+	}
+
+	public void onMiss()
+	{
+		misses.incrementAndGet();
+	}
+
+	/** @return number of requests answered from the cache without contacting the server */
+	public long getHitCount()
+	{
+		return hits.get();
+	}
+
+	/** @return number of requests for which the server answered that the cached response is still
+	 *          valid (304 Not Modified), so that the response body did not need to be downloaded */
+	public long getRevalidatedCount()
+	{
+		return revalidations.get();
+	}
+
+	/** @return number of requests for which the whole response had to be downloaded */
+	public long getMissCount()
+	{
+		return misses.get();
+	}
+
+	public void clear()
+	{
+		hits.set(0);
+		revalidations.set(0);
+		misses.set(0);
+	}
+
+	@Override
+	public String toString()
+	{
+		return "CacheStatistics{hits=" + hits + ", revalidated=" + revalidations +
+				", misses=" + misses + "}";
+	}
+}
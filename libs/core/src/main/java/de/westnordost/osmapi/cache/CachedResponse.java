@@ -0,0 +1,19 @@
+package de.westnordost.osmapi.cache;
+
+/** The body of a response to a GET request, as stored in a {@link ResponseCache} */
+public class CachedResponse
+{
+	/** the response body, decompressed */
+	public final byte[] body;
+	/** the ETag the server sent with the response or null if it did not send one */
+	public final String etag;
+	/** whether the resource can never change, so the response never needs to be revalidated */
+	public final boolean immutable;
+
+	public CachedResponse(byte[] body, String etag, boolean immutable)
+	{
+		this.body = body;
+		this.etag = etag;
+		this.immutable = immutable;
+	}
+}
@@ -0,0 +1,178 @@
+package de.westnordost.osmapi.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/** Response cache that stores each response in a file in the given directory, up to a given total
+ *  size. If that size is exceeded, the least recently used files are deleted. The cache survives
+ *  restarts of the application.
+ *  <br><br>
+ *  Errors reading or writing the files are not reported, the cache then simply behaves as if the
+ *  response was not cached. Thread safe, but the directory must not be shared by several caches. */
+public class DiskResponseCache implements ResponseCache
+{
+	private static final int FORMAT_VERSION = 1;
+	private static final String SUFFIX = ".response";
+
+	private final File directory;
+	private final long maxBytes;
+
+	private long bytes;
+
+	/**
+	 * @param directory directory in which to store the responses. It is created if it does not
+	 *                  exist
+	 * @param maxBytes maximum total size of the files in the directory
+	 */
+	public DiskResponseCache(File directory, long maxBytes)
+	{
+		if(maxBytes <= 0) throw new IllegalArgumentException("maxBytes must be positive");
+		if(!directory.isDirectory() && !directory.mkdirs())
+		{
+			throw new IllegalArgumentException("Cannot create directory " + directory);
+		}
+		this.directory = directory;
+		this.maxBytes = maxBytes;
+		for (File file : listFiles()) bytes += file.length();
+	}
+
+	@Override
+	public CachedResponse get(String key)
+	{
+		File file = getFile(key);
+		if(!file.isFile()) return null;
+		try
+		{
+			DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			try
+			{
+				if(in.readInt() != FORMAT_VERSION) return null;
+				// different keys could theoretically have the same hash
+				if(!key.equals(in.readUTF())) return null;
+				String etag = in.readBoolean() ? in.readUTF() : null;
+				boolean immutable = in.readBoolean();
+				byte[] body = new byte[in.readInt()];
+				in.readFully(body);
+				// for least recently used eviction
+				file.setLastModified(System.currentTimeMillis());
+				return new CachedResponse(body, etag, immutable);
+			}
+			finally
+			{
+				in.close();
+			}
+		}
+		catch(IOException e)
+		{
+			return null;
+		}
+	}
+
+	@Override
+	public synchronized void put(String key, CachedResponse response)
+	{
+		File file = getFile(key);
+		File tempFile = new File(directory, file.getName() + ".tmp");
+		try
+		{
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+			try
+			{
+				out.writeInt(FORMAT_VERSION);
+				out.writeUTF(key);
+				out.writeBoolean(response.etag != null);
+				if(response.etag != null) out.writeUTF(response.etag);
+				out.writeBoolean(response.immutable);
+				out.writeInt(response.body.length);
+				out.write(response.body);
+			}
+			finally
+			{
+				out.close();
+			}
+			bytes -= file.length();
+			// so that no half-written file is ever read
+			if(!tempFile.renameTo(file))
+			{
+				file.delete();
+				if(!tempFile.renameTo(file)) throw new IOException("Cannot rename " + tempFile);
+			}
+			bytes += file.length();
+		}
+		catch(IOException e)
+		{
+			tempFile.delete();
+			return;
+		}
+		evict(file);
+	}
+
+	@Override
+	public synchronized void remove(String key)
+	{
+		File file = getFile(key);
+		long length = file.length();
+		if(file.delete()) bytes -= length;
+	}
+
+	@Override
+	public synchronized void clear()
+	{
+		for (File file : listFiles()) file.delete();
+		bytes = 0;
+	}
+
+	/** @return total size of the files in the cache directory */
+	public synchronized long getSize()
+	{
+		return bytes;
+	}
+
+	/** Delete the least recently used files except the given one until the cache is small
+	 *  enough again */
+	private void evict(File keep)
+	{
+		if(bytes <= maxBytes) return;
+		File[] files = listFiles();
+		Arrays.sort(files, new Comparator<File>()
+		{
+			@Override
+			public int compare(File a, File b)
+			{
+				return Long.compare(a.lastModified(), b.lastModified());
+			}
+		});
+		for (File file : files)
+		{
+			if(bytes <= maxBytes) break;
+			if(file.equals(keep)) continue;
+			long length = file.length();
+			if(file.delete()) bytes -= length;
+		}
+	}
+
+	private File[] listFiles()
+	{
+		File[] files = directory.listFiles();
+		if(files == null) return new File[0];
+		int count = 0;
+		for (File file : files)
+		{
+			if(file.getName().endsWith(SUFFIX)) files[count++] = file;
+		}
+		return Arrays.copyOf(files, count);
+	}
+
+	private File getFile(String key)
+	{
+		return new File(directory, CacheKeys.sha256Hex(key) + SUFFIX);
+	}
+}
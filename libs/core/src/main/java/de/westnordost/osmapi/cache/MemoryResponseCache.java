@@ -0,0 +1,108 @@
+package de.westnordost.osmapi.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** Response cache that keeps the responses in memory up to a given total size, evicting the least
+ *  recently used ones first. Optionally, it can be backed by another cache (i.e. a
+ *  {@link DiskResponseCache}) as a second tier: Everything stored is also stored there and what is
+ *  not found in memory is looked up there. Thread safe. */
+public class MemoryResponseCache implements ResponseCache
+{
+	private final long maxBytes;
+	private final ResponseCache secondTier;
+
+	private final LinkedHashMap<String, CachedResponse> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long bytes;
+
+	/** @param maxBytes maximum total size of the response bodies kept in memory */
+	public MemoryResponseCache(long maxBytes)
+	{
+		this(maxBytes, null);
+	}
+
+	/**
+	 * @param maxBytes maximum total size of the response bodies kept in memory
+	 * @param secondTier cache to look up responses that are not in memory. May be null
+	 */
+	public MemoryResponseCache(long maxBytes, ResponseCache secondTier)
+	{
+		if(maxBytes <= 0) throw new IllegalArgumentException("maxBytes must be positive");
+		this.maxBytes = maxBytes;
+		this.secondTier = secondTier;
+	}
+
+	@Override
+	public CachedResponse get(String key)
+	{
+		synchronized(entries)
+		{
+			CachedResponse response = entries.get(key);
+			if(response != null) return response;
+		}
+		if(secondTier == null) return null;
+
+		CachedResponse response = secondTier.get(key);
+		if(response != null) putInMemory(key, response);
+		return response;
+	}
+
+	@Override
+	public void put(String key, CachedResponse response)
+	{
+		putInMemory(key, response);
+		if(secondTier != null) secondTier.put(key, response);
+	}
+
+	@Override
+	public void remove(String key)
+	{
+		synchronized(entries)
+		{
+			CachedResponse previous = entries.remove(key);
+			if(previous != null) bytes -= previous.body.length;
+		}
+		if(secondTier != null) secondTier.remove(key);
+	}
+
+	@Override
+	public void clear()
+	{
+		synchronized(entries)
+		{
+			entries.clear();
+			bytes = 0;
+		}
+		if(secondTier != null) secondTier.clear();
+	}
+
+	/** @return total size of the response bodies currently kept in memory */
+	public long getSize()
+	{
+		synchronized(entries)
+		{
+			return bytes;
+		}
+	}
+
+	private void putInMemory(String key, CachedResponse response)
+	{
+		// would evict everything else and still not fit
+		if(response.body.length > maxBytes) return;
+
+		synchronized(entries)
+		{
+			CachedResponse previous = entries.put(key, response);
+			if(previous != null) bytes -= previous.body.length;
+			bytes += response.body.length;
+
+			Iterator<Map.Entry<String, CachedResponse>> it = entries.entrySet().iterator();
+			while(bytes > maxBytes && it.hasNext())
+			{
+				bytes -= it.next().getValue().body.length;
+				it.remove();
+			}
+		}
+	}
+}
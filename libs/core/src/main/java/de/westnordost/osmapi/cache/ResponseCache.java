@@ -0,0 +1,20 @@
+package de.westnordost.osmapi.cache;
+
+/** Stores the bodies of responses of the API, so that they do not need to be downloaded again.
+ *  See {@link de.westnordost.osmapi.OsmConnection#setResponseCache(ResponseCache)}.
+ *  <br><br>
+ *  Implementations must be thread safe. */
+public interface ResponseCache
+{
+	/** @return the response stored under the given key or null if there is none */
+	CachedResponse get(String key);
+
+	/** Store the given response under the given key, replacing any previous one */
+	void put(String key, CachedResponse response);
+
+	/** Remove the response stored under the given key, if any */
+	void remove(String key);
+
+	/** Remove all stored responses */
+	void clear();
+}
@@ -13,9 +13,10 @@ public class CapabilitiesApi
 	}
 
 	/** @return the capabilities and limits of this server. This usually does not change very
-	 *          often for a given server. */
+	 *          often for a given server, so the response is cached in the connection's response
+	 *          cache (if any) and only downloaded again if it changed. */
 	public Capabilities get()
 	{
-		return osm.makeRequest("capabilities", new CapabilitiesParser());
+		return osm.makeCachedRequest("capabilities", false, false, new CapabilitiesParser());
 	}
 }
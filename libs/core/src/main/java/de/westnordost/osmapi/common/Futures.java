@@ -0,0 +1,58 @@
+package de.westnordost.osmapi.common;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+/** Helpers for the futures returned by the asynchronous API calls */
+public class Futures
+{
+	/** @return a future that completes with null instead of exceptionally if the given future
+	 *          completes exceptionally with an exception of the given type. */
+	public static <T> CompletableFuture<T> nullIfThrown(
+			CompletableFuture<T> future, final Class<? extends Throwable> exceptionClass)
+	{
+		return future.handle(new BiFunction<T, Throwable, T>()
+		{
+			@Override
+			public T apply(T result, Throwable e)
+			{
+				if(e == null) return result;
+				if(exceptionClass.isInstance(unwrap(e))) return null;
+				throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(e);
+			}
+		});
+	}
+
+	/** @return a future that completes with the result of whichever of the given futures
+	 *          completes successfully first. Only if all of them complete exceptionally, it
+	 *          completes exceptionally with the exception of the last one. */
+	@SafeVarargs
+	public static <T> CompletableFuture<T> firstSuccessful(CompletableFuture<T>... futures)
+	{
+		final CompletableFuture<T> result = new CompletableFuture<>();
+		final AtomicInteger pending = new AtomicInteger(futures.length);
+		for (CompletableFuture<T> future : futures)
+		{
+			future.whenComplete(new BiConsumer<T, Throwable>()
+			{
+				@Override
+				public void accept(T value, Throwable e)
+				{
+					if(e == null) result.complete(value);
+					else if(pending.decrementAndGet() == 0) result.completeExceptionally(unwrap(e));
+				}
+			});
+		}
+		return result;
+	}
+
+	/** @return the exception that made a future complete exceptionally */
+	public static Throwable unwrap(Throwable e)
+	{
+		if(e instanceof CompletionException && e.getCause() != null) return e.getCause();
+		return e;
+	}
+}
@@ -0,0 +1,167 @@
+package de.westnordost.osmapi.common;
+
+/** Parsing and formatting of decimal numbers as they appear in the API requests and responses,
+ *  without the intermediate objects created by Double.parseDouble and java.text.NumberFormat.
+ *  Locale independent. */
+public class Numbers
+{
+	/** number of decimal places that are formatted without going through Double.toString. That's
+	 *  the precision of coordinates in the OSM database */
+	private static final int FAST_DECIMALS = 7;
+	/** above this, value * 10^FAST_DECIMALS is not exactly representable as a double anymore */
+	private static final double MAX_FAST_VALUE = (1L << 53) / 1e7;
+
+	/** the mantissa must stay below this so that it is exactly representable as a double */
+	private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+	private static final double[] POWERS_OF_TEN = {
+			1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+			1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+
+	private Numbers() {}
+
+	/** Parses a decimal number like "-12.3456789". The result is exactly the same as the one of
+	 *  Double.parseDouble. Numbers with too many digits or in other notations are passed on to
+	 *  Double.parseDouble.
+	 *
+	 *  @throws NumberFormatException if the string is not a number */
+	public static double parseDouble(String str)
+	{
+		int length = str.length();
+		int i = 0;
+		boolean negative = false;
+		if(length > 0)
+		{
+			char first = str.charAt(0);
+			if(first == '-' || first == '+')
+			{
+				negative = first == '-';
+				i++;
+			}
+		}
+		long mantissa = 0;
+		int digits = 0;
+		int decimals = -1;
+		for (; i < length; ++i)
+		{
+			char c = str.charAt(i);
+			if(c >= '0' && c <= '9')
+			{
+				mantissa = mantissa * 10 + (c - '0');
+				if(mantissa >= MAX_EXACT_MANTISSA) return Double.parseDouble(str);
+				digits++;
+				if(decimals >= 0) decimals++;
+			}
+			else if(c == '.' && decimals < 0)
+			{
+				decimals = 0;
+			}
+			else
+			{
+				return Double.parseDouble(str);
+			}
+		}
+		if(digits == 0 || decimals >= POWERS_OF_TEN.length) return Double.parseDouble(str);
+
+		/* both the mantissa and the power of ten are exact, so the division is correctly rounded
+		   just like Double.parseDouble */
+		double value = decimals > 0 ? mantissa / POWERS_OF_TEN[decimals] : mantissa;
+		return negative ? -value : value;
+	}
+
+	/** @return the given number in plain notation and without grouping, i.e. "52.5123456", "1"
+	 *          or "0.0000001". Parsing the result gives exactly the same number again */
+	public static String toString(double value)
+	{
+		StringBuilder builder = new StringBuilder(24);
+		appendDouble(builder, value);
+		return builder.toString();
+	}
+
+	/** Append the given number in plain notation, see {@link #toString(double)} */
+	public static void appendDouble(StringBuilder builder, double value)
+	{
+		if(Math.abs(value) < MAX_FAST_VALUE)
+		{
+			long unscaled = Math.round(value * POWERS_OF_TEN[FAST_DECIMALS]);
+			/* if this is exactly the value again, unscaled * 10^-7 is the shortest decimal that
+			   parses to the value */
+			if(unscaled / POWERS_OF_TEN[FAST_DECIMALS] == value)
+			{
+				appendDecimal(builder, unscaled, FAST_DECIMALS);
+				return;
+			}
+		}
+		appendPlain(builder, Double.toString(value));
+	}
+
+	/** Append unscaled * 10^-scale without trailing zeros, i.e. 12340 with scale 3 is "12.34" */
+	public static void appendDecimal(StringBuilder builder, long unscaled, int scale)
+	{
+		if(unscaled < 0)
+		{
+			builder.append('-');
+			unscaled = -unscaled;
+		}
+		long divisor = 1;
+		for (int i = 0; i < scale; ++i) divisor *= 10;
+		builder.append(unscaled / divisor);
+		long fraction = unscaled % divisor;
+		if(fraction == 0) return;
+
+		while(fraction % 10 == 0)
+		{
+			fraction /= 10;
+			scale--;
+		}
+		builder.append('.');
+		int start = builder.length();
+		builder.append(fraction);
+		for (int i = builder.length() - start; i < scale; ++i)
+		{
+			builder.insert(start, '0');
+		}
+	}
+
+	/** Convert the result of Double.toString to plain notation */
+	private static void appendPlain(StringBuilder builder, String str)
+	{
+		int exponentIndex = str.indexOf('E');
+		if(exponentIndex < 0)
+		{
+			if(str.endsWith(".0")) builder.append(str, 0, str.length() - 2);
+			else builder.append(str);
+			return;
+		}
+		int start = 0;
+		if(str.charAt(0) == '-')
+		{
+			builder.append('-');
+			start = 1;
+		}
+		// Double.toString always has exactly one digit before the point in scientific notation
+		StringBuilder digits = new StringBuilder(exponentIndex);
+		digits.append(str.charAt(start)).append(str, start + 2, exponentIndex);
+		while(digits.length() > 1 && digits.charAt(digits.length() - 1) == '0')
+		{
+			digits.setLength(digits.length() - 1);
+		}
+		int pointIndex = 1 + Integer.parseInt(str.substring(exponentIndex + 1));
+		if(pointIndex <= 0)
+		{
+			builder.append("0.");
+			for (int i = pointIndex; i < 0; ++i) builder.append('0');
+			builder.append(digits);
+		}
+		else if(pointIndex >= digits.length())
+		{
+			builder.append(digits);
+			for (int i = digits.length(); i < pointIndex; ++i) builder.append('0');
+		}
+		else
+		{
+			builder.append(digits, 0, pointIndex).append('.').append(digits, pointIndex, digits.length());
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package de.westnordost.osmapi.common;
+
+import java.util.function.Predicate;
+
+/** Says which parts of the parsed objects should be created at all, which objects should be passed
+ *  on to the handler and after how many of them parsing should stop. Parts that are not needed do
+ *  not need to be created, so i.e. if only the ids of ways are of interest, parsing a response
+ *  without tags, metadata and members produces much less garbage.
+ *  <br><br>
+ *  By default, everything is parsed. Parts that do not exist in the parsed objects are ignored,
+ *  i.e. notes have no tags. The parts that are left out are null or empty in the parsed objects.
+ *
+ *  @param <T> type of the parsed objects, i.e. Element */
+public class ParseOptions<T>
+{
+	private boolean tags = true;
+	private boolean metadata = true;
+	private boolean members = true;
+	private boolean comments = true;
+	private Predicate<? super T> filter;
+	private long limit = Long.MAX_VALUE;
+
+	/** Do not parse the tags of elements and changesets
+	 *
+	 *  @return this */
+	public ParseOptions<T> withoutTags()
+	{
+		tags = false;
+		return this;
+	}
+
+	/** Do not parse who edited what when: The changeset and timestamp of elements and the users of
+	 *  changesets, changeset comments and note comments
+	 *
+	 *  @return this */
+	public ParseOptions<T> withoutMetadata()
+	{
+		metadata = false;
+		return this;
+	}
+
+	/** Do not parse the node ids of ways and the members of relations
+	 *
+	 *  @return this */
+	public ParseOptions<T> withoutMembers()
+	{
+		members = false;
+		return this;
+	}
+
+	/** Do not parse the comments of notes and the discussion of changesets
+	 *
+	 *  @return this */
+	public ParseOptions<T> withoutComments()
+	{
+		comments = false;
+		return this;
+	}
+
+	/** Only pass on the parsed objects to the handler that match the given filter. Objects that do
+	 *  not match do not count towards the limit
+	 *
+	 *  @return this */
+	public ParseOptions<T> filter(Predicate<? super T> filter)
+	{
+		this.filter = filter;
+		return this;
+	}
+
+	/** Stop parsing after the given number of objects have been passed on to the handler. The rest
+	 *  of the response is not read then
+	 *
+	 *  @return this */
+	public ParseOptions<T> limit(long limit)
+	{
+		if(limit <= 0) throw new IllegalArgumentException("limit must be positive");
+		this.limit = limit;
+		return this;
+	}
+
+	public boolean includesTags()
+	{
+		return tags;
+	}
+
+	public boolean includesMetadata()
+	{
+		return metadata;
+	}
+
+	public boolean includesMembers()
+	{
+		return members;
+	}
+
+	public boolean includesComments()
+	{
+		return comments;
+	}
+
+	/** @return whether the given object should be passed on to the handler */
+	public boolean accepts(T object)
+	{
+		return filter == null || filter.test(object);
+	}
+
+	/** @return the number of objects after which parsing should stop */
+	public long getLimit()
+	{
+		return limit;
+	}
+}
@@ -0,0 +1,120 @@
+package de.westnordost.osmapi.common;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+/** Parses the timestamps in API responses, which are "2020-10-26T19:33:14Z" or, for the notes API,
+ *  "2020-10-26 19:33:14 UTC", without the overhead of a DateTimeFormatter. Consecutive elements
+ *  often have the same timestamp, so the last result is remembered. Timestamps in other forms, i.e.
+ *  with fractional seconds, are passed on to parseOther.
+ *
+ *  Not thread safe, each parser should use its own instance. */
+public class TimestampParser
+{
+	private static final int SECONDS_PER_DAY = 24 * 60 * 60;
+	/** days from 0000-03-01 to 1970-01-01 in the proleptic gregorian calendar */
+	private static final int DAYS_0000_TO_1970 = 719468;
+
+	private String lastSource;
+	private Instant lastInstant;
+
+	/** @throws DateTimeParseException if the string is not a valid timestamp */
+	public Instant parse(String source)
+	{
+		if(source.equals(lastSource)) return lastInstant;
+
+		long epochSecond = parseEpochSecond(source);
+		Instant instant = epochSecond != Long.MIN_VALUE
+				? Instant.ofEpochSecond(epochSecond)
+				: parseOther(source);
+		lastSource = source;
+		lastInstant = instant;
+		return instant;
+	}
+
+	/** Parse a timestamp that is not in one of the forms parsed directly. Uses Instant.parse by
+	 *  default.
+	 *
+	 *  @throws DateTimeParseException if the string is not a valid timestamp */
+	protected Instant parseOther(String source)
+	{
+		return Instant.parse(source);
+	}
+
+	/** @return seconds since the epoch or Long.MIN_VALUE if the string is not of the form
+	 *          yyyy-MM-ddTHH:mm:ssZ or yyyy-MM-dd HH:mm:ss UTC or is not a valid date */
+	private static long parseEpochSecond(String s)
+	{
+		int length = s.length();
+		if(length != 20 && length != 23) return Long.MIN_VALUE;
+		if(s.charAt(4) != '-' || s.charAt(7) != '-' || s.charAt(13) != ':' || s.charAt(16) != ':')
+		{
+			return Long.MIN_VALUE;
+		}
+		char separator = s.charAt(10);
+		if(length == 20)
+		{
+			if(separator != 'T' || s.charAt(19) != 'Z') return Long.MIN_VALUE;
+		}
+		else
+		{
+			if(separator != ' ' || !s.regionMatches(19, " UTC", 0, 4)) return Long.MIN_VALUE;
+		}
+
+		int year = digits(s, 0, 4);
+		int month = digits(s, 5, 2);
+		int day = digits(s, 8, 2);
+		int hour = digits(s, 11, 2);
+		int minute = digits(s, 14, 2);
+		int second = digits(s, 17, 2);
+		if((year | month | day | hour | minute | second) < 0 || year < 1) return Long.MIN_VALUE;
+		if(month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) return Long.MIN_VALUE;
+		// leap seconds are left to parseOther
+		if(hour > 23 || minute > 59 || second > 59) return Long.MIN_VALUE;
+
+		return daysSinceEpoch(year, month, day) * SECONDS_PER_DAY + hour * 3600 + minute * 60 + second;
+	}
+
+	/** @return the number with the given count of digits at the given position or -1 if there are
+	 *          non-digit characters */
+	private static int digits(String s, int start, int count)
+	{
+		int result = 0;
+		for (int i = start; i < start + count; ++i)
+		{
+			int digit = s.charAt(i) - '0';
+			if(digit < 0 || digit > 9) return -1;
+			result = result * 10 + digit;
+		}
+		return result;
+	}
+
+	private static int lengthOfMonth(int year, int month)
+	{
+		switch (month)
+		{
+			case 2:
+				boolean leap = (year % 4 == 0) && (year % 100 != 0 || year % 400 == 0);
+				return leap ? 29 : 28;
+			case 4:
+			case 6:
+			case 9:
+			case 11:
+				return 30;
+			default:
+				return 31;
+		}
+	}
+
+	/** Civil date to days since 1970-01-01, counting years from March so that the leap day is the
+	 *  last day of the year. Only valid for positive years. */
+	private static long daysSinceEpoch(int year, int month, int day)
+	{
+		if(month <= 2) year--;
+		int era = year / 400;
+		int yearOfEra = year - era * 400;
+		int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+		int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		return (long) era * 146097 + dayOfEra - DAYS_0000_TO_1970;
+	}
+}
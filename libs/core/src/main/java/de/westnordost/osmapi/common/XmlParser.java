@@ -1,73 +1,178 @@
 package de.westnordost.osmapi.common;
 
-import org.xmlpull.v1.XmlPullParser;
-import org.xmlpull.v1.XmlPullParserFactory;
-
 import de.westnordost.osmapi.common.errors.XmlParserException;
+import de.westnordost.osmapi.map.data.Fixed1E7;
+import de.westnordost.osmapi.xml.XmlBackends;
+import de.westnordost.osmapi.xml.XmlStreamParser;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Stack;
+import java.util.Arrays;
 
 /** A simple XML parser that can be used quite similarly to the SAX parser but is based on the pull
- *  parser. It has two convenience methods. You can get the parent element via getParentName and you
- *  can get the text in the current node (in onEndElement) via getText.
+ *  parser of the {@link XmlBackends#getDefault() XML backend}. It has two convenience methods. You
+ *  can get the parent element via getParentName and you can get the text in the current node (in
+ *  onEndElement) via getText.
+ *
+ *  Element names are mapped to small integer tokens, so that subclasses can dispatch on them with a
+ *  switch instead of comparing strings: The names passed to the constructor get the tokens 0, 1, 2
+ *  etc. in the given order, see getToken and getParentToken.
  *
  *  It is not very generic but generic enough for the purpose of this project */
 public abstract class XmlParser
 {
 	private static final String CHARSET = "UTF-8";
-	
-	private Stack<String> parentElements = new Stack<>();
+
+	/** token returned by getParentToken if there is no parent element */
+	protected static final int NO_ELEMENT = -1;
+
+	private final int knownNamesCount;
+	/* open addressing hash table of element names to tokens. Names not known in advance are added
+	   while parsing and removed again at the start of the next document */
+	private String[] tableNames;
+	private int[] tableTokens;
+	private String[] tokenNames;
+	private int tokenCount;
+
+	private int[] parentTokens = new int[16];
+	private int depth;
+	private int token = NO_ELEMENT;
+
 	private String text;
-	private XmlPullParser xpp;
+	private XmlStreamParser xpp;
+	private long elementCount;
+	private boolean stopped;
+
+	protected XmlParser()
+	{
+		this(new String[0]);
+	}
+
+	/** @param knownNames names of the elements the subclass is interested in. They get the tokens
+	 *                    0, 1, 2 etc. in the given order */
+	protected XmlParser(String... knownNames)
+	{
+		knownNamesCount = knownNames.length;
+		int capacity = 16;
+		while(capacity < knownNames.length * 4) capacity <<= 1;
+		tableNames = new String[capacity];
+		tableTokens = new int[capacity];
+		tokenNames = new String[Math.max(8, knownNames.length * 2)];
+		for (String name : knownNames)
+		{
+			if(findSlot(name) >= 0) throw new IllegalArgumentException("Duplicate name " + name);
+			addToken(name);
+		}
+	}
 
 	protected final void doParse(InputStream in) throws XmlParserException, IOException
 	{
+		startParse(in);
 		try
 		{
-			if(xpp == null)
-			{
-				xpp = XmlPullParserFactory.newInstance().newPullParser();
-			}
+			while(parseNext());
+		}
+		finally
+		{
+			finishParse();
+		}
+	}
+
+	/** Start parsing the given input step by step with {@link #parseNext()} instead of all at once
+	 *  with doParse. {@link #finishParse()} must be called when done, also if parsing failed or is
+	 *  stopped early. */
+	protected final void startParse(InputStream in) throws XmlParserException, IOException
+	{
+		try
+		{
+			xpp = XmlBackends.obtainParser();
 			xpp.setInput(in, CHARSET);
-			int eventType = xpp.getEventType();
-			while (eventType != XmlPullParser.END_DOCUMENT)
-			{
-				switch (eventType)
-				{
-					case XmlPullParser.START_TAG:
-						text = null;
-						onStartElement();
-						parentElements.push(xpp.getName());
-						break;
-					case XmlPullParser.TEXT:
-						onTextNode(xpp.getText());
-						break;
-					case XmlPullParser.END_TAG:
-						parentElements.pop();
-						onEndElement();
-						text = null;
-						break;
-				}
-				eventType = xpp.next();
-			}
+			elementCount = 0;
+			depth = 0;
+			stopped = false;
+			removeUnknownTokens();
 		}
-		catch(IOException e)
+		catch(IOException | XmlParserException e)
 		{
+			finishParse();
 			throw e;
 		}
 		catch (Exception e)
 		{
-			if(xpp != null)
-			{
-				throw new XmlParserException(xpp.getPositionDescription(), e);
-			}
-			else
+			XmlParserException error = xpp != null
+					? new XmlParserException(xpp.getPositionDescription(), e)
+					: new XmlParserException(e);
+			finishParse();
+			throw error;
+		}
+	}
+
+	/** Parse the next start tag, text or end tag, calling onStartElement, onTextNode or
+	 *  onEndElement respectively
+	 *
+	 *  @return false if the end of the document has been reached or parsing has been stopped */
+	protected final boolean parseNext() throws XmlParserException, IOException
+	{
+		if(stopped) return false;
+		try
+		{
+			switch (xpp.next())
 			{
-				throw new XmlParserException(e);
+				case XmlStreamParser.START_ELEMENT:
+					elementCount++;
+					text = null;
+					token = tokenOf(xpp.getName());
+					onStartElement();
+					pushParent(token);
+					return true;
+				case XmlStreamParser.TEXT:
+					onTextNode(xpp.getText());
+					return true;
+				case XmlStreamParser.END_ELEMENT:
+					token = parentTokens[--depth];
+					onEndElement();
+					text = null;
+					return true;
+				case XmlStreamParser.END_DOCUMENT:
+					return false;
+				default:
+					return true;
 			}
 		}
+		catch(IOException | XmlParserException e)
+		{
+			throw e;
+		}
+		catch (Exception e)
+		{
+			throw new XmlParserException(xpp.getPositionDescription(), e);
+		}
+	}
+
+	/** Stop parsing the current document after the current start tag, text or end tag. The rest of
+	 *  the input is not read */
+	protected final void stopParse()
+	{
+		stopped = true;
+	}
+
+	/** Give back the resources used for parsing the current document. Does nothing if no document
+	 *  is being parsed */
+	protected final void finishParse()
+	{
+		if(xpp != null)
+		{
+			XmlBackends.releaseParser(xpp);
+			xpp = null;
+		}
+	}
+
+	/**
+	 * @return the number of XML elements encountered in the current or last parse
+	 */
+	public long getElementCount()
+	{
+		return elementCount;
 	}
 
 	/**
@@ -78,6 +183,23 @@ public abstract class XmlParser
 		return xpp.getName();
 	}
 
+	/**
+	 * @return the token of the current element. Elements whose names have been passed to the
+	 *         constructor have the token of the position of the name in that list
+	 */
+	protected int getToken()
+	{
+		return token;
+	}
+
+	/**
+	 * @return the token of the element parent to the current one or NO_ELEMENT if there is none
+	 */
+	protected int getParentToken()
+	{
+		return depth > 0 ? parentTokens[depth - 1] : NO_ELEMENT;
+	}
+
 	/**
 	 * @param name of the attribute
 	 * @return the value of the attribute of the current element or null if it does not exist. Only non-null within
@@ -85,7 +207,7 @@ public abstract class XmlParser
 	 */
 	protected String getAttribute(String name)
 	{
-		return xpp.getAttributeValue(null, name);
+		return xpp.getAttributeValue(name);
 	}
 
 	protected Float getFloatAttribute(String name)
@@ -97,7 +219,7 @@ public abstract class XmlParser
 	protected Double getDoubleAttribute(String name)
 	{
 		String attr = getAttribute(name);
-		return attr != null ? Double.parseDouble(attr) : null;
+		return attr != null ? Numbers.parseDouble(attr) : null;
 	}
 
 	protected Integer getIntAttribute(String name)
@@ -112,6 +234,38 @@ public abstract class XmlParser
 		return attr != null ? Long.parseLong(attr) : null;
 	}
 
+	/* The following getters return the primitive value of an attribute or the given value if the
+	   attribute is not present, so that no boxed numbers need to be created for every element */
+
+	/** @return the value of the attribute with the given name or absent if there is none */
+	protected double getDoubleAttribute(String name, double absent)
+	{
+		String attr = getAttribute(name);
+		return attr != null ? Numbers.parseDouble(attr) : absent;
+	}
+
+	/** @return the value of the attribute with the given name as a fixed 1E7 number or absent if
+	 *          there is none. See {@link Fixed1E7} */
+	protected int getFixed1E7Attribute(String name, int absent)
+	{
+		String attr = getAttribute(name);
+		return attr != null ? Fixed1E7.parseFixed(attr) : absent;
+	}
+
+	/** @return the value of the attribute with the given name or absent if there is none */
+	protected int getIntAttribute(String name, int absent)
+	{
+		String attr = getAttribute(name);
+		return attr != null ? Integer.parseInt(attr) : absent;
+	}
+
+	/** @return the value of the attribute with the given name or absent if there is none */
+	protected long getLongAttribute(String name, long absent)
+	{
+		String attr = getAttribute(name);
+		return attr != null ? Long.parseLong(attr) : absent;
+	}
+
 	protected Boolean getBooleanAttribute(String name)
 	{
 		String attr = getAttribute(name);
@@ -129,8 +283,8 @@ public abstract class XmlParser
 	 */
 	protected String getParentName()
 	{
-		if(parentElements.empty()) return null;
-		return parentElements.peek();
+		int parentToken = getParentToken();
+		return parentToken != NO_ELEMENT ? tokenNames[parentToken] : null;
 	}
 
 	/**
@@ -147,6 +301,72 @@ public abstract class XmlParser
 		this.text = text;
 	}
 
+	private void pushParent(int token)
+	{
+		if(depth == parentTokens.length)
+		{
+			parentTokens = Arrays.copyOf(parentTokens, depth * 2);
+		}
+		parentTokens[depth++] = token;
+	}
+
+	private int tokenOf(String name)
+	{
+		int slot = findSlot(name);
+		if(slot >= 0) return tableTokens[slot];
+		return addToken(name);
+	}
+
+	/** @return the slot of the given name in the table or, if it is not in the table,
+	 *          -(the free slot where it should be inserted) - 1 */
+	private int findSlot(String name)
+	{
+		int mask = tableNames.length - 1;
+		// cheaper than String.hashCode, which is not cached for the new strings the parser creates
+		int length = name.length();
+		int slot = (length * 31 + name.charAt(0)) * 31 + name.charAt(length - 1);
+		slot = (slot ^ (slot >>> 7)) & mask;
+		while(true)
+		{
+			String tableName = tableNames[slot];
+			if(tableName == null) return -slot - 1;
+			if(tableName.equals(name)) return slot;
+			slot = (slot + 1) & mask;
+		}
+	}
+
+	private int addToken(String name)
+	{
+		if((tokenCount + 1) * 2 > tableNames.length) rehash(tableNames.length * 2);
+		int slot = -findSlot(name) - 1;
+		int token = tokenCount++;
+		tableNames[slot] = name;
+		tableTokens[slot] = token;
+		if(token == tokenNames.length) tokenNames = Arrays.copyOf(tokenNames, token * 2);
+		tokenNames[token] = name;
+		return token;
+	}
+
+	private void removeUnknownTokens()
+	{
+		if(tokenCount == knownNamesCount) return;
+		Arrays.fill(tokenNames, knownNamesCount, tokenCount, null);
+		tokenCount = knownNamesCount;
+		rehash(tableNames.length);
+	}
+
+	private void rehash(int capacity)
+	{
+		tableNames = new String[capacity];
+		tableTokens = new int[capacity];
+		for (int token = 0; token < tokenCount; ++token)
+		{
+			int slot = -findSlot(tokenNames[token]) - 1;
+			tableNames[slot] = tokenNames[token];
+			tableTokens[slot] = token;
+		}
+	}
+
 	protected abstract void onStartElement() throws Exception;
 
 	protected abstract void onEndElement() throws Exception;
@@ -3,31 +3,22 @@ package de.westnordost.osmapi.common;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.text.NumberFormat;
-import java.util.Locale;
-
-import org.xmlpull.v1.XmlPullParserException;
-import org.xmlpull.v1.XmlPullParserFactory;
-import org.xmlpull.v1.XmlSerializer;
+import java.util.ArrayList;
 
 import de.westnordost.osmapi.ApiRequestWriter;
+import de.westnordost.osmapi.xml.XmlBackends;
+import de.westnordost.osmapi.xml.XmlStreamSerializer;
 
 /**
- * A simple XML writer / serializer with convenience method and less generic
+ * A simple XML writer / serializer with convenience method and less generic. Uses the serializer
+ * of the {@link XmlBackends#getDefault() XML backend}.
  */
 public abstract class XmlWriter implements ApiRequestWriter
 {
 	private static final String CHARSET = "UTF-8";
 	
-	private XmlSerializer xml;
-
-	private final NumberFormat numberFormat;
-
-	public XmlWriter()
-	{
-		numberFormat = NumberFormat.getNumberInstance(Locale.UK);
-		numberFormat.setMaximumFractionDigits(340);
-	}
+	private XmlStreamSerializer xml;
+	private final ArrayList<String> openTags = new ArrayList<>();
 
 	@Override
 	public final String getContentType()
@@ -38,75 +29,76 @@ public abstract class XmlWriter implements ApiRequestWriter
 	@Override
 	public final void write(OutputStream out) throws IOException
 	{
+		xml = XmlBackends.obtainSerializer();
 		try
 		{
-			xml = XmlPullParserFactory.newInstance().newSerializer();
-		}
-		catch(XmlPullParserException e)
-		{
-			throw new RuntimeException("Cannot initialize serializer", e);
-		}
-		xml.setOutput(out, CHARSET);
-		xml.startDocument(CHARSET, null);
+			openTags.clear();
+			xml.startDocument(out, CHARSET);
+
+			write();
 
-		write();
+			if(!openTags.isEmpty())
+			{
+				throw new IllegalStateException("Forgot to close a tag");
+			}
 
-		if(xml.getName() != null)
+			xml.endDocument();
+		}
+		finally
 		{
-			throw new IllegalStateException("Forgot to close a tag");
+			XmlBackends.releaseSerializer(xml);
+			xml = null;
 		}
-
-		xml.endDocument();
-		xml.flush();
 	}
 
 	protected final void begin(String name) throws IOException
 	{
-		xml.startTag(null, name);
+		xml.startTag(name);
+		openTags.add(name);
 	}
 
 	protected final void end() throws IOException
 	{
-		if(xml.getName() == null)
+		if(openTags.isEmpty())
 		{
 			throw new IllegalStateException("Closed one tag to many");
 		}
-		xml.endTag(null, xml.getName());
+		xml.endTag(openTags.remove(openTags.size() - 1));
 	}
 
 	protected final void attribute(String key, String value) throws IOException
 	{
-		xml.attribute(null, key, value);
+		xml.attribute(key, value);
 	}
 
 	protected final void attribute(String key, float value) throws IOException
 	{
-		xml.attribute(null, key, numberFormat.format(value));
+		xml.attribute(key, Numbers.toString(value));
 	}
 	
 	protected final void attribute(String key, double value) throws IOException
 	{
-		xml.attribute(null, key, numberFormat.format(value));
+		xml.attribute(key, Numbers.toString(value));
 	}
 	
 	protected final void attribute(String key, int value) throws IOException
 	{
-		xml.attribute(null, key, String.valueOf(value));
+		xml.attribute(key, String.valueOf(value));
 	}
 	
 	protected final void attribute(String key, long value) throws IOException
 	{
-		xml.attribute(null, key, String.valueOf(value));
+		xml.attribute(key, String.valueOf(value));
 	}
 	
 	protected final void attribute(String key, byte value) throws IOException
 	{
-		xml.attribute(null, key, String.valueOf(value));
+		xml.attribute(key, String.valueOf(value));
 	}
 	
 	protected final void attribute(String key, boolean value) throws IOException
 	{
-		xml.attribute(null, key, String.valueOf(value));
+		xml.attribute(key, String.valueOf(value));
 	}
 	
 	protected final void text(String text) throws IOException
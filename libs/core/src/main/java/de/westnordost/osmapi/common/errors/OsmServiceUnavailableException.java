@@ -5,9 +5,25 @@ package de.westnordost.osmapi.common.errors;
 public class OsmServiceUnavailableException extends OsmConnectionException
 {
 	private static final long serialVersionUID = 1L;
+
+	private final long retryAfter;
 	
 	public OsmServiceUnavailableException(int errorCode, String errorTitle, String description)
+	{
+		this(errorCode, errorTitle, description, -1);
+	}
+
+	public OsmServiceUnavailableException(int errorCode, String errorTitle, String description,
+										  long retryAfter)
 	{
 		super(errorCode, errorTitle, description);
+		this.retryAfter = retryAfter;
+	}
+
+	/** @return how many milliseconds the server asked to wait before trying again or -1 if the
+	 *          server did not say */
+	public long getRetryAfter()
+	{
+		return retryAfter;
 	}
 }
@@ -4,8 +4,24 @@ package de.westnordost.osmapi.common.errors;
 public class OsmTooManyRequestsException extends OsmApiException {
     private static final long serialVersionUID = 1L;
 
+    private final long retryAfter;
+
     public OsmTooManyRequestsException(int errorCode, String errorTitle, String description)
+    {
+        this(errorCode, errorTitle, description, -1);
+    }
+
+    public OsmTooManyRequestsException(int errorCode, String errorTitle, String description,
+                                       long retryAfter)
     {
         super(errorCode, errorTitle, description);
+        this.retryAfter = retryAfter;
+    }
+
+    /** @return how many milliseconds the server asked to wait before trying again or -1 if the
+     *          server did not say */
+    public long getRetryAfter()
+    {
+        return retryAfter;
     }
 }
@@ -1,10 +1,10 @@
 package de.westnordost.osmapi.map.data;
 
 import java.io.Serializable;
-import java.text.NumberFormat;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Locale;
+
+import de.westnordost.osmapi.common.Numbers;
 
 /** A rectangle in latitude longitude coordinates. Bounds are immutable. */
 public class BoundingBox implements Serializable
@@ -13,6 +13,8 @@ public class BoundingBox implements Serializable
 	
 	private OsmLatLon min;
 	private OsmLatLon max;
+	/* min lat, min lon, max lat, max lon as fixed 1E7 numbers, created on first use */
+	private transient int[] bounds1E7;
 
 	public BoundingBox(final double latMin, final double lonMin, final double latMax, final double lonMax)
 	{
@@ -21,8 +23,9 @@ public class BoundingBox implements Serializable
 	
 	public BoundingBox(LatLon min, LatLon max)
 	{
-		this.min = new OsmLatLon(min);
-		this.max = new OsmLatLon(max);
+		// OsmLatLon is immutable, so there is no need to copy it
+		this.min = min instanceof OsmLatLon ? (OsmLatLon) min : new OsmLatLon(min);
+		this.max = max instanceof OsmLatLon ? (OsmLatLon) max : new OsmLatLon(max);
 
 		if(!isValid())
 		{
@@ -65,11 +68,15 @@ public class BoundingBox implements Serializable
 
 	public String getAsLeftBottomRightTopString()
 	{
-		NumberFormat df = NumberFormat.getNumberInstance(Locale.UK);
-		df.setMaximumFractionDigits(340);
-
-		return df.format(getMinLongitude()) + "," + df.format(getMinLatitude()) + "," +
-				df.format(getMaxLongitude()) + "," + df.format(getMaxLatitude());
+		StringBuilder builder = new StringBuilder(48);
+		Numbers.appendDouble(builder, getMinLongitude());
+		builder.append(',');
+		Numbers.appendDouble(builder, getMinLatitude());
+		builder.append(',');
+		Numbers.appendDouble(builder, getMaxLongitude());
+		builder.append(',');
+		Numbers.appendDouble(builder, getMaxLatitude());
+		return builder.toString();
 	}
 
 	public boolean crosses180thMeridian()
@@ -77,6 +84,51 @@ public class BoundingBox implements Serializable
 		return min.getLongitude() > max.getLongitude();
 	}
 
+	/** @return whether the given position is within these bounds, including their edges. For a
+	 *          Fixed1E7LatLon, only its integers are compared */
+	public boolean contains(LatLon pos)
+	{
+		if(pos instanceof Fixed1E7LatLon)
+		{
+			Fixed1E7LatLon fixed = (Fixed1E7LatLon) pos;
+			return contains1E7(fixed.getLatitude1E7(), fixed.getLongitude1E7());
+		}
+		return contains(pos.getLatitude(), pos.getLongitude());
+	}
+
+	/** @return whether the given position is within these bounds, including their edges */
+	public boolean contains(double lat, double lon)
+	{
+		if(lat < min.getLatitude() || lat > max.getLatitude()) return false;
+		if(crosses180thMeridian())
+		{
+			return lon >= min.getLongitude() || lon <= max.getLongitude();
+		}
+		return lon >= min.getLongitude() && lon <= max.getLongitude();
+	}
+
+	/** @return whether the given position, given as fixed 1E7 numbers (see {@link Fixed1E7}), is
+	 *          within these bounds, including their edges. The bounds are rounded to 7 decimal
+	 *          places for this */
+	public boolean contains1E7(int lat, int lon)
+	{
+		int[] bounds = bounds1E7;
+		if(bounds == null)
+		{
+			bounds = new int[] {
+					Fixed1E7.doubleToFixed(min.getLatitude()), Fixed1E7.doubleToFixed(min.getLongitude()),
+					Fixed1E7.doubleToFixed(max.getLatitude()), Fixed1E7.doubleToFixed(max.getLongitude())
+			};
+			bounds1E7 = bounds;
+		}
+		if(lat < bounds[0] || lat > bounds[2]) return false;
+		if(bounds[1] > bounds[3])
+		{
+			return lon >= bounds[1] || lon <= bounds[3];
+		}
+		return lon >= bounds[1] && lon <= bounds[3];
+	}
+
 	private boolean isValid()
 	{
 		return min.getLatitude() <= max.getLatitude();
@@ -1,5 +1,7 @@
 package de.westnordost.osmapi.map.data;
 
+import de.westnordost.osmapi.common.Numbers;
+
 /**
  * Fixed point number math with 7 decimal places.
  */
@@ -8,9 +10,83 @@ public class Fixed1E7
 	private static final int DECIMAL_PLACES = 7;
 	private static final int FIXED = (int) Math.pow(10, DECIMAL_PLACES);
 
+	/** Parses a decimal number like "-12.3456789" directly into a fixed 1E7 number, without going
+	 *  through a double. Digits beyond the 7th decimal place are rounded like doubleToFixed does.
+	 *
+	 *  @throws NumberFormatException if the string is not a number */
 	public static int parseFixed(String str)
 	{
-		return doubleToFixed(Double.parseDouble(str));
+		int length = str.length();
+		int i = 0;
+		boolean negative = false;
+		if(length > 0)
+		{
+			char first = str.charAt(0);
+			if(first == '-' || first == '+')
+			{
+				negative = first == '-';
+				i++;
+			}
+		}
+		long value = 0;
+		int digits = 0;
+		int decimals = -1;
+		// 0: nothing cut off, 1: less than half, 2: exactly half, 3: more than half
+		int remainder = 0;
+		for (; i < length; ++i)
+		{
+			char c = str.charAt(i);
+			if(c >= '0' && c <= '9')
+			{
+				digits++;
+				if(decimals < DECIMAL_PLACES)
+				{
+					value = value * 10 + (c - '0');
+					if(value > Integer.MAX_VALUE) return doubleToFixed(Double.parseDouble(str));
+					if(decimals >= 0) decimals++;
+				}
+				else if(decimals == DECIMAL_PLACES)
+				{
+					remainder = c > '5' ? 3 : c == '5' ? 2 : c > '0' ? 1 : 0;
+					decimals++;
+				}
+				else if(c != '0' && remainder == 2)
+				{
+					remainder = 3;
+				}
+			}
+			else if(c == '.' && decimals < 0)
+			{
+				decimals = 0;
+			}
+			else
+			{
+				return doubleToFixed(Double.parseDouble(str));
+			}
+		}
+		if(digits == 0) return doubleToFixed(Double.parseDouble(str));
+
+		for (int d = Math.max(decimals, 0); d < DECIMAL_PLACES; ++d)
+		{
+			value *= 10;
+		}
+		// Math.round rounds halves up, i.e. away from zero for positive and towards it for negative
+		if(remainder == 3 || (remainder == 2 && !negative)) value++;
+		if(negative) value = -value;
+		if(value > Integer.MAX_VALUE || value < Integer.MIN_VALUE)
+		{
+			return doubleToFixed(Double.parseDouble(str));
+		}
+		return (int) value;
+	}
+
+	/** @return the fixed 1E7 number as a decimal like "-12.3456789", without trailing zeros.
+	 *          Other than toDouble, this never needs to round */
+	public static String fixedToString(int value)
+	{
+		StringBuilder builder = new StringBuilder(12);
+		Numbers.appendDecimal(builder, value, DECIMAL_PLACES);
+		return builder.toString();
 	}
 
 	public static int intToFixed(int n)
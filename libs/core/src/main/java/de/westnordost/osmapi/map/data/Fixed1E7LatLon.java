@@ -11,11 +11,19 @@ import java.io.Serializable;
  * involves a division operation. If the goal is to save disk space, rather just serialize a latlon
  * with two integers instead. This implementation should only be chosen if the goal is to save RAM
  * space but CPU is not the bottleneck.
+ *
+ * Positions can also be created from and converted to the fixed 1E7 integers directly, or packed
+ * into a single long with the latitude in the upper and the longitude in the lower 32 bits, i.e.
+ * for storing many positions in a primitive array. Comparing two Fixed1E7LatLons with each other
+ * only compares the integers.
  */
 public class Fixed1E7LatLon implements LatLon, Serializable
 {
 	private static final long serialVersionUID = 1L;
 
+	private static final int MAX_LATITUDE = Fixed1E7.intToFixed(90);
+	private static final int MAX_LONGITUDE = Fixed1E7.intToFixed(180);
+
 	private final int latitude;
 	private final int longitude;
 
@@ -29,6 +37,96 @@ public class Fixed1E7LatLon implements LatLon, Serializable
 		this.longitude = Fixed1E7.doubleToFixed(longitude);
 	}
 
+	/* not public so that it is not confused with the constructor taking doubles */
+	private Fixed1E7LatLon(int latitude, int longitude)
+	{
+		if(!isValid(latitude, longitude))
+		{
+			throw new IllegalArgumentException("Latitude " + Fixed1E7.fixedToString(latitude) +
+					", Longitude " + Fixed1E7.fixedToString(longitude) + " is not a valid position.");
+		}
+		this.latitude = latitude;
+		this.longitude = longitude;
+	}
+
+	/** @param latitude latitude as fixed 1E7 number, see {@link Fixed1E7}
+	 *  @param longitude longitude as fixed 1E7 number
+	 *  @throws IllegalArgumentException if the given latitude and longitude do not make up a valid
+	 *          position */
+	public static Fixed1E7LatLon fromFixed1E7(int latitude, int longitude)
+	{
+		return new Fixed1E7LatLon(latitude, longitude);
+	}
+
+	/** @param packed latitude and longitude as returned by {@link #pack(int, int)}
+	 *  @throws IllegalArgumentException if it is not a valid position */
+	public static Fixed1E7LatLon fromPacked(long packed)
+	{
+		return new Fixed1E7LatLon(unpackLatitude(packed), unpackLongitude(packed));
+	}
+
+	/** Parses the given decimal numbers directly into fixed 1E7 numbers, without going through
+	 *  doubles
+	 *  @throws NumberFormatException if they are not numbers
+	 *  @throws IllegalArgumentException if they do not make up a valid position */
+	public static Fixed1E7LatLon parseLatLon(String lat, String lon)
+	{
+		return new Fixed1E7LatLon(Fixed1E7.parseFixed(lat), Fixed1E7.parseFixed(lon));
+	}
+
+	/** @return whether the given fixed 1E7 latitude and longitude make up a valid position */
+	public static boolean isValid(int latitude, int longitude)
+	{
+		return latitude >= -MAX_LATITUDE && latitude <= MAX_LATITUDE
+			&& longitude >= -MAX_LONGITUDE && longitude <= MAX_LONGITUDE;
+	}
+
+	/** @return the given fixed 1E7 latitude and longitude packed into one long */
+	public static long pack(int latitude, int longitude)
+	{
+		return ((long) latitude << 32) | (longitude & 0xffffffffL);
+	}
+
+	/** @return the given position packed into one long. Positions other than Fixed1E7LatLons are
+	 *          rounded to 7 decimal places */
+	public static long pack(LatLon position)
+	{
+		if(position instanceof Fixed1E7LatLon) return ((Fixed1E7LatLon) position).toPacked();
+		return pack(
+				Fixed1E7.doubleToFixed(position.getLatitude()),
+				Fixed1E7.doubleToFixed(position.getLongitude()));
+	}
+
+	/** @return the fixed 1E7 latitude of the given packed position */
+	public static int unpackLatitude(long packed)
+	{
+		return (int) (packed >> 32);
+	}
+
+	/** @return the fixed 1E7 longitude of the given packed position */
+	public static int unpackLongitude(long packed)
+	{
+		return (int) packed;
+	}
+
+	/** @return the latitude as fixed 1E7 number */
+	public int getLatitude1E7()
+	{
+		return latitude;
+	}
+
+	/** @return the longitude as fixed 1E7 number */
+	public int getLongitude1E7()
+	{
+		return longitude;
+	}
+
+	/** @return this position packed into one long, see {@link #pack(int, int)} */
+	public long toPacked()
+	{
+		return pack(latitude, longitude);
+	}
+
 	@Override
 	public double getLatitude()
 	{
@@ -45,6 +143,11 @@ public class Fixed1E7LatLon implements LatLon, Serializable
 	public boolean equals(Object obj)
 	{
 		if(obj == this) return true;
+		if(obj instanceof Fixed1E7LatLon)
+		{
+			Fixed1E7LatLon other = (Fixed1E7LatLon) obj;
+			return other.latitude == latitude && other.longitude == longitude;
+		}
 		if(obj == null || !(obj instanceof LatLon)) return false;
 		LatLon other = (LatLon) obj;
 		return other.getLatitude() == getLatitude() && other.getLongitude() == getLongitude();
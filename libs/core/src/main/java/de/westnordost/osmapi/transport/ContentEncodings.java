@@ -0,0 +1,38 @@
+package de.westnordost.osmapi.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/** Decodes compressed response bodies */
+public class ContentEncodings
+{
+	/** value for the Accept-Encoding request header: all the encodings that can be decoded */
+	public static final String ACCEPTED = "gzip, deflate";
+
+	/** @return a stream that decompresses the given stream on the fly, depending on the given
+	 *          Content-Encoding. If the encoding is null or identity, the stream itself is
+	 *          returned.
+	 *  @throws IOException if the encoding is not supported or the gzip header is invalid */
+	public static InputStream decode(InputStream in, String contentEncoding) throws IOException
+	{
+		if(contentEncoding == null) return in;
+
+		String encoding = contentEncoding.trim().toLowerCase(Locale.UK);
+		switch(encoding)
+		{
+			case "":
+			case "identity":
+				return in;
+			case "gzip":
+			case "x-gzip":
+				return new GZIPInputStream(in, 8192);
+			case "deflate":
+				return new InflaterInputStream(in);
+			default:
+				throw new IOException("Unsupported Content-Encoding " + contentEncoding);
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package de.westnordost.osmapi.transport;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/** Counts the bytes read through it and how long reading took */
+public class CountingInputStream extends FilterInputStream
+{
+	private long count;
+	private long mark = -1;
+	private long readTime;
+
+	public CountingInputStream(InputStream in)
+	{
+		super(in);
+	}
+
+	/** @return the number of bytes read so far */
+	public long getCount()
+	{
+		return count;
+	}
+
+	/** @return the time in nanoseconds spent in reading from the underlying stream so far */
+	public long getReadTime()
+	{
+		return readTime;
+	}
+
+	@Override
+	public int read() throws IOException
+	{
+		long start = System.nanoTime();
+		int result = in.read();
+		readTime += System.nanoTime() - start;
+		if(result != -1) count++;
+		return result;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException
+	{
+		long start = System.nanoTime();
+		int result = in.read(b, off, len);
+		readTime += System.nanoTime() - start;
+		if(result != -1) count += result;
+		return result;
+	}
+
+	@Override
+	public long skip(long n) throws IOException
+	{
+		long start = System.nanoTime();
+		long result = in.skip(n);
+		readTime += System.nanoTime() - start;
+		count += result;
+		return result;
+	}
+
+	@Override
+	public synchronized void mark(int readlimit)
+	{
+		in.mark(readlimit);
+		mark = count;
+	}
+
+	@Override
+	public synchronized void reset() throws IOException
+	{
+		if(!in.markSupported()) throw new IOException("Mark not supported");
+		if(mark == -1) throw new IOException("Mark not set");
+		in.reset();
+		count = mark;
+	}
+}
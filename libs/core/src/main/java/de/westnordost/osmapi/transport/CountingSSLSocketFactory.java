@@ -0,0 +1,90 @@
+package de.westnordost.osmapi.transport;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+
+import javax.net.ssl.SSLSocketFactory;
+
+/** Delegates to another SSLSocketFactory and remembers whether a new socket has been created on
+ *  the current thread. A HttpsURLConnection only asks its socket factory for a socket if it could
+ *  not take an idle one from the keep-alive cache, so this tells apart new connections from reused
+ *  ones. */
+class CountingSSLSocketFactory extends SSLSocketFactory
+{
+	private final SSLSocketFactory delegate;
+	private final ThreadLocal<Boolean> createdSocket = new ThreadLocal<>();
+
+	CountingSSLSocketFactory(SSLSocketFactory delegate)
+	{
+		this.delegate = delegate;
+	}
+
+	/** Forget whether a socket has been created on the current thread */
+	void reset()
+	{
+		createdSocket.remove();
+	}
+
+	/** @return whether a socket has been created on the current thread since the last reset */
+	boolean hasCreatedSocket()
+	{
+		return Boolean.TRUE.equals(createdSocket.get());
+	}
+
+	private <T extends Socket> T created(T socket)
+	{
+		createdSocket.set(true);
+		return socket;
+	}
+
+	@Override
+	public String[] getDefaultCipherSuites()
+	{
+		return delegate.getDefaultCipherSuites();
+	}
+
+	@Override
+	public String[] getSupportedCipherSuites()
+	{
+		return delegate.getSupportedCipherSuites();
+	}
+
+	@Override
+	public Socket createSocket() throws IOException
+	{
+		return created(delegate.createSocket());
+	}
+
+	@Override
+	public Socket createSocket(Socket s, String host, int port, boolean autoClose) throws IOException
+	{
+		return created(delegate.createSocket(s, host, port, autoClose));
+	}
+
+	@Override
+	public Socket createSocket(String host, int port) throws IOException
+	{
+		return created(delegate.createSocket(host, port));
+	}
+
+	@Override
+	public Socket createSocket(String host, int port, InetAddress localHost, int localPort)
+			throws IOException
+	{
+		return created(delegate.createSocket(host, port, localHost, localPort));
+	}
+
+	@Override
+	public Socket createSocket(InetAddress host, int port) throws IOException
+	{
+		return created(delegate.createSocket(host, port));
+	}
+
+	@Override
+	public Socket createSocket(InetAddress address, int port, InetAddress localAddress,
+							   int localPort) throws IOException
+	{
+		return created(delegate.createSocket(address, port, localAddress, localPort));
+	}
+}
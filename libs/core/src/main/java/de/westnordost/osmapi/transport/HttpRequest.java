@@ -0,0 +1,101 @@
+package de.westnordost.osmapi.transport;
+
+import java.net.URL;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import de.westnordost.osmapi.ApiRequestWriter;
+
+/** A HTTP request as prepared by the OsmConnection, to be sent by a {@link HttpTransport} */
+public class HttpRequest
+{
+	private final URL url;
+	private final String method;
+	private final ApiRequestWriter writer;
+	private final Map<String, String> headers = new LinkedHashMap<>();
+
+	private int connectTimeout;
+	private int readTimeout;
+	private long deadline;
+
+	/**
+	 * @param url the full URL to request
+	 * @param method HTTP method. If null, GET is assumed
+	 * @param writer the writer to send the request payload to the server. If null, no payload is
+	 *               sent
+	 */
+	public HttpRequest(URL url, String method, ApiRequestWriter writer)
+	{
+		this.url = url;
+		this.method = method != null ? method : "GET";
+		this.writer = writer;
+	}
+
+	public URL getUrl()
+	{
+		return url;
+	}
+
+	public String getMethod()
+	{
+		return method;
+	}
+
+	/** @return the writer for the request payload or null if there is none */
+	public ApiRequestWriter getWriter()
+	{
+		return writer;
+	}
+
+	public void setHeader(String name, String value)
+	{
+		headers.put(name, value);
+	}
+
+	public String getHeader(String name)
+	{
+		return headers.get(name);
+	}
+
+	public Map<String, String> getHeaders()
+	{
+		return Collections.unmodifiableMap(headers);
+	}
+
+	/** @return timeout in milliseconds for establishing the connection. 0 means no timeout */
+	public int getConnectTimeout()
+	{
+		return connectTimeout;
+	}
+
+	public void setConnectTimeout(int connectTimeout)
+	{
+		this.connectTimeout = connectTimeout;
+	}
+
+	/** @return timeout in milliseconds for waiting for data from the server. 0 means no timeout */
+	public int getReadTimeout()
+	{
+		return readTimeout;
+	}
+
+	public void setReadTimeout(int readTimeout)
+	{
+		this.readTimeout = readTimeout;
+	}
+
+	/** @return point in time (as returned by {@link System#nanoTime()}) at which the whole
+	 *          exchange, including reading the response body, must be finished. Transports should
+	 *          abort the request with a {@link java.net.SocketTimeoutException} when it is
+	 *          reached. 0 means no deadline */
+	public long getDeadline()
+	{
+		return deadline;
+	}
+
+	public void setDeadline(long deadline)
+	{
+		this.deadline = deadline;
+	}
+}
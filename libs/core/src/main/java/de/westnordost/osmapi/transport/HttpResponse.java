@@ -0,0 +1,34 @@
+package de.westnordost.osmapi.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/** The response of the server to a {@link HttpRequest}.
+ *  <br><br>
+ *  A response must always be closed after use. Depending on the transport, this hands the
+ *  underlying connection back to a pool so that it can be reused by a later request. */
+public interface HttpResponse extends Closeable
+{
+	int getResponseCode() throws IOException;
+
+	String getResponseMessage() throws IOException;
+
+	/** @return the value of the given response header or null if it has not been sent */
+	String getHeader(String name);
+
+	/** @return the response body of a successful response */
+	InputStream getInputStream() throws IOException;
+
+	/** @return the response body of an unsuccessful response or null if there is none */
+	InputStream getErrorStream();
+
+	/** @return time in nanoseconds it took until the connection to the server was established,
+	 *          including waiting for a free connection. -1 if the transport does not know */
+	long getConnectTime();
+
+	/** Releases the connection. Whatever has not been read from the response body yet is
+	 *  discarded. */
+	@Override
+	void close();
+}
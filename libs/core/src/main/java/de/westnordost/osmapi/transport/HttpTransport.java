@@ -0,0 +1,20 @@
+package de.westnordost.osmapi.transport;
+
+import java.io.IOException;
+
+/** Sends HTTP requests on behalf of an OsmConnection. Implement this to plug in a different HTTP
+ *  stack than the default {@link UrlConnectionTransport}.
+ *  <br><br>
+ *  Implementations must be thread safe, one transport is shared by all requests made through an
+ *  OsmConnection. */
+public interface HttpTransport
+{
+	/** Send the given request, including its payload (if any), and return the server's response.
+	 *  The caller is responsible to {@link HttpResponse#close() close} the response, regardless
+	 *  of whether its body has been read or not.
+	 *
+	 * @param request the request to send
+	 * @return the response of the server
+	 * @throws IOException if the request could not be sent */
+	HttpResponse execute(HttpRequest request) throws IOException;
+}
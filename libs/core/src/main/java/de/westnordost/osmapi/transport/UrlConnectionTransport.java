@@ -0,0 +1,484 @@
+package de.westnordost.osmapi.transport;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.net.ssl.HttpsURLConnection;
+
+import de.westnordost.osmapi.common.errors.RedirectedException;
+
+/** Default transport, based on HttpURLConnection.
+ *  <br><br>
+ *  Connections are not torn down after each request but the response body is read to the end and
+ *  the connection handed back to the keep-alive cache of the platform. So, subsequent requests to
+ *  the same host reuse the open socket and skip the TCP and TLS handshake.
+ *  <br><br>
+ *  The number of connections per host is bounded: If all are in use, further requests to that host
+ *  wait until one is released, but at most as long as their connect timeout and not beyond their
+ *  deadline. A connection is in use until its response is closed, i.e. for as long as the stream
+ *  returned by OsmConnection.openRequest is open. Idle connections are evicted by the platform
+ *  once the keep-alive timeout announced by the server runs out. (On the JVM, the number of idle
+ *  connections kept per host can be tuned with the system property <tt>http.maxConnections</tt>,
+ *  it should not be lower than the maximum number of connections per host set here.)
+ *  <br><br>
+ *  If a request has a deadline, the connection is torn down when the deadline is reached, no
+ *  matter in which phase the request is.
+ *  */
+public class UrlConnectionTransport implements HttpTransport
+{
+	/** as many as asynchronous requests may be pending by default, see
+	 *  OsmConnection.setAsyncExecutor */
+	public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 64;
+
+	/** if more than this is left unread of a response body, the connection is not worth saving */
+	private static final int MAX_DRAIN_BYTES = 64 * 1024;
+
+	private final int maxConnectionsPerHost;
+	private final ConcurrentMap<String, Semaphore> permitsPerHost = new ConcurrentHashMap<>();
+	private final CountingSSLSocketFactory sslSocketFactory;
+
+	private final AtomicLong requestCount = new AtomicLong();
+	private final AtomicLong openedConnectionCount = new AtomicLong();
+	private final AtomicLong reusedConnectionCount = new AtomicLong();
+	private final AtomicLong discardedConnectionCount = new AtomicLong();
+
+	public UrlConnectionTransport()
+	{
+		this(DEFAULT_MAX_CONNECTIONS_PER_HOST);
+	}
+
+	/** @param maxConnectionsPerHost maximum number of connections open at the same time per host */
+	public UrlConnectionTransport(int maxConnectionsPerHost)
+	{
+		if(maxConnectionsPerHost <= 0)
+		{
+			throw new IllegalArgumentException("maxConnectionsPerHost must be positive");
+		}
+		this.maxConnectionsPerHost = maxConnectionsPerHost;
+		sslSocketFactory = new CountingSSLSocketFactory(HttpsURLConnection.getDefaultSSLSocketFactory());
+	}
+
+	@Override
+	public HttpResponse execute(HttpRequest request) throws IOException
+	{
+		long start = System.nanoTime();
+		Semaphore permit = acquirePermit(request.getUrl(), request.getConnectTimeout(),
+				request.getDeadline());
+		HttpURLConnection connection = null;
+		Watchdog watchdog = null;
+		try
+		{
+			connection = openConnection(request);
+			if(request.getDeadline() != 0)
+			{
+				watchdog = new Watchdog(connection, request.getDeadline());
+			}
+			sslSocketFactory.reset();
+			// takes a connection from the keep-alive cache or opens a new one
+			connection.connect();
+			long connectTime = System.nanoTime() - start;
+			if(request.getWriter() != null)
+			{
+				sendRequestPayload(connection, request);
+			}
+			// reads the response head
+			connection.getResponseCode();
+			countConnection(connection);
+
+			return new UrlConnectionResponse(connection, permit, connectTime, watchdog);
+		}
+		catch(IOException | RuntimeException e)
+		{
+			if(watchdog != null) watchdog.cancel();
+			if(connection != null)
+			{
+				connection.disconnect();
+				discardedConnectionCount.incrementAndGet();
+			}
+			permit.release();
+			if(watchdog != null && watchdog.hasFired()) throw deadlineExceeded(e);
+			throw e;
+		}
+	}
+
+	private static SocketTimeoutException deadlineExceeded(Exception cause)
+	{
+		SocketTimeoutException e = new SocketTimeoutException("Deadline exceeded");
+		e.initCause(cause);
+		return e;
+	}
+
+	/** Waits for a free connection to the host of the given URL at most the given timeout in
+	 *  milliseconds and until the given deadline. 0 means no timeout or no deadline. */
+	private Semaphore acquirePermit(URL url, int timeout, long deadline) throws IOException
+	{
+		Semaphore permit = permitsPerHost.get(url.getAuthority());
+		if(permit == null)
+		{
+			permit = new Semaphore(maxConnectionsPerHost, true);
+			Semaphore existing = permitsPerHost.putIfAbsent(url.getAuthority(), permit);
+			if(existing != null) permit = existing;
+		}
+		long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeout);
+		boolean isUntilDeadline = false;
+		if(deadline != 0)
+		{
+			long untilDeadline = Math.max(0, deadline - System.nanoTime());
+			if(timeout == 0 || untilDeadline < timeoutNanos)
+			{
+				timeoutNanos = untilDeadline;
+				isUntilDeadline = true;
+			}
+		}
+		try
+		{
+			if(timeout == 0 && deadline == 0)
+			{
+				permit.acquire();
+			}
+			else if(!permit.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS))
+			{
+				if(isUntilDeadline) throw deadlineExceeded(null);
+				throw new SocketTimeoutException("Timed out waiting for a free connection to "
+						+ url.getAuthority());
+			}
+		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for a free connection", e);
+		}
+		return permit;
+	}
+
+	private HttpURLConnection openConnection(HttpRequest request) throws IOException
+	{
+		URL url = request.getUrl();
+		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+
+		// hotel wifi with signon
+		if (!url.getHost().equals(connection.getURL().getHost()))
+		{
+			throw new RedirectedException();
+		}
+
+		if(connection instanceof HttpsURLConnection)
+		{
+			/* always the same factory instance, otherwise the keep-alive cache would not consider
+			   the idle connections it holds as suitable for this request */
+			((HttpsURLConnection) connection).setSSLSocketFactory(sslSocketFactory);
+		}
+
+		connection.setRequestMethod(request.getMethod());
+		for(Map.Entry<String, String> header : request.getHeaders().entrySet())
+		{
+			connection.setRequestProperty(header.getKey(), header.getValue());
+		}
+		connection.setConnectTimeout(request.getConnectTimeout());
+		connection.setReadTimeout(request.getReadTimeout());
+
+		// default is doInput=true, doOutput=false
+		if(request.getWriter() != null)
+		{
+			connection.setDoOutput(true);
+			/* otherwise, the whole payload is buffered in memory before anything is sent, to find
+			   out its length. Chunk length 0 = default chunk length */
+			connection.setChunkedStreamingMode(0);
+		}
+
+		return connection;
+	}
+
+	private void sendRequestPayload(HttpURLConnection connection, HttpRequest request)
+			throws IOException
+	{
+		OutputStream out = null;
+		try
+		{
+			out = connection.getOutputStream();
+			request.getWriter().write(out);
+		}
+		finally
+		{
+			if (out != null)
+			{
+				out.close();
+			}
+		}
+	}
+
+	private void countConnection(HttpURLConnection connection)
+	{
+		requestCount.incrementAndGet();
+		// only for TLS connections it is known whether the connection has been reused
+		if(connection instanceof HttpsURLConnection)
+		{
+			if(sslSocketFactory.hasCreatedSocket()) openedConnectionCount.incrementAndGet();
+			else                                    reusedConnectionCount.incrementAndGet();
+		}
+		sslSocketFactory.reset();
+	}
+
+	/** @return the maximum number of connections open at the same time per host */
+	public int getMaxConnectionsPerHost()
+	{
+		return maxConnectionsPerHost;
+	}
+
+	/** @return the number of connections to the given host (i.e. "api.openstreetmap.org") that are
+	 *          currently in use */
+	public int getConnectionsInUse(String host)
+	{
+		Semaphore permit = permitsPerHost.get(host);
+		return permit != null ? maxConnectionsPerHost - permit.availablePermits() : 0;
+	}
+
+	/** @return the number of requests that have been answered by the server so far */
+	public long getRequestCount()
+	{
+		return requestCount.get();
+	}
+
+	/** @return the number of new (TLS) connections that had to be opened for a request */
+	public long getOpenedConnectionCount()
+	{
+		return openedConnectionCount.get();
+	}
+
+	/** @return the number of requests that have been made through an already open (TLS)
+	 *          connection */
+	public long getReusedConnectionCount()
+	{
+		return reusedConnectionCount.get();
+	}
+
+	/** @return the number of connections that have been closed after a request because they could
+	 *          not be reused, i.e. because of an error or because the response body was not read */
+	public long getDiscardedConnectionCount()
+	{
+		return discardedConnectionCount.get();
+	}
+
+	/** Tears down the connection when the deadline is reached */
+	private static final class Watchdog implements Runnable
+	{
+		private final HttpURLConnection connection;
+		private final ScheduledFuture<?> future;
+		private boolean fired;
+		private boolean cancelled;
+
+		Watchdog(HttpURLConnection connection, long deadline)
+		{
+			this.connection = connection;
+			long delay = Math.max(0, deadline - System.nanoTime());
+			future = DeadlineScheduler.INSTANCE.schedule(this, delay, TimeUnit.NANOSECONDS);
+		}
+
+		@Override
+		public synchronized void run()
+		{
+			if(cancelled) return;
+			fired = true;
+			// a read blocked on the socket of this connection then fails with an exception
+			connection.disconnect();
+		}
+
+		synchronized void cancel()
+		{
+			cancelled = true;
+			future.cancel(false);
+		}
+
+		synchronized boolean hasFired()
+		{
+			return fired;
+		}
+	}
+
+	/** Holds the single thread that is shared by all watchdogs, created only when needed */
+	private static final class DeadlineScheduler
+	{
+		static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(
+				new ThreadFactory()
+				{
+					@Override
+					public Thread newThread(Runnable runnable)
+					{
+						Thread thread = new Thread(runnable, "osmapi-deadline");
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+	}
+
+	/** Reports reads that failed because the deadline was reached as such */
+	private static final class DeadlineInputStream extends FilterInputStream
+	{
+		private final Watchdog watchdog;
+
+		DeadlineInputStream(InputStream in, Watchdog watchdog)
+		{
+			super(in);
+			this.watchdog = watchdog;
+		}
+
+		@Override
+		public int read() throws IOException
+		{
+			try
+			{
+				return in.read();
+			}
+			catch(IOException e)
+			{
+				if(watchdog.hasFired()) throw deadlineExceeded(e);
+				throw e;
+			}
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException
+		{
+			try
+			{
+				return in.read(b, off, len);
+			}
+			catch(IOException e)
+			{
+				if(watchdog.hasFired()) throw deadlineExceeded(e);
+				throw e;
+			}
+		}
+	}
+
+	private class UrlConnectionResponse implements HttpResponse
+	{
+		private final HttpURLConnection connection;
+		private final Semaphore permit;
+		private final long connectTime;
+		private final Watchdog watchdog;
+
+		private InputStream body;
+		private boolean closed;
+
+		UrlConnectionResponse(HttpURLConnection connection, Semaphore permit, long connectTime,
+							  Watchdog watchdog)
+		{
+			this.connection = connection;
+			this.permit = permit;
+			this.connectTime = connectTime;
+			this.watchdog = watchdog;
+		}
+
+		@Override
+		public int getResponseCode() throws IOException
+		{
+			return connection.getResponseCode();
+		}
+
+		@Override
+		public String getResponseMessage() throws IOException
+		{
+			return connection.getResponseMessage();
+		}
+
+		@Override
+		public String getHeader(String name)
+		{
+			return connection.getHeaderField(name);
+		}
+
+		@Override
+		public InputStream getInputStream() throws IOException
+		{
+			body = connection.getInputStream();
+			return watchdog != null ? new DeadlineInputStream(body, watchdog) : body;
+		}
+
+		@Override
+		public InputStream getErrorStream()
+		{
+			body = connection.getErrorStream();
+			return body;
+		}
+
+		@Override
+		public long getConnectTime()
+		{
+			return connectTime;
+		}
+
+		@Override
+		public void close()
+		{
+			if(closed) return;
+			closed = true;
+			if(watchdog != null) watchdog.cancel();
+			try
+			{
+				if(!drainBody())
+				{
+					connection.disconnect();
+					discardedConnectionCount.incrementAndGet();
+				}
+			}
+			finally
+			{
+				permit.release();
+			}
+		}
+
+		/** Reads the rest of the response body, so that the connection can be reused.
+		 *  @return whether this was successful */
+		private boolean drainBody()
+		{
+			try
+			{
+				InputStream in = body;
+				if(in == null)
+				{
+					in = connection.getResponseCode() < 400
+							? connection.getInputStream()
+							: connection.getErrorStream();
+				}
+				if(in == null) return true;
+
+				try
+				{
+					byte[] buffer = new byte[4096];
+					int drained = 0;
+					int length;
+					while((length = in.read(buffer)) != -1)
+					{
+						drained += length;
+						if(drained > MAX_DRAIN_BYTES) return false;
+					}
+				}
+				finally
+				{
+					in.close();
+				}
+				return true;
+			}
+			catch(IOException e)
+			{
+				return false;
+			}
+		}
+	}
+}
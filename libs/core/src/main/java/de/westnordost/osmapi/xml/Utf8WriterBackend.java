@@ -0,0 +1,34 @@
+package de.westnordost.osmapi.xml;
+
+/** Backend that writes with the {@link Utf8XmlSerializer} and parses with another backend, i.e.
+ *  <pre>XmlBackends.setDefault(new Utf8WriterBackend(XmlBackends.getDefault()));</pre>
+ *  Useful for large uploads like osmChanges with many elements or long GPS tracks. */
+public class Utf8WriterBackend implements XmlBackend
+{
+	private final XmlBackend parserBackend;
+
+	/** @param parserBackend the backend whose parsers to use */
+	public Utf8WriterBackend(XmlBackend parserBackend)
+	{
+		if(parserBackend == null) throw new NullPointerException("parserBackend must not be null");
+		this.parserBackend = parserBackend;
+	}
+
+	/** Use the parsers of the {@link XmlPullBackend} */
+	public Utf8WriterBackend()
+	{
+		this(new XmlPullBackend());
+	}
+
+	@Override
+	public XmlStreamParser newParser()
+	{
+		return parserBackend.newParser();
+	}
+
+	@Override
+	public XmlStreamSerializer newSerializer()
+	{
+		return new Utf8XmlSerializer();
+	}
+}
@@ -0,0 +1,251 @@
+package de.westnordost.osmapi.xml;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/** Serializer that writes UTF-8 bytes directly into its own buffer instead of going through a
+ *  Writer and a CharsetEncoder. Element and attribute names are encoded only once, values that
+ *  consist only of ASCII characters that need no escaping are copied byte by byte.
+ *  <br><br>
+ *  The output is byte for byte the same as that of the kxml2 serializer used by the
+ *  {@link XmlPullBackend} on the JVM. Only UTF-8 is supported. Open elements are not tracked, so
+ *  endDocument does not close them. */
+public class Utf8XmlSerializer implements XmlStreamSerializer
+{
+	private static final int BUFFER_SIZE = 8192;
+	// "&quot;" and "&apos;" are the longest escape sequences
+	private static final int MAX_BYTES_PER_CHAR = 6;
+	/** names used by a writer are constants, so there are only few of them */
+	private static final int MAX_CACHED_NAMES = 256;
+
+	private static final boolean[] ESCAPED_IN_TEXT = new boolean[128];
+	private static final boolean[] ESCAPED_IN_ATTRIBUTE = new boolean[128];
+	static
+	{
+		for (char c = 0; c < ' '; ++c)
+		{
+			ESCAPED_IN_TEXT[c] = c != '\t' && c != '\n' && c != '\r';
+			ESCAPED_IN_ATTRIBUTE[c] = true;
+		}
+		for (char c : new char[]{'&', '<', '>', '@'})
+		{
+			ESCAPED_IN_TEXT[c] = true;
+			ESCAPED_IN_ATTRIBUTE[c] = true;
+		}
+		ESCAPED_IN_ATTRIBUTE['"'] = true;
+		ESCAPED_IN_ATTRIBUTE['\''] = true;
+	}
+
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+	private final Map<String, byte[]> encodedNames = new HashMap<>();
+
+	private OutputStream out;
+	private int position;
+	/** whether the start tag of the current element is not closed yet, so that the element can
+	 *  still be written as an empty element */
+	private boolean startTagOpen;
+
+	@Override
+	public void startDocument(OutputStream out, String charset) throws IOException
+	{
+		if(!"UTF-8".equalsIgnoreCase(charset))
+		{
+			throw new UnsupportedEncodingException("Only UTF-8 is supported, not " + charset);
+		}
+		this.out = out;
+		position = 0;
+		startTagOpen = false;
+		writeAscii("<?xml version='1.0' encoding='");
+		writeAscii(charset);
+		writeAscii("' ?>");
+	}
+
+	@Override
+	public void startTag(String name) throws IOException
+	{
+		closeStartTag();
+		writeByte('<');
+		write(encodeName(name));
+		startTagOpen = true;
+	}
+
+	@Override
+	public void attribute(String name, String value) throws IOException
+	{
+		char quote = value.indexOf('"') == -1 ? '"' : '\'';
+		writeByte(' ');
+		write(encodeName(name));
+		writeByte('=');
+		writeByte(quote);
+		writeEscaped(value, ESCAPED_IN_ATTRIBUTE, quote);
+		writeByte(quote);
+	}
+
+	@Override
+	public void text(String text) throws IOException
+	{
+		closeStartTag();
+		writeEscaped(text, ESCAPED_IN_TEXT, (char) 0);
+	}
+
+	@Override
+	public void endTag(String name) throws IOException
+	{
+		if(startTagOpen)
+		{
+			writeAscii(" />");
+			startTagOpen = false;
+		}
+		else
+		{
+			writeByte('<');
+			writeByte('/');
+			write(encodeName(name));
+			writeByte('>');
+		}
+	}
+
+	@Override
+	public void endDocument() throws IOException
+	{
+		closeStartTag();
+		flushBuffer();
+		out.flush();
+		out = null;
+	}
+
+	private void closeStartTag() throws IOException
+	{
+		if(startTagOpen)
+		{
+			writeByte('>');
+			startTagOpen = false;
+		}
+	}
+
+	private byte[] encodeName(String name)
+	{
+		byte[] bytes = encodedNames.get(name);
+		if(bytes == null)
+		{
+			bytes = name.getBytes(StandardCharsets.UTF_8);
+			if(encodedNames.size() < MAX_CACHED_NAMES) encodedNames.put(name, bytes);
+		}
+		return bytes;
+	}
+
+	private void writeEscaped(String str, boolean[] escaped, char quote) throws IOException
+	{
+		int length = str.length();
+		for (int i = 0; i < length; ++i)
+		{
+			if(buffer.length - position < MAX_BYTES_PER_CHAR) flushBuffer();
+
+			char c = str.charAt(i);
+			if(c < 0x80)
+			{
+				if(!escaped[c]) buffer[position++] = (byte) c;
+				else writeEntity(c, quote);
+			}
+			else if(c < 0x800)
+			{
+				buffer[position++] = (byte) (0xC0 | (c >> 6));
+				buffer[position++] = (byte) (0x80 | (c & 0x3F));
+			}
+			else if(!Character.isSurrogate(c))
+			{
+				buffer[position++] = (byte) (0xE0 | (c >> 12));
+				buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				buffer[position++] = (byte) (0x80 | (c & 0x3F));
+			}
+			else if(Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(str.charAt(i + 1)))
+			{
+				int codePoint = Character.toCodePoint(c, str.charAt(++i));
+				buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+				buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+				buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+				buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+			}
+			else
+			{
+				// unpaired surrogates cannot be encoded, the JDK's encoder also replaces them
+				buffer[position++] = '?';
+			}
+		}
+	}
+
+	private void writeEntity(char c, char quote)
+	{
+		switch (c)
+		{
+			case '&':
+				putAscii("&amp;");
+				break;
+			case '<':
+				putAscii("&lt;");
+				break;
+			case '>':
+				putAscii("&gt;");
+				break;
+			case '"':
+			case '\'':
+				if(c != quote) buffer[position++] = (byte) c;
+				else putAscii(c == '"' ? "&quot;" : "&apos;");
+				break;
+			default:
+				buffer[position++] = '&';
+				buffer[position++] = '#';
+				if(c >= 10) buffer[position++] = (byte) ('0' + c / 10);
+				buffer[position++] = (byte) ('0' + c % 10);
+				buffer[position++] = ';';
+		}
+	}
+
+	/** put the given ASCII string into the buffer without checking for space */
+	private void putAscii(String str)
+	{
+		for (int i = 0; i < str.length(); ++i)
+		{
+			buffer[position++] = (byte) str.charAt(i);
+		}
+	}
+
+	private void writeAscii(String str) throws IOException
+	{
+		for (int i = 0; i < str.length(); ++i)
+		{
+			writeByte(str.charAt(i));
+		}
+	}
+
+	private void writeByte(char c) throws IOException
+	{
+		if(position == buffer.length) flushBuffer();
+		buffer[position++] = (byte) c;
+	}
+
+	private void write(byte[] bytes) throws IOException
+	{
+		if(buffer.length - position < bytes.length)
+		{
+			flushBuffer();
+			if(bytes.length > buffer.length)
+			{
+				out.write(bytes);
+				return;
+			}
+		}
+		System.arraycopy(bytes, 0, buffer, position, bytes.length);
+		position += bytes.length;
+	}
+
+	private void flushBuffer() throws IOException
+	{
+		out.write(buffer, 0, position);
+		position = 0;
+	}
+}
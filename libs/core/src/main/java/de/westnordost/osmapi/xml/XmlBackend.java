@@ -0,0 +1,15 @@
+package de.westnordost.osmapi.xml;
+
+/** Creates the XML pull parsers and serializers used by {@link de.westnordost.osmapi.common.XmlParser}
+ *  and {@link de.westnordost.osmapi.common.XmlWriter}. Implement this to plug in a different XML
+ *  library than the default {@link XmlPullBackend}, see {@link XmlBackends#setDefault}.
+ *  <br><br>
+ *  Implementations must be thread safe. The parsers and serializers they create need not be. */
+public interface XmlBackend
+{
+	/** @return a new parser */
+	XmlStreamParser newParser();
+
+	/** @return a new serializer */
+	XmlStreamSerializer newSerializer();
+}
@@ -0,0 +1,84 @@
+package de.westnordost.osmapi.xml;
+
+/** Holds the XML backend used by all parsers and writers of this library.
+ *  <br><br>
+ *  Parsers and serializers are reused between documents: Each thread keeps one of each that is
+ *  handed out by {@link #obtainParser()} and {@link #obtainSerializer()} and given back with
+ *  {@link #releaseParser} and {@link #releaseSerializer} when done. If another document is parsed
+ *  on the same thread in the meantime, i.e. from within a handler, it gets a new one. */
+public class XmlBackends
+{
+	private static volatile XmlBackend defaultBackend = new XmlPullBackend();
+
+	private static final ThreadLocal<Pooled<XmlStreamParser>> parsers = new ThreadLocal<>();
+	private static final ThreadLocal<Pooled<XmlStreamSerializer>> serializers = new ThreadLocal<>();
+
+	/** @return the XML backend used by all parsers and writers. By default an
+	 *          {@link XmlPullBackend} */
+	public static XmlBackend getDefault()
+	{
+		return defaultBackend;
+	}
+
+	/** Set the XML backend to use for all parsers and writers created from now on, i.e. a
+	 *  StaxBackend on server JVMs */
+	public static void setDefault(XmlBackend backend)
+	{
+		if(backend == null) throw new NullPointerException("backend must not be null");
+		defaultBackend = backend;
+	}
+
+	/** @return a parser of the default backend, reused if possible. Give it back with
+	 *          {@link #releaseParser} when the document has been parsed. */
+	public static XmlStreamParser obtainParser()
+	{
+		XmlBackend backend = defaultBackend;
+		Pooled<XmlStreamParser> pooled = parsers.get();
+		if(pooled != null && pooled.backend == backend)
+		{
+			parsers.set(null);
+			return pooled.instance;
+		}
+		return backend.newParser();
+	}
+
+	/** Give back a parser obtained with {@link #obtainParser()} to be reused for the next document
+	 *  parsed on this thread. It must not be used afterwards. */
+	public static void releaseParser(XmlStreamParser parser)
+	{
+		parsers.set(new Pooled<>(defaultBackend, parser));
+	}
+
+	/** @return a serializer of the default backend, reused if possible. Give it back with
+	 *          {@link #releaseSerializer} when the document has been written. */
+	public static XmlStreamSerializer obtainSerializer()
+	{
+		XmlBackend backend = defaultBackend;
+		Pooled<XmlStreamSerializer> pooled = serializers.get();
+		if(pooled != null && pooled.backend == backend)
+		{
+			serializers.set(null);
+			return pooled.instance;
+		}
+		return backend.newSerializer();
+	}
+
+	/** Give back a serializer obtained with {@link #obtainSerializer()} to be reused for the next
+	 *  document written on this thread. It must not be used afterwards. */
+	public static void releaseSerializer(XmlStreamSerializer serializer)
+	{
+		serializers.set(new Pooled<>(defaultBackend, serializer));
+	}
+
+	private static class Pooled<T>
+	{
+		final XmlBackend backend;
+		final T instance;
+
+		Pooled(XmlBackend backend, T instance)
+		{
+			this.backend = backend;
+			this.instance = instance;
+		}
+	}
+}
@@ -0,0 +1,185 @@
+package de.westnordost.osmapi.xml;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+import org.xmlpull.v1.XmlPullParserFactory;
+import org.xmlpull.v1.XmlSerializer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import de.westnordost.osmapi.common.errors.XmlParserException;
+
+/** Default XML backend, based on the XmlPull API. On Android, the parser and serializer of the
+ *  platform are used, elsewhere the ones found on the classpath, i.e. kxml2. */
+public class XmlPullBackend implements XmlBackend
+{
+	/* looking up the implementation scans the classpath, so it is only done once */
+	private volatile XmlPullParserFactory factory;
+
+	private XmlPullParserFactory getFactory() throws XmlPullParserException
+	{
+		XmlPullParserFactory result = factory;
+		if(result == null)
+		{
+			synchronized(this)
+			{
+				result = factory;
+				if(result == null)
+				{
+					result = XmlPullParserFactory.newInstance();
+					factory = result;
+				}
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public XmlStreamParser newParser()
+	{
+		try
+		{
+			return new Parser(getFactory().newPullParser());
+		}
+		catch(XmlPullParserException e)
+		{
+			throw new RuntimeException("Cannot initialize parser", e);
+		}
+	}
+
+	@Override
+	public XmlStreamSerializer newSerializer()
+	{
+		try
+		{
+			return new Serializer(getFactory().newSerializer());
+		}
+		catch(XmlPullParserException e)
+		{
+			throw new RuntimeException("Cannot initialize serializer", e);
+		}
+	}
+
+	private static class Parser implements XmlStreamParser
+	{
+		private final XmlPullParser xpp;
+
+		Parser(XmlPullParser xpp)
+		{
+			this.xpp = xpp;
+		}
+
+		@Override
+		public void setInput(InputStream in, String charset) throws IOException
+		{
+			try
+			{
+				xpp.setInput(in, charset);
+			}
+			catch(XmlPullParserException e)
+			{
+				throw new XmlParserException(xpp.getPositionDescription(), e);
+			}
+		}
+
+		@Override
+		public int next() throws IOException
+		{
+			try
+			{
+				while(true)
+				{
+					switch (xpp.next())
+					{
+						case XmlPullParser.START_TAG:
+							return START_ELEMENT;
+						case XmlPullParser.END_TAG:
+							return END_ELEMENT;
+						case XmlPullParser.TEXT:
+							return TEXT;
+						case XmlPullParser.END_DOCUMENT:
+							return END_DOCUMENT;
+					}
+				}
+			}
+			catch(XmlPullParserException e)
+			{
+				throw new XmlParserException(xpp.getPositionDescription(), e);
+			}
+		}
+
+		@Override
+		public String getName()
+		{
+			return xpp.getName();
+		}
+
+		@Override
+		public String getAttributeValue(String name)
+		{
+			return xpp.getAttributeValue(null, name);
+		}
+
+		@Override
+		public String getText()
+		{
+			return xpp.getText();
+		}
+
+		@Override
+		public String getPositionDescription()
+		{
+			return xpp.getPositionDescription();
+		}
+	}
+
+	private static class Serializer implements XmlStreamSerializer
+	{
+		private final XmlSerializer xml;
+
+		Serializer(XmlSerializer xml)
+		{
+			this.xml = xml;
+		}
+
+		@Override
+		public void startDocument(OutputStream out, String charset) throws IOException
+		{
+			xml.setOutput(out, charset);
+			xml.startDocument(charset, null);
+		}
+
+		@Override
+		public void startTag(String name) throws IOException
+		{
+			xml.startTag(null, name);
+		}
+
+		@Override
+		public void attribute(String name, String value) throws IOException
+		{
+			xml.attribute(null, name, value);
+		}
+
+		@Override
+		public void text(String text) throws IOException
+		{
+			xml.text(text);
+		}
+
+		@Override
+		public void endTag(String name) throws IOException
+		{
+			xml.endTag(null, name);
+		}
+
+		@Override
+		public void endDocument() throws IOException
+		{
+			xml.endDocument();
+			xml.flush();
+		}
+	}
+}
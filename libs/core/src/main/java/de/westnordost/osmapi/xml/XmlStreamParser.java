@@ -0,0 +1,37 @@
+package de.westnordost.osmapi.xml;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/** A minimal XML pull parser. It only reports what the parsers in this library need: start and end
+ *  of elements, their attributes and text. Namespaces, comments and processing instructions are
+ *  ignored. */
+public interface XmlStreamParser
+{
+	int START_ELEMENT = 1;
+	int END_ELEMENT = 2;
+	/** text between elements. Adjacent text, including entity and character references, is
+	 *  reported as one text event */
+	int TEXT = 3;
+	int END_DOCUMENT = 4;
+
+	/** Start parsing the given input. A parser can be reused for several documents. */
+	void setInput(InputStream in, String charset) throws IOException;
+
+	/** @return the next event, one of START_ELEMENT, END_ELEMENT, TEXT or END_DOCUMENT
+	 *  @throws de.westnordost.osmapi.common.errors.XmlParserException if the XML is malformed */
+	int next() throws IOException;
+
+	/** @return the local name of the current element on START_ELEMENT and END_ELEMENT */
+	String getName();
+
+	/** @return the value of the attribute with the given name of the current element on
+	 *          START_ELEMENT or null if there is none */
+	String getAttributeValue(String name);
+
+	/** @return the text on TEXT */
+	String getText();
+
+	/** @return a human readable description of the current position, for error messages */
+	String getPositionDescription();
+}
@@ -0,0 +1,24 @@
+package de.westnordost.osmapi.xml;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/** A minimal XML serializer. Elements, attributes and text are written in the order the methods
+ *  are called, escaping is done by the serializer. */
+public interface XmlStreamSerializer
+{
+	/** Start writing a document with the XML declaration to the given output */
+	void startDocument(OutputStream out, String charset) throws IOException;
+
+	void startTag(String name) throws IOException;
+
+	/** Add an attribute to the element that has just been started */
+	void attribute(String name, String value) throws IOException;
+
+	void text(String text) throws IOException;
+
+	void endTag(String name) throws IOException;
+
+	/** Finish the document and flush everything written to the output */
+	void endDocument() throws IOException;
+}
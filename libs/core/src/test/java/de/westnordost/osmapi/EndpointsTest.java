@@ -0,0 +1,31 @@
+package de.westnordost.osmapi;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class EndpointsTest
+{
+	@Test public void replacesNumericPathSegments()
+	{
+		assertEquals("node/{id}", Endpoints.of("node/123"));
+		assertEquals("node/{id}/{id}", Endpoints.of("node/123/4"));
+		assertEquals("way/{id}/full", Endpoints.of("way/5/full"));
+		assertEquals("changeset/{id}/upload", Endpoints.of("changeset/42/upload"));
+	}
+
+	@Test public void keepsNonNumericPathSegments()
+	{
+		assertEquals("capabilities", Endpoints.of("capabilities"));
+		assertEquals("user/details", Endpoints.of("user/details"));
+		assertEquals("node/1a", Endpoints.of("node/1a"));
+	}
+
+	@Test public void removesParameterValues()
+	{
+		assertEquals("map?bbox", Endpoints.of("map?bbox=1.0,2.0,3.0,4.0"));
+		assertEquals("notes?bbox&limit&closed", Endpoints.of("notes?bbox=1,2,3,4&limit=100&closed=7"));
+		assertEquals("changeset/{id}?include_discussion", Endpoints.of("changeset/1?include_discussion=true"));
+		assertEquals("nodes?nodes", Endpoints.of("nodes?nodes=1,2,3"));
+	}
+}
@@ -0,0 +1,31 @@
+package de.westnordost.osmapi;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HedgingPolicyTest
+{
+	@Test public void onlyEndpointsWithSmallResponsesAreHedgedByDefault()
+	{
+		HedgingPolicy policy = new HedgingPolicy();
+		assertTrue(policy.appliesTo(Endpoints.of("node/1")));
+		assertTrue(policy.appliesTo(Endpoints.of("relation/1/3")));
+		assertFalse(policy.appliesTo(Endpoints.of("map?bbox=1,2,3,4")));
+		assertFalse(policy.appliesTo(Endpoints.of("relation/1/full")));
+	}
+
+	@Test public void onlyGivenEndpointsAreHedged()
+	{
+		HedgingPolicy policy = new HedgingPolicy().forEndpoints("map?bbox");
+		assertTrue(policy.appliesTo(Endpoints.of("map?bbox=1,2,3,4")));
+		assertFalse(policy.appliesTo(Endpoints.of("node/1")));
+	}
+
+	@Test public void initialDelayIsUsedWithoutEnoughSamples()
+	{
+		HedgingPolicy policy = new HedgingPolicy(95, 500);
+		policy.onCompleted("node/{id}", 1000);
+		assertEquals(500000000L, policy.getDelay("node/{id}"));
+	}
+}
@@ -0,0 +1,86 @@
+package de.westnordost.osmapi;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest
+{
+	@Test public void bucketsAreContiguous()
+	{
+		assertEquals(0, LatencyHistogram.indexOf(0));
+		for (int i = 1; i < 100000; ++i)
+		{
+			int index = LatencyHistogram.indexOf(i);
+			assertTrue(index == LatencyHistogram.indexOf(i - 1) || index == LatencyHistogram.indexOf(i - 1) + 1);
+			assertTrue(LatencyHistogram.highestValueOf(index) >= i);
+		}
+		assertEquals(Long.MAX_VALUE, LatencyHistogram.highestValueOf(LatencyHistogram.indexOf(Long.MAX_VALUE)));
+	}
+
+	@Test public void precision()
+	{
+		for (long value = 1; value < Long.MAX_VALUE / 2; value = value * 3 + 1)
+		{
+			long highest = LatencyHistogram.highestValueOf(LatencyHistogram.indexOf(value));
+			assertTrue(highest - value <= value / 8);
+		}
+	}
+
+	@Test public void empty()
+	{
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getValueAtPercentile(99));
+		assertEquals(0, histogram.getMean(), 0);
+	}
+
+	@Test public void percentiles()
+	{
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 1000; ++i) histogram.record(i * 1000L);
+
+		assertEquals(1000, histogram.getCount());
+		assertEquals(1000000, histogram.getMax());
+		assertEquals(500500, histogram.getMean(), 0.1);
+		assertEquals(500000, histogram.getValueAtPercentile(50), 500000 / 8);
+		assertEquals(990000, histogram.getValueAtPercentile(99), 990000 / 8);
+		assertEquals(1000000, histogram.getValueAtPercentile(100));
+	}
+
+	@Test public void reset()
+	{
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(5);
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getMax());
+		assertEquals(0, histogram.getValueAtPercentile(50));
+	}
+
+	@Test public void concurrentRecording() throws InterruptedException
+	{
+		final LatencyHistogram histogram = new LatencyHistogram();
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 4; ++t)
+		{
+			Thread thread = new Thread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					for (int i = 0; i < 10000; ++i) histogram.record(i);
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) thread.join();
+
+		assertEquals(40000, histogram.getCount());
+		assertEquals(9999, histogram.getMax());
+	}
+}
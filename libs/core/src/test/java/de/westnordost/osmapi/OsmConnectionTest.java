@@ -2,12 +2,34 @@ package de.westnordost.osmapi;
 
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
 
 import de.westnordost.osmapi.ConnectionTestFactory.User;
+import de.westnordost.osmapi.cache.CacheStatistics;
+import de.westnordost.osmapi.cache.MemoryResponseCache;
+import de.westnordost.osmapi.common.XmlParser;
 import de.westnordost.osmapi.common.errors.OsmApiReadResponseException;
 import de.westnordost.osmapi.common.errors.OsmAuthorizationException;
 import de.westnordost.osmapi.common.errors.OsmConnectionException;
+import de.westnordost.osmapi.common.errors.OsmNotFoundException;
+import de.westnordost.osmapi.common.errors.OsmServiceUnavailableException;
+import de.westnordost.osmapi.common.errors.OsmTooManyRequestsException;
+import de.westnordost.osmapi.transport.UrlConnectionTransport;
 
 import static org.junit.Assert.*;
 
@@ -46,6 +68,611 @@ public class OsmConnectionTest
 		catch(OsmConnectionException ignore) {}
 	}
 	
+	@Test public void connectionExceptionAsync() throws InterruptedException
+	{
+		try
+		{
+			OsmConnection osm = new OsmConnection("http://cant.connect.to.this.server.hm", "blub", null);
+			osm.makeRequestAsync("doesntMatter", null).get();
+			fail();
+		}
+		catch(ExecutionException e)
+		{
+			assertTrue(e.getCause() instanceof OsmConnectionException);
+		}
+	}
+
+	@Test public void gzipResponseIsDecompressed() throws IOException
+	{
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		OutputStream out = new GZIPOutputStream(compressed);
+		for (int i = 0; i < 100; ++i) out.write("<node/>".getBytes("UTF-8"));
+		out.close();
+
+		MockApiServer server = new MockApiServer();
+		try
+		{
+			server.enqueue(new MockApiServer.Response(200, compressed.toByteArray())
+					.header("Content-Encoding", "gzip"));
+			OsmConnection osm = new OsmConnection(server.getApiUrl(), "blub", null);
+
+			String response = osm.makeRequest("node/1", new ApiResponseReader<String>()
+			{
+				@Override
+				public String parse(InputStream in) throws Exception
+				{
+					return new String(readAll(in), "UTF-8");
+				}
+			});
+			assertEquals(700, response.length());
+			assertTrue(response.startsWith("<node/><node/>"));
+			assertEquals("gzip, deflate", server.getRequests().get(0).headers.get("accept-encoding"));
+			// closing the decoder must not close the connection
+			UrlConnectionTransport transport = (UrlConnectionTransport) osm.getTransport();
+			assertEquals(0, transport.getDiscardedConnectionCount());
+
+			TrafficStatistics statistics = osm.getTrafficStatistics();
+			assertEquals(1, statistics.getResponseCount("node/{id}"));
+			assertEquals(compressed.size(), statistics.getWireBytes("node/{id}"));
+			assertEquals(700, statistics.getDecodedBytes("node/{id}"));
+		}
+		finally
+		{
+			server.stop();
+		}
+	}
+
+	@Test public void getIsRetriedWhenTooManyRequests() throws IOException
+	{
+		MockApiServer server = new MockApiServer();
+		try
+		{
+			server.enqueue(new MockApiServer.Response(429, "slow down").header("Retry-After", "0"));
+			server.enqueue(new MockApiServer.Response(503, "offline"));
+			server.enqueue(new MockApiServer.Response(200, "ok"));
+			OsmConnection osm = new OsmConnection(server.getApiUrl(), "blub", null);
+			RetryPolicy retryPolicy = new RetryPolicy(2, 1, 10);
+			osm.setRetryPolicy(retryPolicy);
+
+			assertEquals("ok", osm.makeRequest("node/1", new StringReader()));
+			assertEquals(3, server.getRequests().size());
+			assertEquals(2, retryPolicy.getRetryCount());
+			assertEquals(0, retryPolicy.getGiveUpCount());
+		}
+		finally
+		{
+			server.stop();
+		}
+	}
+
+	@Test public void getIsNotRetriedMoreThanMaxRetries() throws IOException
+	{
+		MockApiServer server = new MockApiServer();
+		try
+		{
+			server.setDefaultResponse(new MockApiServer.Response(429, "slow down")
+					.header("Retry-After", "0"));
+			OsmConnection osm = new OsmConnection(server.getApiUrl(), "blub", null);
+			RetryPolicy retryPolicy = new RetryPolicy(2, 1, 10);
+			osm.setRetryPolicy(retryPolicy);
+
+			try
+			{
+				osm.makeRequest("node/1", new StringReader());
+				fail();
+			}
+			catch(OsmTooManyRequestsException e)
+			{
+				assertEquals(0, e.getRetryAfter());
+			}
+			assertEquals(3, server.getRequests().size());
+			assertEquals(1, retryPolicy.getGiveUpCount());
+		}
+		finally
+		{
+			server.stop();
+		}
+	}
+
+	@Test public void otherMethodsAreNotRetried() throws IOException
+	{
+		MockApiServer server = new MockApiServer();
+		try
+		{
+			server.setDefaultResponse(new MockApiServer.Response(503, "offline"));
+			OsmConnection osm = new OsmConnection(server.getApiUrl(), "blub", null);
+			osm.setRetryPolicy(new RetryPolicy(2, 1, 10));
+
+			try
+			{
+				osm.makeRequest("changeset/create", "PUT", false, null, null);
+				fail();
+			}
+			catch(OsmServiceUnavailableException ignore) {}
+			assertEquals(1, server.getRequests().size());
+		}
+		finally
+		{
+			server.stop();
+		}
+	}
+
+	@Test public void retryAfterPausesRateLimiter() throws IOException
+	{
+		MockApiServer server = new MockApiServer();
+		try
+		{
+			server.enqueue(new MockApiServer.Response(429, "slow down").header("Retry-After", "1"));
+			server.enqueue(new MockApiServer.Response(200, "ok"));
+			OsmConnection osm = new OsmConnection(server.getApiUrl(), "blub", null);
+			RateLimiter rateLimiter = new RateLimiter(1000, 10);
+			osm.setRateLimiter(rateLimiter);
+
+			try
+			{
+				osm.makeRequest("node/1", new StringReader());
+				fail();
+			}
+			catch(OsmTooManyRequestsException e)
+			{
+				assertEquals(1000, e.getRetryAfter());
+			}
+			assertEquals(1, rateLimiter.getPauseCount());
+
+			long start = System.currentTimeMillis();
+			assertEquals("ok", osm.makeRequest("node/1", new StringReader()));
+			assertTrue(System.currentTimeMillis() - start >= 500);
+			assertEquals(1, rateLimiter.getThrottleCount());
+		}
+		finally
+		{
+			server.stop();
+		}
+	}
+
+	@Test public void requestListenerIsNotifiedOfPhases() throws IOException
+	{
+		MockApiServer server = new MockApiServer();
+		try
+		{
+			server.enqueue(new MockApiServer.Response(200, "<osm><node/><node/></osm>").delay(50));
+			server.enqueue(new MockApiServer.Response(404, "not found"));
+			OsmConnection osm = new OsmConnection(server.getApiUrl(), "blub", null);
+			final List<String> events = new ArrayList<>();
+			final List<RequestMetrics> finished = new ArrayList<>();
+			osm.addRequestListener(new RequestListener()
+			{
+				@Override
+				public void onRequestStarted(RequestMetrics metrics)
+				{
+					events.add("started " + metrics.endpoint);
+				}
+
+				@Override
+				public void onResponseReceived(RequestMetrics metrics)
+				{
+					events.add("received " + metrics.responseCode);
+				}
+
+				@Override
+				public void onRequestFinished(RequestMetrics metrics)
+				{
+					events.add("finished");
+					finished.add(metrics);
+				}
+			});
+			LatencyHistograms histograms = new LatencyHistograms();
+			osm.addRequestListener(histograms);
+
+			osm.makeRequest("node/1", new ElementCountingParser());
+			try
+			{
+				osm.makeRequest("node/2", new ElementCountingParser());
+				fail();
+			}
+			catch(OsmNotFoundException ignore) {}
+
+			assertEquals(Arrays.asList(
+					"started node/{id}", "received 200", "finished",
+					"started node/{id}", "received 404", "finished"), events);
+
+			RequestMetrics success = finished.get(0);
+			assertEquals("GET", success.method);
+			assertTrue(success.connectTime >= 0);
+			assertTrue(success.firstByteTime >= 40 * 1000000L);
+			assertTrue(success.totalTime >= success.connectTime + success.firstByteTime);
+			assertEquals(25, success.decodedBytes);
+			assertEquals(3, success.elementCount);
+			assertNull(success.error);
+
+			RequestMetrics failure = finished.get(1);
+			assertTrue(failure.error instanceof OsmNotFoundException);
+			assertEquals(-1, failure.elementCount);
+
+			LatencyHistogram total = histograms.getHistogram("node/{id}", LatencyHistograms.Phase.TOTAL);
+			assertEquals(2, total.getCount());
+			LatencyHistogram parse = histograms.getHistogram("node/{id}", LatencyHistograms.Phase.PARSE);
+			assertEquals(1, parse.getCount());
+			assertTrue(histograms.dump().startsWith("node/{id}\n"));
+		}
+		finally
+		{
+			server.stop();
+		}
+	}
+
+	@Test public void cachedRequestIsRevalidatedWithETag() throws IOException
+	{
+		MockApiServer server = new MockApiServer();
+		try
+		{
+			server.enqueue(new MockApiServer.Response(200, "hello").header("ETag", "\"v1\""));
+			server.enqueue(new MockApiServer.Response(304, ""));
+			server.enqueue(new MockApiServer.Response(200, "hello again").header("ETag", "\"v2\""));
+			OsmConnection osm = new OsmConnection(server.getApiUrl(), "blub", null);
+			osm.setResponseCache(new MemoryResponseCache(1000));
+
+			assertEquals("hello", osm.makeCachedRequest("user/1", false, false, new StringReader()));
+			assertEquals("hello", osm.makeCachedRequest("user/1", false, false, new StringReader()));
+			assertEquals("hello again", osm.makeCachedRequest("user/1", false, false, new StringReader()));
+
+			List<MockApiServer.Request> requests = server.getRequests();
+			assertEquals(3, requests.size());
+			assertNull(requests.get(0).headers.get("if-none-match"));
+			assertEquals("\"v1\"", requests.get(1).headers.get("if-none-match"));
+			assertEquals("\"v1\"", requests.get(2).headers.get("if-none-match"));
+
+			CacheStatistics statistics = osm.getCacheStatistics();
+			assertEquals(0, statistics.getHitCount());
+			assertEquals(1, statistics.getRevalidatedCount());
+			assertEquals(2, statistics.getMissCount());
+		}
+		finally
+		{
+			server.stop();
+		}
+	}
+
+	@Test public void immutableCachedRequestIsNotRepeated() throws IOException
+	{
+		MockApiServer server = new MockApiServer();
+		try
+		{
+			server.setDefaultResponse(new MockApiServer.Response(200, "version 2"));
+			OsmConnection osm = new OsmConnection(server.getApiUrl(), "blub", null);
+			osm.setResponseCache(new MemoryResponseCache(1000));
+
+			assertEquals("version 2", osm.makeCachedRequest("node/1/2", false, true, new StringReader()));
+			assertEquals("version 2", osm.makeCachedRequest("node/1/2", false, true, new StringReader()));
+
+			assertEquals(1, server.getRequests().size());
+			assertEquals(1, osm.getCacheStatistics().getHitCount());
+			assertEquals(1, osm.getCacheStatistics().getMissCount());
+		}
+		finally
+		{
+			server.stop();
+		}
+	}
+
+	@Test public void cachedRequestsAreSeparatedByServer() throws IOException
+	{
+		MockApiServer server1 = new MockApiServer();
+		MockApiServer server2 = new MockApiServer();
+		try
+		{
+			server1.setDefaultResponse(new MockApiServer.Response(200, "dev"));
+			server2.setDefaultResponse(new MockApiServer.Response(200, "production"));
+			MemoryResponseCache cache = new MemoryResponseCache(1000);
+			OsmConnection osm1 = new OsmConnection(server1.getApiUrl(), "blub", null);
+			osm1.setResponseCache(cache);
+			OsmConnection osm2 = new OsmConnection(server2.getApiUrl(), "blub", null);
+			osm2.setResponseCache(cache);
+
+			assertEquals("dev", osm1.makeCachedRequest("node/1/2", false, true, new StringReader()));
+			assertEquals("production", osm2.makeCachedRequest("node/1/2", false, true, new StringReader()));
+			assertEquals(1, server2.getRequests().size());
+		}
+		finally
+		{
+			server1.stop();
+			server2.stop();
+		}
+	}
+
+	@Test public void cachedRequestsAreSeparatedByUser() throws IOException
+	{
+		MockApiServer server = new MockApiServer();
+		try
+		{
+			server.setDefaultResponse(new MockApiServer.Response(200, "private"));
+			OsmConnection osm = new OsmConnection(server.getApiUrl(), "blub", "token 1");
+			osm.setResponseCache(new MemoryResponseCache(1000));
+
+			osm.makeCachedRequest("node/1/2", true, true, new StringReader());
+			osm.setOAuthAccessToken("token 2");
+			osm.makeCachedRequest("node/1/2", true, true, new StringReader());
+			osm.makeCachedRequest("node/1/2", false, true, new StringReader());
+
+			assertEquals(3, server.getRequests().size());
+		}
+		finally
+		{
+			server.stop();
+		}
+	}
+
+	@Test public void requestIsAbortedAtDeadline() throws IOException
+	{
+		MockApiServer server = new MockApiServer();
+		try
+		{
+			server.setDefaultResponse(new MockApiServer.Response(200, "late").delay(3000));
+			OsmConnection osm = new OsmConnection(server.getApiUrl(), "blub", null);
+			osm.setDeadline(300);
+
+			long start = System.currentTimeMillis();
+			try
+			{
+				osm.makeRequest("node/1", new StringReader());
+				fail();
+			}
+			catch(OsmConnectionException e)
+			{
+				assertTrue(e.getCause() instanceof SocketTimeoutException);
+			}
+			assertTrue(System.currentTimeMillis() - start < 2000);
+		}
+		finally
+		{
+			server.stop();
+		}
+	}
+
+	@Test public void slowRequestIsHedged() throws IOException
+	{
+		MockApiServer server = new MockApiServer();
+		try
+		{
+			server.enqueue(new MockApiServer.Response(200, "slow").delay(2000));
+			server.enqueue(new MockApiServer.Response(200, "fast"));
+			OsmConnection osm = new OsmConnection(server.getApiUrl(), "blub", null);
+			HedgingPolicy hedgingPolicy = new HedgingPolicy(95, 100).forEndpoints("node/{id}");
+			osm.setHedgingPolicy(hedgingPolicy);
+
+			long start = System.currentTimeMillis();
+			assertEquals("fast", osm.makeRequest("node/1", new StringReader()));
+			assertTrue(System.currentTimeMillis() - start < 1500);
+			assertEquals(2, server.getRequests().size());
+			assertEquals(1, hedgingPolicy.getHedgeCount());
+			assertEquals(1, hedgingPolicy.getHedgeWinCount());
+		}
+		finally
+		{
+			server.stop();
+		}
+	}
+
+	@Test public void losingHedgedRequestIsCancelled() throws Exception
+	{
+		MockApiServer server = new MockApiServer();
+		try
+		{
+			server.enqueue(new MockApiServer.Response(200, "slow").delay(500));
+			server.enqueue(new MockApiServer.Response(200, "fast"));
+			OsmConnection osm = new OsmConnection(server.getApiUrl(), "blub", null);
+			osm.setHedgingPolicy(new HedgingPolicy(95, 100).forEndpoints("node/{id}"));
+			final List<RequestMetrics> finished = new CopyOnWriteArrayList<>();
+			osm.addRequestListener(new RequestListener()
+			{
+				@Override public void onRequestStarted(RequestMetrics metrics) {}
+				@Override public void onResponseReceived(RequestMetrics metrics) {}
+				@Override public void onRequestFinished(RequestMetrics metrics)
+				{
+					finished.add(metrics);
+				}
+			});
+
+			assertEquals("fast", osm.makeRequest("node/1", new StringReader()));
+			for (int i = 0; i < 40 && finished.size() < 2; ++i) Thread.sleep(50);
+
+			assertEquals(2, finished.size());
+			assertNull(finished.get(0).error);
+			// the slow response is not read anymore once it arrives
+			assertNotNull(finished.get(1).error);
+		}
+		finally
+		{
+			server.stop();
+		}
+	}
+
+	@Test public void hedgeIsNotSentWithoutRateLimitPermit() throws IOException
+	{
+		MockApiServer server = new MockApiServer();
+		try
+		{
+			server.enqueue(new MockApiServer.Response(200, "slow").delay(500));
+			server.enqueue(new MockApiServer.Response(200, "fast"));
+			OsmConnection osm = new OsmConnection(server.getApiUrl(), "blub", null);
+			// the only permit is taken by the first request
+			osm.setRateLimiter(new RateLimiter(0.01, 1));
+			HedgingPolicy hedgingPolicy = new HedgingPolicy(95, 100).forEndpoints("node/{id}");
+			osm.setHedgingPolicy(hedgingPolicy);
+
+			assertEquals("slow", osm.makeRequest("node/1", new StringReader()));
+			assertEquals(1, server.getRequests().size());
+			assertEquals(0, hedgingPolicy.getHedgeCount());
+		}
+		finally
+		{
+			server.stop();
+		}
+	}
+
+	@Test public void hedgedRequestDoesNotRunOnAsyncExecutor() throws Exception
+	{
+		MockApiServer server = new MockApiServer();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try
+		{
+			server.enqueue(new MockApiServer.Response(200, "slow").delay(500));
+			server.enqueue(new MockApiServer.Response(200, "fast"));
+			final OsmConnection osm = new OsmConnection(server.getApiUrl(), "blub", null);
+			osm.setAsyncExecutor(executor, 1);
+			osm.setHedgingPolicy(new HedgingPolicy(95, 100).forEndpoints("node/{id}"));
+
+			// the request occupies the only thread of the executor
+			Future<String> result = executor.submit(new Callable<String>()
+			{
+				@Override public String call()
+				{
+					return osm.makeRequest("node/1", new StringReader());
+				}
+			});
+			assertEquals("fast", result.get(5, TimeUnit.SECONDS));
+		}
+		finally
+		{
+			executor.shutdownNow();
+			server.stop();
+		}
+	}
+
+	@Test public void fastRequestIsNotHedged() throws IOException
+	{
+		MockApiServer server = new MockApiServer();
+		try
+		{
+			server.setDefaultResponse(new MockApiServer.Response(200, "fast"));
+			OsmConnection osm = new OsmConnection(server.getApiUrl(), "blub", null);
+			HedgingPolicy hedgingPolicy = new HedgingPolicy(95, 1000);
+			osm.setHedgingPolicy(hedgingPolicy);
+
+			assertEquals("fast", osm.makeRequest("node/1", new StringReader()));
+			assertEquals(1, server.getRequests().size());
+			assertEquals(0, hedgingPolicy.getHedgeCount());
+		}
+		finally
+		{
+			server.stop();
+		}
+	}
+
+	@Test public void openedRequestIsFinishedWhenClosed() throws IOException
+	{
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		OutputStream out = new GZIPOutputStream(compressed);
+		for (int i = 0; i < 100; ++i) out.write("<node/>".getBytes("UTF-8"));
+		out.close();
+
+		MockApiServer server = new MockApiServer();
+		try
+		{
+			server.enqueue(new MockApiServer.Response(429, "slow down").header("Retry-After", "0"));
+			server.enqueue(new MockApiServer.Response(200, compressed.toByteArray())
+					.header("Content-Encoding", "gzip"));
+			OsmConnection osm = new OsmConnection(server.getApiUrl(), "blub", null);
+			osm.setRetryPolicy(new RetryPolicy(2, 1, 10));
+			final List<RequestMetrics> finished = new ArrayList<>();
+			osm.addRequestListener(new RequestListener()
+			{
+				@Override public void onRequestStarted(RequestMetrics metrics) {}
+				@Override public void onResponseReceived(RequestMetrics metrics) {}
+				@Override public void onRequestFinished(RequestMetrics metrics)
+				{
+					finished.add(metrics);
+				}
+			});
+
+			InputStream in = osm.openRequest("node/1", false);
+			// the failed first attempt is already finished
+			assertEquals(1, finished.size());
+			String response = new String(readAll(in), "UTF-8");
+			assertEquals(700, response.length());
+			assertEquals(1, finished.size());
+
+			in.close();
+			in.close();
+			assertEquals(2, finished.size());
+			RequestMetrics metrics = finished.get(1);
+			assertEquals(200, metrics.responseCode);
+			assertEquals(compressed.size(), metrics.wireBytes);
+			assertEquals(700, metrics.decodedBytes);
+			assertNull(metrics.error);
+
+			TrafficStatistics statistics = osm.getTrafficStatistics();
+			assertEquals(compressed.size(), statistics.getWireBytes("node/{id}"));
+			assertEquals(700, statistics.getDecodedBytes("node/{id}"));
+		}
+		finally
+		{
+			server.stop();
+		}
+	}
+
+	@Test public void gzipErrorResponseIsDecompressed() throws IOException
+	{
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		OutputStream out = new GZIPOutputStream(compressed);
+		out.write("not here".getBytes("UTF-8"));
+		out.close();
+
+		MockApiServer server = new MockApiServer();
+		try
+		{
+			server.enqueue(new MockApiServer.Response(404, compressed.toByteArray())
+					.header("Content-Encoding", "gzip"));
+			OsmConnection osm = new OsmConnection(server.getApiUrl(), "blub", null);
+			try
+			{
+				osm.makeRequest("node/1", new StringReader());
+				fail();
+			}
+			catch(OsmNotFoundException e)
+			{
+				assertEquals("not here", e.getDescription());
+			}
+			// closing the decoder must not close the connection
+			UrlConnectionTransport transport = (UrlConnectionTransport) osm.getTransport();
+			assertEquals(0, transport.getDiscardedConnectionCount());
+		}
+		finally
+		{
+			server.stop();
+		}
+	}
+
+	@Test public void decoderOfOpenedRequestIsClosedWhenClosed() throws IOException
+	{
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		OutputStream out = new GZIPOutputStream(compressed);
+		for (int i = 0; i < 100; ++i) out.write("<node/>".getBytes("UTF-8"));
+		out.close();
+
+		MockApiServer server = new MockApiServer();
+		try
+		{
+			server.enqueue(new MockApiServer.Response(200, compressed.toByteArray())
+					.header("Content-Encoding", "gzip"));
+			OsmConnection osm = new OsmConnection(server.getApiUrl(), "blub", null);
+
+			InputStream in = osm.openRequest("node/1", false);
+			assertEquals('<', in.read());
+			in.close();
+			try
+			{
+				in.read();
+				fail();
+			}
+			catch(IOException ignore) {}
+		}
+		finally
+		{
+			server.stop();
+		}
+	}
+
 	@Test public void errorParsingApiResponse()
 	{
 		try
@@ -64,4 +691,40 @@ public class OsmConnectionTest
 		catch(OsmApiReadResponseException ignore) {}
 	}
 
+	private static class ElementCountingParser extends XmlParser implements ApiResponseReader<Void>
+	{
+		@Override
+		public Void parse(InputStream in) throws Exception
+		{
+			doParse(in);
+			return null;
+		}
+
+		@Override
+		protected void onStartElement() {}
+
+		@Override
+		protected void onEndElement() {}
+	}
+
+	private static class StringReader implements ApiResponseReader<String>
+	{
+		@Override
+		public String parse(InputStream in) throws Exception
+		{
+			return new String(readAll(in), "UTF-8");
+		}
+	}
+
+	private static byte[] readAll(InputStream in) throws IOException
+	{
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1024];
+		int length;
+		while ((length = in.read(buffer)) != -1)
+		{
+			result.write(buffer, 0, length);
+		}
+		return result.toByteArray();
+	}
 }
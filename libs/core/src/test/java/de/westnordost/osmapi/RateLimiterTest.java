@@ -0,0 +1,62 @@
+package de.westnordost.osmapi;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RateLimiterTest
+{
+	@Test public void burstIsNotThrottled() throws InterruptedException
+	{
+		RateLimiter rateLimiter = new RateLimiter(1, 5);
+		for (int i = 0; i < 5; ++i) rateLimiter.acquire();
+		assertEquals(5, rateLimiter.getAcquireCount());
+		assertEquals(0, rateLimiter.getThrottleCount());
+	}
+
+	@Test public void beyondBurstIsThrottled() throws InterruptedException
+	{
+		RateLimiter rateLimiter = new RateLimiter(20, 1);
+		long start = System.nanoTime();
+		for (int i = 0; i < 5; ++i) rateLimiter.acquire();
+		long elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+		// first one is free, the other four have to wait 50ms each
+		assertTrue(elapsedMillis >= 180);
+		assertEquals(4, rateLimiter.getThrottleCount());
+		assertTrue(rateLimiter.getThrottleWaitMillis() >= 150);
+	}
+
+	@Test public void pauseDelaysNextPermit() throws InterruptedException
+	{
+		RateLimiter rateLimiter = new RateLimiter(1000, 10);
+		rateLimiter.pause(200);
+		long start = System.nanoTime();
+		rateLimiter.acquire();
+		long elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+		assertTrue(elapsedMillis >= 190);
+		assertEquals(1, rateLimiter.getPauseCount());
+		assertEquals(1, rateLimiter.getThrottleCount());
+	}
+
+	@Test public void tryAcquireDoesNotWait() throws InterruptedException
+	{
+		RateLimiter rateLimiter = new RateLimiter(1, 2);
+		assertTrue(rateLimiter.tryAcquire());
+		rateLimiter.acquire();
+		assertFalse(rateLimiter.tryAcquire());
+		assertEquals(2, rateLimiter.getAcquireCount());
+		assertEquals(0, rateLimiter.getThrottleCount());
+
+		rateLimiter = new RateLimiter(1000, 10);
+		rateLimiter.pause(1000);
+		assertFalse(rateLimiter.tryAcquire());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidRate()
+	{
+		new RateLimiter(0, 1);
+	}
+}
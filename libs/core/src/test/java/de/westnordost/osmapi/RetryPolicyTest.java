@@ -0,0 +1,56 @@
+package de.westnordost.osmapi;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RetryPolicyTest
+{
+	@Test public void backoffGrowsExponentiallyWithJitter()
+	{
+		RetryPolicy policy = new RetryPolicy(10, 100, 1000);
+		for (int i = 0; i < 100; ++i)
+		{
+			long first = policy.getBackoff(0, -1);
+			assertTrue(first >= 50 && first <= 100);
+			long third = policy.getBackoff(2, -1);
+			assertTrue(third >= 200 && third <= 400);
+		}
+	}
+
+	@Test public void backoffIsCapped()
+	{
+		RetryPolicy policy = new RetryPolicy(100, 100, 1000);
+		for (int i = 0; i < 100; ++i)
+		{
+			assertTrue(policy.getBackoff(50, -1) <= 1000);
+		}
+	}
+
+	@Test public void retryAfterIsHonoured()
+	{
+		RetryPolicy policy = new RetryPolicy(10, 100, 1000);
+		assertEquals(5000, policy.getBackoff(0, 5000));
+	}
+
+	@Test public void parseRetryAfterSeconds()
+	{
+		assertEquals(120000, RetryPolicy.parseRetryAfter("120", 0));
+		assertEquals(0, RetryPolicy.parseRetryAfter(" 0 ", 0));
+	}
+
+	@Test public void parseRetryAfterDate()
+	{
+		// Wed, 21 Oct 2015 07:28:00 GMT
+		long date = 1445412480000L;
+		assertEquals(30000, RetryPolicy.parseRetryAfter("Wed, 21 Oct 2015 07:28:00 GMT", date - 30000));
+		assertEquals(0, RetryPolicy.parseRetryAfter("Wed, 21 Oct 2015 07:28:00 GMT", date + 30000));
+	}
+
+	@Test public void parseInvalidRetryAfter()
+	{
+		assertEquals(-1, RetryPolicy.parseRetryAfter(null, 0));
+		assertEquals(-1, RetryPolicy.parseRetryAfter("soon", 0));
+		assertEquals(-1, RetryPolicy.parseRetryAfter("-5", 0));
+	}
+}
@@ -0,0 +1,188 @@
+package de.westnordost.osmapi;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+public class VirtualThreadOsmExecutorTest
+{
+	private OsmConnection osm;
+	private VirtualThreadOsmExecutor executor;
+
+	@Before public void setUp()
+	{
+		osm = new OsmConnection("http://cant.connect.to.this.server.hm", "blub", null);
+		executor = new VirtualThreadOsmExecutor(osm, 2);
+	}
+
+	@After public void tearDown()
+	{
+		executor.close();
+	}
+
+	@Test public void resultsAreInOrderOfInputs()
+	{
+		List<Integer> result = executor.invokeAll(Arrays.asList(3, 1, 2), new Function<Integer, Integer>()
+		{
+			@Override
+			public Integer apply(Integer x)
+			{
+				sleep(10 * x);
+				return x * 10;
+			}
+		});
+		assertEquals(Arrays.asList(30, 10, 20), result);
+	}
+
+	@Test public void doesNotExceedMaxConcurrentCalls()
+	{
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger maxRunning = new AtomicInteger();
+
+		executor.invokeAll(Arrays.asList(1, 2, 3, 4, 5, 6), new Function<Integer, Void>()
+		{
+			@Override
+			public Void apply(Integer x)
+			{
+				int nowRunning = running.incrementAndGet();
+				synchronized(maxRunning)
+				{
+					maxRunning.set(Math.max(maxRunning.get(), nowRunning));
+				}
+				sleep(20);
+				running.decrementAndGet();
+				return null;
+			}
+		});
+		assertTrue(maxRunning.get() <= 2);
+	}
+
+	@Test public void rethrowsExceptionOfFailedCall()
+	{
+		try
+		{
+			executor.invokeAll(Arrays.asList(1, 2), new Function<Integer, Void>()
+			{
+				@Override
+				public Void apply(Integer x)
+				{
+					if(x == 2) throw new IllegalStateException();
+					return null;
+				}
+			});
+			fail();
+		}
+		catch(IllegalStateException ignore) {}
+	}
+
+	@Test public void cancelledCallsDoNotKeepTheirPermits()
+	{
+		// with only one thread, the calls after the first are still queued when it fails
+		ThreadPoolExecutor threads = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<Runnable>());
+		VirtualThreadOsmExecutor executor = new VirtualThreadOsmExecutor(osm, 3, threads);
+		try
+		{
+			try
+			{
+				executor.invokeAll(Arrays.asList(1, 2, 3), new Function<Integer, Void>()
+				{
+					@Override
+					public Void apply(Integer x)
+					{
+						sleep(50);
+						if(x == 1) throw new IllegalStateException();
+						return null;
+					}
+				});
+				fail();
+			}
+			catch(IllegalStateException ignore) {}
+
+			threads.setMaximumPoolSize(3);
+			threads.setCorePoolSize(3);
+			final AtomicInteger running = new AtomicInteger();
+			final AtomicInteger maxRunning = new AtomicInteger();
+			executor.invokeAll(Arrays.asList(1, 2, 3), new Function<Integer, Void>()
+			{
+				@Override
+				public Void apply(Integer x)
+				{
+					int nowRunning = running.incrementAndGet();
+					synchronized(maxRunning)
+					{
+						maxRunning.set(Math.max(maxRunning.get(), nowRunning));
+					}
+					sleep(100);
+					running.decrementAndGet();
+					return null;
+				}
+			});
+			assertEquals(3, maxRunning.get());
+		}
+		finally
+		{
+			executor.close();
+		}
+	}
+
+	@Test public void doesNotChangeAsyncExecutorOfConnection()
+	{
+		assertNull(osm.getAsyncExecutor());
+	}
+
+	@Test public void restoresAsyncExecutorOfConnectionOnClose()
+	{
+		Executor previous = Executors.newSingleThreadExecutor();
+		osm.setAsyncExecutor(previous, 5);
+
+		executor.useForAsyncCalls();
+		assertNotSame(previous, osm.getAsyncExecutor());
+		assertEquals(2, osm.getMaxAsyncRequests());
+
+		executor.close();
+		assertSame(previous, osm.getAsyncExecutor());
+		assertEquals(5, osm.getMaxAsyncRequests());
+	}
+
+	@Test public void doesNotRestoreAsyncExecutorOfConnectionIfReplaced()
+	{
+		executor.useForAsyncCalls();
+		Executor other = Executors.newSingleThreadExecutor();
+		osm.setAsyncExecutor(other, 5);
+
+		executor.close();
+		assertSame(other, osm.getAsyncExecutor());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void cannotBeUsedForAsyncCallsAfterClose()
+	{
+		executor.close();
+		executor.useForAsyncCalls();
+	}
+
+	private static void sleep(long millis)
+	{
+		try
+		{
+			Thread.sleep(millis);
+		}
+		catch(InterruptedException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+}
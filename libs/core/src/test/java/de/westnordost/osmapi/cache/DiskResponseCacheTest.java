@@ -0,0 +1,86 @@
+package de.westnordost.osmapi.cache;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class DiskResponseCacheTest
+{
+	private static final String API = "https://api.openstreetmap.org/api/0.6/";
+
+	@Rule public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test public void putAndGet() throws IOException
+	{
+		DiskResponseCache cache = new DiskResponseCache(folder.newFolder(), 1000);
+		cache.put("node/1/2", new CachedResponse(new byte[]{1,2,3}, "W/\"abc\"", true));
+		cache.put("user/1", new CachedResponse(new byte[]{4}, null, false));
+
+		CachedResponse response = cache.get("node/1/2");
+		assertArrayEquals(new byte[]{1,2,3}, response.body);
+		assertEquals("W/\"abc\"", response.etag);
+		assertTrue(response.immutable);
+
+		response = cache.get("user/1");
+		assertArrayEquals(new byte[]{4}, response.body);
+		assertNull(response.etag);
+		assertFalse(response.immutable);
+
+		assertNull(cache.get("user/2"));
+	}
+
+	@Test public void survivesRestart() throws IOException
+	{
+		File directory = folder.newFolder();
+		new DiskResponseCache(directory, 1000).put("a", new CachedResponse(new byte[10], "1", false));
+
+		DiskResponseCache cache = new DiskResponseCache(directory, 1000);
+		assertEquals(10, cache.get("a").body.length);
+		assertTrue(cache.getSize() > 10);
+	}
+
+	@Test public void evictsWhenTooLarge() throws IOException
+	{
+		DiskResponseCache cache = new DiskResponseCache(folder.newFolder(), 250);
+		cache.put("a", new CachedResponse(new byte[100], null, true));
+		cache.put("b", new CachedResponse(new byte[100], null, true));
+		cache.put("c", new CachedResponse(new byte[100], null, true));
+
+		assertTrue(cache.getSize() <= 250);
+		assertNotNull(cache.get("c"));
+	}
+
+	@Test public void removeAndClear() throws IOException
+	{
+		DiskResponseCache cache = new DiskResponseCache(folder.newFolder(), 1000);
+		cache.put("a", new CachedResponse(new byte[10], null, true));
+		cache.put("b", new CachedResponse(new byte[10], null, true));
+		cache.remove("a");
+		assertNull(cache.get("a"));
+		cache.clear();
+		assertNull(cache.get("b"));
+		assertEquals(0, cache.getSize());
+	}
+
+	@Test public void keysIncludeUserButNotToken()
+	{
+		String key = CacheKeys.of(API, "user/1", "secret");
+		assertTrue(key.startsWith(API + "user/1 "));
+		assertFalse(key.contains("secret"));
+		assertNotEquals(key, CacheKeys.of(API, "user/1", "other secret"));
+	}
+
+	@Test public void keysIncludeApiUrl()
+	{
+		assertEquals(API + "capabilities", CacheKeys.of(API, "capabilities", null));
+		assertEquals(API + "capabilities",
+				CacheKeys.of("HTTPS://Api.OpenStreetMap.org/api/0.6/", "capabilities", null));
+		assertNotEquals(CacheKeys.of(API, "capabilities", null),
+				CacheKeys.of("https://master.apis.dev.openstreetmap.org/api/0.6/", "capabilities", null));
+	}
+}
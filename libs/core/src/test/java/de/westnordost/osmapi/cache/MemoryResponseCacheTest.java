@@ -0,0 +1,85 @@
+package de.westnordost.osmapi.cache;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MemoryResponseCacheTest
+{
+	@Test public void putAndGet()
+	{
+		MemoryResponseCache cache = new MemoryResponseCache(100);
+		CachedResponse response = response(10);
+		cache.put("a", response);
+		assertSame(response, cache.get("a"));
+		assertNull(cache.get("b"));
+		assertEquals(10, cache.getSize());
+	}
+
+	@Test public void replace()
+	{
+		MemoryResponseCache cache = new MemoryResponseCache(100);
+		cache.put("a", response(10));
+		cache.put("a", response(20));
+		assertEquals(20, cache.get("a").body.length);
+		assertEquals(20, cache.getSize());
+	}
+
+	@Test public void evictsLeastRecentlyUsed()
+	{
+		MemoryResponseCache cache = new MemoryResponseCache(30);
+		cache.put("a", response(10));
+		cache.put("b", response(10));
+		cache.put("c", response(10));
+		cache.get("a");
+		cache.put("d", response(10));
+
+		assertNotNull(cache.get("a"));
+		assertNull(cache.get("b"));
+		assertNotNull(cache.get("c"));
+		assertNotNull(cache.get("d"));
+		assertEquals(30, cache.getSize());
+	}
+
+	@Test public void doesNotKeepTooLargeResponse()
+	{
+		MemoryResponseCache cache = new MemoryResponseCache(30);
+		cache.put("a", response(10));
+		cache.put("b", response(31));
+		assertNotNull(cache.get("a"));
+		assertNull(cache.get("b"));
+	}
+
+	@Test public void removeAndClear()
+	{
+		MemoryResponseCache cache = new MemoryResponseCache(100);
+		cache.put("a", response(10));
+		cache.put("b", response(10));
+		cache.remove("a");
+		assertNull(cache.get("a"));
+		assertEquals(10, cache.getSize());
+		cache.clear();
+		assertNull(cache.get("b"));
+		assertEquals(0, cache.getSize());
+	}
+
+	@Test public void secondTier()
+	{
+		MemoryResponseCache secondTier = new MemoryResponseCache(100);
+		MemoryResponseCache cache = new MemoryResponseCache(10, secondTier);
+		cache.put("a", response(10));
+		cache.put("b", response(10));
+
+		// evicted from the first tier but still in the second
+		assertNotNull(secondTier.get("a"));
+		assertNotNull(cache.get("a"));
+
+		cache.remove("a");
+		assertNull(secondTier.get("a"));
+	}
+
+	private static CachedResponse response(int size)
+	{
+		return new CachedResponse(new byte[size], "\"etag\"", false);
+	}
+}
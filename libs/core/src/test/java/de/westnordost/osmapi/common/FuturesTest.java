@@ -0,0 +1,81 @@
+package de.westnordost.osmapi.common;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import de.westnordost.osmapi.common.errors.OsmAuthorizationException;
+import de.westnordost.osmapi.common.errors.OsmNotFoundException;
+
+import static org.junit.Assert.*;
+
+public class FuturesTest
+{
+	@Test public void nullIfThrownPassesResult() throws Exception
+	{
+		CompletableFuture<String> future = CompletableFuture.completedFuture("a");
+		assertEquals("a", Futures.nullIfThrown(future, OsmNotFoundException.class).get());
+	}
+
+	@Test public void nullIfThrownReturnsNullOnGivenException() throws Exception
+	{
+		CompletableFuture<String> future = new CompletableFuture<>();
+		future.completeExceptionally(new OsmNotFoundException(404, "Not found", null));
+		assertNull(Futures.nullIfThrown(future, OsmNotFoundException.class).get());
+	}
+
+	@Test public void nullIfThrownPassesOtherExceptions() throws Exception
+	{
+		CompletableFuture<String> future = new CompletableFuture<>();
+		future.completeExceptionally(new OsmAuthorizationException(403, "Forbidden", null));
+		try
+		{
+			Futures.nullIfThrown(future, OsmNotFoundException.class).get();
+			fail();
+		}
+		catch(ExecutionException e)
+		{
+			assertTrue(e.getCause() instanceof OsmAuthorizationException);
+		}
+	}
+
+	@Test public void firstSuccessfulIgnoresFailure() throws Exception
+	{
+		CompletableFuture<String> a = new CompletableFuture<>();
+		CompletableFuture<String> b = new CompletableFuture<>();
+		CompletableFuture<String> result = Futures.firstSuccessful(a, b);
+		a.completeExceptionally(new OsmNotFoundException(404, "Not found", null));
+		assertFalse(result.isDone());
+		b.complete("b");
+		assertEquals("b", result.get());
+	}
+
+	@Test public void firstSuccessfulTakesFirst() throws Exception
+	{
+		CompletableFuture<String> a = new CompletableFuture<>();
+		CompletableFuture<String> b = new CompletableFuture<>();
+		CompletableFuture<String> result = Futures.firstSuccessful(a, b);
+		b.complete("b");
+		a.complete("a");
+		assertEquals("b", result.get());
+	}
+
+	@Test public void firstSuccessfulFailsIfAllFail() throws Exception
+	{
+		CompletableFuture<String> a = new CompletableFuture<>();
+		CompletableFuture<String> b = new CompletableFuture<>();
+		CompletableFuture<String> result = Futures.firstSuccessful(a, b);
+		a.completeExceptionally(new OsmNotFoundException(404, "Not found", null));
+		b.completeExceptionally(new OsmAuthorizationException(403, "Forbidden", null));
+		try
+		{
+			result.get();
+			fail();
+		}
+		catch(ExecutionException e)
+		{
+			assertTrue(e.getCause() instanceof OsmAuthorizationException);
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package de.westnordost.osmapi.common;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class NumbersTest
+{
+	@Test public void parseDouble()
+	{
+		assertEquals(51.7400243, Numbers.parseDouble("51.7400243"), 0);
+		assertEquals(-51.7400243, Numbers.parseDouble("-51.7400243"), 0);
+		assertEquals(12, Numbers.parseDouble("+12"), 0);
+		assertEquals(0.5, Numbers.parseDouble(".5"), 0);
+		assertEquals(12, Numbers.parseDouble("12."), 0);
+		assertEquals(Double.doubleToLongBits(-0.0), Double.doubleToLongBits(Numbers.parseDouble("-0.0")));
+	}
+
+	@Test public void parseDoubleFallsBackForOtherNotations()
+	{
+		assertEquals(1e-5, Numbers.parseDouble("1e-5"), 0);
+		assertEquals(Double.POSITIVE_INFINITY, Numbers.parseDouble("Infinity"), 0);
+		assertEquals(0.12345678901234567890123, Numbers.parseDouble("0.12345678901234567890123"), 0);
+	}
+
+	@Test public void parseDoubleIsSameAsDoubleParseDouble()
+	{
+		Random random = new Random(1);
+		for (int i = 0; i < 10000; ++i)
+		{
+			double value = random.nextDouble() * 360 - 180;
+			String[] strs = {String.format("%.7f", value), String.valueOf(value), String.valueOf((float) value)};
+			for (String str : strs)
+			{
+				assertEquals(str, Double.parseDouble(str), Numbers.parseDouble(str), 0);
+			}
+		}
+	}
+
+	@Test(expected = NumberFormatException.class)
+	public void parseDoubleFailsOnInvalidNumber()
+	{
+		Numbers.parseDouble("1.2.3");
+	}
+
+	@Test(expected = NumberFormatException.class)
+	public void parseDoubleFailsOnEmptyNumber()
+	{
+		Numbers.parseDouble("");
+	}
+
+	@Test public void toStringWritesPlainNotation()
+	{
+		assertEquals("51.7400243", Numbers.toString(51.7400243));
+		assertEquals("-51.7400243", Numbers.toString(-51.7400243));
+		assertEquals("1", Numbers.toString(1.0));
+		assertEquals("0", Numbers.toString(0.0));
+		assertEquals("0.5", Numbers.toString(0.5));
+		assertEquals("0.0000001", Numbers.toString(0.0000001));
+		assertEquals("-0.0000001", Numbers.toString(-0.0000001));
+		assertEquals("0.00000000012345", Numbers.toString(1.2345e-10));
+		assertEquals("1234567.891", Numbers.toString(1234567.891));
+		assertEquals("12345000000000000000", Numbers.toString(1.2345e19));
+		assertEquals("-123456789012.5", Numbers.toString(-123456789012.5));
+		assertEquals("0.30000000000000004", Numbers.toString(0.1 + 0.2));
+	}
+
+	@Test public void toStringPassesOnNonFiniteNumbers()
+	{
+		assertEquals("NaN", Numbers.toString(Double.NaN));
+		assertEquals("-Infinity", Numbers.toString(Double.NEGATIVE_INFINITY));
+	}
+
+	@Test public void toStringCanBeParsedAgain()
+	{
+		Random random = new Random(1);
+		for (int i = 0; i < 10000; ++i)
+		{
+			double[] values = {
+					Math.round((random.nextDouble() * 360 - 180) * 1e7) / 1e7,
+					random.nextDouble() * 360 - 180,
+					random.nextFloat(),
+					Double.longBitsToDouble(random.nextLong())
+			};
+			for (double value : values)
+			{
+				if(Double.isNaN(value) || Double.isInfinite(value)) continue;
+				String str = Numbers.toString(value);
+				assertFalse(str, str.contains("E"));
+				assertEquals(str, value, Double.parseDouble(str), 0);
+			}
+		}
+	}
+}
@@ -0,0 +1,91 @@
+package de.westnordost.osmapi.common;
+
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TimestampParserTest
+{
+	@Test public void parse()
+	{
+		TimestampParser parser = new TimestampParser();
+		assertEquals(Instant.parse("2020-10-26T19:33:14Z"), parser.parse("2020-10-26T19:33:14Z"));
+		assertEquals(Instant.parse("1970-01-01T00:00:00Z"), parser.parse("1970-01-01T00:00:00Z"));
+		assertEquals(Instant.parse("1969-12-31T23:59:59Z"), parser.parse("1969-12-31T23:59:59Z"));
+		assertEquals(Instant.parse("2000-02-29T12:00:00Z"), parser.parse("2000-02-29T12:00:00Z"));
+		assertEquals(Instant.parse("0001-01-01T00:00:00Z"), parser.parse("0001-01-01T00:00:00Z"));
+	}
+
+	@Test public void parseNotesFormat()
+	{
+		assertEquals(
+				Instant.parse("2020-10-26T19:33:14Z"),
+				new TimestampParser().parse("2020-10-26 19:33:14 UTC"));
+	}
+
+	@Test public void parseIsSameAsInstantParse()
+	{
+		TimestampParser parser = new TimestampParser();
+		Random random = new Random(1);
+		for (int i = 0; i < 10000; ++i)
+		{
+			Instant instant = Instant.ofEpochSecond(random.nextInt(Integer.MAX_VALUE) * 2L);
+			String str = instant.toString();
+			assertEquals(str, Instant.parse(str), parser.parse(str));
+		}
+	}
+
+	@Test public void otherFormsArePassedOn()
+	{
+		TimestampParser parser = new TimestampParser();
+		assertEquals(Instant.parse("2020-10-26T19:33:14.5Z"), parser.parse("2020-10-26T19:33:14.5Z"));
+		assertEquals(Instant.parse("2020-10-26T24:00:00Z"), parser.parse("2020-10-26T24:00:00Z"));
+
+		final StringBuilder passedOn = new StringBuilder();
+		parser = new TimestampParser()
+		{
+			@Override
+			protected Instant parseOther(String source)
+			{
+				passedOn.append(source);
+				return Instant.EPOCH;
+			}
+		};
+		assertEquals(Instant.EPOCH, parser.parse("2020-10-26 19:33:14 CET"));
+		assertEquals("2020-10-26 19:33:14 CET", passedOn.toString());
+	}
+
+	@Test public void lastResultIsReused()
+	{
+		TimestampParser parser = new TimestampParser();
+		Instant instant = parser.parse("2020-10-26T19:33:14Z");
+		assertSame(instant, parser.parse(new String("2020-10-26T19:33:14Z")));
+		assertNotSame(instant, parser.parse("2020-10-26T19:33:15Z"));
+	}
+
+	@Test public void invalidDates()
+	{
+		String[] invalid = {
+				"2019-02-29T12:00:00Z", "2020-13-01T12:00:00Z", "2020-04-31T12:00:00Z",
+				"2020-10-26T19:60:14Z", "2020-1a-26T19:33:14Z",
+				"2020-10-26X19:33:14Z", "2020-10-26T19:33:14", ""
+		};
+		TimestampParser parser = new TimestampParser();
+		for (String str : invalid)
+		{
+			try
+			{
+				parser.parse(str);
+				fail(str);
+			}
+			catch(DateTimeParseException e)
+			{
+				// test passed
+			}
+		}
+	}
+}
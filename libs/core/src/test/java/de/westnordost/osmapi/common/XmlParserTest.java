@@ -85,6 +85,133 @@ public class XmlParserTest
 		parser.test(xml);
 	}
 
+	@Test public void getToken()
+	{
+		String xml = "<a><b><c></c></b><d></d></a>";
+		// c and d are not known in advance and get tokens in the order they appear in
+		final int[] tokens = {1, 0, 2, 2, 0, 3, 3, 1};
+
+		TestXmlParser parser = new TestXmlParser("b", "a")
+		{
+			private int counter = 0;
+
+			@Override
+			protected void onStartElement()
+			{
+				assertEquals(tokens[counter++], getToken());
+			}
+
+			@Override
+			protected void onEndElement()
+			{
+				assertEquals(tokens[counter++], getToken());
+			}
+		};
+		parser.test(xml);
+	}
+
+	@Test public void getParentToken()
+	{
+		String xml = "<a><b><c></c></b><d></d></a>";
+		final int[] parents = {XmlParser.NO_ELEMENT, 0, 1, 1, 0, 0, 0, XmlParser.NO_ELEMENT};
+
+		TestXmlParser parser = new TestXmlParser("a", "b", "c", "d")
+		{
+			private int counter = 0;
+
+			@Override
+			protected void onStartElement()
+			{
+				assertEquals(parents[counter++], getParentToken());
+			}
+
+			@Override
+			protected void onEndElement()
+			{
+				assertEquals(parents[counter++], getParentToken());
+			}
+		};
+		parser.test(xml);
+	}
+
+	@Test public void unknownTokensAreOnlyValidForOneDocument()
+	{
+		final StringBuilder names = new StringBuilder();
+		TestXmlParser parser = new TestXmlParser("a")
+		{
+			@Override
+			protected void onStartElement()
+			{
+				names.append(getName()).append(getToken()).append(getParentName()).append(' ');
+			}
+		};
+		parser.test("<a><x/><y/></a>");
+		parser.test("<a><y/><x/></a>");
+		assertEquals("a0null x1a y2a a0null y1a x2a ", names.toString());
+	}
+
+	@Test public void manyNamesAndDeepNesting()
+	{
+		StringBuilder xml = new StringBuilder();
+		for (int i = 0; i < 100; ++i) xml.append("<e").append(i).append(">");
+		for (int i = 99; i >= 0; --i) xml.append("</e").append(i).append(">");
+
+		TestXmlParser parser = new TestXmlParser()
+		{
+			private int depth = 0;
+
+			@Override
+			protected void onStartElement()
+			{
+				assertEquals("e" + depth, getName());
+				assertEquals(depth, getToken());
+				assertEquals(depth - 1, getParentToken());
+				assertEquals(depth > 0 ? "e" + (depth - 1) : null, getParentName());
+				depth++;
+			}
+
+			@Override
+			protected void onEndElement()
+			{
+				depth--;
+				assertEquals(depth, getToken());
+				assertEquals(depth - 1, getParentToken());
+			}
+		};
+		parser.test(xml.toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void duplicateKnownNamesAreNotAllowed()
+	{
+		new TestXmlParser("a", "b", "a");
+	}
+
+	@Test public void parseWhileParsing()
+	{
+		final StringBuilder names = new StringBuilder();
+		final TestXmlParser inner = new TestXmlParser()
+		{
+			@Override
+			protected void onStartElement()
+			{
+				names.append(getName());
+			}
+		};
+		TestXmlParser outer = new TestXmlParser()
+		{
+			@Override
+			protected void onStartElement()
+			{
+				names.append(getName());
+				inner.test("<x><y/></x>");
+			}
+		};
+		outer.test("<a><b/></a>");
+		outer.test("<a/>");
+		assertEquals("axybxyaxy", names.toString());
+	}
+
 	@Test public void getAttribute()
 	{
 		String xml = "<a x='hi' y='ho' /><b/>";
@@ -145,6 +272,29 @@ public class XmlParserTest
 		parser.test(xml);
 	}
 	
+	@Test public void primitiveAttributeGetters()
+	{
+		String xml = "<a a_double='-51.7400243' a_int='122' a_long='12345678901' />";
+
+		TestXmlParser parser = new TestXmlParser()
+		{
+			@Override
+			protected void onStartElement()
+			{
+				assertEquals(-51.7400243, getDoubleAttribute("a_double", Double.NaN), 0);
+				assertEquals(-517400243, getFixed1E7Attribute("a_double", 0));
+				assertEquals(122, getIntAttribute("a_int", -1));
+				assertEquals(12345678901L, getLongAttribute("a_long", -1));
+
+				assertTrue(Double.isNaN(getDoubleAttribute("does_not_exist", Double.NaN)));
+				assertEquals(Integer.MIN_VALUE, getFixed1E7Attribute("does_not_exist", Integer.MIN_VALUE));
+				assertEquals(-1, getIntAttribute("does_not_exist", -1));
+				assertEquals(-1, getLongAttribute("does_not_exist", -1));
+			}
+		};
+		parser.test(xml);
+	}
+
 	@Test public void exception()
 	{
 		String xml = "<a x='hi'/>";
@@ -194,6 +344,11 @@ public class XmlParserTest
 
 	private static class TestXmlParser extends XmlParser
 	{
+		TestXmlParser(String... knownNames)
+		{
+			super(knownNames);
+		}
+
 		public void test(String xml)
 		{
 			try
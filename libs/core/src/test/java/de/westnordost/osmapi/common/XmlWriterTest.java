@@ -130,6 +130,22 @@ public class XmlWriterTest
 		assertEquals(xmlBlob + "<test><a /></test>", result);
 	}
 
+	@Test public void writeSeveralTimes() throws IOException
+	{
+		TestXmlWriter writer = new TestXmlWriter()
+		{
+			@Override
+			protected void write() throws IOException
+			{
+				begin("test");
+				attribute("key", "value");
+				end();
+			}
+		};
+		assertEquals(writer.test(), writer.test());
+		assertEquals(xmlBlob + "<test key='value' />", writer.test());
+	}
+
 	private static abstract class TestXmlWriter extends XmlWriter
 	{
 		public String test() throws IOException
@@ -51,6 +51,31 @@ public class BoundingBoxTest
 		assertEquals(bounds.getMax(), bounds2.getMax());
 	}
 
+	@Test public void contains()
+	{
+		BoundingBox bounds = new BoundingBox(A,B,C,D);
+		assertTrue(bounds.contains(new OsmLatLon(35, 13)));
+		assertTrue(bounds.contains(new OsmLatLon(A, D)));
+		assertFalse(bounds.contains(new OsmLatLon(38, 13)));
+		assertFalse(bounds.contains(new OsmLatLon(35, 16)));
+
+		assertTrue(bounds.contains(Fixed1E7LatLon.parseLatLon("34.1234", "15.1254")));
+		assertFalse(bounds.contains(Fixed1E7LatLon.parseLatLon("34.1233999", "15.1254")));
+		assertFalse(bounds.contains(Fixed1E7LatLon.parseLatLon("34.1234", "15.1254001")));
+	}
+
+	@Test public void containsAcross180thMeridian()
+	{
+		BoundingBox bounds = new BoundingBox(0, 170, 1, -170);
+		assertTrue(bounds.contains(new OsmLatLon(0.5, 175)));
+		assertTrue(bounds.contains(new OsmLatLon(0.5, -175)));
+		assertFalse(bounds.contains(new OsmLatLon(0.5, 0)));
+
+		assertTrue(bounds.contains(new Fixed1E7LatLon(0.5, 180)));
+		assertTrue(bounds.contains(new Fixed1E7LatLon(0.5, -175)));
+		assertFalse(bounds.contains(new Fixed1E7LatLon(0.5, 0)));
+	}
+
 	@Test public void testEquals()
 	{
 		BoundingBox bounds1 = new BoundingBox(
@@ -0,0 +1,52 @@
+package de.westnordost.osmapi.map.data;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class Fixed1E7LatLonTest
+{
+	@Test public void parse()
+	{
+		Fixed1E7LatLon pos = Fixed1E7LatLon.parseLatLon("51.7400243", "-0.2400123");
+		assertEquals(517400243, pos.getLatitude1E7());
+		assertEquals(-2400123, pos.getLongitude1E7());
+		assertEquals(51.7400243, pos.getLatitude(), 0);
+		assertEquals(-0.2400123, pos.getLongitude(), 0);
+	}
+
+	@Test public void pack()
+	{
+		int[][] positions = {{0, 0}, {-900000000, -1800000000}, {900000000, 1800000000}, {-1, 1}, {1, -1}};
+		for (int[] position : positions)
+		{
+			Fixed1E7LatLon pos = Fixed1E7LatLon.fromFixed1E7(position[0], position[1]);
+			long packed = pos.toPacked();
+			assertEquals(position[0], Fixed1E7LatLon.unpackLatitude(packed));
+			assertEquals(position[1], Fixed1E7LatLon.unpackLongitude(packed));
+			assertEquals(pos, Fixed1E7LatLon.fromPacked(packed));
+		}
+	}
+
+	@Test public void equalsAndHashCode()
+	{
+		Fixed1E7LatLon pos = Fixed1E7LatLon.fromFixed1E7(517400243, 2400123);
+		assertEquals(pos, new Fixed1E7LatLon(51.7400243, 0.2400123));
+		assertEquals(pos.hashCode(), new Fixed1E7LatLon(51.7400243, 0.2400123).hashCode());
+		assertEquals(pos, new OsmLatLon(51.7400243, 0.2400123));
+		assertFalse(pos.equals(Fixed1E7LatLon.fromFixed1E7(517400243, 2400124)));
+		assertFalse(pos.equals(null));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidLatitude()
+	{
+		Fixed1E7LatLon.fromFixed1E7(900000001, 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidLongitude()
+	{
+		Fixed1E7LatLon.parseLatLon("0", "-180.0000001");
+	}
+}
@@ -0,0 +1,74 @@
+package de.westnordost.osmapi.map.data;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class Fixed1E7Test
+{
+	@Test public void parseFixed()
+	{
+		assertEquals(517400243, Fixed1E7.parseFixed("51.7400243"));
+		assertEquals(-517400243, Fixed1E7.parseFixed("-51.7400243"));
+		assertEquals(517400243, Fixed1E7.parseFixed("+51.7400243"));
+		assertEquals(1800000000, Fixed1E7.parseFixed("180"));
+		assertEquals(-1800000000, Fixed1E7.parseFixed("-180.0"));
+		assertEquals(5, Fixed1E7.parseFixed("0.0000005"));
+		assertEquals(5, Fixed1E7.parseFixed(".0000005"));
+		assertEquals(0, Fixed1E7.parseFixed("-0"));
+		assertEquals(120000000, Fixed1E7.parseFixed("12."));
+	}
+
+	@Test public void parseFixedRoundsLikeDoubleToFixed()
+	{
+		assertEquals(2, Fixed1E7.parseFixed("0.00000015"));
+		assertEquals(1, Fixed1E7.parseFixed("0.000000149"));
+		assertEquals(-1, Fixed1E7.parseFixed("-0.00000015"));
+		assertEquals(-2, Fixed1E7.parseFixed("-0.000000151"));
+		assertEquals(-2, Fixed1E7.parseFixed("-0.00000016"));
+		assertEquals(Fixed1E7.doubleToFixed(1e-5), Fixed1E7.parseFixed("1e-5"));
+	}
+
+	@Test public void parseFixedIsSameAsDoubleToFixed()
+	{
+		Random random = new Random(1);
+		for (int i = 0; i < 10000; ++i)
+		{
+			String str = String.format("%.7f", random.nextDouble() * 360 - 180);
+			assertEquals(str, Fixed1E7.doubleToFixed(Double.parseDouble(str)), Fixed1E7.parseFixed(str));
+		}
+	}
+
+	@Test public void fixedToString()
+	{
+		assertEquals("51.7400243", Fixed1E7.fixedToString(517400243));
+		assertEquals("-0.0000001", Fixed1E7.fixedToString(-1));
+		assertEquals("-180", Fixed1E7.fixedToString(-1800000000));
+		assertEquals("0", Fixed1E7.fixedToString(0));
+		assertEquals("12.05", Fixed1E7.fixedToString(120500000));
+	}
+
+	@Test public void fixedToStringCanBeParsedAgain()
+	{
+		Random random = new Random(1);
+		for (int i = 0; i < 10000; ++i)
+		{
+			int value = random.nextInt();
+			assertEquals(value, Fixed1E7.parseFixed(Fixed1E7.fixedToString(value)));
+		}
+	}
+
+	@Test(expected = NumberFormatException.class)
+	public void parseFixedFailsOnInvalidNumber()
+	{
+		Fixed1E7.parseFixed("12.3a");
+	}
+
+	@Test(expected = NumberFormatException.class)
+	public void parseFixedFailsOnEmptyNumber()
+	{
+		Fixed1E7.parseFixed("-.");
+	}
+}
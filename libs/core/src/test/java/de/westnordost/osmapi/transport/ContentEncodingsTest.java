@@ -0,0 +1,76 @@
+package de.westnordost.osmapi.transport;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+public class ContentEncodingsTest
+{
+	private static final String TEXT = "<osm><node id=\"1\"/><node id=\"2\"/><node id=\"3\"/></osm>";
+
+	@Test public void identity() throws IOException
+	{
+		InputStream in = new ByteArrayInputStream(TEXT.getBytes("UTF-8"));
+		assertSame(in, ContentEncodings.decode(in, null));
+		assertSame(in, ContentEncodings.decode(in, "identity"));
+	}
+
+	@Test public void gzip() throws IOException
+	{
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		OutputStream out = new GZIPOutputStream(compressed);
+		out.write(TEXT.getBytes("UTF-8"));
+		out.close();
+
+		InputStream in = new ByteArrayInputStream(compressed.toByteArray());
+		assertEquals(TEXT, readAll(ContentEncodings.decode(in, "gzip")));
+	}
+
+	@Test public void deflate() throws IOException
+	{
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		OutputStream out = new DeflaterOutputStream(compressed);
+		out.write(TEXT.getBytes("UTF-8"));
+		out.close();
+
+		InputStream in = new ByteArrayInputStream(compressed.toByteArray());
+		assertEquals(TEXT, readAll(ContentEncodings.decode(in, "Deflate")));
+	}
+
+	@Test(expected = IOException.class)
+	public void unsupported() throws IOException
+	{
+		ContentEncodings.decode(new ByteArrayInputStream(new byte[0]), "br");
+	}
+
+	@Test public void countingInputStream() throws IOException
+	{
+		CountingInputStream in = new CountingInputStream(new ByteArrayInputStream(new byte[100]));
+		in.read();
+		in.read(new byte[10]);
+		in.skip(5);
+		assertEquals(16, in.getCount());
+		readAll(in);
+		assertEquals(100, in.getCount());
+	}
+
+	private static String readAll(InputStream in) throws IOException
+	{
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		byte[] buffer = new byte[16];
+		int length;
+		while ((length = in.read(buffer)) != -1)
+		{
+			result.write(buffer, 0, length);
+		}
+		return result.toString("UTF-8");
+	}
+}
@@ -0,0 +1,172 @@
+package de.westnordost.osmapi.transport;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+
+import de.westnordost.osmapi.common.PlainTextWriter;
+
+import static org.junit.Assert.*;
+
+public class UrlConnectionTransportTest
+{
+	private HttpServer server;
+	private String host;
+
+	@Before public void setUp() throws IOException
+	{
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/echo", new HttpHandler()
+		{
+			@Override public void handle(HttpExchange exchange) throws IOException
+			{
+				byte[] body = readAll(exchange.getRequestBody());
+				exchange.getResponseHeaders().add("X-Method", exchange.getRequestMethod());
+				String transferEncoding = exchange.getRequestHeaders().getFirst("Transfer-Encoding");
+				if(transferEncoding != null)
+				{
+					exchange.getResponseHeaders().add("X-Transfer-Encoding", transferEncoding);
+				}
+				respond(exchange, 200, body);
+			}
+		});
+		server.createContext("/missing", new HttpHandler()
+		{
+			@Override public void handle(HttpExchange exchange) throws IOException
+			{
+				respond(exchange, 404, "not here".getBytes("UTF-8"));
+			}
+		});
+		server.start();
+		host = "localhost:" + server.getAddress().getPort();
+	}
+
+	@After public void tearDown()
+	{
+		server.stop(0);
+	}
+
+	@Test public void sendsPayloadAndReadsResponse() throws IOException
+	{
+		UrlConnectionTransport transport = new UrlConnectionTransport();
+		HttpRequest request = new HttpRequest(url("/echo"), "POST", new PlainTextWriter("hello"));
+
+		try (HttpResponse response = transport.execute(request))
+		{
+			assertEquals(200, response.getResponseCode());
+			assertEquals("POST", response.getHeader("X-Method"));
+			// payload is streamed, not buffered to find out its length first
+			assertEquals("chunked", response.getHeader("X-Transfer-Encoding"));
+			assertEquals("hello", new String(readAll(response.getInputStream()), "UTF-8"));
+		}
+		assertEquals(1, transport.getRequestCount());
+	}
+
+	@Test public void readsErrorStream() throws IOException
+	{
+		UrlConnectionTransport transport = new UrlConnectionTransport();
+
+		try (HttpResponse response = transport.execute(new HttpRequest(url("/missing"), null, null)))
+		{
+			assertEquals(404, response.getResponseCode());
+			assertEquals("not here", new String(readAll(response.getErrorStream()), "UTF-8"));
+		}
+	}
+
+	@Test public void releasesConnectionOnClose() throws IOException
+	{
+		UrlConnectionTransport transport = new UrlConnectionTransport(2);
+
+		HttpResponse response1 = transport.execute(new HttpRequest(url("/echo"), null, null));
+		HttpResponse response2 = transport.execute(new HttpRequest(url("/echo"), null, null));
+		assertEquals(2, transport.getConnectionsInUse(host));
+
+		response1.close();
+		response2.close();
+		assertEquals(0, transport.getConnectionsInUse(host));
+		assertEquals(0, transport.getDiscardedConnectionCount());
+	}
+
+	@Test public void waitingForFreeConnectionTimesOut() throws IOException
+	{
+		UrlConnectionTransport transport = new UrlConnectionTransport(1);
+
+		try (HttpResponse ignored = transport.execute(new HttpRequest(url("/echo"), null, null)))
+		{
+			HttpRequest request = new HttpRequest(url("/echo"), null, null);
+			request.setConnectTimeout(100);
+			long start = System.nanoTime();
+			try
+			{
+				transport.execute(request).close();
+				fail();
+			}
+			catch(SocketTimeoutException ignore) {}
+			assertTrue(System.nanoTime() - start < 2000000000L);
+		}
+		assertEquals(0, transport.getConnectionsInUse(host));
+	}
+
+	@Test public void waitingForFreeConnectionCountsAgainstDeadline() throws IOException
+	{
+		UrlConnectionTransport transport = new UrlConnectionTransport(1);
+
+		try (HttpResponse ignored = transport.execute(new HttpRequest(url("/echo"), null, null)))
+		{
+			HttpRequest request = new HttpRequest(url("/echo"), null, null);
+			request.setDeadline(System.nanoTime() + 100000000L);
+			try
+			{
+				transport.execute(request).close();
+				fail();
+			}
+			catch(SocketTimeoutException e)
+			{
+				assertEquals("Deadline exceeded", e.getMessage());
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void maxConnectionsPerHostMustBePositive()
+	{
+		new UrlConnectionTransport(0);
+	}
+
+	private URL url(String path) throws IOException
+	{
+		return new URL("http://" + host + path);
+	}
+
+	private static void respond(HttpExchange exchange, int code, byte[] body) throws IOException
+	{
+		exchange.sendResponseHeaders(code, body.length);
+		OutputStream out = exchange.getResponseBody();
+		out.write(body);
+		out.close();
+	}
+
+	private static byte[] readAll(InputStream in) throws IOException
+	{
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1024];
+		int length;
+		while ((length = in.read(buffer)) != -1)
+		{
+			result.write(buffer, 0, length);
+		}
+		return result.toByteArray();
+	}
+}
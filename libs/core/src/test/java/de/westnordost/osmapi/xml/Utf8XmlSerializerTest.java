@@ -0,0 +1,174 @@
+package de.westnordost.osmapi.xml;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class Utf8XmlSerializerTest
+{
+	private static final String SPECIAL_CHARS =
+			"&<>\"'@\t\n\r\u0000\u0001\u001f\u007f ]]> äß€😀😀";
+
+	@Test public void writesSameAsXmlPullSerializer() throws IOException
+	{
+		assertSameOutput(new Document()
+		{
+			@Override public void write(XmlStreamSerializer xml) throws IOException
+			{
+				xml.startTag("osmChange");
+				xml.attribute("version", "0.6");
+				xml.startTag("create");
+				xml.startTag("node");
+				xml.attribute("id", "-1");
+				xml.attribute("lat", "52.5123456");
+				xml.endTag("node");
+				xml.startTag("way");
+				xml.startTag("nd");
+				xml.attribute("ref", "-1");
+				xml.endTag("nd");
+				xml.startTag("tag");
+				xml.attribute("k", "name");
+				xml.attribute("v", "");
+				xml.endTag("tag");
+				xml.endTag("way");
+				xml.endTag("create");
+				xml.startTag("empty");
+				xml.text("");
+				xml.endTag("empty");
+				xml.startTag("text");
+				xml.text("Hello ");
+				xml.text("World");
+				xml.endTag("text");
+				xml.startTag("ümlaut");
+				xml.endTag("ümlaut");
+				xml.endTag("osmChange");
+			}
+		});
+	}
+
+	@Test public void escapesSameAsXmlPullSerializer() throws IOException
+	{
+		assertSameOutput(new Document()
+		{
+			@Override public void write(XmlStreamSerializer xml) throws IOException
+			{
+				xml.startTag("root");
+				xml.attribute("a", SPECIAL_CHARS);
+				xml.attribute("b", "'single'");
+				xml.attribute("c", "\"double\" and 'single'");
+				xml.attribute("d", "unpaired \ud83d and \ude00 surrogates");
+				xml.text(SPECIAL_CHARS);
+				xml.text("unpaired \ud83d and \ude00 surrogates");
+				xml.endTag("root");
+			}
+		});
+	}
+
+	@Test public void writesSameAsXmlPullSerializerForRandomValues() throws IOException
+	{
+		for (int i = 0; i < 100; ++i)
+		{
+			final long seed = i;
+			assertSameOutput(new Document()
+			{
+				@Override public void write(XmlStreamSerializer xml) throws IOException
+				{
+					Random random = new Random(seed);
+					xml.startTag("root");
+					for (int j = 0; j < 50; ++j)
+					{
+						xml.startTag("tag");
+						xml.attribute("k", randomString(random));
+						xml.attribute("v", randomString(random));
+						if(random.nextBoolean()) xml.text(randomString(random));
+						xml.endTag("tag");
+					}
+					xml.endTag("root");
+				}
+			});
+		}
+	}
+
+	@Test public void writesValuesLargerThanTheBuffer() throws IOException
+	{
+		final StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 10000; ++i) builder.append("ab&ä€😀");
+		assertSameOutput(new Document()
+		{
+			@Override public void write(XmlStreamSerializer xml) throws IOException
+			{
+				xml.startTag(builder.substring(0, 5) + "x");
+				xml.attribute("v", builder.toString());
+				xml.text(builder.toString());
+				xml.endTag(builder.substring(0, 5) + "x");
+			}
+		});
+	}
+
+	@Test public void canBeReused() throws IOException
+	{
+		Document document = new Document()
+		{
+			@Override public void write(XmlStreamSerializer xml) throws IOException
+			{
+				xml.startTag("a");
+				xml.attribute("b", "c");
+				xml.endTag("a");
+			}
+		};
+		XmlStreamSerializer serializer = new Utf8XmlSerializer();
+		byte[] first = write(serializer, document);
+		assertArrayEquals(first, write(serializer, document));
+	}
+
+	@Test(expected = UnsupportedEncodingException.class)
+	public void onlySupportsUtf8() throws IOException
+	{
+		new Utf8XmlSerializer().startDocument(new ByteArrayOutputStream(), "ISO-8859-1");
+	}
+
+	private static String randomString(Random random)
+	{
+		StringBuilder builder = new StringBuilder();
+		int length = random.nextInt(20);
+		for (int i = 0; i < length; ++i)
+		{
+			if(random.nextInt(4) == 0)
+			{
+				builder.append(SPECIAL_CHARS.charAt(random.nextInt(SPECIAL_CHARS.length())));
+			}
+			else
+			{
+				builder.append((char) (' ' + random.nextInt(95)));
+			}
+		}
+		return builder.toString();
+	}
+
+	private static void assertSameOutput(Document document) throws IOException
+	{
+		byte[] expected = write(new XmlPullBackend().newSerializer(), document);
+		byte[] actual = write(new Utf8XmlSerializer(), document);
+		assertEquals(new String(expected, "UTF-8"), new String(actual, "UTF-8"));
+		assertArrayEquals(expected, actual);
+	}
+
+	private static byte[] write(XmlStreamSerializer serializer, Document document) throws IOException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		serializer.startDocument(out, "UTF-8");
+		document.write(serializer);
+		serializer.endDocument();
+		return out.toByteArray();
+	}
+
+	private interface Document
+	{
+		void write(XmlStreamSerializer xml) throws IOException;
+	}
+}
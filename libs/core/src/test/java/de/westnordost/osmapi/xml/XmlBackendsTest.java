@@ -0,0 +1,65 @@
+package de.westnordost.osmapi.xml;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class XmlBackendsTest
+{
+	@After public void tearDown()
+	{
+		XmlBackends.setDefault(new XmlPullBackend());
+	}
+
+	@Test public void releasedParserIsReused()
+	{
+		XmlStreamParser parser = XmlBackends.obtainParser();
+		XmlBackends.releaseParser(parser);
+		assertSame(parser, XmlBackends.obtainParser());
+	}
+
+	@Test public void parserInUseIsNotHandedOutAgain()
+	{
+		XmlStreamParser parser = XmlBackends.obtainParser();
+		XmlStreamParser other = XmlBackends.obtainParser();
+		assertNotSame(parser, other);
+		XmlBackends.releaseParser(other);
+		XmlBackends.releaseParser(parser);
+	}
+
+	@Test public void releasedSerializerIsReused()
+	{
+		XmlStreamSerializer serializer = XmlBackends.obtainSerializer();
+		XmlBackends.releaseSerializer(serializer);
+		assertSame(serializer, XmlBackends.obtainSerializer());
+		assertNotSame(serializer, XmlBackends.obtainSerializer());
+	}
+
+	@Test public void parserOfPreviousBackendIsNotReused()
+	{
+		XmlStreamParser parser = XmlBackends.obtainParser();
+		XmlBackends.releaseParser(parser);
+		XmlBackends.setDefault(new XmlPullBackend());
+		assertNotSame(parser, XmlBackends.obtainParser());
+	}
+
+	@Test public void parserIsNotSharedBetweenThreads() throws InterruptedException
+	{
+		XmlStreamParser parser = XmlBackends.obtainParser();
+		XmlBackends.releaseParser(parser);
+
+		final XmlStreamParser[] otherThreadParser = new XmlStreamParser[1];
+		Thread thread = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				otherThreadParser[0] = XmlBackends.obtainParser();
+			}
+		});
+		thread.start();
+		thread.join();
+		assertNotSame(parser, otherThreadParser[0]);
+	}
+}
@@ -0,0 +1,27 @@
+package de.westnordost.osmapi.map;
+
+import java.time.Instant;
+import java.util.Map;
+
+import de.westnordost.osmapi.changesets.Changeset;
+import de.westnordost.osmapi.map.data.Fixed1E7;
+import de.westnordost.osmapi.map.data.Node;
+
+/** A map data factory that takes the positions of nodes as fixed 1E7 numbers. For such a factory,
+ *  the MapDataParser parses the positions directly from the attribute text into integers, without
+ *  going through doubles. Nodes without a position are still created with
+ *  {@link #createNode(long, int, Double, Double, Map, Changeset, Instant)}. */
+public interface Fixed1E7MapDataFactory extends MapDataFactory
+{
+	/** Create a node from the given data.
+	 *  @param id id of the node
+	 *  @param version version of the node
+	 *  @param lat latitude position of the node as fixed 1E7 number, see {@link Fixed1E7}
+	 *  @param lon longitude position of the node as fixed 1E7 number
+	 *  @param tags tags of the node. May be null.
+	 *  @param changeset changeset in which the node was last updated. May be null.
+	 *  @param editedAt time at which the node was last updated. May be null.
+	 *  @return the node */
+	Node createFixed1E7Node(long id, int version, int lat, int lon, Map<String,String> tags,
+			Changeset changeset, Instant editedAt);
+}
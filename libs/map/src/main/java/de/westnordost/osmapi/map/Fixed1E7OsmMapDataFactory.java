@@ -0,0 +1,30 @@
+package de.westnordost.osmapi.map;
+
+import java.time.Instant;
+import java.util.Map;
+
+import de.westnordost.osmapi.changesets.Changeset;
+import de.westnordost.osmapi.map.data.Fixed1E7LatLon;
+import de.westnordost.osmapi.map.data.Node;
+import de.westnordost.osmapi.map.data.OsmNode;
+
+/** Creates the same elements as the OsmMapDataFactory, only that the positions of the nodes are
+ *  Fixed1E7LatLons, parsed directly from the attribute text. This saves memory and the parsing of
+ *  doubles, at the cost of a division on every access of a latitude or longitude as double. */
+public class Fixed1E7OsmMapDataFactory extends OsmMapDataFactory implements Fixed1E7MapDataFactory
+{
+	@Override
+	public Node createNode(long id, int version, Double lat, Double lon, Map<String, String> tags,
+			Changeset changeset, Instant editedAt)
+	{
+		Fixed1E7LatLon pos = lat != null && lon != null ? new Fixed1E7LatLon(lat, lon) : null;
+		return new OsmNode(id, version, pos, tags, changeset, editedAt);
+	}
+
+	@Override
+	public Node createFixed1E7Node(long id, int version, int lat, int lon, Map<String, String> tags,
+			Changeset changeset, Instant editedAt)
+	{
+		return new OsmNode(id, version, Fixed1E7LatLon.fromFixed1E7(lat, lon), tags, changeset, editedAt);
+	}
+}
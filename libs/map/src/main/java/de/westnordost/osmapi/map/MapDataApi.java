@@ -6,11 +6,20 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import de.westnordost.osmapi.ApiResponseReader;
 import de.westnordost.osmapi.OsmConnection;
+import de.westnordost.osmapi.common.Futures;
 import de.westnordost.osmapi.common.Handler;
 import de.westnordost.osmapi.common.IdResponseReader;
 import de.westnordost.osmapi.common.XmlWriter;
+import de.westnordost.osmapi.common.errors.OsmApiException;
 import de.westnordost.osmapi.common.errors.OsmAuthorizationException;
 import de.westnordost.osmapi.common.errors.OsmBadUserInputException;
 import de.westnordost.osmapi.common.errors.OsmNotFoundException;
@@ -41,6 +50,7 @@ public class MapDataApi
 
 	private final OsmConnection osm;
 	private final MapDataFactory factory;
+	private volatile Executor parseExecutor;
 
 	public MapDataApi(OsmConnection osm, MapDataFactory factory)
 	{
@@ -53,6 +63,18 @@ public class MapDataApi
 		this(osm, new OsmMapDataFactory());
 	}
 
+	/** Parse the responses of getMap and getMapAsync on several threads with a
+	 *  {@link ParallelMapDataParser}. Large responses are parsed faster this way if there are idle
+	 *  cores.
+	 *
+	 * @param executor executor on which the responses are parsed. If null, they are parsed only on
+	 *                 the thread that makes the request (default).
+	 */
+	public void setParseExecutor(Executor executor)
+	{
+		this.parseExecutor = executor;
+	}
+
 	/** @see #updateMap(Map, Iterable, Handler)
 	 * */
 	public long updateMap(String comment, String source, Iterable<Element> elements,
@@ -209,26 +231,99 @@ public class MapDataApi
 	 */
 	public void getMap(BoundingBox bounds, MapDataHandler handler)
 	{
-		if(bounds.crosses180thMeridian())
+		String request = getMapCall(bounds);
+		boolean authenticate = osm.getOAuthAccessToken() != null;
+
+		try
 		{
-			throw new IllegalArgumentException("bounds may not cross the 180th meridian");
+			osm.makeRequest(request, authenticate, createMapParser(handler));
 		}
+		catch(OsmBadUserInputException e)
+		{
+			/* we can be more specific here because we checked the validity of all the other
+			   parameters already */
+			throw new OsmQueryTooBigException(e);
+		}
+	}
 
-		String request = "map?bbox=" + bounds.getAsLeftBottomRightTopString();
+	/** Asynchronous variant of {@link #getMap(BoundingBox, MapDataHandler)}. Note that the handler
+	 *  is called on the thread that executes the request.
+	 *
+	 * @return a future that completes when all map data has been fed to the handler. It completes
+	 *         exceptionally with an OsmQueryTooBigException if the bounds are too large. */
+	public CompletableFuture<Void> getMapAsync(BoundingBox bounds, MapDataHandler handler)
+	{
+		String request = getMapCall(bounds);
+		boolean authenticate = osm.getOAuthAccessToken() != null;
+		CompletableFuture<Void> result = osm.makeRequestAsync(request, authenticate, createMapParser(handler));
+		return result.handle(new BiFunction<Void, Throwable, Void>()
+		{
+			@Override
+			public Void apply(Void aVoid, Throwable e)
+			{
+				if(e == null) return null;
+				Throwable cause = Futures.unwrap(e);
+				// see getMap
+				if(cause instanceof OsmBadUserInputException)
+				{
+					throw new CompletionException(new OsmQueryTooBigException((OsmApiException) cause));
+				}
+				throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(e);
+			}
+		});
+	}
+
+	/**
+	 * Like {@link #getMap(BoundingBox, MapDataHandler)}, but returns an iterator over the map data
+	 * which is parsed while it is downloaded instead of feeding it to a handler. The bounds are
+	 * not included.<br>
+	 * The iterator must be closed when done, which aborts the download if it has not been read
+	 * to the end, see {@link MapDataIterator}. Until then, it occupies one of the connections to
+	 * the server, of which the transport of the connection may allow only a limited number at the
+	 * same time, see {@link de.westnordost.osmapi.transport.UrlConnectionTransport}.
+	 *
+	 * @throws OsmQueryTooBigException if the bounds are is too large
+	 * @throws IllegalArgumentException if the bounds cross the 180th meridian.
+	 */
+	public MapDataIterator getMapIterator(BoundingBox bounds)
+	{
+		String request = getMapCall(bounds);
 		boolean authenticate = osm.getOAuthAccessToken() != null;
 
 		try
 		{
-			osm.makeRequest(request, authenticate, new MapDataParser(handler, factory));
+			return new MapDataIterator(osm.openRequest(request, authenticate), factory);
 		}
 		catch(OsmBadUserInputException e)
 		{
-			/* we can be more specific here because we checked the validity of all the other
-			   parameters already */
 			throw new OsmQueryTooBigException(e);
 		}
 	}
 
+	/** Like {@link #getMapIterator(BoundingBox)}, but as a stream. It must be closed when done,
+	 *  i.e. with try-with-resources, as it occupies one of the connections to the server until
+	 *  then. */
+	public Stream<Element> getMapStream(BoundingBox bounds)
+	{
+		return getMapIterator(bounds).stream();
+	}
+
+	private static String getMapCall(BoundingBox bounds)
+	{
+		if(bounds.crosses180thMeridian())
+		{
+			throw new IllegalArgumentException("bounds may not cross the 180th meridian");
+		}
+		return "map?bbox=" + bounds.getAsLeftBottomRightTopString();
+	}
+
+	private ApiResponseReader<Void> createMapParser(MapDataHandler handler)
+	{
+		Executor executor = parseExecutor;
+		if(executor == null) return new MapDataParser(handler, factory);
+		return new ParallelMapDataParser(handler, factory, executor);
+	}
+
 	/** Queries the way with the given id plus all nodes that are in referenced by it.<br>
 	 *  If not logged in, the Changeset for each returned element will be null
 	 *
@@ -297,6 +392,53 @@ public class MapDataApi
 		return handler.get();
 	}
 
+	/** Asynchronous variant of {@link #getNode(long)}
+	 *
+	 *  @param id the node's id
+	 *  @return a future that completes with the node with the given id or null if it does not
+	 *          exist */
+	public CompletableFuture<Node> getNodeAsync(long id)
+	{
+		return getOneElementAsync(NODE + "/" + id, Node.class);
+	}
+
+	/** Asynchronous variant of {@link #getWay(long)}
+	 *
+	 *  @param id the way's id
+	 *  @return a future that completes with the way with the given id or null if it does not
+	 *          exist */
+	public CompletableFuture<Way> getWayAsync(long id)
+	{
+		return getOneElementAsync(WAY + "/" + id, Way.class);
+	}
+
+	/** Asynchronous variant of {@link #getRelation(long)}
+	 *
+	 *  @param id the relation's id
+	 *  @return a future that completes with the relation with the given id or null if it does not
+	 *          exist */
+	public CompletableFuture<Relation> getRelationAsync(long id)
+	{
+		return getOneElementAsync(RELATION + "/" + id, Relation.class);
+	}
+
+	private <T extends Element> CompletableFuture<T> getOneElementAsync(String call, Class<T> tClass)
+	{
+		final SingleOsmElementHandler<T> handler = new SingleOsmElementHandler<>(tClass);
+		boolean authenticate = osm.getOAuthAccessToken() != null;
+		CompletableFuture<Void> request = osm.makeRequestAsync(call, authenticate,
+				new MapDataParser(handler, factory));
+		CompletableFuture<T> result = request.thenApply(new Function<Void, T>()
+		{
+			@Override
+			public T apply(Void aVoid)
+			{
+				return handler.get();
+			}
+		});
+		return Futures.nullIfThrown(result, OsmNotFoundException.class);
+	}
+
 	/** Note that if not logged in, the Changeset for each returned element will be null
 	 *
 	 *  @param nodeIds a collection of node ids to return.
@@ -128,7 +128,8 @@ public class MapDataHistoryApi
 		try
 		{
 			boolean authenticate = osm.getOAuthAccessToken() != null;
-			osm.makeRequest(call, authenticate, new MapDataParser(handler, factory));
+			// a specific version of an element never changes
+			osm.makeCachedRequest(call, authenticate, true, new MapDataParser(handler, factory));
 		}
 		catch(OsmApiException e)
 		{
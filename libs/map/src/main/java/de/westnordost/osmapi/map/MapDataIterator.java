@@ -0,0 +1,146 @@
+package de.westnordost.osmapi.map;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import de.westnordost.osmapi.common.ParseOptions;
+import de.westnordost.osmapi.common.errors.OsmApiReadResponseException;
+import de.westnordost.osmapi.common.errors.OsmConnectionException;
+import de.westnordost.osmapi.map.data.BoundingBox;
+import de.westnordost.osmapi.map.data.Element;
+import de.westnordost.osmapi.map.data.Node;
+import de.westnordost.osmapi.map.data.Relation;
+import de.westnordost.osmapi.map.data.Way;
+import de.westnordost.osmapi.map.handler.MapDataHandler;
+
+/** Iterates over the elements of a map data response while it is being parsed, so that only one
+ *  element at a time is held in memory. The bounds in the response are skipped.
+ *  <br><br>
+ *  Must be closed when done. This closes the input stream, so if not all elements have been read
+ *  yet, the download is aborted. It is closed automatically when the last element has been read.
+ *  <br><br>
+ *  Errors while reading or parsing the response are thrown from hasNext and next as
+ *  OsmConnectionException and OsmApiReadResponseException respectively, just like from the
+ *  methods of the MapDataApi. Not thread safe. */
+public class MapDataIterator implements Iterator<Element>, Closeable
+{
+	private final InputStream in;
+	private final MapDataParser parser;
+
+	private Element next;
+	private boolean closed;
+
+	/**
+	 * @param in the map data response
+	 * @param factory factory that creates the elements
+	 */
+	public MapDataIterator(InputStream in, MapDataFactory factory)
+	{
+		this(in, factory, new ParseOptions<Element>());
+	}
+
+	/**
+	 * @param in the map data response
+	 * @param factory factory that creates the elements
+	 * @param options which parts of the elements to parse and which elements to iterate over
+	 */
+	public MapDataIterator(InputStream in, MapDataFactory factory, ParseOptions<Element> options)
+	{
+		this.in = in;
+		parser = new MapDataParser(new MapDataHandler()
+		{
+			@Override public void handle(BoundingBox bounds) {}
+			@Override public void handle(Node node) { next = node; }
+			@Override public void handle(Way way) { next = way; }
+			@Override public void handle(Relation relation) { next = relation; }
+		}, factory, options);
+		try
+		{
+			parser.startIteration(in);
+		}
+		catch(IOException e)
+		{
+			close();
+			throw new OsmConnectionException(e);
+		}
+		catch(RuntimeException e)
+		{
+			close();
+			throw new OsmApiReadResponseException(e);
+		}
+	}
+
+	@Override
+	public boolean hasNext()
+	{
+		if(next != null) return true;
+		if(closed) return false;
+		try
+		{
+			while(next == null)
+			{
+				if(!parser.iterate())
+				{
+					close();
+					return false;
+				}
+			}
+			return true;
+		}
+		catch(IOException e)
+		{
+			close();
+			throw new OsmConnectionException(e);
+		}
+		catch(RuntimeException e)
+		{
+			close();
+			throw new OsmApiReadResponseException(e);
+		}
+	}
+
+	@Override
+	public Element next()
+	{
+		if(!hasNext()) throw new NoSuchElementException();
+		Element result = next;
+		next = null;
+		return result;
+	}
+
+	/** @return a sequential stream of the remaining elements. Closing the stream closes this
+	 *          iterator */
+	public Stream<Element> stream()
+	{
+		Spliterator<Element> spliterator = Spliterators.spliteratorUnknownSize(
+				this, Spliterator.ORDERED | Spliterator.NONNULL);
+		return StreamSupport.stream(spliterator, false).onClose(new Runnable()
+		{
+			@Override public void run()
+			{
+				close();
+			}
+		});
+	}
+
+	@Override
+	public void close()
+	{
+		if(closed) return;
+		closed = true;
+		next = null;
+		parser.finishIteration();
+		try
+		{
+			in.close();
+		}
+		catch(IOException ignore) {}
+	}
+}
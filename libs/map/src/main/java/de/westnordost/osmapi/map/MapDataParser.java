@@ -2,10 +2,17 @@ package de.westnordost.osmapi.map;
 
 import de.westnordost.osmapi.ApiResponseReader;
 import de.westnordost.osmapi.changesets.Changeset;
+import de.westnordost.osmapi.common.ParseOptions;
+import de.westnordost.osmapi.common.TimestampParser;
 import de.westnordost.osmapi.common.XmlParser;
 import de.westnordost.osmapi.map.data.BoundingBox;
 import de.westnordost.osmapi.map.data.Element;
+import de.westnordost.osmapi.map.data.Fixed1E7;
+import de.westnordost.osmapi.map.data.LongArrayList;
+import de.westnordost.osmapi.map.data.Node;
+import de.westnordost.osmapi.map.data.Relation;
 import de.westnordost.osmapi.map.data.RelationMember;
+import de.westnordost.osmapi.map.data.Way;
 import de.westnordost.osmapi.map.handler.MapDataHandler;
 import de.westnordost.osmapi.user.User;
 
@@ -19,32 +26,69 @@ import java.util.*;
  *  data is. */
 public class MapDataParser extends XmlParser implements ApiResponseReader<Void>
 {
-	private static final String NODE = "node",
-	                            WAY = "way",
-	                            RELATION = "relation";
+	/* tokens of the element names, in the order they are passed to the super constructor */
+	private static final int TAG = 0,
+	                         ND = 1,
+	                         MEMBER = 2,
+	                         BOUNDS = 3,
+	                         NODE = 4,
+	                         WAY = 5,
+	                         RELATION = 6;
 
+	private final TimestampParser timestampParser = new TimestampParser();
 	private final MapDataHandler handler;
 	private final MapDataFactory factory;
+	/* the same factory if it takes the positions as fixed 1E7 numbers, otherwise null */
+	private final Fixed1E7MapDataFactory fixed1E7Factory;
+	private final ParseOptions<Element> options;
 
 	/* temporary maps so we do not parse and hold many times the same user and changeset */
 	private Map<Long, User> users;
 	private Map<Long, Changeset> changesets;
+	private TagPool tagPool;
+
+	/** value of absent id attributes */
+	private static final long NO_ID = Long.MIN_VALUE;
 
 	private long id = -1;
 	private int version = 0;
-	private Long changesetId;
+	private Changeset changeset;
 	private Instant timestamp;
 
-	private Double lat;
-	private Double lon;
-	private Map<String, String> tags;
+	/* NaN if absent */
+	private double lat;
+	private double lon;
+	/* only used for the fixed1E7Factory */
+	private boolean hasFixed1E7Position;
+	private int lat1E7;
+	private int lon1E7;
 	private List<RelationMember> members = new ArrayList<>();
-	private List<Long> nodes = new LinkedList<>();
+	/* node ids of the current way. Copied into an exactly sized list for each way */
+	private final LongArrayList nodes = new LongArrayList();
+
+	/* number of elements passed on to the handler in the current parse */
+	private long handledCount;
 
 	public MapDataParser( MapDataHandler handler, MapDataFactory factory )
 	{
+		this(handler, factory, new ParseOptions<Element>());
+	}
+
+	/**
+	 * @param handler map data handler that is fed the map data
+	 * @param factory factory that creates the elements
+	 * @param options which parts of the elements to parse and which elements to pass on to the
+	 *                handler. The bounds are always passed on.
+	 */
+	public MapDataParser( MapDataHandler handler, MapDataFactory factory,
+	                      ParseOptions<Element> options )
+	{
+		super("tag", "nd", "member", "bounds", "node", "way", "relation");
 		this.handler = handler;
 		this.factory = factory;
+		this.fixed1E7Factory = factory instanceof Fixed1E7MapDataFactory
+				? (Fixed1E7MapDataFactory) factory : null;
+		this.options = options;
 	}
 	
 	@Override
@@ -52,70 +96,109 @@ public class MapDataParser extends XmlParser implements ApiResponseReader<Void>
 	{
 		users = new HashMap<>();
 		changesets = new HashMap<>();
+		tagPool = new TagPool();
+		handledCount = 0;
 
 		doParse(in);
 		users = null;
 		changesets = null;
+		tagPool = null;
 
 		return null;
 	}
 
+	/** Start parsing the given input step by step, see {@link MapDataIterator} */
+	void startIteration(InputStream in) throws IOException
+	{
+		users = new HashMap<>();
+		changesets = new HashMap<>();
+		tagPool = new TagPool();
+		handledCount = 0;
+		startParse(in);
+	}
+
+	/** Parse up to the next start tag, text or end tag, so at most one element is fed to the handler
+	 *
+	 *  @return false if the end of the document has been reached */
+	boolean iterate() throws IOException
+	{
+		return parseNext();
+	}
+
+	void finishIteration()
+	{
+		finishParse();
+		users = null;
+		changesets = null;
+		tagPool = null;
+	}
+
 	@Override
 	protected void onStartElement() throws ParseException
 	{
-		String name = getName();
+		int token = getToken();
 
-		if(name.equals("tag"))
-		{
-			if(tags == null)
-			{
-				tags = new HashMap<>();
-			}
-			tags.put(getAttribute("k"), getAttribute("v"));
-		}
-		else if(name.equals("nd"))
-		{
-			nodes.add( getLongAttribute("ref") );
-		}
-		else if(name.equals("member"))
+		switch(token)
 		{
-			members.add( factory.createRelationMember(
-					getLongAttribute("ref"),
-					getAttribute("role"),
-					Element.Type.valueOf(getAttribute("type").toUpperCase(Locale.UK))
-			));
-		}
-		else if (name.equals("bounds"))
-		{
-			BoundingBox bounds = new BoundingBox(
-					getDoubleAttribute("minlat"), getDoubleAttribute("minlon"),
-					getDoubleAttribute("maxlat"), getDoubleAttribute("maxlon"));
-			handler.handle(bounds);
+			case TAG:
+				if(!options.includesTags()) break;
+				tagPool.add(getAttribute("k"), getAttribute("v"));
+				break;
+			case ND:
+				if(!options.includesMembers()) break;
+				nodes.addLong( Long.parseLong(getAttribute("ref")) );
+				break;
+			case MEMBER:
+				if(!options.includesMembers()) break;
+				members.add( factory.createRelationMember(
+						getLongAttribute("ref"),
+						getAttribute("role"),
+						Element.Type.valueOf(getAttribute("type").toUpperCase(Locale.UK))
+				));
+				break;
+			case BOUNDS:
+				BoundingBox bounds = new BoundingBox(
+						getDoubleAttribute("minlat"), getDoubleAttribute("minlon"),
+						getDoubleAttribute("maxlat"), getDoubleAttribute("maxlon"));
+				handler.handle(bounds);
+				break;
+			case NODE:
+			case WAY:
+			case RELATION:
+				if(options.includesMetadata())
+				{
+					timestamp = parseTimestamp();
+					changeset = parseChangeset();
+				}
+
+				id = getLongAttribute("id", -1);
+				version = getIntAttribute("version", -1);
+
+				if(token == NODE)
+				{
+					if(fixed1E7Factory != null) parseFixed1E7Position();
+					else
+					{
+						lat = getDoubleAttribute("lat", Double.NaN);
+						lon = getDoubleAttribute("lon", Double.NaN);
+					}
+				}
+				break;
 		}
-		else if (name.equals(NODE) || name.equals(WAY) || name.equals(RELATION))
+	}
+
+	private void parseFixed1E7Position()
+	{
+		String latitude = getAttribute("lat");
+		String longitude = getAttribute("lon");
+		hasFixed1E7Position = latitude != null && longitude != null;
+		if(hasFixed1E7Position)
 		{
-			timestamp = parseTimestamp();
-			
-			changesetId = getLongAttribute("changeset");
-			if(changesetId != null && !changesets.containsKey(changesetId))
-			{
-				Changeset changeset = new Changeset();
-				changeset.id = changesetId;
-				changeset.user = parseUser();
-				
-				changesets.put( changesetId, changeset);
-			}
-
-			id = getLongAttribute("id");
-			Integer v = getIntAttribute("version");
-			version = v != null ? v : -1;
-
-			if(name.equals(NODE))
-			{
-				lat = getDoubleAttribute("lat");
-				lon = getDoubleAttribute("lon");
-			}
+			lat1E7 = Fixed1E7.parseFixed(latitude);
+			lon1E7 = Fixed1E7.parseFixed(longitude);
 		}
+		lat = Double.NaN;
+		lon = Double.NaN;
 	}
 
 	private Instant parseTimestamp()
@@ -123,51 +206,86 @@ public class MapDataParser extends XmlParser implements ApiResponseReader<Void>
 		String timestamp = getAttribute("timestamp");
 		if(timestamp == null) return null;
 
-		return Instant.parse(timestamp);
+		return timestampParser.parse(timestamp);
+	}
+
+	private Changeset parseChangeset()
+	{
+		long changesetId = getLongAttribute("changeset", NO_ID);
+		if(changesetId == NO_ID) return null;
+
+		Changeset changeset = changesets.get(changesetId);
+		if(changeset == null)
+		{
+			changeset = new Changeset();
+			changeset.id = changesetId;
+			changeset.user = parseUser();
+
+			changesets.put( changesetId, changeset);
+		}
+		return changeset;
 	}
 
 	private User parseUser()
 	{
-		Long userId = getLongAttribute("uid");
-		if(userId == null) return null;
+		long userId = getLongAttribute("uid", NO_ID);
+		if(userId == NO_ID) return null;
 
-		if(!users.containsKey(userId))
+		User user = users.get(userId);
+		if(user == null)
 		{
-			User user = new User(userId, getAttribute("user"));
+			user = new User(userId, getAttribute("user"));
 			users.put(userId, user);
-			return user;
 		}
-		return users.get(userId);
+		return user;
+	}
+
+	private static Double boxed(double value)
+	{
+		return Double.isNaN(value) ? null : value;
 	}
 
 	@Override
 	protected void onEndElement()
 	{
-		String name = getName();
-
-		if(name.equals(NODE))
-		{
-			handler.handle(
-					factory.createNode(id, version, lat, lon, tags, changesets.get(changesetId), timestamp));
-		}
-		else if(name.equals(WAY))
-		{
-			handler.handle(
-					factory.createWay(id, version, nodes, tags, changesets.get(changesetId), timestamp));
-			
-			nodes = new LinkedList<>();
-		}
-		else if(name.equals(RELATION))
+		switch(getToken())
 		{
-			handler.handle(
-					factory.createRelation(id, version, members, tags, changesets.get(changesetId), timestamp));
-			
-			members = new ArrayList<>();
-		}
+			case NODE:
+				Map<String, String> tags = tagPool.build();
+				Node node = fixed1E7Factory != null && hasFixed1E7Position
+						? fixed1E7Factory.createFixed1E7Node(id, version, lat1E7, lon1E7, tags, changeset, timestamp)
+						: factory.createNode(id, version, boxed(lat), boxed(lon), tags, changeset, timestamp);
+				if(options.accepts(node))
+				{
+					handler.handle(node);
+					onHandled();
+				}
+				break;
+			case WAY:
+				Way way = factory.createWay(id, version, new LongArrayList(nodes), tagPool.build(), changeset, timestamp);
+				if(options.accepts(way))
+				{
+					handler.handle(way);
+					onHandled();
+				}
 
-		if (name.equals(NODE) || name.equals(WAY) || name.equals(RELATION))
-		{
-			tags = null;
+				nodes.clear();
+				break;
+			case RELATION:
+				Relation relation = factory.createRelation(id, version, members, tagPool.build(), changeset, timestamp);
+				if(options.accepts(relation))
+				{
+					handler.handle(relation);
+					onHandled();
+				}
+
+				members = new ArrayList<>();
+				break;
 		}
 	}
+
+	private void onHandled()
+	{
+		if(++handledCount >= options.getLimit()) stopParse();
+	}
 }
@@ -0,0 +1,324 @@
+package de.westnordost.osmapi.map;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+import de.westnordost.osmapi.ApiResponseReader;
+import de.westnordost.osmapi.map.data.BoundingBox;
+import de.westnordost.osmapi.map.data.Node;
+import de.westnordost.osmapi.map.data.Relation;
+import de.westnordost.osmapi.map.data.Way;
+import de.westnordost.osmapi.map.handler.MapDataHandler;
+
+/** Parses map data like the {@link MapDataParser}, but on several threads: The thread that reads
+ *  the response only splits it into chunks of whole elements at the &lt;node&gt;, &lt;way&gt; and
+ *  &lt;relation&gt; tags. The chunks are parsed by MapDataParsers on the given executor and the
+ *  parsed elements are fed to the handler on the reading thread, in the order of the document.
+ *  <br><br>
+ *  Only worth it for large responses, i.e. of the map call, and if there are idle cores. Other
+ *  than with the MapDataParser, elements from different chunks do not share the same Changeset
+ *  and User objects. */
+public class ParallelMapDataParser implements ApiResponseReader<Void>
+{
+	public static final int DEFAULT_CHUNK_SIZE = 256 * 1024;
+
+	private static final int READ_SIZE = 64 * 1024;
+	private static final byte[] END = "</osm>".getBytes(StandardCharsets.UTF_8);
+	/** bytes needed after a '<' to know whether the response is split there, i.e. "relation " */
+	private static final int LOOKAHEAD = 10;
+
+	private static final byte[][] ELEMENT_NAMES = {
+			"bounds".getBytes(StandardCharsets.UTF_8),
+			"node".getBytes(StandardCharsets.UTF_8),
+			"way".getBytes(StandardCharsets.UTF_8),
+			"relation".getBytes(StandardCharsets.UTF_8)
+	};
+	private static final byte[] END_NAME = "/osm".getBytes(StandardCharsets.UTF_8);
+	private static final byte[] COMMENT_START = "!--".getBytes(StandardCharsets.UTF_8);
+	private static final byte[] COMMENT_END = "-->".getBytes(StandardCharsets.UTF_8);
+
+	private static final int NO_BOUNDARY = 0;
+	private static final int ELEMENT_BOUNDARY = 1;
+	private static final int END_BOUNDARY = 2;
+
+	private final MapDataHandler handler;
+	private final MapDataFactory factory;
+	private final Executor executor;
+	private final int chunkSize;
+	private final int maxPendingChunks;
+
+	private final Deque<FutureTask<List<Object>>> pending = new ArrayDeque<>();
+
+	/**
+	 * @param handler map data handler that is fed the map data
+	 * @param factory factory that creates the elements
+	 * @param executor executor on which the chunks are parsed
+	 * @param chunkSize approximate size in bytes of the chunks parsed at once
+	 * @param maxPendingChunks maximum number of chunks that have been read but whose elements
+	 *                         have not been fed to the handler yet. Limits the memory used if the
+	 *                         handler or the parsing is slower than the download.
+	 */
+	public ParallelMapDataParser(MapDataHandler handler, MapDataFactory factory, Executor executor,
+	                             int chunkSize, int maxPendingChunks)
+	{
+		if(chunkSize <= 0) throw new IllegalArgumentException("chunkSize must be positive");
+		if(maxPendingChunks <= 0) throw new IllegalArgumentException("maxPendingChunks must be positive");
+		this.handler = handler;
+		this.factory = factory;
+		this.executor = executor;
+		this.chunkSize = chunkSize;
+		this.maxPendingChunks = maxPendingChunks;
+	}
+
+	public ParallelMapDataParser(MapDataHandler handler, MapDataFactory factory, Executor executor)
+	{
+		this(handler, factory, executor, DEFAULT_CHUNK_SIZE,
+				2 * Runtime.getRuntime().availableProcessors());
+	}
+
+	@Override
+	public Void parse(InputStream in) throws IOException
+	{
+		try
+		{
+			split(in);
+			while(!pending.isEmpty())
+			{
+				deliver(pending.poll());
+			}
+		}
+		finally
+		{
+			for (FutureTask<List<Object>> task : pending)
+			{
+				task.cancel(true);
+			}
+			pending.clear();
+		}
+		return null;
+	}
+
+	/** Read the whole response and submit its chunks for parsing */
+	private void split(InputStream in) throws IOException
+	{
+		byte[] buffer = new byte[chunkSize + READ_SIZE];
+		int length = 0;
+		int position = 0;
+		// everything up to the first element, the root element's start tag is in here
+		byte[] header = null;
+		int chunkStart = 0;
+		boolean eof = false;
+		while(!eof)
+		{
+			if(length == buffer.length)
+			{
+				if(chunkStart > 0)
+				{
+					System.arraycopy(buffer, chunkStart, buffer, 0, length - chunkStart);
+					length -= chunkStart;
+					position -= chunkStart;
+					chunkStart = 0;
+				}
+				else
+				{
+					buffer = Arrays.copyOf(buffer, buffer.length * 2);
+				}
+			}
+			int read = in.read(buffer, length, buffer.length - length);
+			if(read < 0) eof = true;
+			else length += read;
+
+			int end = eof ? length : length - LOOKAHEAD;
+			while(position < end)
+			{
+				if(buffer[position] != '<')
+				{
+					position++;
+					continue;
+				}
+				if(startsWith(buffer, position + 1, length, COMMENT_START))
+				{
+					int commentEnd = indexOf(buffer, position + 4, length, COMMENT_END);
+					if(commentEnd < 0)
+					{
+						if(eof) position = length;
+						break;
+					}
+					position = commentEnd + COMMENT_END.length;
+					continue;
+				}
+				int boundary = getBoundary(buffer, position, length);
+				if(boundary != NO_BOUNDARY)
+				{
+					if(header == null)
+					{
+						header = Arrays.copyOf(buffer, position);
+						chunkStart = position;
+					}
+					else if(boundary == END_BOUNDARY || position - chunkStart >= chunkSize)
+					{
+						if(position > chunkStart) submit(header, buffer, chunkStart, position, true);
+						chunkStart = position;
+					}
+					if(boundary == END_BOUNDARY) return;
+				}
+				position++;
+			}
+		}
+
+		if(header == null)
+		{
+			// no elements at all, nothing to be gained
+			new MapDataParser(handler, factory).parse(new ByteArrayInputStream(buffer, 0, length));
+		}
+		else
+		{
+			/* the root element is not closed. The last chunk is left like that, so that the
+			   parser treats it just like it would treat the whole response */
+			submit(header, buffer, chunkStart, length, false);
+		}
+	}
+
+	private void submit(byte[] header, byte[] buffer, int start, int end, boolean closeRoot)
+			throws IOException
+	{
+		int chunkLength = end - start;
+		final byte[] document = new byte[header.length + chunkLength + (closeRoot ? END.length : 0)];
+		System.arraycopy(header, 0, document, 0, header.length);
+		System.arraycopy(buffer, start, document, header.length, chunkLength);
+		if(closeRoot)
+		{
+			System.arraycopy(END, 0, document, header.length + chunkLength, END.length);
+		}
+
+		FutureTask<List<Object>> task = new FutureTask<>(new Callable<List<Object>>()
+		{
+			@Override
+			public List<Object> call() throws IOException
+			{
+				ListHandler chunkHandler = new ListHandler();
+				new MapDataParser(chunkHandler, factory).parse(new ByteArrayInputStream(document));
+				return chunkHandler.elements;
+			}
+		});
+		pending.add(task);
+		executor.execute(task);
+
+		while(pending.size() > maxPendingChunks)
+		{
+			deliver(pending.poll());
+		}
+	}
+
+	/** Wait for the given chunk to be parsed and feed its elements to the handler */
+	private void deliver(FutureTask<List<Object>> task) throws IOException
+	{
+		List<Object> elements;
+		try
+		{
+			elements = task.get();
+		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for a chunk to be parsed");
+		}
+		catch(ExecutionException e)
+		{
+			Throwable cause = e.getCause();
+			if(cause instanceof IOException) throw (IOException) cause;
+			if(cause instanceof RuntimeException) throw (RuntimeException) cause;
+			if(cause instanceof Error) throw (Error) cause;
+			throw new RuntimeException(cause);
+		}
+
+		for (Object element : elements)
+		{
+			if(element instanceof Node) handler.handle((Node) element);
+			else if(element instanceof Way) handler.handle((Way) element);
+			else if(element instanceof Relation) handler.handle((Relation) element);
+			else handler.handle((BoundingBox) element);
+		}
+	}
+
+	/** @return whether and how the response can be split before the '<' at the given position */
+	private static int getBoundary(byte[] buffer, int position, int length)
+	{
+		for (byte[] name : ELEMENT_NAMES)
+		{
+			if(isTagName(buffer, position + 1, length, name)) return ELEMENT_BOUNDARY;
+		}
+		if(isTagName(buffer, position + 1, length, END_NAME)) return END_BOUNDARY;
+		return NO_BOUNDARY;
+	}
+
+	private static boolean isTagName(byte[] buffer, int start, int length, byte[] name)
+	{
+		if(!startsWith(buffer, start, length, name)) return false;
+		int after = start + name.length;
+		if(after >= length) return false;
+		byte b = buffer[after];
+		return b == ' ' || b == '>' || b == '/' || b == '\n' || b == '\r' || b == '\t';
+	}
+
+	private static boolean startsWith(byte[] buffer, int start, int length, byte[] prefix)
+	{
+		if(start + prefix.length > length) return false;
+		for (int i = 0; i < prefix.length; ++i)
+		{
+			if(buffer[start + i] != prefix[i]) return false;
+		}
+		return true;
+	}
+
+	private static int indexOf(byte[] buffer, int start, int length, byte[] bytes)
+	{
+		for (int i = start; i <= length - bytes.length; ++i)
+		{
+			if(startsWith(buffer, i, length, bytes)) return i;
+		}
+		return -1;
+	}
+
+	/** Collects the elements of one chunk */
+	private static class ListHandler implements MapDataHandler
+	{
+		final List<Object> elements = new ArrayList<>();
+
+		@Override
+		public void handle(BoundingBox bounds)
+		{
+			elements.add(bounds);
+		}
+
+		@Override
+		public void handle(Node node)
+		{
+			elements.add(node);
+		}
+
+		@Override
+		public void handle(Way way)
+		{
+			elements.add(way);
+		}
+
+		@Override
+		public void handle(Relation relation)
+		{
+			elements.add(relation);
+		}
+	}
+}
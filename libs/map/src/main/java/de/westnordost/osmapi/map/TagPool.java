@@ -0,0 +1,129 @@
+package de.westnordost.osmapi.map;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import de.westnordost.osmapi.map.data.CompactTagMap;
+
+/** Collects the tags of the element currently parsed and deduplicates them within one response:
+ *  Each distinct key and value and each distinct set of tags is held in memory only once, no matter
+ *  how many elements have it. I.e. all buildings tagged only with building=yes share the same
+ *  arrays of the same strings.
+ *  <br><br>
+ *  To limit the memory used by the pool itself, only so many strings and tag sets are pooled. The
+ *  first ones are likely to be the most common ones anyway. */
+class TagPool
+{
+	private static final int MAX_STRINGS = 1 << 16;
+	private static final int MAX_TAG_SETS = 1 << 16;
+
+	private final Map<String, String> strings = new HashMap<>();
+	private final Map<TagSet, TagSet> tagSets = new HashMap<>();
+
+	/** the tags of the current element */
+	private final TagSet current = new TagSet(new String[8], new String[8], 0);
+
+	/** Add a tag to the current element. A tag with the same key replaces the previous one */
+	void add(String key, String value)
+	{
+		key = intern(Objects.requireNonNull(key, "Tag without key"));
+		value = intern(value);
+		current.put(key, value);
+	}
+
+	/** @return the tags of the current element or null if it has none. Starts a new element */
+	Map<String, String> build()
+	{
+		if(current.size == 0) return null;
+
+		TagSet tags = tagSets.get(current);
+		if(tags == null)
+		{
+			tags = new TagSet(
+					Arrays.copyOf(current.keys, current.size),
+					Arrays.copyOf(current.values, current.size),
+					current.size);
+			if(tagSets.size() < MAX_TAG_SETS) tagSets.put(tags, tags);
+		}
+		current.clear();
+		return new CompactTagMap(tags.keys, tags.values);
+	}
+
+	private String intern(String str)
+	{
+		if(str == null) return null;
+		String result = strings.get(str);
+		if(result != null) return result;
+		if(strings.size() < MAX_STRINGS) strings.put(str, str);
+		return str;
+	}
+
+	private static final class TagSet
+	{
+		String[] keys;
+		String[] values;
+		int size;
+
+		TagSet(String[] keys, String[] values, int size)
+		{
+			this.keys = keys;
+			this.values = values;
+			this.size = size;
+		}
+
+		void put(String key, String value)
+		{
+			for (int i = 0; i < size; ++i)
+			{
+				if(keys[i].equals(key))
+				{
+					values[i] = value;
+					return;
+				}
+			}
+			if(size == keys.length)
+			{
+				keys = Arrays.copyOf(keys, size * 2);
+				values = Arrays.copyOf(values, size * 2);
+			}
+			keys[size] = key;
+			values[size] = value;
+			size++;
+		}
+
+		void clear()
+		{
+			Arrays.fill(keys, 0, size, null);
+			Arrays.fill(values, 0, size, null);
+			size = 0;
+		}
+
+		@Override
+		public boolean equals(Object other)
+		{
+			if(!(other instanceof TagSet)) return false;
+			TagSet tags = (TagSet) other;
+			if(size != tags.size) return false;
+			for (int i = 0; i < size; ++i)
+			{
+				if(!keys[i].equals(tags.keys[i])) return false;
+				if(values[i] == null ? tags.values[i] != null : !values[i].equals(tags.values[i])) return false;
+			}
+			return true;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			int result = 1;
+			for (int i = 0; i < size; ++i)
+			{
+				result = 31 * result + keys[i].hashCode();
+				result = 31 * result + (values[i] != null ? values[i].hashCode() : 0);
+			}
+			return result;
+		}
+	}
+}
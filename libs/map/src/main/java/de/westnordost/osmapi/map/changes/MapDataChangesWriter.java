@@ -4,103 +4,103 @@ import de.westnordost.osmapi.common.XmlWriter;
 import de.westnordost.osmapi.map.data.*;
 
 import java.io.IOException;
-import java.util.*;
-
-/** Writes elements into a osmChange format */
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/** Writes elements into a osmChange format.
+ *
+ *  The given elements are iterated only once, when the writer is created. The changed ones are
+ *  sorted into a bucket per type of change and element in that pass, so no sorting is necessary. */
 public class MapDataChangesWriter extends XmlWriter
 {
+	/* Order changes in such a way that they can be applied to a data store while maintaining
+	   data integrity (ie. a database). For example, the ordering prevents a way being added
+	   before the underlying nodes are created.
+	   Idea taken from Osmosis.*/
+	private static final Element.Type[] ORDER_BY_NODE_WAY_RELATION =
+			{Element.Type.NODE, Element.Type.WAY, Element.Type.RELATION};
+	private static final Element.Type[] ORDER_BY_RELATION_WAY_NODE =
+			{Element.Type.RELATION, Element.Type.WAY, Element.Type.NODE};
+
+	private enum Change { CREATE, MODIFY, DELETE }
+
 	private final long changesetId;
-	private final List<Element> creations;
-	private final List<Element> modifications;
-	private final List<Element> deletions;
+	/* the changed elements, at index change.ordinal() * 3 + type.ordinal() */
+	private final List<List<Element>> buckets;
 
 	public MapDataChangesWriter(long changesetId, Iterable<Element> elements)
 	{
 		this.changesetId = changesetId;
 
-		creations = new ArrayList<>();
-		modifications = new ArrayList<>();
-		deletions = new ArrayList<>();
+		int bucketCount = Change.values().length * Element.Type.values().length;
+		buckets = new ArrayList<>(bucketCount);
+		for(int i = 0; i < bucketCount; ++i)
+		{
+			buckets.add(new ArrayList<Element>());
+		}
 		for(Element element : elements)
 		{
-			// new deleted elements are ignored
-			if(element.isNew() && element.isDeleted())
-				continue;
-			else if(element.isNew())
-				creations.add(element);
-			else if(element.isDeleted())
-				deletions.add(element);
-			else if(element.isModified())
-				modifications.add(element);
+			Change change = getChange(element);
+			if(change != null) getBucket(change, element.getType()).add(element);
 		}
-		/* Order changes in such a way that they can be applied to a data store while maintaining
-		   data integrity (ie. a database). For example, the ordering prevents a way being added
-		   before the underlying nodes are created.
-		   Idea taken from Osmosis.*/
-		Collections.sort(creations, new OrderByNodeWayRelation());
-		Collections.sort(modifications, new OrderByRelationWayNode());
-		Collections.sort(deletions, new OrderByRelationWayNode());
 	}
 
-	public boolean hasChanges()
+	private List<Element> getBucket(Change change, Element.Type type)
 	{
-		return !creations.isEmpty() || !modifications.isEmpty() || !deletions.isEmpty();
+		return buckets.get(change.ordinal() * Element.Type.values().length + type.ordinal());
 	}
 
-	private class OrderByRelationWayNode implements Comparator<Element>
-	{
-		public int compare(Element lhs, Element rhs)
-		{
-			return getTypeOrder(rhs.getType()) - getTypeOrder(lhs.getType());
-		}
-	}
-
-	private class OrderByNodeWayRelation implements Comparator<Element>
+	public boolean hasChanges()
 	{
-		public int compare(Element lhs, Element rhs)
+		for(List<Element> bucket : buckets)
 		{
-			return getTypeOrder(lhs.getType()) - getTypeOrder(rhs.getType());
+			if(!bucket.isEmpty()) return true;
 		}
+		return false;
 	}
 
-	private static int getTypeOrder(Element.Type type)
+	private static Change getChange(Element element)
 	{
-		switch(type)
-		{
-			case NODE:		return 1;
-			case WAY:		return 2;
-			case RELATION:	return 3;
-		}
-		return 0;
+		// new deleted elements are ignored
+		if(element.isNew() && element.isDeleted())
+			return null;
+		else if(element.isNew())
+			return Change.CREATE;
+		else if(element.isDeleted())
+			return Change.DELETE;
+		else if(element.isModified())
+			return Change.MODIFY;
+		return null;
 	}
 
 	@Override
 	protected void write() throws IOException
 	{
 		begin("osmChange");
+		writeChanges("create", Change.CREATE, ORDER_BY_NODE_WAY_RELATION);
+		writeChanges("modify", Change.MODIFY, ORDER_BY_RELATION_WAY_NODE);
+		writeChanges("delete", Change.DELETE, ORDER_BY_RELATION_WAY_NODE);
+		end();
+	}
 
-		if(!creations.isEmpty())
-		{
-			begin("create");
-			for (Element element : creations) writeElement(element);
-			end();
-		}
-
-		if(!modifications.isEmpty())
-		{
-			begin("modify");
-			for (Element element : modifications) writeElement(element);
-			end();
-		}
-
-		if(!deletions.isEmpty())
+	private void writeChanges(String name, Change change, Element.Type[] order) throws IOException
+	{
+		boolean begun = false;
+		for(Element.Type type : order)
 		{
-			begin("delete");
-			for (Element element : deletions) writeElement(element);
-			end();
+			for(Element element : getBucket(change, type))
+			{
+				if(!begun)
+				{
+					begin(name);
+					begun = true;
+				}
+				writeElement(element);
+			}
 		}
-
-		end();
+		if(begun) end();
 	}
 
 	private void writeElement(Element element) throws IOException
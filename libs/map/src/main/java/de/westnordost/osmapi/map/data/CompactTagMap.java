@@ -0,0 +1,246 @@
+package de.westnordost.osmapi.map.data;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/** A Map of tags that keeps its keys and values in two arrays and looks them up linearly. For the
+ *  few tags an element usually has, this is about as fast as a HashMap but takes only a fraction
+ *  of the memory.
+ *  <br><br>
+ *  The arrays can be shared between several maps, i.e. the MapDataParser gives all elements with
+ *  the same tags the same arrays. They are copied before the first modification of a map, so
+ *  modifying one map never changes another. Null keys are not supported. Not thread safe. */
+public class CompactTagMap extends AbstractMap<String, String> implements Serializable
+{
+	private static final long serialVersionUID = 1L;
+
+	private static final String[] EMPTY = new String[0];
+
+	private String[] keys;
+	private String[] values;
+	private int size;
+	/** whether the arrays may be used by other maps too and must be copied before modifying them */
+	private boolean shared;
+
+	public CompactTagMap()
+	{
+		keys = EMPTY;
+		values = EMPTY;
+	}
+
+	/** Creates a map with the same tags as the given map. If it is a CompactTagMap, its arrays are
+	 *  shared until either map is modified */
+	public CompactTagMap(Map<String, String> map)
+	{
+		if(map instanceof CompactTagMap)
+		{
+			CompactTagMap other = (CompactTagMap) map;
+			keys = other.keys;
+			values = other.values;
+			size = other.size;
+			shared = true;
+			other.shared = true;
+		}
+		else
+		{
+			keys = map.isEmpty() ? EMPTY : new String[map.size()];
+			values = map.isEmpty() ? EMPTY : new String[map.size()];
+			for (Entry<String, String> entry : map.entrySet())
+			{
+				keys[size] = Objects.requireNonNull(entry.getKey());
+				values[size] = entry.getValue();
+				size++;
+			}
+		}
+	}
+
+	/** Creates a map that uses the given arrays without copying them. They must have the same
+	 *  length, must not contain a key twice and must not be modified afterwards */
+	public CompactTagMap(String[] keys, String[] values)
+	{
+		if(keys.length != values.length)
+		{
+			throw new IllegalArgumentException("There must be as many keys as values");
+		}
+		this.keys = keys;
+		this.values = values;
+		size = keys.length;
+		shared = true;
+	}
+
+	private int indexOf(Object key)
+	{
+		for (int i = 0; i < size; ++i)
+		{
+			String k = keys[i];
+			// keys from the MapDataParser are deduplicated, so usually the same instance is looked up
+			if(k == key || k.equals(key)) return i;
+		}
+		return -1;
+	}
+
+	/** Copy the arrays if they may be used by other maps, so they can be modified */
+	private void unshare(int capacity)
+	{
+		if(shared || capacity > keys.length)
+		{
+			keys = Arrays.copyOf(keys, capacity);
+			values = Arrays.copyOf(values, capacity);
+			shared = false;
+		}
+	}
+
+	private void removeAt(int index)
+	{
+		unshare(keys.length);
+		int moved = size - index - 1;
+		System.arraycopy(keys, index + 1, keys, index, moved);
+		System.arraycopy(values, index + 1, values, index, moved);
+		size--;
+		keys[size] = null;
+		values[size] = null;
+	}
+
+	/* Everything below this comment: implementation of the map interface */
+
+	@Override
+	public int size()
+	{
+		return size;
+	}
+
+	@Override
+	public boolean containsKey(Object key)
+	{
+		return indexOf(key) != -1;
+	}
+
+	@Override
+	public boolean containsValue(Object value)
+	{
+		for (int i = 0; i < size; ++i)
+		{
+			if(Objects.equals(values[i], value)) return true;
+		}
+		return false;
+	}
+
+	@Override
+	public String get(Object key)
+	{
+		int index = indexOf(key);
+		return index != -1 ? values[index] : null;
+	}
+
+	@Override
+	public String put(String key, String value)
+	{
+		int index = indexOf(key);
+		if(index != -1)
+		{
+			String result = values[index];
+			if(result != value)
+			{
+				unshare(keys.length);
+				values[index] = value;
+			}
+			return result;
+		}
+		Objects.requireNonNull(key);
+		if(size == keys.length) unshare(size + (size >> 1) + 1);
+		else unshare(keys.length);
+		keys[size] = key;
+		values[size] = value;
+		size++;
+		return null;
+	}
+
+	@Override
+	public String remove(Object key)
+	{
+		int index = indexOf(key);
+		if(index == -1) return null;
+		String result = values[index];
+		removeAt(index);
+		return result;
+	}
+
+	@Override
+	public void clear()
+	{
+		keys = EMPTY;
+		values = EMPTY;
+		size = 0;
+		shared = false;
+	}
+
+	@Override
+	public Set<Entry<String, String>> entrySet()
+	{
+		return new EntrySet();
+	}
+
+	private class EntrySet extends AbstractSet<Entry<String, String>>
+	{
+		@Override public Iterator<Entry<String, String>> iterator() { return new EntryIterator(); }
+		@Override public int size() { return size; }
+		@Override public void clear() { CompactTagMap.this.clear(); }
+	}
+
+	private class EntryIterator implements Iterator<Entry<String, String>>
+	{
+		private int next;
+		private int last = -1;
+
+		@Override
+		public boolean hasNext()
+		{
+			return next < size;
+		}
+
+		@Override
+		public Entry<String, String> next()
+		{
+			if(next >= size) throw new NoSuchElementException();
+			last = next++;
+			return new TagEntry(last);
+		}
+
+		@Override
+		public void remove()
+		{
+			if(last == -1) throw new IllegalStateException();
+			removeAt(last);
+			next = last;
+			last = -1;
+		}
+	}
+
+	private class TagEntry extends SimpleEntry<String, String>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final int index;
+
+		TagEntry(int index)
+		{
+			super(keys[index], values[index]);
+			this.index = index;
+		}
+
+		@Override
+		public String setValue(String value)
+		{
+			unshare(keys.length);
+			values[index] = value;
+			return super.setValue(value);
+		}
+	}
+}
@@ -2,7 +2,6 @@ package de.westnordost.osmapi.map.data;
 
 import java.io.Serializable;
 import java.time.Instant;
-import java.util.HashMap;
 import java.util.Map;
 
 import de.westnordost.osmapi.changesets.Changeset;
@@ -33,7 +32,7 @@ public abstract class OsmElement implements Element, Serializable
 		this.id = id;
 		this.version = version;
 		this.changeset = changeset;
-		this.tags = tags != null ? new OsmTags(tags) : new OsmTags(new HashMap<String, String>(0));
+		this.tags = new OsmTags(tags != null ? tags : new CompactTagMap());
 		this.editedAt = editedAt;
 	}
 
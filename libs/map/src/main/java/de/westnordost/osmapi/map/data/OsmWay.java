@@ -9,15 +9,18 @@ import de.westnordost.osmapi.changesets.Changeset;
 
 public class OsmWay extends OsmElement implements Way, Serializable
 {
-	private static final long serialVersionUID = 2L;
+	private static final long serialVersionUID = 3L;
 
+	private final LongArrayList nodeIds;
 	private final ModificationAwareList<Long> nodes;
 
+	/** @param nodes the node ids. If this is not a LongArrayList, it is copied into one */
 	public OsmWay(long id, int version, List<Long> nodes,
 				  Map<String, String> tags, Changeset changeset, Instant editedAt)
 	{
 		super(id, version, tags, changeset, editedAt);
-		this.nodes = new ModificationAwareList<>(nodes);
+		this.nodeIds = nodes instanceof LongArrayList ? (LongArrayList) nodes : new LongArrayList(nodes);
+		this.nodes = new ModificationAwareList<>(nodeIds);
 	}
 
 	public OsmWay(long id, int version, List<Long> nodes, Map<String, String> tags)
@@ -33,7 +36,20 @@ public class OsmWay extends OsmElement implements Way, Serializable
 
 	public boolean isClosed()
 	{
-		return nodes.size() >= 3 && nodes.get(0).equals(nodes.get(nodes.size() - 1));
+		int size = nodeIds.size();
+		return size >= 3 && nodeIds.getLong(0) == nodeIds.getLong(size - 1);
+	}
+
+	/** @return the id of the node at the given index, without boxing it */
+	public long getNodeId(int index)
+	{
+		return nodeIds.getLong(index);
+	}
+
+	/** @return the number of nodes of this way */
+	public int getNodeCount()
+	{
+		return nodeIds.size();
 	}
 
 	@Override
@@ -0,0 +1,316 @@
+package de.westnordost.osmapi.map.handler;
+
+import java.time.Instant;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import de.westnordost.osmapi.changesets.Changeset;
+import de.westnordost.osmapi.map.data.BoundingBox;
+import de.westnordost.osmapi.map.data.Fixed1E7;
+import de.westnordost.osmapi.map.data.Fixed1E7LatLon;
+import de.westnordost.osmapi.map.data.LatLon;
+import de.westnordost.osmapi.map.data.Node;
+import de.westnordost.osmapi.map.data.Relation;
+import de.westnordost.osmapi.map.data.Way;
+
+/** Handler that keeps the map data in memory, with the nodes stored column by column in primitive
+ *  arrays instead of as one object each: An untagged node takes 20 bytes here, while an OsmNode
+ *  with its position and tags takes more than 100 bytes. Since most nodes of map data are untagged
+ *  way vertices, this allows to keep several times more map data in memory.
+ *  <br><br>
+ *  The nodes are handed out as lightweight read-only Node views that are created on demand. Only
+ *  the id, version, position and tags of nodes are kept, their changeset and timestamp are not.
+ *  Ways, relations and bounds are kept as they are. The positions are kept as fixed 1E7 numbers
+ *  packed into one long, see {@link Fixed1E7LatLon#pack(int, int)}, and handed out as
+ *  Fixed1E7LatLons.
+ *  <br><br>
+ *  Looking up a node by id is a binary search as long as the nodes have been added in the order of
+ *  their ids, as they are returned by the map call, otherwise it is a linear search. Not thread
+ *  safe. */
+public class ColumnarNodeStore implements MapDataHandler
+{
+	private static final int DEFAULT_CAPACITY = 1024;
+	/** value of the positions column for nodes without a position. Not a valid position */
+	private static final long NO_POSITION = Fixed1E7LatLon.pack(Integer.MIN_VALUE, 0);
+
+	private long[] ids;
+	private int[] versions;
+	private long[] positions;
+	private int size;
+	private boolean sortedById = true;
+
+	/* sparse tag index: the indices of the tagged nodes in ascending order and their tags */
+	private int[] taggedIndices = new int[16];
+	private Object[] tags = new Object[16];
+	private int taggedCount;
+
+	private final List<Way> ways = new ArrayList<>();
+	private final List<Relation> relations = new ArrayList<>();
+	private final List<BoundingBox> bounds = new ArrayList<>();
+
+	public ColumnarNodeStore()
+	{
+		this(DEFAULT_CAPACITY);
+	}
+
+	/** @param initialCapacity number of nodes to reserve space for */
+	public ColumnarNodeStore(int initialCapacity)
+	{
+		if(initialCapacity <= 0) throw new IllegalArgumentException("initialCapacity must be positive");
+		ids = new long[initialCapacity];
+		versions = new int[initialCapacity];
+		positions = new long[initialCapacity];
+	}
+
+	@Override
+	public void handle(BoundingBox bounds)
+	{
+		this.bounds.add(bounds);
+	}
+
+	@Override
+	public void handle(Node node)
+	{
+		if(size == ids.length) grow();
+
+		long id = node.getId();
+		if(size > 0 && id <= ids[size - 1]) sortedById = false;
+		ids[size] = id;
+		versions[size] = node.getVersion();
+		positions[size] = pack(node.getPosition());
+		Map<String, String> nodeTags = node.getTags();
+		if(nodeTags != null && !nodeTags.isEmpty())
+		{
+			if(taggedCount == taggedIndices.length)
+			{
+				taggedIndices = Arrays.copyOf(taggedIndices, taggedCount * 2);
+				tags = Arrays.copyOf(tags, taggedCount * 2);
+			}
+			taggedIndices[taggedCount] = size;
+			tags[taggedCount] = nodeTags;
+			taggedCount++;
+		}
+		size++;
+	}
+
+	@Override
+	public void handle(Way way)
+	{
+		ways.add(way);
+	}
+
+	@Override
+	public void handle(Relation relation)
+	{
+		relations.add(relation);
+	}
+
+	private static long pack(LatLon position)
+	{
+		return position != null ? Fixed1E7LatLon.pack(position) : NO_POSITION;
+	}
+
+	private void grow()
+	{
+		int capacity = ids.length + (ids.length >> 1) + 1;
+		ids = Arrays.copyOf(ids, capacity);
+		versions = Arrays.copyOf(versions, capacity);
+		positions = Arrays.copyOf(positions, capacity);
+	}
+
+	/** Drops the spare capacity of the arrays, i.e. when all data has been added */
+	public void trimToSize()
+	{
+		ids = Arrays.copyOf(ids, Math.max(size, 1));
+		versions = Arrays.copyOf(versions, Math.max(size, 1));
+		positions = Arrays.copyOf(positions, Math.max(size, 1));
+		taggedIndices = Arrays.copyOf(taggedIndices, Math.max(taggedCount, 1));
+		tags = Arrays.copyOf(tags, Math.max(taggedCount, 1));
+	}
+
+	/** @return the number of nodes */
+	public int getNodeCount()
+	{
+		return size;
+	}
+
+	/** @return the index of the node with the given id or -1 if there is none */
+	public int indexOf(long id)
+	{
+		if(sortedById) return Math.max(-1, Arrays.binarySearch(ids, 0, size, id));
+		for (int i = 0; i < size; ++i)
+		{
+			if(ids[i] == id) return i;
+		}
+		return -1;
+	}
+
+	public long getId(int index)
+	{
+		checkIndex(index);
+		return ids[index];
+	}
+
+	public int getVersion(int index)
+	{
+		checkIndex(index);
+		return versions[index];
+	}
+
+	/** @return whether the node at the given index has a position. Deleted nodes have none */
+	public boolean hasPosition(int index)
+	{
+		checkIndex(index);
+		return positions[index] != NO_POSITION;
+	}
+
+	/** @return the latitude of the node at the given index as a fixed 1E7 number, see
+	 *          {@link Fixed1E7}. Undefined if it has no position */
+	public int getLatitude1E7(int index)
+	{
+		checkIndex(index);
+		return Fixed1E7LatLon.unpackLatitude(positions[index]);
+	}
+
+	/** @return the longitude of the node at the given index as a fixed 1E7 number, see
+	 *          {@link Fixed1E7}. Undefined if it has no position */
+	public int getLongitude1E7(int index)
+	{
+		checkIndex(index);
+		return Fixed1E7LatLon.unpackLongitude(positions[index]);
+	}
+
+	/** @return the tags of the node at the given index, an empty map if it has none */
+	@SuppressWarnings("unchecked")
+	public Map<String, String> getTags(int index)
+	{
+		checkIndex(index);
+		int tagIndex = Arrays.binarySearch(taggedIndices, 0, taggedCount, index);
+		return tagIndex >= 0
+				? Collections.unmodifiableMap((Map<String, String>) tags[tagIndex])
+				: Collections.<String, String>emptyMap();
+	}
+
+	/** @return a view on the node at the given index */
+	public Node getNode(int index)
+	{
+		checkIndex(index);
+		return new NodeView(index);
+	}
+
+	/** @return a view on the node with the given id or null if there is none */
+	public Node getNodeById(long id)
+	{
+		int index = indexOf(id);
+		return index != -1 ? new NodeView(index) : null;
+	}
+
+	/** @return a read-only list of views on all nodes. The views are created on access */
+	public List<Node> getNodes()
+	{
+		return new NodeList();
+	}
+
+	public List<Way> getWays()
+	{
+		return ways;
+	}
+
+	public List<Relation> getRelations()
+	{
+		return relations;
+	}
+
+	public List<BoundingBox> getBounds()
+	{
+		return bounds;
+	}
+
+	private void checkIndex(int index)
+	{
+		if(index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+	}
+
+	private class NodeList extends AbstractList<Node> implements RandomAccess
+	{
+		@Override public Node get(int index) { return getNode(index); }
+		@Override public int size() { return size; }
+	}
+
+	/** Read-only node that reads its data from the columns of the store */
+	private class NodeView implements Node
+	{
+		private final int index;
+
+		NodeView(int index)
+		{
+			this.index = index;
+		}
+
+		@Override
+		public LatLon getPosition()
+		{
+			if(positions[index] == NO_POSITION) return null;
+			return Fixed1E7LatLon.fromPacked(positions[index]);
+		}
+
+		@Override
+		public long getId()
+		{
+			return ids[index];
+		}
+
+		@Override
+		public int getVersion()
+		{
+			return versions[index];
+		}
+
+		@Override
+		public Map<String, String> getTags()
+		{
+			return ColumnarNodeStore.this.getTags(index);
+		}
+
+		@Override
+		public boolean isNew()
+		{
+			return ids[index] < 0;
+		}
+
+		@Override
+		public boolean isModified()
+		{
+			return false;
+		}
+
+		@Override
+		public boolean isDeleted()
+		{
+			return false;
+		}
+
+		@Override
+		public Changeset getChangeset()
+		{
+			return null;
+		}
+
+		@Override
+		public Instant getEditedAt()
+		{
+			return null;
+		}
+
+		@Override
+		public Type getType()
+		{
+			return Type.NODE;
+		}
+	}
+}
@@ -0,0 +1,620 @@
+package de.westnordost.osmapi.map.handler;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.westnordost.osmapi.changesets.Changeset;
+import de.westnordost.osmapi.map.data.BoundingBox;
+import de.westnordost.osmapi.map.data.CompactTagMap;
+import de.westnordost.osmapi.map.data.Element;
+import de.westnordost.osmapi.map.data.Fixed1E7LatLon;
+import de.westnordost.osmapi.map.data.LatLon;
+import de.westnordost.osmapi.map.data.LongArrayList;
+import de.westnordost.osmapi.map.data.Node;
+import de.westnordost.osmapi.map.data.OsmRelationMember;
+import de.westnordost.osmapi.map.data.Relation;
+import de.westnordost.osmapi.map.data.RelationMember;
+import de.westnordost.osmapi.map.data.Way;
+
+/** Handler that writes the map data into a memory-mapped file instead of keeping it as objects on
+ *  the heap. This allows to keep large amounts of map data at hand without long garbage collection
+ *  pauses, as next to nothing of it is on the heap.
+ *  <br><br>
+ *  The elements are written in a compact binary layout: Nodes take a fixed 28 bytes for id,
+ *  version, position and a reference to their tags. Ways store the ids of their nodes as variable
+ *  length differences to the previous id, which mostly take one to three bytes each. The first
+ *  65536 distinct strings of tags and roles are interned, each occurrence of them takes one to three
+ *  bytes.
+ *  <br><br>
+ *  Elements are looked up by type and id through an index that is held outside of the heap as well.
+ *  They are handed out as read-only views which read their data from the file only when it is
+ *  accessed. Like for the ColumnarNodeStore, only the id, version, position, node ids, members and
+ *  tags of elements are kept, their changeset and timestamp are not. If an element is handled
+ *  twice, the latter one replaces the former one.
+ *  <br><br>
+ *  The file is merely the scratch space of this store: It is overwritten when the store is created
+ *  and not readable anymore once the store has been closed, the views handed out must not be used
+ *  after that. Not thread safe. */
+public class MappedMapDataStore implements MapDataHandler, Closeable
+{
+	private static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+	private static final int MAX_STRINGS = 1 << 16;
+	private static final Element.Type[] TYPES = Element.Type.values();
+
+	/** value of the tags reference of elements without tags */
+	private static final long NO_TAGS = -1;
+	/** value of the position of nodes without a position. Not a valid position */
+	private static final long NO_POSITION = Fixed1E7LatLon.pack(Integer.MIN_VALUE, 0);
+
+	/* offsets of the fields in the records of all elements. The records of nodes end with their
+	 * position, the ones of ways and relations continue with their node ids or members */
+	private static final int ID = 0,
+	                         VERSION = 8,
+	                         TAGS = 12,
+	                         BODY = 20;
+
+	private final RandomAccessFile file;
+	private final FileChannel channel;
+	private final int segmentSize;
+
+	/* the file is mapped in segments. An address is the index of the segment in the upper and the
+	 * offset within the segment in the lower 32 bits */
+	private final List<MappedByteBuffer> segments = new ArrayList<>();
+	private MappedByteBuffer segment;
+	private long fileSize;
+
+	private OffHeapLongIndex index = new OffHeapLongIndex(1024);
+
+	/* interned strings, by string for writing and by id for reading */
+	private final Map<String, Integer> stringIds = new HashMap<>();
+	private final List<String> strings = new ArrayList<>();
+
+	private final List<BoundingBox> bounds = new ArrayList<>();
+	private final RecordWriter record = new RecordWriter();
+	private boolean closed;
+
+	public MappedMapDataStore(File file) throws IOException
+	{
+		this(file, DEFAULT_SEGMENT_SIZE);
+	}
+
+	/**
+	 * @param file file to write the map data into. Is overwritten
+	 * @param segmentSize the file is mapped in segments of this many bytes. Elements are not split
+	 *                    across segments, an element larger than this gets a segment of its own.
+	 */
+	public MappedMapDataStore(File file, int segmentSize) throws IOException
+	{
+		if(segmentSize <= 0) throw new IllegalArgumentException("segmentSize must be positive");
+		this.segmentSize = segmentSize;
+		this.file = new RandomAccessFile(file, "rw");
+		this.file.setLength(0);
+		channel = this.file.getChannel();
+	}
+
+	@Override
+	public void handle(BoundingBox bounds)
+	{
+		checkOpen();
+		this.bounds.add(bounds);
+	}
+
+	@Override
+	public void handle(Node node)
+	{
+		checkOpen();
+		long tags = writeTags(node.getTags());
+		LatLon position = node.getPosition();
+
+		record.clear();
+		writeHeader(node, tags);
+		record.writeLong(position != null ? Fixed1E7LatLon.pack(position) : NO_POSITION);
+		index.put(key(Element.Type.NODE, node.getId()), append());
+	}
+
+	@Override
+	public void handle(Way way)
+	{
+		checkOpen();
+		long tags = writeTags(way.getTags());
+		List<Long> nodeIds = way.getNodeIds();
+
+		record.clear();
+		writeHeader(way, tags);
+		record.writeVarLong(nodeIds.size());
+		long previous = 0;
+		if(nodeIds instanceof LongArrayList)
+		{
+			LongArrayList ids = (LongArrayList) nodeIds;
+			for (int i = 0; i < ids.size(); ++i)
+			{
+				long id = ids.getLong(i);
+				record.writeZigZag(id - previous);
+				previous = id;
+			}
+		}
+		else
+		{
+			for (long id : nodeIds)
+			{
+				record.writeZigZag(id - previous);
+				previous = id;
+			}
+		}
+		index.put(key(Element.Type.WAY, way.getId()), append());
+	}
+
+	@Override
+	public void handle(Relation relation)
+	{
+		checkOpen();
+		long tags = writeTags(relation.getTags());
+		List<RelationMember> members = relation.getMembers();
+
+		record.clear();
+		writeHeader(relation, tags);
+		record.writeVarLong(members.size());
+		long previous = 0;
+		for (RelationMember member : members)
+		{
+			record.writeByte(member.getType().ordinal());
+			record.writeZigZag(member.getRef() - previous);
+			previous = member.getRef();
+			writeString(member.getRole());
+		}
+		index.put(key(Element.Type.RELATION, relation.getId()), append());
+	}
+
+	private void writeHeader(Element element, long tags)
+	{
+		record.writeLong(element.getId());
+		record.writeInt(element.getVersion());
+		record.writeLong(tags);
+	}
+
+	/** @return the address of the written tags or NO_TAGS if there are none */
+	private long writeTags(Map<String, String> tags)
+	{
+		if(tags == null || tags.isEmpty()) return NO_TAGS;
+
+		record.clear();
+		record.writeVarLong(tags.size());
+		for (Map.Entry<String, String> tag : tags.entrySet())
+		{
+			writeString(tag.getKey());
+			writeString(tag.getValue());
+		}
+		return append();
+	}
+
+	/* A string is written as a variable length number n. If n is odd, it is followed by n >> 1 bytes
+	 * of UTF-8. Otherwise, it is the (n >> 1) - 1th interned string, 0 stands for null */
+	private void writeString(String str)
+	{
+		if(str == null)
+		{
+			record.writeVarLong(0);
+			return;
+		}
+		Integer id = stringIds.get(str);
+		if(id == null && strings.size() < MAX_STRINGS)
+		{
+			id = strings.size();
+			strings.add(str);
+			stringIds.put(str, id);
+		}
+		if(id != null)
+		{
+			record.writeVarLong((id + 1L) << 1);
+		}
+		else
+		{
+			byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+			record.writeVarLong(((long) bytes.length << 1) | 1);
+			record.write(bytes);
+		}
+	}
+
+	/** Append the current record to the file
+	 *  @return its address */
+	private long append()
+	{
+		int length = record.length;
+		if(segment == null || segment.remaining() < length)
+		{
+			mapSegment(Math.max(segmentSize, length));
+		}
+		long address = (long) (segments.size() - 1) << 32 | segment.position();
+		segment.put(record.bytes, 0, length);
+		return address;
+	}
+
+	private void mapSegment(int size)
+	{
+		try
+		{
+			segment = channel.map(FileChannel.MapMode.READ_WRITE, fileSize, size);
+		}
+		catch(IOException e)
+		{
+			throw new RuntimeException(e);
+		}
+		segments.add(segment);
+		fileSize += size;
+	}
+
+	/* the type is added to the id so that the key is never 0 */
+	private static long key(Element.Type type, long id)
+	{
+		return id * 4 + type.ordinal() + 1;
+	}
+
+	/** @return the number of distinct elements in this store */
+	public int getElementCount()
+	{
+		checkOpen();
+		return index.size();
+	}
+
+	/** @return a view on the element of the given type with the given id or null if there is none */
+	public Element get(Element.Type type, long id)
+	{
+		switch(type)
+		{
+			case NODE:     return getNode(id);
+			case WAY:      return getWay(id);
+			case RELATION: return getRelation(id);
+		}
+		throw new IllegalArgumentException("Unknown element type " + type);
+	}
+
+	/** @return a view on the node with the given id or null if there is none */
+	public Node getNode(long id)
+	{
+		long address = find(Element.Type.NODE, id);
+		return address != OffHeapLongIndex.NOT_FOUND ? new NodeView(address) : null;
+	}
+
+	/** @return a view on the way with the given id or null if there is none */
+	public Way getWay(long id)
+	{
+		long address = find(Element.Type.WAY, id);
+		return address != OffHeapLongIndex.NOT_FOUND ? new WayView(address) : null;
+	}
+
+	/** @return a view on the relation with the given id or null if there is none */
+	public Relation getRelation(long id)
+	{
+		long address = find(Element.Type.RELATION, id);
+		return address != OffHeapLongIndex.NOT_FOUND ? new RelationView(address) : null;
+	}
+
+	public List<BoundingBox> getBounds()
+	{
+		return bounds;
+	}
+
+	private long find(Element.Type type, long id)
+	{
+		checkOpen();
+		return index.get(key(type, id));
+	}
+
+	private void checkOpen()
+	{
+		if(closed) throw new IllegalStateException("Store is closed");
+	}
+
+	/** Closes the file. The mapped memory is released once the garbage collector collected it */
+	@Override
+	public void close() throws IOException
+	{
+		if(closed) return;
+		closed = true;
+		segments.clear();
+		segment = null;
+		index = null;
+		stringIds.clear();
+		strings.clear();
+		file.close();
+	}
+
+	private Map<String, String> readTags(long address)
+	{
+		if(address == NO_TAGS) return Collections.emptyMap();
+
+		RecordReader reader = new RecordReader(address);
+		int count = (int) reader.readVarLong();
+		String[] keys = new String[count];
+		String[] values = new String[count];
+		for (int i = 0; i < count; ++i)
+		{
+			keys[i] = reader.readString();
+			values[i] = reader.readString();
+		}
+		return Collections.unmodifiableMap(new CompactTagMap(keys, values));
+	}
+
+	/** Growing buffer the current record is assembled in before it is appended to the file */
+	private static final class RecordWriter
+	{
+		byte[] bytes = new byte[256];
+		int length;
+
+		void clear()
+		{
+			length = 0;
+		}
+
+		private void ensureCapacity(int count)
+		{
+			if(length + count > bytes.length)
+			{
+				bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + count));
+			}
+		}
+
+		void writeByte(int value)
+		{
+			ensureCapacity(1);
+			bytes[length++] = (byte) value;
+		}
+
+		void writeInt(int value)
+		{
+			ensureCapacity(4);
+			for (int shift = 24; shift >= 0; shift -= 8)
+			{
+				bytes[length++] = (byte) (value >>> shift);
+			}
+		}
+
+		void writeLong(long value)
+		{
+			ensureCapacity(8);
+			for (int shift = 56; shift >= 0; shift -= 8)
+			{
+				bytes[length++] = (byte) (value >>> shift);
+			}
+		}
+
+		/** 7 bits per byte, the highest bit is set on all but the last byte */
+		void writeVarLong(long value)
+		{
+			while((value & ~0x7FL) != 0)
+			{
+				writeByte((int) (value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			writeByte((int) value);
+		}
+
+		/** like writeVarLong, but small negative numbers take few bytes too */
+		void writeZigZag(long value)
+		{
+			writeVarLong((value << 1) ^ (value >> 63));
+		}
+
+		void write(byte[] data)
+		{
+			ensureCapacity(data.length);
+			System.arraycopy(data, 0, bytes, length, data.length);
+			length += data.length;
+		}
+	}
+
+	/** Reads a record at the given address from the mapped file */
+	private final class RecordReader
+	{
+		private final ByteBuffer buffer;
+		private int position;
+
+		RecordReader(long address)
+		{
+			buffer = segments.get((int) (address >>> 32));
+			position = (int) address;
+		}
+
+		long readLong()
+		{
+			long value = buffer.getLong(position);
+			position += 8;
+			return value;
+		}
+
+		int readInt()
+		{
+			int value = buffer.getInt(position);
+			position += 4;
+			return value;
+		}
+
+		byte readByte()
+		{
+			return buffer.get(position++);
+		}
+
+		long readVarLong()
+		{
+			long value = 0;
+			for (int shift = 0; ; shift += 7)
+			{
+				byte b = readByte();
+				value |= (long) (b & 0x7F) << shift;
+				if(b >= 0) return value;
+			}
+		}
+
+		long readZigZag()
+		{
+			long value = readVarLong();
+			return (value >>> 1) ^ -(value & 1);
+		}
+
+		String readString()
+		{
+			long n = readVarLong();
+			if(n == 0) return null;
+			if((n & 1) == 0) return strings.get((int) (n >> 1) - 1);
+
+			byte[] bytes = new byte[(int) (n >> 1)];
+			ByteBuffer data = buffer.duplicate();
+			data.position(position);
+			data.get(bytes);
+			position += bytes.length;
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+	}
+
+	/** Read-only element that reads its data from the mapped file on access */
+	private abstract class ElementView implements Element
+	{
+		final long address;
+
+		ElementView(long address)
+		{
+			this.address = address;
+		}
+
+		@Override
+		public long getId()
+		{
+			return new RecordReader(address + ID).readLong();
+		}
+
+		@Override
+		public int getVersion()
+		{
+			return new RecordReader(address + VERSION).readInt();
+		}
+
+		@Override
+		public Map<String, String> getTags()
+		{
+			return readTags(new RecordReader(address + TAGS).readLong());
+		}
+
+		@Override
+		public boolean isNew()
+		{
+			return getId() < 0;
+		}
+
+		@Override
+		public boolean isModified()
+		{
+			return false;
+		}
+
+		@Override
+		public boolean isDeleted()
+		{
+			return false;
+		}
+
+		@Override
+		public Changeset getChangeset()
+		{
+			return null;
+		}
+
+		@Override
+		public Instant getEditedAt()
+		{
+			return null;
+		}
+	}
+
+	private class NodeView extends ElementView implements Node
+	{
+		NodeView(long address)
+		{
+			super(address);
+		}
+
+		@Override
+		public LatLon getPosition()
+		{
+			long position = new RecordReader(address + BODY).readLong();
+			return position != NO_POSITION ? Fixed1E7LatLon.fromPacked(position) : null;
+		}
+
+		@Override
+		public Type getType()
+		{
+			return Type.NODE;
+		}
+	}
+
+	private class WayView extends ElementView implements Way
+	{
+		WayView(long address)
+		{
+			super(address);
+		}
+
+		@Override
+		public List<Long> getNodeIds()
+		{
+			RecordReader reader = new RecordReader(address + BODY);
+			int count = (int) reader.readVarLong();
+			LongArrayList nodeIds = new LongArrayList(count);
+			long id = 0;
+			for (int i = 0; i < count; ++i)
+			{
+				id += reader.readZigZag();
+				nodeIds.addLong(id);
+			}
+			return Collections.unmodifiableList(nodeIds);
+		}
+
+		@Override
+		public Type getType()
+		{
+			return Type.WAY;
+		}
+	}
+
+	private class RelationView extends ElementView implements Relation
+	{
+		RelationView(long address)
+		{
+			super(address);
+		}
+
+		@Override
+		public List<RelationMember> getMembers()
+		{
+			RecordReader reader = new RecordReader(address + BODY);
+			int count = (int) reader.readVarLong();
+			List<RelationMember> members = new ArrayList<>(count);
+			long ref = 0;
+			for (int i = 0; i < count; ++i)
+			{
+				Element.Type type = TYPES[reader.readByte()];
+				ref += reader.readZigZag();
+				members.add(new OsmRelationMember(ref, reader.readString(), type));
+			}
+			return Collections.unmodifiableList(members);
+		}
+
+		@Override
+		public Type getType()
+		{
+			return Type.RELATION;
+		}
+	}
+}
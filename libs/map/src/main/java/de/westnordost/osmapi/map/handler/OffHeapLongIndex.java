@@ -0,0 +1,103 @@
+package de.westnordost.osmapi.map.handler;
+
+import java.nio.ByteBuffer;
+
+/** Hash map from long keys to long values, held outside of the heap in a direct byte buffer, so
+ *  that the garbage collector does not need to look at it no matter how large it gets. It uses open
+ *  addressing with linear probing, each slot takes 16 bytes. The key 0 is reserved for empty slots.
+ *  Not thread safe. */
+class OffHeapLongIndex
+{
+	static final long NOT_FOUND = -1;
+
+	private static final int SLOT_SIZE = 16;
+	/** largest power of two for which the size of the buffer in bytes still fits into an int */
+	private static final int MAX_CAPACITY = 1 << 26;
+
+	private ByteBuffer slots;
+	private int capacity;
+	private int size;
+
+	/** @param expectedSize number of entries to reserve space for */
+	OffHeapLongIndex(int expectedSize)
+	{
+		int capacity = 16;
+		while(capacity < MAX_CAPACITY && capacity * 3L / 4 < expectedSize) capacity <<= 1;
+		allocate(capacity);
+	}
+
+	private void allocate(int capacity)
+	{
+		this.capacity = capacity;
+		// direct buffers are initialized with zeros, i.e. all slots are empty
+		slots = ByteBuffer.allocateDirect(capacity * SLOT_SIZE);
+	}
+
+	/** @return the number of entries */
+	int size()
+	{
+		return size;
+	}
+
+	/** Set the value of the given key, replacing the previous value if there was any
+	 *  @throws IllegalArgumentException if the key is 0
+	 *  @throws IllegalStateException if the index is full */
+	void put(long key, long value)
+	{
+		if(key == 0) throw new IllegalArgumentException("Key 0 is reserved");
+		if(size + 1 > capacity * 3L / 4) grow();
+		if(insert(slots, capacity, key, value)) size++;
+	}
+
+	/** @return the value of the given key or NOT_FOUND if there is none */
+	long get(long key)
+	{
+		int mask = capacity - 1;
+		for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask)
+		{
+			long slotKey = slots.getLong(slot * SLOT_SIZE);
+			if(slotKey == key) return slots.getLong(slot * SLOT_SIZE + 8);
+			if(slotKey == 0) return NOT_FOUND;
+		}
+	}
+
+	private void grow()
+	{
+		if(capacity == MAX_CAPACITY) throw new IllegalStateException("Index is full");
+		ByteBuffer oldSlots = slots;
+		int oldCapacity = capacity;
+		allocate(capacity << 1);
+		for (int slot = 0; slot < oldCapacity; ++slot)
+		{
+			long key = oldSlots.getLong(slot * SLOT_SIZE);
+			if(key != 0) insert(slots, capacity, key, oldSlots.getLong(slot * SLOT_SIZE + 8));
+		}
+	}
+
+	/** @return whether the key was not in the given slots before */
+	private static boolean insert(ByteBuffer slots, int capacity, long key, long value)
+	{
+		int mask = capacity - 1;
+		for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask)
+		{
+			long slotKey = slots.getLong(slot * SLOT_SIZE);
+			if(slotKey == 0 || slotKey == key)
+			{
+				slots.putLong(slot * SLOT_SIZE, key);
+				slots.putLong(slot * SLOT_SIZE + 8, value);
+				return slotKey == 0;
+			}
+		}
+	}
+
+	/** the finalizer of MurmurHash3, so that ids which are close together are spread evenly */
+	private static int hash(long key)
+	{
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb9fe1a85ec53L;
+		key ^= key >>> 33;
+		return (int) key;
+	}
+}
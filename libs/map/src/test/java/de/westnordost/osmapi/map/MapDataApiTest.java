@@ -8,6 +8,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
 import de.westnordost.osmapi.ConnectionTestFactory;
 import de.westnordost.osmapi.OsmConnection;
@@ -70,6 +71,21 @@ public class MapDataApiTest
 		catch(OsmQueryTooBigException ignore) {}
 	}
 
+	@Test public void getMapAsyncTooBigBounds() throws InterruptedException
+	{
+		try
+		{
+			new MapDataApi(connection).getMapAsync(
+					new BoundingBox(LatLons.MIN_VALUE, LatLons.MAX_VALUE),
+					new DefaultMapDataHandler()).get();
+			fail();
+		}
+		catch(ExecutionException e)
+		{
+			assertTrue(e.getCause() instanceof OsmQueryTooBigException);
+		}
+	}
+
 	@Test public void getMapBoundsCross180thMeridian()
 	{
 		try
@@ -275,6 +291,15 @@ public class MapDataApiTest
 		assertNull(new MapDataApi(connection).getRelation(Long.MAX_VALUE));
 	}
 
+	@Test public void getElementsAsync() throws Exception
+	{
+		MapDataApi liveApi = new MapDataApi(liveConnection);
+		assertNotNull(liveApi.getNodeAsync(ElementShouldExist.NODE).get());
+		assertNotNull(liveApi.getWayAsync(ElementShouldExist.WAY).get());
+		assertNotNull(liveApi.getRelationAsync(ElementShouldExist.RELATION).get());
+		assertNull(new MapDataApi(connection).getNodeAsync(Long.MAX_VALUE).get());
+	}
+
 	@Test public void getNodes()
 	{
 		// test if a non-existing element does "poison the well"
@@ -0,0 +1,199 @@
+package de.westnordost.osmapi.map;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import de.westnordost.osmapi.common.errors.OsmApiReadResponseException;
+import de.westnordost.osmapi.common.errors.OsmConnectionException;
+import de.westnordost.osmapi.map.data.BoundingBox;
+import de.westnordost.osmapi.map.data.Element;
+import de.westnordost.osmapi.map.data.Node;
+import de.westnordost.osmapi.map.data.Relation;
+import de.westnordost.osmapi.map.data.Way;
+import de.westnordost.osmapi.map.handler.MapDataHandler;
+
+import static org.junit.Assert.*;
+
+public class MapDataIteratorTest
+{
+	private static final String XML =
+			"<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+			"<osm version=\"0.6\" generator=\"test\">\n" +
+			" <bounds minlat=\"51.74\" minlon=\"0.24\" maxlat=\"51.75\" maxlon=\"0.25\"/>\n" +
+			" <node id=\"1\" version=\"1\" changeset=\"10\" timestamp=\"2008-02-09T10:59:23Z\" " +
+					"user=\"Yeah\" uid=\"12503\" lat=\"51.7463194\" lon=\"0.2428181\"/>\n" +
+			" <node id=\"2\" version=\"3\" lat=\"51.7463195\" lon=\"0.2428182\">\n" +
+			"  <tag k=\"name\" v=\"Straße\"/>\n" +
+			" </node>\n" +
+			" <way id=\"3\" version=\"1\">\n" +
+			"  <nd ref=\"1\"/>\n" +
+			"  <nd ref=\"2\"/>\n" +
+			"  <tag k=\"highway\" v=\"residential\"/>\n" +
+			" </way>\n" +
+			" <relation id=\"4\" version=\"2\">\n" +
+			"  <member type=\"way\" ref=\"3\" role=\"outer\"/>\n" +
+			" </relation>\n" +
+			"</osm>\n";
+
+	@Test public void iteratesSameElementsAsMapDataParser() throws IOException
+	{
+		final List<Element> expected = new ArrayList<>();
+		new MapDataParser(new MapDataHandler()
+		{
+			@Override public void handle(BoundingBox bounds) {}
+			@Override public void handle(Node node) { expected.add(node); }
+			@Override public void handle(Way way) { expected.add(way); }
+			@Override public void handle(Relation relation) { expected.add(relation); }
+		}, new OsmMapDataFactory()).parse(new ClosableInputStream(XML));
+
+		ClosableInputStream in = new ClosableInputStream(XML);
+		MapDataIterator iterator = new MapDataIterator(in, new OsmMapDataFactory());
+		List<Element> actual = new ArrayList<>();
+		while(iterator.hasNext())
+		{
+			actual.add(iterator.next());
+		}
+		assertEquals(4, actual.size());
+		for (int i = 0; i < expected.size(); ++i)
+		{
+			assertEquals(expected.get(i).getType(), actual.get(i).getType());
+			assertEquals(expected.get(i).getId(), actual.get(i).getId());
+			assertEquals(expected.get(i).getVersion(), actual.get(i).getVersion());
+			assertEquals(expected.get(i).getTags(), actual.get(i).getTags());
+		}
+		assertEquals(((Way) expected.get(2)).getNodeIds(), ((Way) actual.get(2)).getNodeIds());
+		assertEquals(12503, actual.get(0).getChangeset().user.id);
+		// closed automatically at the end
+		assertTrue(in.closed);
+	}
+
+	@Test public void closingBeforeEndClosesInputStream()
+	{
+		ClosableInputStream in = new ClosableInputStream(XML);
+		MapDataIterator iterator = new MapDataIterator(in, new OsmMapDataFactory());
+		assertEquals(1, iterator.next().getId());
+		assertFalse(in.closed);
+		iterator.close();
+		assertTrue(in.closed);
+		assertFalse(iterator.hasNext());
+		iterator.close();
+	}
+
+	@Test public void streamIsLazyAndClosesIterator()
+	{
+		ClosableInputStream in = new ClosableInputStream(XML);
+		List<Long> wayIds;
+		try (Stream<Element> stream = new MapDataIterator(in, new OsmMapDataFactory()).stream())
+		{
+			wayIds = stream
+					.filter(new Predicate<Element>()
+					{
+						@Override public boolean test(Element element)
+						{
+							return element.getType() == Element.Type.WAY;
+						}
+					})
+					.limit(1)
+					.map(new Function<Element, Long>()
+					{
+						@Override public Long apply(Element element)
+						{
+							return element.getId();
+						}
+					})
+					.collect(Collectors.<Long>toList());
+			assertFalse(in.closed);
+		}
+		assertTrue(in.closed);
+		assertEquals(1, wayIds.size());
+		assertEquals(3L, (long) wayIds.get(0));
+	}
+
+	@Test public void emptyResponse()
+	{
+		ClosableInputStream in = new ClosableInputStream("<osm version=\"0.6\"></osm>");
+		MapDataIterator iterator = new MapDataIterator(in, new OsmMapDataFactory());
+		assertFalse(iterator.hasNext());
+		assertTrue(in.closed);
+		try
+		{
+			iterator.next();
+			fail();
+		}
+		catch(NoSuchElementException ignore) {}
+	}
+
+	@Test public void invalidResponse()
+	{
+		ClosableInputStream in = new ClosableInputStream(XML.replace("<nd ref=\"2\"/>", "<nd ref=\"2\">"));
+		MapDataIterator iterator = new MapDataIterator(in, new OsmMapDataFactory());
+		try
+		{
+			while(iterator.hasNext()) iterator.next();
+			fail();
+		}
+		catch(OsmApiReadResponseException ignore) {}
+		assertTrue(in.closed);
+	}
+
+	@Test public void errorWhileReading()
+	{
+		ClosableInputStream in = new ClosableInputStream(XML.substring(0, 200));
+		in.failAtEnd = true;
+		MapDataIterator iterator = new MapDataIterator(in, new OsmMapDataFactory());
+		try
+		{
+			while(iterator.hasNext()) iterator.next();
+			fail();
+		}
+		catch(OsmConnectionException e)
+		{
+			assertEquals("connection reset", e.getCause().getMessage());
+		}
+		assertTrue(in.closed);
+	}
+
+	private static class ClosableInputStream extends InputStream
+	{
+		private final InputStream in;
+		boolean closed;
+		boolean failAtEnd;
+
+		ClosableInputStream(String xml)
+		{
+			in = new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+		}
+
+		@Override public int read() throws IOException
+		{
+			return checkEnd(in.read());
+		}
+
+		@Override public int read(byte[] b, int off, int len) throws IOException
+		{
+			return checkEnd(in.read(b, off, len));
+		}
+
+		private int checkEnd(int result) throws IOException
+		{
+			if(result == -1 && failAtEnd) throw new IOException("connection reset");
+			return result;
+		}
+
+		@Override public void close()
+		{
+			closed = true;
+		}
+	}
+}
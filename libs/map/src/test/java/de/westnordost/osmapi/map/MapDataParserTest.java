@@ -5,10 +5,13 @@ import org.junit.Test;
 import java.io.IOException;
 import java.time.Instant;
 import java.util.List;
+import java.util.function.Predicate;
 
 import de.westnordost.osmapi.TestUtils;
+import de.westnordost.osmapi.common.ParseOptions;
 import de.westnordost.osmapi.map.data.BoundingBox;
 import de.westnordost.osmapi.map.data.Element;
+import de.westnordost.osmapi.map.data.Fixed1E7LatLon;
 import de.westnordost.osmapi.map.data.Node;
 import de.westnordost.osmapi.map.data.Relation;
 import de.westnordost.osmapi.map.data.RelationMember;
@@ -224,6 +227,24 @@ public class MapDataParserTest
 		assertNull(node.getPosition());
 	}
 
+	@Test public void nodeWithFixed1E7Position()
+	{
+		String xml = "<node id=\"5\" version=\"1\" lat=\"-51.7463194\" lon=\"180\"/>";
+		Node node = parseOne(xml, Node.class, new Fixed1E7OsmMapDataFactory());
+		Fixed1E7LatLon pos = (Fixed1E7LatLon) node.getPosition();
+		assertEquals(-517463194, pos.getLatitude1E7());
+		assertEquals(1800000000, pos.getLongitude1E7());
+		assertEquals(5, node.getId());
+	}
+
+	@Test public void deletedNodeWithFixed1E7Factory()
+	{
+		String xml = "<node id=\"5\" visible=\"false\" version=\"4\"/>";
+		Node node = parseOne(xml, Node.class, new Fixed1E7OsmMapDataFactory());
+		assertNotNull(node);
+		assertNull(node.getPosition());
+	}
+
 	@Test public void wayWithoutNodes()
 	{
 		String xml =
@@ -249,12 +270,113 @@ public class MapDataParserTest
 		assertEquals(-1, node.getVersion());
 	}
 	
+	@Test public void sameTagsAreShared()
+	{
+		String xml =
+				"<node id=\"1\" lat=\"1\" lon=\"2\"><tag k=\"building\" v=\"yes\"/></node>\n" +
+				"<way id=\"2\"><tag k=\"building\" v=\"yes\"/><tag k=\"name\" v=\"yes\"/></way>\n" +
+				"<way id=\"3\"><tag k=\"building\" v=\"yes\"/><tag k=\"name\" v=\"yes\"/></way>";
+
+		List<Element> elements = parseList(xml);
+		String building = elements.get(0).getTags().keySet().iterator().next();
+		String yes = elements.get(0).getTags().get("building");
+		assertSame(building, elements.get(1).getTags().keySet().iterator().next());
+		assertSame(yes, elements.get(1).getTags().get("building"));
+		assertSame(yes, elements.get(1).getTags().get("name"));
+
+		// modifying the tags of one element does not change those of another
+		elements.get(1).getTags().put("name", "no");
+		assertTrue(elements.get(1).isModified());
+		assertEquals("yes", elements.get(2).getTags().get("name"));
+		assertFalse(elements.get(2).isModified());
+	}
+
+	@Test public void lastOfDuplicateTagsWins()
+	{
+		String xml = "<node id=\"1\"><tag k=\"a\" v=\"1\"/><tag k=\"a\" v=\"2\"/></node>";
+		Node node = parseOne(xml, Node.class);
+		assertEquals(1, node.getTags().size());
+		assertEquals("2", node.getTags().get("a"));
+	}
+
+	@Test public void elementsWithoutTagsMetadataAndMembers()
+	{
+		String xml =
+				"<way id=\"1\" version=\"2\" changeset=\"3\" timestamp=\"2008-02-09T10:59:02Z\" " +
+						"user=\"Yeah\" uid=\"12503\">\n" +
+				"  <nd ref=\"4\"/>\n" +
+				"  <tag k=\"highway\" v=\"residential\"/>\n" +
+				"</way>\n" +
+				"<relation id=\"5\" version=\"6\">\n" +
+				"  <member type=\"way\" ref=\"1\" role=\"outer\"/>\n" +
+				"</relation>";
+
+		List<Element> elements = parseList(xml, new ParseOptions<Element>()
+				.withoutTags().withoutMetadata().withoutMembers());
+
+		Way way = (Way) elements.get(0);
+		assertEquals(1, way.getId());
+		assertEquals(2, way.getVersion());
+		assertTrue(way.getTags().isEmpty());
+		assertTrue(way.getNodeIds().isEmpty());
+		assertNull(way.getChangeset());
+		assertNull(way.getEditedAt());
+
+		Relation relation = (Relation) elements.get(1);
+		assertEquals(5, relation.getId());
+		assertTrue(relation.getMembers().isEmpty());
+	}
+
+	@Test public void filteredElements()
+	{
+		String xml =
+				"<node id=\"1\" lat=\"1\" lon=\"2\"/>\n" +
+				"<node id=\"2\" lat=\"1\" lon=\"2\"><tag k=\"amenity\" v=\"bench\"/></node>\n" +
+				"<way id=\"3\"><tag k=\"amenity\" v=\"bench\"/></way>";
+
+		List<Element> elements = parseList(xml, new ParseOptions<Element>().filter(new Predicate<Element>()
+		{
+			@Override public boolean test(Element element)
+			{
+				return element.getType() == Element.Type.NODE && element.getTags().containsKey("amenity");
+			}
+		}));
+
+		assertEquals(1, elements.size());
+		assertEquals(2, elements.get(0).getId());
+	}
+
+	@Test public void parsingStopsAtLimit() throws IOException
+	{
+		StringBuilder xml = new StringBuilder("<osm>");
+		for (int i = 1; i <= 100; ++i)
+		{
+			xml.append("<node id=\"").append(i).append("\" lat=\"1\" lon=\"2\"/>");
+		}
+		xml.append("</osm>");
+
+		ListOsmElementHandler<Element> handler = new ListOsmElementHandler<>(Element.class);
+		MapDataParser parser = new MapDataParser(handler, new OsmMapDataFactory(),
+				new ParseOptions<Element>().limit(3));
+		parser.parse(TestUtils.asInputStream(xml.toString()));
+
+		assertEquals(3, handler.get().size());
+		assertEquals(3, handler.get().get(2).getId());
+		// the root element and the three nodes
+		assertEquals(4, parser.getElementCount());
+	}
+
 	private List<Element> parseList(String xml)
+	{
+		return parseList(xml, new ParseOptions<Element>());
+	}
+
+	private List<Element> parseList(String xml, ParseOptions<Element> options)
 	{
 		try
 		{
 			ListOsmElementHandler<Element> handler = new ListOsmElementHandler<>(Element.class);
-			new MapDataParser(handler, new OsmMapDataFactory()).parse(TestUtils.asInputStream(xml));
+			new MapDataParser(handler, new OsmMapDataFactory(), options).parse(TestUtils.asInputStream(xml));
 			return handler.get();
 		}
 		catch(IOException e)
@@ -264,11 +386,16 @@ public class MapDataParserTest
 	}
 	
 	private <T> T parseOne(String xml, Class<T> tClass)
+	{
+		return parseOne(xml, tClass, new OsmMapDataFactory());
+	}
+
+	private <T> T parseOne(String xml, Class<T> tClass, MapDataFactory factory)
 	{
 		try
 		{
 			SingleOsmElementHandler<T> handler = new SingleOsmElementHandler<>(tClass);
-			new MapDataParser(handler, new OsmMapDataFactory()).parse(TestUtils.asInputStream(xml));
+			new MapDataParser(handler, factory).parse(TestUtils.asInputStream(xml));
 			return handler.get();
 		}
 		catch(IOException e)
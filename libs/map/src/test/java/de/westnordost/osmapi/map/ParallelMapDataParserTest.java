@@ -0,0 +1,177 @@
+package de.westnordost.osmapi.map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import de.westnordost.osmapi.common.errors.XmlParserException;
+import de.westnordost.osmapi.map.data.BoundingBox;
+import de.westnordost.osmapi.map.data.Node;
+import de.westnordost.osmapi.map.data.Relation;
+import de.westnordost.osmapi.map.data.RelationMember;
+import de.westnordost.osmapi.map.data.Way;
+import de.westnordost.osmapi.map.handler.MapDataHandler;
+
+import static org.junit.Assert.*;
+
+public class ParallelMapDataParserTest
+{
+	private static final String XML =
+			"<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+			"<osm version=\"0.6\" generator=\"test\">\n" +
+			" <bounds minlat=\"51.74\" minlon=\"0.24\" maxlat=\"51.75\" maxlon=\"0.25\"/>\n" +
+			" <node id=\"1\" version=\"1\" changeset=\"10\" timestamp=\"2008-02-09T10:59:23Z\" " +
+					"user=\"Yeah\" uid=\"12503\" lat=\"51.7463194\" lon=\"0.2428181\"/>\n" +
+			" <!-- <node id=\"99\" lat=\"0\" lon=\"0\"/> -->\n" +
+			" <node id=\"2\" version=\"3\" lat=\"51.7463195\" lon=\"0.2428182\">\n" +
+			"  <tag k=\"name\" v=\"&lt;node&gt; Straße\"/>\n" +
+			" </node>\n" +
+			" <way id=\"3\" version=\"1\">\n" +
+			"  <nd ref=\"1\"/>\n" +
+			"  <nd ref=\"2\"/>\n" +
+			"  <tag k=\"highway\" v=\"residential\"/>\n" +
+			" </way>\n" +
+			" <relation\n id=\"4\" version=\"2\">\n" +
+			"  <member type=\"way\" ref=\"3\" role=\"outer\"/>\n" +
+			"  <member type=\"node\" ref=\"1\" role=\"\"/>\n" +
+			" </relation>\n" +
+			" <node id=\"5\" version=\"1\" lat=\"1\" lon=\"2\"></node>\n" +
+			"</osm>\n";
+
+	private ExecutorService executor;
+
+	@Before public void setUp()
+	{
+		executor = Executors.newFixedThreadPool(3);
+	}
+
+	@After public void tearDown()
+	{
+		executor.shutdownNow();
+	}
+
+	@Test public void parsesSameAsMapDataParser() throws IOException
+	{
+		List<String> expected = parseSequential(XML);
+		assertEquals(6, expected.size());
+		// split before every element
+		assertEquals(expected, parseParallel(XML, 1, 1));
+		assertEquals(expected, parseParallel(XML, 1, 100));
+		assertEquals(expected, parseParallel(XML, 200, 2));
+		assertEquals(expected, parseParallel(XML, ParallelMapDataParser.DEFAULT_CHUNK_SIZE, 2));
+	}
+
+	@Test public void parsesLargeResponseSameAsMapDataParser() throws IOException
+	{
+		StringBuilder xml = new StringBuilder("<osm>");
+		for (int i = 1; i <= 20000; ++i)
+		{
+			xml.append("<node id=\"").append(i).append("\" version=\"1\" lat=\"1\" lon=\"2\">")
+					.append("<tag k=\"ref\" v=\"").append(i).append("\"/></node>\n");
+		}
+		xml.append("</osm>");
+		List<String> expected = parseSequential(xml.toString());
+		assertEquals(expected, parseParallel(xml.toString(), 4096, 4));
+	}
+
+	@Test public void parsesResponseReadInSmallPieces() throws IOException
+	{
+		DescribingHandler handler = new DescribingHandler();
+		InputStream in = new FilterInputStream(asInputStream(XML))
+		{
+			@Override public int read(byte[] b, int off, int len) throws IOException
+			{
+				return super.read(b, off, Math.min(len, 3));
+			}
+		};
+		new ParallelMapDataParser(handler, new OsmMapDataFactory(), executor, 1, 1).parse(in);
+		assertEquals(parseSequential(XML), handler.descriptions);
+	}
+
+	@Test public void parsesResponseWithoutElements() throws IOException
+	{
+		assertEquals(new ArrayList<String>(), parseParallel("<osm version=\"0.6\"></osm>", 1, 1));
+		assertEquals(new ArrayList<String>(), parseParallel("<osm version=\"0.6\"/>", 1, 1));
+	}
+
+	@Test public void parsesTruncatedResponseSameAsMapDataParser() throws IOException
+	{
+		String xml = XML.substring(0, XML.indexOf("<way"));
+		assertEquals(parseSequential(xml), parseParallel(xml, 1, 1));
+	}
+
+	@Test(expected = XmlParserException.class)
+	public void failsOnInvalidChunk() throws IOException
+	{
+		parseParallel(XML.replace("<nd ref=\"2\"/>", "<nd ref=\"2\">"), 1, 1);
+	}
+
+	private List<String> parseSequential(String xml) throws IOException
+	{
+		DescribingHandler handler = new DescribingHandler();
+		new MapDataParser(handler, new OsmMapDataFactory()).parse(asInputStream(xml));
+		return handler.descriptions;
+	}
+
+	private List<String> parseParallel(String xml, int chunkSize, int maxPendingChunks)
+			throws IOException
+	{
+		DescribingHandler handler = new DescribingHandler();
+		new ParallelMapDataParser(handler, new OsmMapDataFactory(), executor, chunkSize,
+				maxPendingChunks).parse(asInputStream(xml));
+		return handler.descriptions;
+	}
+
+	private static ByteArrayInputStream asInputStream(String xml) throws IOException
+	{
+		return new ByteArrayInputStream(xml.getBytes("UTF-8"));
+	}
+
+	private static class DescribingHandler implements MapDataHandler
+	{
+		final List<String> descriptions = new ArrayList<>();
+
+		@Override
+		public void handle(BoundingBox bounds)
+		{
+			descriptions.add("bounds " + bounds.getAsLeftBottomRightTopString());
+		}
+
+		@Override
+		public void handle(Node node)
+		{
+			descriptions.add("node " + node.getId() + " v" + node.getVersion() + " " +
+					node.getPosition().getLatitude() + "," + node.getPosition().getLongitude() + " " +
+					node.getTags() + " " + node.getEditedAt() + " " +
+					(node.getChangeset() != null ? node.getChangeset().id : null));
+		}
+
+		@Override
+		public void handle(Way way)
+		{
+			descriptions.add("way " + way.getId() + " v" + way.getVersion() + " " +
+					way.getNodeIds() + " " + way.getTags());
+		}
+
+		@Override
+		public void handle(Relation relation)
+		{
+			StringBuilder members = new StringBuilder();
+			for (RelationMember member : relation.getMembers())
+			{
+				members.append(member.getType()).append(member.getRef()).append(member.getRole()).append(';');
+			}
+			descriptions.add("relation " + relation.getId() + " v" + relation.getVersion() + " " +
+					members + " " + relation.getTags());
+		}
+	}
+}
@@ -8,6 +8,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -150,6 +151,46 @@ public class MapDataChangesWriterTest
 		assertFalse(writer.hasChanges());
 	}
 
+	@Test public void iteratesElementsOnlyOnce() throws IOException
+	{
+		final List<Element> elements = new ArrayList<>();
+		elements.add(createNode(-1));
+		elements.add(createWay(-2));
+		elements.add(createRelation(-3));
+		Iterable<Element> oneShot = new Iterable<Element>()
+		{
+			private boolean iterated;
+
+			@Override
+			public Iterator<Element> iterator()
+			{
+				if(iterated) throw new IllegalStateException("Iterated twice");
+				iterated = true;
+				return elements.iterator();
+			}
+		};
+
+		MapDataChangesWriter writer = new MapDataChangesWriter(1, oneShot);
+		assertTrue(writer.hasChanges());
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		writer.write(out);
+
+		assertEquals(3, parseXml(TestUtils.asString(out)).getAll().size());
+	}
+
+	@Test public void laterChangesToElementsListAreNotWritten() throws IOException
+	{
+		List<Element> elements = new ArrayList<>();
+		elements.add(createNode(-1));
+		MapDataChangesWriter writer = new MapDataChangesWriter(1, elements);
+		elements.add(createWay(-2));
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		writer.write(out);
+
+		assertEquals(1, parseXml(TestUtils.asString(out)).getAll().size());
+	}
+
     @Test public void writeNodeWithoutPosition() throws Exception {
         try {
             OsmNode element = createNode(-1);
@@ -0,0 +1,122 @@
+package de.westnordost.osmapi.map.data;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class CompactTagMapTest
+{
+	@Test public void behavesLikeHashMap()
+	{
+		Map<String, String> expected = new HashMap<>();
+		Map<String, String> actual = new CompactTagMap();
+		for (int i = 0; i < 20; ++i)
+		{
+			assertEquals(expected.put("k" + i, "v" + i), actual.put("k" + i, "v" + i));
+		}
+		assertEquals(expected.put("k3", "x"), actual.put("k3", "x"));
+		assertEquals(expected.put("k4", null), actual.put("k4", null));
+		assertEquals(expected.remove("k5"), actual.remove("k5"));
+		assertEquals(expected.remove("k5"), actual.remove("k5"));
+		assertEquals(expected, actual);
+		assertEquals(actual, expected);
+		assertEquals(expected.hashCode(), actual.hashCode());
+
+		assertEquals(expected.get("k3"), actual.get("k3"));
+		assertNull(actual.get("k5"));
+		assertNull(actual.get(null));
+		assertTrue(actual.containsKey("k4"));
+		assertTrue(actual.containsValue(null));
+		assertTrue(actual.containsValue("v19"));
+		assertFalse(actual.containsValue("v5"));
+
+		actual.clear();
+		assertTrue(actual.isEmpty());
+		actual.put("a", "b");
+		assertEquals("b", actual.get("a"));
+	}
+
+	@Test public void modifiesViaEntrySet()
+	{
+		Map<String, String> map = new CompactTagMap(new String[]{"a", "b", "c"}, new String[]{"1", "2", "3"});
+		Iterator<Map.Entry<String, String>> it = map.entrySet().iterator();
+		it.next().setValue("x");
+		it.next();
+		it.remove();
+		assertEquals("c", it.next().getKey());
+		assertFalse(it.hasNext());
+
+		Map<String, String> expected = new HashMap<>();
+		expected.put("a", "x");
+		expected.put("c", "3");
+		assertEquals(expected, map);
+
+		map.keySet().remove("a");
+		map.values().remove("3");
+		assertTrue(map.isEmpty());
+	}
+
+	@Test public void sharedArraysAreCopiedOnWrite()
+	{
+		String[] keys = {"building", "name"};
+		String[] values = {"yes", "A"};
+		CompactTagMap a = new CompactTagMap(keys, values);
+		CompactTagMap b = new CompactTagMap(keys, values);
+		CompactTagMap c = new CompactTagMap(a);
+
+		a.put("name", "B");
+		b.remove("building");
+		c.put("roof:shape", "flat");
+
+		assertArrayEquals(new String[]{"building", "name"}, keys);
+		assertArrayEquals(new String[]{"yes", "A"}, values);
+		assertEquals("B", a.get("name"));
+		assertEquals(1, b.size());
+		assertEquals("A", c.get("name"));
+		assertEquals(3, c.size());
+		// the copy still shares its array with the original
+		CompactTagMap d = new CompactTagMap(c);
+		c.clear();
+		assertEquals(3, d.size());
+	}
+
+	@Test public void copiesOtherMaps()
+	{
+		Map<String, String> map = new HashMap<>();
+		map.put("a", "b");
+		map.put("c", "d");
+		assertEquals(map, new CompactTagMap(map));
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void doesNotSupportNullKeys()
+	{
+		new CompactTagMap().put(null, "a");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void needsAsManyKeysAsValues()
+	{
+		new CompactTagMap(new String[]{"a"}, new String[0]);
+	}
+
+	@Test public void serializable() throws IOException, ClassNotFoundException
+	{
+		CompactTagMap map = new CompactTagMap(new String[]{"a", "b"}, new String[]{"1", null});
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(map);
+		out.close();
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		assertEquals(map, in.readObject());
+	}
+}
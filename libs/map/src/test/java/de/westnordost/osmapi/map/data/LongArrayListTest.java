@@ -0,0 +1,130 @@
+package de.westnordost.osmapi.map.data;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LongArrayListTest
+{
+	@Test public void behavesLikeArrayList()
+	{
+		List<Long> expected = new ArrayList<>();
+		LongArrayList actual = new LongArrayList();
+		for (long i = 0; i < 100; ++i)
+		{
+			expected.add(i);
+			actual.add(i);
+		}
+		assertEquals(expected, actual);
+		assertEquals(actual, expected);
+		assertEquals(expected.hashCode(), actual.hashCode());
+
+		expected.add(5, 1000L);
+		actual.add(5, 1000L);
+		expected.remove(50);
+		actual.remove(50);
+		expected.set(0, -1L);
+		actual.set(0, -1L);
+		expected.remove(Long.valueOf(99));
+		actual.remove(Long.valueOf(99));
+		expected.subList(10, 20).clear();
+		actual.subList(10, 20).clear();
+		assertEquals(expected, actual);
+
+		assertEquals(expected.indexOf(1000L), actual.indexOf(1000L));
+		assertEquals(-1, actual.indexOf(99L));
+		assertEquals(-1, actual.indexOf("1000"));
+		assertTrue(actual.contains(1000L));
+		assertArrayEquals(expected.toArray(), actual.toArray());
+	}
+
+	@Test public void primitiveAccessors()
+	{
+		LongArrayList list = new LongArrayList(1);
+		list.addLong(3);
+		list.addLong(5);
+		list.addLong(0, 1);
+		assertEquals(1, list.getLong(0));
+		assertEquals(5, list.getLong(2));
+		assertEquals(3, list.setLong(1, 4));
+		assertEquals(2, list.lastIndexOfLong(5));
+		assertEquals(1, list.removeLongAt(0));
+		assertArrayEquals(new long[]{4, 5}, list.toLongArray());
+	}
+
+	@Test public void copiesCollections()
+	{
+		List<Long> linked = new LinkedList<>(Arrays.asList(1L, 2L, 3L));
+		LongArrayList copy = new LongArrayList(linked);
+		assertEquals(linked, copy);
+		assertEquals(copy, new LongArrayList(copy));
+		assertTrue(new LongArrayList(new ArrayList<Long>()).isEmpty());
+	}
+
+	@Test public void trimToSize()
+	{
+		LongArrayList list = new LongArrayList(100);
+		list.addLong(1);
+		list.trimToSize();
+		list.addLong(2);
+		assertArrayEquals(new long[]{1, 2}, list.toLongArray());
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void getOutOfBounds()
+	{
+		LongArrayList list = new LongArrayList(10);
+		list.addLong(1);
+		list.getLong(1);
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void cannotAddNull()
+	{
+		new LongArrayList().add(null);
+	}
+
+	@Test(expected = ConcurrentModificationException.class)
+	public void iteratorFailsFast()
+	{
+		LongArrayList list = new LongArrayList(Arrays.asList(1L, 2L));
+		Iterator<Long> it = list.iterator();
+		it.next();
+		list.addLong(3);
+		it.next();
+	}
+
+	@Test public void serializable() throws IOException, ClassNotFoundException
+	{
+		LongArrayList list = new LongArrayList(Arrays.asList(1L, 2L, 3L));
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(list);
+		out.close();
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		assertEquals(list, in.readObject());
+	}
+
+	@Test public void wayIsClosed()
+	{
+		OsmWay way = new OsmWay(1, 1, new LinkedList<>(Arrays.asList(1L, 2L, 3L, 1L)), null);
+		assertTrue(way.isClosed());
+		assertEquals(4, way.getNodeCount());
+		assertEquals(2, way.getNodeId(1));
+		way.getNodeIds().remove(3);
+		assertFalse(way.isClosed());
+		assertTrue(way.isModified());
+	}
+}
@@ -0,0 +1,127 @@
+package de.westnordost.osmapi.map.handler;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.westnordost.osmapi.TestUtils;
+import de.westnordost.osmapi.map.MapDataParser;
+import de.westnordost.osmapi.map.OsmMapDataFactory;
+import de.westnordost.osmapi.map.data.Element;
+import de.westnordost.osmapi.map.data.Fixed1E7LatLon;
+import de.westnordost.osmapi.map.data.Node;
+import de.westnordost.osmapi.map.data.OsmNode;
+
+import static org.junit.Assert.*;
+
+public class ColumnarNodeStoreTest
+{
+	private static final String XML =
+			"<osm>" +
+			" <bounds minlat=\"51.74\" minlon=\"0.24\" maxlat=\"51.75\" maxlon=\"0.25\"/>\n" +
+			" <node id=\"1\" version=\"3\" lat=\"51.7463194\" lon=\"-0.2428181\"/>\n" +
+			" <node id=\"2\" version=\"1\" lat=\"-90\" lon=\"180\">\n" +
+			"  <tag k=\"amenity\" v=\"bench\"/>\n" +
+			" </node>\n" +
+			" <node id=\"5\" version=\"2\"/>\n" +
+			" <way id=\"3\"><nd ref=\"1\"/><nd ref=\"2\"/></way>\n" +
+			" <relation id=\"4\"><member type=\"way\" ref=\"3\" role=\"\"/></relation>\n" +
+			"</osm>";
+
+	@Test public void storesNodes() throws IOException
+	{
+		ColumnarNodeStore store = parse(XML);
+		store.trimToSize();
+
+		assertEquals(3, store.getNodeCount());
+		assertEquals(1, store.getBounds().size());
+		assertEquals(3, store.getWays().get(0).getId());
+		assertEquals(4, store.getRelations().get(0).getId());
+
+		assertEquals(1, store.getId(0));
+		assertEquals(3, store.getVersion(0));
+		assertEquals(517463194, store.getLatitude1E7(0));
+		assertEquals(-2428181, store.getLongitude1E7(0));
+		assertTrue(store.getTags(0).isEmpty());
+
+		assertEquals(-900000000, store.getLatitude1E7(1));
+		assertEquals(1800000000, store.getLongitude1E7(1));
+		assertEquals(Collections.singletonMap("amenity", "bench"), store.getTags(1));
+
+		assertTrue(store.hasPosition(1));
+		assertFalse(store.hasPosition(2));
+	}
+
+	@Test public void handsOutNodeViews() throws IOException
+	{
+		ColumnarNodeStore store = parse(XML);
+
+		Node node = store.getNodeById(2);
+		assertEquals(2, node.getId());
+		assertEquals(1, node.getVersion());
+		assertEquals(Element.Type.NODE, node.getType());
+		assertEquals(-90, node.getPosition().getLatitude(), 0);
+		assertEquals(180, node.getPosition().getLongitude(), 0);
+		assertEquals("bench", node.getTags().get("amenity"));
+		assertNull(node.getChangeset());
+		assertFalse(node.isNew());
+		assertFalse(node.isModified());
+
+		assertNull(store.getNodeById(5).getPosition());
+		assertNull(store.getNodeById(3));
+
+		List<Node> nodes = store.getNodes();
+		assertEquals(3, nodes.size());
+		assertEquals(5, nodes.get(2).getId());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void tagsAreReadOnly() throws IOException
+	{
+		parse(XML).getNodeById(2).getTags().put("a", "b");
+	}
+
+	@Test public void findsNodesNotAddedInOrderOfIds()
+	{
+		ColumnarNodeStore store = new ColumnarNodeStore(1);
+		for (long id : new long[]{5, 3, -1, 8, 3})
+		{
+			Map<String, String> tags = new HashMap<>();
+			tags.put("id", String.valueOf(id));
+			store.handle(new OsmNode(id, 1, 1.0, 2.0, tags));
+		}
+		assertEquals(5, store.getNodeCount());
+		assertEquals(1, store.indexOf(3));
+		assertEquals(2, store.indexOf(-1));
+		assertEquals(3, store.indexOf(8));
+		assertEquals(-1, store.indexOf(4));
+		assertEquals("8", store.getNodeById(8).getTags().get("id"));
+		assertTrue(store.getNodeById(-1).isNew());
+	}
+
+	@Test public void takesOverFixed1E7Positions()
+	{
+		ColumnarNodeStore store = new ColumnarNodeStore();
+		store.handle(new OsmNode(1, 1, Fixed1E7LatLon.fromFixed1E7(-1, -1800000000), null));
+		assertEquals(-1, store.getLatitude1E7(0));
+		assertEquals(-1800000000, store.getLongitude1E7(0));
+		assertEquals(Fixed1E7LatLon.fromFixed1E7(-1, -1800000000), store.getNode(0).getPosition());
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void indexOutOfBounds() throws IOException
+	{
+		parse(XML).getId(3);
+	}
+
+	private static ColumnarNodeStore parse(String xml) throws IOException
+	{
+		ColumnarNodeStore store = new ColumnarNodeStore();
+		new MapDataParser(store, new OsmMapDataFactory()).parse(TestUtils.asInputStream(xml));
+		return store;
+	}
+}
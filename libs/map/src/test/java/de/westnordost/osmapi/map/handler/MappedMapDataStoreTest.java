@@ -0,0 +1,161 @@
+package de.westnordost.osmapi.map.handler;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.westnordost.osmapi.TestUtils;
+import de.westnordost.osmapi.map.MapDataParser;
+import de.westnordost.osmapi.map.OsmMapDataFactory;
+import de.westnordost.osmapi.map.data.Element;
+import de.westnordost.osmapi.map.data.Node;
+import de.westnordost.osmapi.map.data.OsmNode;
+import de.westnordost.osmapi.map.data.OsmRelationMember;
+import de.westnordost.osmapi.map.data.OsmWay;
+import de.westnordost.osmapi.map.data.Relation;
+import de.westnordost.osmapi.map.data.RelationMember;
+import de.westnordost.osmapi.map.data.Way;
+
+import static org.junit.Assert.*;
+
+public class MappedMapDataStoreTest
+{
+	private static final String XML =
+			"<osm>" +
+			" <bounds minlat=\"51.74\" minlon=\"0.24\" maxlat=\"51.75\" maxlon=\"0.25\"/>\n" +
+			" <node id=\"1\" version=\"3\" lat=\"51.7463194\" lon=\"-0.2428181\"/>\n" +
+			" <node id=\"2\" version=\"1\" lat=\"-90\" lon=\"180\">\n" +
+			"  <tag k=\"amenity\" v=\"bench\"/>\n" +
+			"  <tag k=\"name\" v=\"Bänkchen\"/>\n" +
+			" </node>\n" +
+			" <node id=\"5\" version=\"2\"/>\n" +
+			" <way id=\"3\" version=\"4\"><nd ref=\"1\"/><nd ref=\"200000000000\"/><nd ref=\"-2\"/><nd ref=\"1\"/></way>\n" +
+			" <relation id=\"4\" version=\"5\">\n" +
+			"  <member type=\"way\" ref=\"3\" role=\"outer\"/>\n" +
+			"  <member type=\"node\" ref=\"1\" role=\"\"/>\n" +
+			"  <tag k=\"type\" v=\"multipolygon\"/>\n" +
+			" </relation>\n" +
+			"</osm>";
+
+	@Rule public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test public void storesNodes() throws IOException
+	{
+		MappedMapDataStore store = parse(XML);
+
+		assertEquals(5, store.getElementCount());
+		assertEquals(1, store.getBounds().size());
+
+		Node node = store.getNode(1);
+		assertEquals(1, node.getId());
+		assertEquals(3, node.getVersion());
+		assertEquals(Element.Type.NODE, node.getType());
+		assertEquals(51.7463194, node.getPosition().getLatitude(), 0);
+		assertEquals(-0.2428181, node.getPosition().getLongitude(), 0);
+		assertTrue(node.getTags().isEmpty());
+		assertNull(node.getChangeset());
+		assertFalse(node.isNew());
+
+		Map<String, String> tags = new HashMap<>();
+		tags.put("amenity", "bench");
+		tags.put("name", "Bänkchen");
+		node = store.getNode(2);
+		assertEquals(tags, node.getTags());
+		assertEquals(-90, node.getPosition().getLatitude(), 0);
+		assertEquals(180, node.getPosition().getLongitude(), 0);
+
+		assertNull(store.getNode(5).getPosition());
+		assertNull(store.getNode(3));
+		store.close();
+	}
+
+	@Test public void storesWaysAndRelations() throws IOException
+	{
+		MappedMapDataStore store = parse(XML);
+
+		Way way = store.getWay(3);
+		assertEquals(4, way.getVersion());
+		assertEquals(Element.Type.WAY, way.getType());
+		assertEquals(Arrays.asList(1L, 200000000000L, -2L, 1L), way.getNodeIds());
+		assertTrue(way.getTags().isEmpty());
+
+		Relation relation = (Relation) store.get(Element.Type.RELATION, 4);
+		assertEquals(5, relation.getVersion());
+		assertEquals(Collections.singletonMap("type", "multipolygon"), relation.getTags());
+		List<RelationMember> members = relation.getMembers();
+		assertEquals(2, members.size());
+		assertEquals(new OsmRelationMember(3, "outer", Element.Type.WAY), members.get(0));
+		assertEquals(new OsmRelationMember(1, "", Element.Type.NODE), members.get(1));
+
+		assertNull(store.getWay(4));
+		assertNull(store.get(Element.Type.RELATION, 3));
+		store.close();
+	}
+
+	@Test public void laterElementReplacesEarlierOne() throws IOException
+	{
+		MappedMapDataStore store = new MappedMapDataStore(folder.newFile());
+		store.handle(new OsmNode(-1, 1, 1.0, 2.0, null));
+		store.handle(new OsmNode(-1, 2, 3.0, 4.0, null));
+		store.handle(new OsmWay(-1, 1, Arrays.asList(-1L), null));
+
+		assertEquals(2, store.getElementCount());
+		assertEquals(2, store.getNode(-1).getVersion());
+		assertTrue(store.getNode(-1).isNew());
+		assertEquals(Arrays.asList(-1L), store.getWay(-1).getNodeIds());
+		store.close();
+	}
+
+	@Test public void manyElementsInSmallSegments() throws IOException
+	{
+		MappedMapDataStore store = new MappedMapDataStore(folder.newFile(), 1000);
+		// more distinct strings than are interned
+		for (long id = 1; id <= 70000; ++id)
+		{
+			store.handle(new OsmNode(id, 1, 1.0, 2.0, Collections.singletonMap("name", "Näme " + id)));
+		}
+		Long[] nodeIds = new Long[1000];
+		for (int i = 0; i < nodeIds.length; ++i)
+		{
+			nodeIds[i] = (long) i * 1000;
+		}
+		// larger than a segment
+		store.handle(new OsmWay(1, 1, Arrays.asList(nodeIds), null));
+
+		assertEquals(70001, store.getElementCount());
+		for (long id = 1; id <= 70000; id += 999)
+		{
+			assertEquals("Näme " + id, store.getNode(id).getTags().get("name"));
+		}
+		assertEquals(Arrays.asList(nodeIds), store.getWay(1).getNodeIds());
+		store.close();
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void viewsAreReadOnly() throws IOException
+	{
+		parse(XML).getNode(2).getTags().put("a", "b");
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void notUsableAfterClose() throws IOException
+	{
+		MappedMapDataStore store = parse(XML);
+		store.close();
+		store.getNode(1);
+	}
+
+	private MappedMapDataStore parse(String xml) throws IOException
+	{
+		MappedMapDataStore store = new MappedMapDataStore(folder.newFile());
+		new MapDataParser(store, new OsmMapDataFactory()).parse(TestUtils.asInputStream(xml));
+		return store;
+	}
+}
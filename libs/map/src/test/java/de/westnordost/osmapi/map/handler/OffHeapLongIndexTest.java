@@ -0,0 +1,44 @@
+package de.westnordost.osmapi.map.handler;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class OffHeapLongIndexTest
+{
+	@Test public void putAndGet()
+	{
+		OffHeapLongIndex index = new OffHeapLongIndex(0);
+		index.put(1, 10);
+		index.put(-5, 20);
+		index.put(Long.MIN_VALUE, 30);
+		index.put(1, 11);
+
+		assertEquals(3, index.size());
+		assertEquals(11, index.get(1));
+		assertEquals(20, index.get(-5));
+		assertEquals(30, index.get(Long.MIN_VALUE));
+		assertEquals(OffHeapLongIndex.NOT_FOUND, index.get(2));
+	}
+
+	@Test public void grows()
+	{
+		OffHeapLongIndex index = new OffHeapLongIndex(1);
+		for (long key = 1; key <= 100000; ++key)
+		{
+			index.put(key * 4, key);
+		}
+		assertEquals(100000, index.size());
+		for (long key = 1; key <= 100000; ++key)
+		{
+			assertEquals(key, index.get(key * 4));
+		}
+		assertEquals(OffHeapLongIndex.NOT_FOUND, index.get(3));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void zeroIsNoKey()
+	{
+		new OffHeapLongIndex(1).put(0, 1);
+	}
+}
@@ -2,11 +2,13 @@ package de.westnordost.osmapi.notes;
 
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
-import java.text.NumberFormat;
-import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 import de.westnordost.osmapi.ApiResponseReader;
+import de.westnordost.osmapi.common.Futures;
 import de.westnordost.osmapi.common.Handler;
+import de.westnordost.osmapi.common.Numbers;
 import de.westnordost.osmapi.common.SingleElementHandler;
 import de.westnordost.osmapi.common.errors.OsmAuthorizationException;
 import de.westnordost.osmapi.common.errors.OsmBadUserInputException;
@@ -25,13 +27,9 @@ public class NotesApi
 
 	private final OsmConnection osm;
 
-	private final NumberFormat numberFormat;
-
 	public NotesApi(OsmConnection osm)
 	{
 		this.osm = osm;
-		numberFormat = NumberFormat.getNumberInstance(Locale.UK);
-		numberFormat.setMaximumFractionDigits(340);
 	}
 
 	/**
@@ -53,8 +51,8 @@ public class NotesApi
 		}
 
 		String data =
-				"lat=" + numberFormat.format(pos.getLatitude()) +
-				"&lon=" + numberFormat.format(pos.getLongitude()) +
+				"lat=" + Numbers.toString(pos.getLatitude()) +
+				"&lon=" + Numbers.toString(pos.getLongitude()) +
 				"&text=" + urlEncode(text);
 		String call = NOTES + "?" + data;
 
@@ -167,6 +165,30 @@ public class NotesApi
 		return noteHandler.get();
 	}
 
+	/**
+	 * Asynchronous variant of {@link #get(long)}
+	 *
+	 * @param id id of the note
+	 *
+	 * @return a future that completes with the note with the given id or null if the note with
+	 *         that id does not exist (anymore).
+	 */
+	public CompletableFuture<Note> getAsync(long id)
+	{
+		final SingleElementHandler<Note> handler = new SingleElementHandler<>();
+		boolean authenticate = osm.getOAuthAccessToken() != null;
+		CompletableFuture<Void> request = osm.makeRequestAsync(NOTES + "/" + id, authenticate, new NotesParser(handler));
+		CompletableFuture<Note> result = request.thenApply(new Function<Void, Note>()
+		{
+			@Override
+			public Note apply(Void aVoid)
+			{
+				return handler.get();
+			}
+		});
+		return Futures.nullIfThrown(result, OsmNotFoundException.class);
+	}
+
 	/**
 	 * Retrieve all notes in the given area and feed them to the given handler.
 	 *
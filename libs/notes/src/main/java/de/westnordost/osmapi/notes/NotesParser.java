@@ -3,12 +3,15 @@ package de.westnordost.osmapi.notes;
 import java.io.IOException;
 import java.io.InputStream;
 import java.text.ParseException;
+import java.time.Instant;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
 
 import de.westnordost.osmapi.ApiResponseReader;
 import de.westnordost.osmapi.common.Handler;
+import de.westnordost.osmapi.common.ParseOptions;
+import de.westnordost.osmapi.common.TimestampParser;
 import de.westnordost.osmapi.common.XmlParser;
 import de.westnordost.osmapi.map.data.OsmLatLon;
 import de.westnordost.osmapi.user.User;
@@ -23,25 +26,49 @@ public class NotesParser extends XmlParser implements ApiResponseReader<Void>
 
 	private static final NotesDateFormat FORMATTER = new NotesDateFormat();
 
+	private final TimestampParser timestampParser = new TimestampParser()
+	{
+		@Override
+		protected Instant parseOther(String source)
+		{
+			return FORMATTER.parse(source);
+		}
+	};
+
 	/* temporary map so we do not parse and hold many times the same user */
 	private Map<Long, User> users;
 
 	private final Handler<Note> handler;
+	private final ParseOptions<Note> options;
 	private Note currentNote;
 	private NoteComment currentComment;
 
 	private long userId = -1;
 	private String userName;
 
+	/* number of notes passed on to the handler in the current parse */
+	private long handledCount;
+
 	public NotesParser(Handler<Note> handler)
+	{
+		this(handler, new ParseOptions<Note>());
+	}
+
+	/**
+	 * @param handler handler that is fed the notes
+	 * @param options which parts of the notes to parse and which notes to pass on to the handler
+	 */
+	public NotesParser(Handler<Note> handler, ParseOptions<Note> options)
 	{
 		this.handler = handler;
+		this.options = options;
 	}
 
 	@Override
 	public Void parse(InputStream in) throws IOException
 	{
 		users = new HashMap<>();
+		handledCount = 0;
 		doParse(in);
 		users = null;
 		return null;
@@ -57,7 +84,7 @@ public class NotesParser extends XmlParser implements ApiResponseReader<Void>
 			currentNote = new Note();
 			currentNote.position = OsmLatLon.parseLatLon(getAttribute("lat"), getAttribute("lon"));
 		}
-		else if(name.equals(COMMENT))
+		else if(name.equals(COMMENT) && options.includesComments())
 		{
 			currentComment = new NoteComment();
 		}
@@ -72,11 +99,17 @@ public class NotesParser extends XmlParser implements ApiResponseReader<Void>
 
 		if(NOTE.equals(name))
 		{
-			handler.handle( currentNote );
+			if(options.accepts(currentNote))
+			{
+				handler.handle( currentNote );
+				if(++handledCount >= options.getLimit()) stopParse();
+			}
 			currentNote = null;
 		}
 		else if(COMMENT.equals(name))
 		{
+			if(currentComment == null) return;
+
 			if(userId != -1 || userName != null)
 			{
 				if(!users.containsKey(userId))
@@ -96,7 +129,7 @@ public class NotesParser extends XmlParser implements ApiResponseReader<Void>
 		{
 			parseNoteTextNode(name,txt);
 		}
-		else if(COMMENT.equals(parentName))
+		else if(COMMENT.equals(parentName) && currentComment != null)
 		{
 			parseCommentTextNode(name,txt);
 		}
@@ -113,10 +146,10 @@ public class NotesParser extends XmlParser implements ApiResponseReader<Void>
 				currentNote.status = Note.Status.valueOf(txt.toUpperCase(Locale.UK));
 				break;
 			case "date_created":
-				currentNote.createdAt = FORMATTER.parse(txt);
+				currentNote.createdAt = timestampParser.parse(txt);
 				break;
 			case "date_closed":
-				currentNote.closedAt = FORMATTER.parse(txt);
+				currentNote.closedAt = timestampParser.parse(txt);
 				break;
 		}
 	}
@@ -126,13 +159,13 @@ public class NotesParser extends XmlParser implements ApiResponseReader<Void>
 		switch (name)
 		{
 			case "date":
-				currentComment.date = FORMATTER.parse(txt);
+				currentComment.date = timestampParser.parse(txt);
 				break;
 			case "user":
-				userName = txt;
+				if(options.includesMetadata()) userName = txt;
 				break;
 			case "uid":
-				userId = Long.parseLong(txt);
+				if(options.includesMetadata()) userId = Long.parseLong(txt);
 				break;
 			case "text":
 				currentComment.text = txt;
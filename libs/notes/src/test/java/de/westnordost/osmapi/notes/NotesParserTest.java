@@ -6,10 +6,12 @@ import java.io.IOException;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.function.Predicate;
 
 import de.westnordost.osmapi.TestUtils;
 import de.westnordost.osmapi.common.Handler;
 import de.westnordost.osmapi.common.ListHandler;
+import de.westnordost.osmapi.common.ParseOptions;
 import de.westnordost.osmapi.common.SingleElementHandler;
 
 import static org.junit.Assert.*;
@@ -206,25 +208,90 @@ public class NotesParserTest
 		assertSame(comments.get(0).user, comments.get(2).user);
 	}
 	
+	@Test public void parseWithoutCommentUsers()
+	{
+		String xml =
+				"<note lon=\"0\" lat=\"0\">" +
+				"	<comments>" +
+				"		<comment>" +
+				"			<uid>1234</uid>" +
+				"			<user>blub</user>" +
+				"			<text>hi</text>" +
+				"		</comment>" +
+				"	</comments>" +
+				"</note>";
+
+		Note note = parseList(xml, new ParseOptions<Note>().withoutMetadata()).get(0);
+
+		assertEquals("hi", note.comments.get(0).text);
+		assertNull(note.comments.get(0).user);
+	}
+
+	@Test public void parseWithoutComments()
+	{
+		String xml =
+				"<note lon=\"0\" lat=\"0\">" +
+				"	<id>1</id>" +
+				"	<comments>" +
+				"		<comment>" +
+				"			<text>hi</text>" +
+				"		</comment>" +
+				"	</comments>" +
+				"</note>";
+
+		Note note = parseList(xml, new ParseOptions<Note>().withoutComments()).get(0);
+
+		assertEquals(1, note.id);
+		assertTrue(note.comments.isEmpty());
+	}
+
+	@Test public void parseFilteredAndLimited()
+	{
+		String xml =
+				"<osm>" +
+				"<note lon=\"0\" lat=\"0\"><id>1</id><status>closed</status></note>" +
+				"<note lon=\"0\" lat=\"0\"><id>2</id><status>open</status></note>" +
+				"<note lon=\"0\" lat=\"0\"><id>3</id><status>open</status></note>" +
+				"<note lon=\"0\" lat=\"0\"><id>4</id><status>open</status></note>" +
+				"</osm>";
+
+		List<Note> notes = parseList(xml, new ParseOptions<Note>().limit(2).filter(new Predicate<Note>()
+		{
+			@Override public boolean test(Note note)
+			{
+				return note.status == Note.Status.OPEN;
+			}
+		}));
+
+		assertEquals(2, notes.size());
+		assertEquals(2, notes.get(0).id);
+		assertEquals(3, notes.get(1).id);
+	}
+
 	private List<Note> parseList(String xml)
+	{
+		return parseList(xml, new ParseOptions<Note>());
+	}
+
+	private List<Note> parseList(String xml, ParseOptions<Note> options)
 	{
 		ListHandler<Note> handler = new ListHandler<>();
-		parse(xml, handler);
+		parse(xml, handler, options);
 		return handler.get();
 	}
 	
 	private Note parseOne(String xml)
 	{
 		SingleElementHandler<Note> handler = new SingleElementHandler<>();
-		parse(xml, handler);
+		parse(xml, handler, new ParseOptions<Note>());
 		return handler.get();
 	}
 	
-	private void parse(String xml, Handler<Note> handler)
+	private void parse(String xml, Handler<Note> handler, ParseOptions<Note> options)
 	{
 		try
 		{
-			new NotesParser(handler).parse(TestUtils.asInputStream(xml));
+			new NotesParser(handler, options).parse(TestUtils.asInputStream(xml));
 		}
 		catch(IOException e)
 		{
@@ -0,0 +1,281 @@
+package de.westnordost.osmapi.xml;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import de.westnordost.osmapi.common.errors.XmlParserException;
+
+/** XML backend based on the StAX API (javax.xml.stream), which is not available on Android. By
+ *  default, the StAX implementation found on the classpath is used, so adding i.e. Aalto or
+ *  Woodstox as a dependency is enough to use it. To use it for all parsers and writers, call
+ *  <br><br>
+ *  <tt>XmlBackends.setDefault(new StaxBackend());</tt>
+ *  <br><br>
+ *  Unlike kxml2, StAX parsers reject documents that are not well-formed, i.e. that have more than
+ *  one root element. */
+public class StaxBackend implements XmlBackend
+{
+	private final XMLInputFactory inputFactory;
+	private final XMLOutputFactory outputFactory;
+
+	public StaxBackend()
+	{
+		this(XMLInputFactory.newInstance(), XMLOutputFactory.newInstance());
+	}
+
+	/** @param inputFactory factory for the parsers. It is configured here and must not be
+	 *                     configured further afterwards.
+	 *  @param outputFactory factory for the serializers */
+	public StaxBackend(XMLInputFactory inputFactory, XMLOutputFactory outputFactory)
+	{
+		// text is reported as one event, like with XmlPull
+		inputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+		// the API responses have no DTD, don't resolve any
+		inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		this.inputFactory = inputFactory;
+		this.outputFactory = outputFactory;
+	}
+
+	@Override
+	public XmlStreamParser newParser()
+	{
+		return new Parser(inputFactory);
+	}
+
+	@Override
+	public XmlStreamSerializer newSerializer()
+	{
+		return new Serializer(outputFactory);
+	}
+
+	private static class Parser implements XmlStreamParser
+	{
+		private final XMLInputFactory factory;
+		private XMLStreamReader reader;
+		/* StAX reports text interrupted by comments as several events, so the event after the text
+		   needs to be read ahead to merge them */
+		private int nextEvent = -1;
+		private String text;
+
+		Parser(XMLInputFactory factory)
+		{
+			this.factory = factory;
+		}
+
+		@Override
+		public void setInput(InputStream in, String charset) throws IOException
+		{
+			try
+			{
+				if(reader != null) reader.close();
+				reader = factory.createXMLStreamReader(in, charset);
+				nextEvent = -1;
+			}
+			catch(XMLStreamException e)
+			{
+				IOException ioException = getIOException(e);
+				if(ioException != null) throw ioException;
+				throw new XmlParserException(getPositionDescription(), e);
+			}
+		}
+
+		@Override
+		public int next() throws IOException
+		{
+			try
+			{
+				while(true)
+				{
+					int event = nextEvent != -1 ? nextEvent : reader.next();
+					nextEvent = -1;
+					switch (event)
+					{
+						case XMLStreamConstants.START_ELEMENT:
+							return START_ELEMENT;
+						case XMLStreamConstants.END_ELEMENT:
+							return END_ELEMENT;
+						case XMLStreamConstants.CHARACTERS:
+						case XMLStreamConstants.CDATA:
+						case XMLStreamConstants.SPACE:
+							readText();
+							return TEXT;
+						case XMLStreamConstants.END_DOCUMENT:
+							return END_DOCUMENT;
+					}
+				}
+			}
+			catch(XMLStreamException e)
+			{
+				IOException ioException = getIOException(e);
+				if(ioException != null) throw ioException;
+				throw new XmlParserException(getPositionDescription(), e);
+			}
+		}
+
+		private void readText() throws XMLStreamException
+		{
+			text = reader.getText();
+			StringBuilder builder = null;
+			while(true)
+			{
+				int event = reader.next();
+				if(isText(event))
+				{
+					if(builder == null) builder = new StringBuilder(text);
+					builder.append(reader.getText());
+				}
+				else if(event != XMLStreamConstants.COMMENT && event != XMLStreamConstants.PROCESSING_INSTRUCTION)
+				{
+					nextEvent = event;
+					break;
+				}
+			}
+			if(builder != null) text = builder.toString();
+		}
+
+		private static boolean isText(int event)
+		{
+			return event == XMLStreamConstants.CHARACTERS
+					|| event == XMLStreamConstants.CDATA
+					|| event == XMLStreamConstants.SPACE;
+		}
+
+		@Override
+		public String getName()
+		{
+			return reader.getLocalName();
+		}
+
+		@Override
+		public String getAttributeValue(String name)
+		{
+			return reader.getAttributeValue(null, name);
+		}
+
+		@Override
+		public String getText()
+		{
+			return text;
+		}
+
+		@Override
+		public String getPositionDescription()
+		{
+			if(reader == null) return "start";
+			Location location = reader.getLocation();
+			return "line " + location.getLineNumber() + ", column " + location.getColumnNumber();
+		}
+
+		/** StAX wraps errors of the underlying stream into XMLStreamExceptions, but these should
+		 *  not be reported as malformed XML
+		 *  @return the IOException wrapped in the given exception or null if there is none */
+		private static IOException getIOException(XMLStreamException e)
+		{
+			Throwable cause = e.getNestedException() != null ? e.getNestedException() : e.getCause();
+			return cause instanceof IOException ? (IOException) cause : null;
+		}
+	}
+
+	private static class Serializer implements XmlStreamSerializer
+	{
+		private final XMLOutputFactory factory;
+		private XMLStreamWriter writer;
+
+		Serializer(XMLOutputFactory factory)
+		{
+			this.factory = factory;
+		}
+
+		@Override
+		public void startDocument(OutputStream out, String charset) throws IOException
+		{
+			try
+			{
+				writer = factory.createXMLStreamWriter(out, charset);
+				writer.writeStartDocument(charset, "1.0");
+			}
+			catch(XMLStreamException e)
+			{
+				throw new IOException(e);
+			}
+		}
+
+		@Override
+		public void startTag(String name) throws IOException
+		{
+			try
+			{
+				writer.writeStartElement(name);
+			}
+			catch(XMLStreamException e)
+			{
+				throw new IOException(e);
+			}
+		}
+
+		@Override
+		public void attribute(String name, String value) throws IOException
+		{
+			try
+			{
+				writer.writeAttribute(name, value);
+			}
+			catch(XMLStreamException e)
+			{
+				throw new IOException(e);
+			}
+		}
+
+		@Override
+		public void text(String text) throws IOException
+		{
+			try
+			{
+				writer.writeCharacters(text);
+			}
+			catch(XMLStreamException e)
+			{
+				throw new IOException(e);
+			}
+		}
+
+		@Override
+		public void endTag(String name) throws IOException
+		{
+			try
+			{
+				writer.writeEndElement();
+			}
+			catch(XMLStreamException e)
+			{
+				throw new IOException(e);
+			}
+		}
+
+		@Override
+		public void endDocument() throws IOException
+		{
+			try
+			{
+				writer.writeEndDocument();
+				writer.flush();
+				// does not close the underlying output stream
+				writer.close();
+			}
+			catch(XMLStreamException e)
+			{
+				throw new IOException(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,177 @@
+package de.westnordost.osmapi.xml;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.westnordost.osmapi.TestUtils;
+import de.westnordost.osmapi.common.XmlParser;
+import de.westnordost.osmapi.common.XmlWriter;
+import de.westnordost.osmapi.common.errors.XmlParserException;
+
+import static org.junit.Assert.*;
+
+public class StaxBackendTest
+{
+	private static final String XML =
+			"<?xml version='1.0' encoding='UTF-8'?>\n" +
+			"<osm version='0.6'>\n" +
+			" <node id='1' lat='52.5' lon=\"13.3\">\n" +
+			"  <tag k='name' v='&quot;Caf&#233; &amp; Bar&quot;'/>\n" +
+			" </node>\n" +
+			" <note>text with &lt;entities&gt; and <![CDATA[<cdata>]]> äöü</note>\n" +
+			" <!-- a comment -->\n" +
+			" <empty/>\n" +
+			"</osm>\n";
+
+	@After public void tearDown()
+	{
+		XmlBackends.setDefault(new XmlPullBackend());
+	}
+
+	@Test public void sameEventsAsXmlPull() throws IOException
+	{
+		assertEquals(events(new XmlPullBackend(), XML), events(new StaxBackend(), XML));
+	}
+
+	@Test public void parserCanBeReused() throws IOException
+	{
+		XmlStreamParser parser = new StaxBackend().newParser();
+		List<String> first = events(parser, XML);
+		assertEquals(first, events(parser, XML));
+	}
+
+	@Test public void malformedXmlThrowsXmlParserException() throws IOException
+	{
+		try
+		{
+			events(new StaxBackend(), "<osm><node></osm>");
+			fail();
+		}
+		catch(XmlParserException e)
+		{
+			// test passed
+		}
+	}
+
+	@Test public void ioExceptionIsNotWrappedIntoXmlParserException()
+	{
+		InputStream exceptionStream = new InputStream()
+		{
+			@Override
+			public int read() throws IOException
+			{
+				throw new IOException();
+			}
+		};
+
+		XmlStreamParser parser = new StaxBackend().newParser();
+		try
+		{
+			parser.setInput(exceptionStream, "UTF-8");
+			while(parser.next() != XmlStreamParser.END_DOCUMENT);
+			fail();
+		}
+		catch(IOException e)
+		{
+			// test passed
+		}
+	}
+
+	@Test public void writtenXmlCanBeParsed() throws IOException
+	{
+		XmlBackends.setDefault(new StaxBackend());
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new XmlWriter()
+		{
+			@Override
+			protected void write() throws IOException
+			{
+				begin("osm");
+				begin("node");
+				attribute("id", 1L);
+				attribute("lat", 0.0000001);
+				begin("tag");
+				attribute("v", "\"Café & Bar\" <>");
+				end();
+				end();
+				begin("note");
+				text("jo <>");
+				end();
+				end();
+			}
+		}.write(out);
+
+		CollectingXmlParser parser = new CollectingXmlParser();
+		parser.parse(TestUtils.asInputStream(TestUtils.asString(out)));
+
+		List<String> expected = new ArrayList<>();
+		expected.add("osm");
+		expected.add("node");
+		expected.add("1 0.0000001");
+		expected.add("tag");
+		expected.add("\"Café & Bar\" <>");
+		expected.add("note");
+		expected.add("jo <>");
+		assertEquals(expected, parser.result);
+	}
+
+	private static List<String> events(XmlBackend backend, String xml) throws IOException
+	{
+		return events(backend.newParser(), xml);
+	}
+
+	private static List<String> events(XmlStreamParser parser, String xml) throws IOException
+	{
+		List<String> events = new ArrayList<>();
+		parser.setInput(TestUtils.asInputStream(xml), "UTF-8");
+		int event;
+		while((event = parser.next()) != XmlStreamParser.END_DOCUMENT)
+		{
+			switch(event)
+			{
+				case XmlStreamParser.START_ELEMENT:
+					events.add("<" + parser.getName() + " id=" + parser.getAttributeValue("id")
+							+ " v=" + parser.getAttributeValue("v"));
+					break;
+				case XmlStreamParser.END_ELEMENT:
+					events.add("</" + parser.getName());
+					break;
+				case XmlStreamParser.TEXT:
+					events.add("'" + parser.getText() + "'");
+					break;
+			}
+		}
+		return events;
+	}
+
+	private static class CollectingXmlParser extends XmlParser
+	{
+		final List<String> result = new ArrayList<>();
+
+		void parse(InputStream in) throws IOException
+		{
+			doParse(in);
+		}
+
+		@Override
+		protected void onStartElement()
+		{
+			result.add(getName());
+			if(getName().equals("node")) result.add(getAttribute("id") + " " + getAttribute("lat"));
+			if(getName().equals("tag")) result.add(getAttribute("v"));
+		}
+
+		@Override
+		protected void onEndElement()
+		{
+			if(getText() != null) result.add(getText());
+		}
+	}
+}
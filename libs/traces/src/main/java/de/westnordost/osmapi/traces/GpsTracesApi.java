@@ -4,10 +4,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 import de.westnordost.osmapi.ApiRequestWriter;
 import de.westnordost.osmapi.OsmConnection;
 import de.westnordost.osmapi.common.FormDataWriter;
+import de.westnordost.osmapi.common.Futures;
 import de.westnordost.osmapi.common.Handler;
 import de.westnordost.osmapi.common.IdResponseReader;
 import de.westnordost.osmapi.common.SingleElementHandler;
@@ -218,6 +221,29 @@ public class GpsTracesApi
 		return handler.get();
 	}
 	
+	/**
+	 * Asynchronous variant of {@link #get(long)}
+	 *
+	 * @param id id of the trace to get
+	 * @return a future that completes with the information for the trace with the given id or
+	 *         null if it does not exist.
+	 */
+	public CompletableFuture<GpsTraceDetails> getAsync(long id)
+	{
+		final SingleElementHandler<GpsTraceDetails> handler = new SingleElementHandler<>();
+		CompletableFuture<Void> request = osm.makeRequestAsync(GPX + "/" + id, "GET", true, null,
+				new GpsTracesParser(handler));
+		CompletableFuture<GpsTraceDetails> result = request.thenApply(new Function<Void, GpsTraceDetails>()
+		{
+			@Override
+			public GpsTraceDetails apply(Void aVoid)
+			{
+				return handler.get();
+			}
+		});
+		return Futures.nullIfThrown(result, OsmNotFoundException.class);
+	}
+
 	/**
 	 * Get all trackpoints contained in the given trace id. Note that the trace is a GPX file, so 
 	 * there is potentially much more information in there than simply the trackpoints. However, 
@@ -3,12 +3,12 @@ package de.westnordost.osmapi.traces;
 import java.io.IOException;
 import java.io.InputStream;
 import java.text.ParseException;
-import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Locale;
 
 import de.westnordost.osmapi.ApiResponseReader;
 import de.westnordost.osmapi.common.Handler;
+import de.westnordost.osmapi.common.TimestampParser;
 import de.westnordost.osmapi.common.XmlParser;
 import de.westnordost.osmapi.map.data.OsmLatLon;
 
@@ -21,6 +21,7 @@ public class GpsTracesParser extends XmlParser implements ApiResponseReader<Void
 			TAG = "tag",
 			DESCRIPTION = "description";
 
+	private final TimestampParser timestampParser = new TimestampParser();
 	private final Handler<GpsTraceDetails> handler;
 	private GpsTraceDetails trace;
 
@@ -60,7 +61,7 @@ public class GpsTracesParser extends XmlParser implements ApiResponseReader<Void
 			
 			String timestamp = getAttribute("timestamp");
 			if(timestamp != null)
-			trace.createdAt = Instant.parse(timestamp);
+			trace.createdAt = timestampParser.parse(timestamp);
 		}
 	}
 
@@ -7,6 +7,7 @@ import java.time.Instant;
 
 import de.westnordost.osmapi.ApiResponseReader;
 import de.westnordost.osmapi.common.Handler;
+import de.westnordost.osmapi.common.TimestampParser;
 import de.westnordost.osmapi.common.XmlParser;
 import de.westnordost.osmapi.map.data.LatLon;
 import de.westnordost.osmapi.map.data.OsmLatLon;
@@ -20,6 +21,7 @@ public class GpxTrackParser extends XmlParser implements ApiResponseReader<Void>
 	  TRACKPOINT = "trkpt",
 	  TRACKSEGMENT = "trkseg";
 
+	private final TimestampParser timestampParser = new TimestampParser();
 	private final Handler<GpsTrackpoint> handler;
 	
 	private boolean isFirstPointInTrackSegment = false;
@@ -75,7 +77,7 @@ public class GpxTrackParser extends XmlParser implements ApiResponseReader<Void>
 		}
 		else if(TRACKPOINT.equals(getParentName()))
 		{
-			if(name.equals("time"))	time = Instant.parse(getText());
+			if(name.equals("time"))	time = timestampParser.parse(getText());
 			if(name.equals("ele")) elevation = Float.valueOf(getText());
 			if(name.equals("hdop"))	horizontalDilutionOfPrecision = Float.valueOf(getText());
 		}
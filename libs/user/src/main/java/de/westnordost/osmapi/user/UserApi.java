@@ -3,8 +3,11 @@ package de.westnordost.osmapi.user;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 import de.westnordost.osmapi.OsmConnection;
+import de.westnordost.osmapi.common.Futures;
 import de.westnordost.osmapi.common.ListHandler;
 import de.westnordost.osmapi.common.SingleElementHandler;
 import de.westnordost.osmapi.common.errors.OsmNotFoundException;
@@ -32,6 +35,9 @@ public class UserApi
 	}
 
 	/**
+	 * The response is cached in the connection's response cache (if any) and only downloaded
+	 * again if it changed.
+	 *
 	 * @param userId id of the user to get the user info for
 	 * @return the user info of the given user. Null if the user does not exist.
 	 *  */
@@ -41,7 +47,7 @@ public class UserApi
 		{
 			SingleElementHandler<UserInfo> handler = new SingleElementHandler<>();
 			boolean authenticate = osm.getOAuthAccessToken() != null;
-			osm.makeRequest("user/" + userId, authenticate, new UserInfoParser(handler));
+			osm.makeCachedRequest("user/" + userId, authenticate, false, new UserInfoParser(handler));
 			return handler.get();
 		}
 		catch(OsmNotFoundException e)
@@ -50,6 +56,29 @@ public class UserApi
 		}
 	}
 
+	/**
+	 * Asynchronous variant of {@link #get(long)}
+	 *
+	 * @param userId id of the user to get the user info for
+	 * @return a future that completes with the user info of the given user or null if the user
+	 *         does not exist.
+	 *  */
+	public CompletableFuture<UserInfo> getAsync(long userId)
+	{
+		final SingleElementHandler<UserInfo> handler = new SingleElementHandler<>();
+		boolean authenticate = osm.getOAuthAccessToken() != null;
+		CompletableFuture<Void> request = osm.makeCachedRequestAsync("user/" + userId, authenticate, false, new UserInfoParser(handler));
+		CompletableFuture<UserInfo> result = request.thenApply(new Function<Void, UserInfo>()
+		{
+			@Override
+			public UserInfo apply(Void aVoid)
+			{
+				return handler.get();
+			}
+		});
+		return Futures.nullIfThrown(result, OsmNotFoundException.class);
+	}
+
 	public List<UserInfo> getAll(Collection<Long> userIds)
 	{
 		if(userIds.isEmpty()) return Collections.emptyList();
@@ -3,12 +3,12 @@ package de.westnordost.osmapi.user;
 import java.io.IOException;
 import java.io.InputStream;
 import java.text.ParseException;
-import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
 import de.westnordost.osmapi.ApiResponseReader;
 import de.westnordost.osmapi.common.Handler;
+import de.westnordost.osmapi.common.TimestampParser;
 import de.westnordost.osmapi.common.XmlParser;
 
 /** Parses information for users (API 0.6, since 2012).
@@ -21,6 +21,7 @@ public class UserInfoParser extends XmlParser implements ApiResponseReader<Void>
 	                            ROLES = "roles",
 	                            BLOCKS = "blocks";
 
+	private final TimestampParser timestampParser = new TimestampParser();
 	private List<String> roles;
 
 	protected Handler<UserInfo> handler;
@@ -52,7 +53,7 @@ public class UserInfoParser extends XmlParser implements ApiResponseReader<Void>
 		if(USER.equals(name))
 		{
 			createUser(getLongAttribute("id"),getAttribute("display_name"));
-			user.createdAt = Instant.parse(getAttribute("account_created"));
+			user.createdAt = timestampParser.parse(getAttribute("account_created"));
 		}
 		
 		if(USER.equals(parent))
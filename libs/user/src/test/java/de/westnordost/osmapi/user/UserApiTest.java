@@ -49,6 +49,12 @@ public class UserApiTest
 		assertNotNull(anonymousApi.get(1L));
 	}
 
+	@Test public void getUserInfoAsync() throws Exception
+	{
+		assertNull(anonymousApi.getAsync(0L).get());
+		assertNotNull(anonymousApi.getAsync(1L).get());
+	}
+
 	@Test public void getUserInfos()
 	{
 		assertEquals(2,unprivilegedApi.getAll(Arrays.asList(1L, 2L)).size());
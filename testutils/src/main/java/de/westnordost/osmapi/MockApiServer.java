@@ -0,0 +1,193 @@
+package de.westnordost.osmapi;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/** A local HTTP server that answers with previously enqueued responses, so that the behavior of
+ *  the OsmConnection can be tested without the real API */
+public class MockApiServer
+{
+	private static final String CHARSET = "UTF-8";
+
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final ConcurrentLinkedQueue<Response> responses = new ConcurrentLinkedQueue<>();
+	private final List<Request> requests = Collections.synchronizedList(new ArrayList<Request>());
+	private volatile Response defaultResponse = new Response(200, "");
+
+	public MockApiServer() throws IOException
+	{
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/", new HttpHandler()
+		{
+			@Override
+			public void handle(HttpExchange exchange) throws IOException
+			{
+				MockApiServer.this.handle(exchange);
+			}
+		});
+		executor = Executors.newCachedThreadPool();
+		server.setExecutor(executor);
+		server.start();
+	}
+
+	/** @return the URL to use as the api URL for an OsmConnection */
+	public String getApiUrl()
+	{
+		return "http://localhost:" + server.getAddress().getPort() + "/api/0.6/";
+	}
+
+	/** Answer the next request with the given response */
+	public void enqueue(Response response)
+	{
+		responses.add(response);
+	}
+
+	/** Answer all requests with the given response once the enqueued responses are used up */
+	public void setDefaultResponse(Response response)
+	{
+		defaultResponse = response;
+	}
+
+	/** @return all requests received so far */
+	public List<Request> getRequests()
+	{
+		synchronized(requests)
+		{
+			return new ArrayList<>(requests);
+		}
+	}
+
+	public void stop()
+	{
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException
+	{
+		Map<String, String> headers = new HashMap<>();
+		for (Map.Entry<String, List<String>> header : exchange.getRequestHeaders().entrySet())
+		{
+			headers.put(header.getKey().toLowerCase(), header.getValue().get(0));
+		}
+		requests.add(new Request(exchange.getRequestMethod(),
+				exchange.getRequestURI().toString(), headers, readAll(exchange.getRequestBody())));
+
+		Response response = responses.poll();
+		if(response == null) response = defaultResponse;
+
+		if(response.delayMillis > 0)
+		{
+			try
+			{
+				Thread.sleep(response.delayMillis);
+			}
+			catch(InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		Headers responseHeaders = exchange.getResponseHeaders();
+		for (Map.Entry<String, String> header : response.headers.entrySet())
+		{
+			responseHeaders.add(header.getKey(), header.getValue());
+		}
+		exchange.sendResponseHeaders(response.code, response.body.length > 0 ? response.body.length : -1);
+		OutputStream out = exchange.getResponseBody();
+		out.write(response.body);
+		out.close();
+	}
+
+	private static byte[] readAll(InputStream in) throws IOException
+	{
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		int length;
+		while ((length = in.read(buffer)) != -1)
+		{
+			result.write(buffer, 0, length);
+		}
+		return result.toByteArray();
+	}
+
+	public static class Response
+	{
+		public final int code;
+		public final byte[] body;
+		public final Map<String, String> headers = new LinkedHashMap<>();
+		public long delayMillis;
+
+		public Response(int code, byte[] body)
+		{
+			this.code = code;
+			this.body = body;
+		}
+
+		public Response(int code, String body)
+		{
+			this(code, toBytes(body));
+		}
+
+		public Response header(String name, String value)
+		{
+			headers.put(name, value);
+			return this;
+		}
+
+		public Response delay(long millis)
+		{
+			delayMillis = millis;
+			return this;
+		}
+	}
+
+	public static class Request
+	{
+		public final String method;
+		/** path and query, i.e. /api/0.6/node/1 */
+		public final String path;
+		/** request headers with lower case names */
+		public final Map<String, String> headers;
+		public final byte[] body;
+
+		Request(String method, String path, Map<String, String> headers, byte[] body)
+		{
+			this.method = method;
+			this.path = path;
+			this.headers = headers;
+			this.body = body;
+		}
+	}
+
+	private static byte[] toBytes(String str)
+	{
+		try
+		{
+			return str.getBytes(CHARSET);
+		}
+		catch (UnsupportedEncodingException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+}